@@ -1,28 +1,95 @@
 package com.nayeem.redistest;
 
+import com.nayeem.redistest.benchmark.BenchmarkRunScheduler;
+import com.nayeem.redistest.benchmark.RunComparison;
+import com.nayeem.redistest.benchmark.RunOptions;
+import com.nayeem.redistest.config.BenchmarkSettings;
 import com.nayeem.redistest.model.TestData;
+import com.nayeem.redistest.repository.ScanSlice;
 import com.nayeem.redistest.service.RedisService;
 import com.nayeem.redistest.service.PerformanceTestService;
 import com.nayeem.redistest.service.SpringDataRedisService;
 import com.nayeem.redistest.service.SpringDataPerformanceTestService;
 import com.nayeem.redistest.service.RedisComparisonService;
+import com.nayeem.redistest.service.NetworkSimulationService;
+import com.nayeem.redistest.service.BatchIngestService;
+import com.nayeem.redistest.service.BenchmarkResultStore;
+import com.nayeem.redistest.service.BucketedStorageBenchmarkService;
+import com.nayeem.redistest.service.BucketedTestDataStore;
+import com.nayeem.redistest.service.DataStructureBenchmarkService;
+import com.nayeem.redistest.service.DatasetLoaderService;
+import com.nayeem.redistest.service.ExistenceFilterBenchmarkService;
+import com.nayeem.redistest.service.HttpLoadBenchmarkService;
+import com.nayeem.redistest.service.PassthroughBenchmarkService;
+import com.nayeem.redistest.service.PayloadSweepBenchmarkService;
+import com.nayeem.redistest.service.RawJsonEnvelope;
+import com.nayeem.redistest.service.JfrRunProfiler;
+import com.nayeem.redistest.service.KeyspaceInvalidationListener;
+import com.nayeem.redistest.service.L1CacheBenchmarkService;
+import com.nayeem.redistest.service.RedisShards;
+import com.nayeem.redistest.service.ServerStatsSampler;
+import com.nayeem.redistest.service.ShardingBenchmarkService;
+import com.nayeem.redistest.service.ReplicaReadBenchmarkService;
+import com.nayeem.redistest.service.ReplicaReads;
+import com.nayeem.redistest.service.TestDataBloomFilter;
+import com.nayeem.redistest.service.TestDataL1Cache;
+import com.nayeem.redistest.service.StreamingBenchmarkService;
+import com.nayeem.redistest.service.WriteBehindBenchmarkService;
+import com.nayeem.redistest.service.WriteBehindBuffer;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api")
 @RequiredArgsConstructor
 public class BasicController {
 
+    private static final int MAX_PAGE_SIZE = 10_000;
+
     private final RedisService redisService;
     private final PerformanceTestService performanceTestService;
     private final SpringDataRedisService springDataRedisService;
     private final SpringDataPerformanceTestService springDataPerformanceTestService;
     private final RedisComparisonService redisComparisonService;
+    private final NetworkSimulationService networkSimulationService;
+    private final BenchmarkSettings benchmarkSettings;
+    private final BatchIngestService batchIngestService;
+    private final HttpLoadBenchmarkService httpLoadBenchmarkService;
+    private final PassthroughBenchmarkService passthroughBenchmarkService;
+    private final WriteBehindBuffer writeBehindBuffer;
+    private final WriteBehindBenchmarkService writeBehindBenchmarkService;
+    private final TestDataL1Cache testDataL1Cache;
+    private final KeyspaceInvalidationListener keyspaceInvalidationListener;
+    private final L1CacheBenchmarkService l1CacheBenchmarkService;
+    private final TestDataBloomFilter testDataBloomFilter;
+    private final ExistenceFilterBenchmarkService existenceFilterBenchmarkService;
+    private final RedisShards redisShards;
+    private final ShardingBenchmarkService shardingBenchmarkService;
+    private final ReplicaReads replicaReads;
+    private final ReplicaReadBenchmarkService replicaReadBenchmarkService;
+    private final BucketedTestDataStore bucketedTestDataStore;
+    private final BucketedStorageBenchmarkService bucketedStorageBenchmarkService;
+    private final StreamingBenchmarkService streamingBenchmarkService;
+    private final DataStructureBenchmarkService dataStructureBenchmarkService;
+    private final PayloadSweepBenchmarkService payloadSweepBenchmarkService;
+    private final DatasetLoaderService datasetLoaderService;
+    private final BenchmarkRunScheduler benchmarkRunScheduler;
+    private final ServerStatsSampler serverStatsSampler;
+    private final JfrRunProfiler jfrRunProfiler;
+    private final BenchmarkResultStore benchmarkResultStore;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/data")
     public ResponseEntity<Map<String, Object>> insertData(@RequestBody TestData testData) {
@@ -41,10 +108,12 @@ public class BasicController {
         }
     }
 
+    // replica=true lets the read go to a replica (when replica reads are on) at the cost of read-your-writes
     @GetMapping("/data/{id}")
-    public ResponseEntity<Map<String, Object>> getData(@PathVariable String id) {
+    public ResponseEntity<Map<String, Object>> getData(@PathVariable String id,
+                                                       @RequestParam(defaultValue = "false") boolean replica) {
         try {
-            TestData data = redisService.getTestData(id);
+            TestData data = redisService.getTestData(id, consistency(replica));
             Map<String, Object> response = new HashMap<>();
             if (data != null) {
                 response.put("success", true);
@@ -62,6 +131,54 @@ public class BasicController {
         }
     }
 
+    // Passthrough read: the stored JSON bytes are copied into the envelope without deserializing
+    @GetMapping("/data/{id}/raw")
+    public ResponseEntity<?> getRawData(@PathVariable String id, @RequestParam(defaultValue = "false") boolean replica) {
+        try {
+            byte[] json = redisService.getRawTestData(id, consistency(replica));
+            byte[] body = json != null ? RawJsonEnvelope.single(json) : RawJsonEnvelope.notFound(id);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to retrieve data: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @GetMapping("/data/multi")
+    public ResponseEntity<Map<String, Object>> getMultipleData(@RequestParam java.util.List<String> ids,
+                                                               @RequestParam(defaultValue = "false") boolean replica) {
+        try {
+            RedisService.MultiGet result = redisService.multiGet(ids, consistency(replica));
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", result.found());
+            response.put("count", result.found().size());
+            response.put("missing", result.missing());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to retrieve data: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @GetMapping("/data/multi/raw")
+    public ResponseEntity<?> getMultipleRawData(@RequestParam java.util.List<String> ids,
+                                                @RequestParam(defaultValue = "false") boolean replica) {
+        try {
+            byte[] body = RawJsonEnvelope.multi(ids, redisService.getRawTestDataBatch(ids, consistency(replica)));
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to retrieve data: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     @DeleteMapping("/data/{id}")
     public ResponseEntity<Map<String, Object>> deleteData(@PathVariable String id) {
         try {
@@ -120,6 +237,28 @@ public class BasicController {
         }
     }
 
+    @PostMapping("/data/batch")
+    public ResponseEntity<Map<String, Object>> ingestBatch(InputStream body) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            Map<String, Object> result = batchIngestService.ingest(body, BatchIngestService.Target.REDIS_TEMPLATE);
+            response.put("success", true);
+            response.put("message", "Batch ingested successfully");
+            response.put("result", result);
+            return ResponseEntity.ok(response);
+        } catch (BatchIngestService.BatchIngestException e) {
+            response.put("success", false);
+            response.put("message", "Failed to ingest batch: " + e.getMessage());
+            response.put("result", e.getProgress());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Failed to ingest batch: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> healthCheck() {
         Map<String, Object> response = new HashMap<>();
@@ -130,7 +269,12 @@ public class BasicController {
 
     // Performance Test Endpoints
     @PostMapping("/performance/start")
-    public ResponseEntity<Map<String, Object>> startPerformanceTest(@RequestParam(defaultValue = "100000") int records) {
+    public ResponseEntity<Map<String, Object>> startPerformanceTest(@RequestParam(defaultValue = "100000") int records,
+            @RequestParam(required = false) Double rttMs,
+            @RequestParam(required = false) Long warmupMs,
+            @RequestParam(required = false) Long warmupOps,
+            @RequestParam(required = false) Long deadlineSec,
+            @RequestParam(required = false) Boolean jfr) {
         Map<String, Object> response = new HashMap<>();
         
         if (performanceTestService.isTestRunning()) {
@@ -140,10 +284,14 @@ public class BasicController {
         }
 
         try {
-            performanceTestService.startPerformanceTest(records);
+            networkSimulationService.applySimulatedRtt(rttMs);
+            RunOptions options = runOptions(records, warmupMs, warmupOps, deadlineSec, jfr);
+            performanceTestService.startPerformanceTest(options);
             response.put("success", true);
             response.put("message", "Performance test started with " + records + " records");
             response.put("records", records);
+            response.put("simulatedRttMs", networkSimulationService.getSimulatedRttMs());
+            response.put("warmup", options.warmup());
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             response.put("success", false);
@@ -163,6 +311,8 @@ public class BasicController {
             response.put("totalInserted", performanceTestService.getTotalInserted());
             response.put("totalRecordsInRedis", performanceTestService.getTotalDataCount());
             response.put("performanceTestRecords", performanceTestService.getPerformanceTestDataCount());
+            response.put("stopReason", performanceTestService.getStopReason());
+            response.put("results", performanceTestService.getRunResults());
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             response.put("success", false);
@@ -171,6 +321,15 @@ public class BasicController {
         }
     }
 
+    @PostMapping("/performance/stop")
+    public ResponseEntity<Map<String, Object>> stopPerformanceTest() {
+        Map<String, Object> response = new HashMap<>();
+        boolean stopped = performanceTestService.stopPerformanceTest();
+        response.put("success", stopped);
+        response.put("message", stopped ? "Performance test is stopping" : "No performance test is running");
+        return stopped ? ResponseEntity.ok(response) : ResponseEntity.badRequest().body(response);
+    }
+
     @GetMapping("/performance/count")
     public ResponseEntity<Map<String, Object>> getPerformanceTestCount() {
         Map<String, Object> response = new HashMap<>();
@@ -226,9 +385,10 @@ public class BasicController {
     }
 
     @GetMapping("/spring-data/data/{id}")
-    public ResponseEntity<Map<String, Object>> getSpringData(@PathVariable String id) {
+    public ResponseEntity<Map<String, Object>> getSpringData(@PathVariable String id,
+                                                             @RequestParam(defaultValue = "false") boolean replica) {
         try {
-            var data = springDataRedisService.getTestData(id);
+            var data = springDataRedisService.getTestData(id, consistency(replica));
             Map<String, Object> response = new HashMap<>();
             if (data.isPresent()) {
                 response.put("success", true);
@@ -263,6 +423,101 @@ public class BasicController {
         }
     }
 
+    // Cursor paging over SSCAN: pass nextCursor back as cursor until it is null
+    @GetMapping("/spring-data/data/page")
+    public ResponseEntity<Map<String, Object>> getSpringDataPage(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size,
+            @RequestParam(required = false) String prefix) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            response.put("success", false);
+            response.put("message", "size must be between 1 and " + MAX_PAGE_SIZE);
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        try {
+            long start = System.nanoTime();
+            ScanSlice<TestData> page = springDataRedisService.getTestDataPage(prefix, cursor, size);
+            response.put("success", true);
+            response.put("data", page.content());
+            response.put("count", page.content().size());
+            response.put("nextCursor", page.nextCursor());
+            response.put("hasNext", page.hasNext());
+            response.put("scanned", page.scanned());
+            response.put("elapsedMs", (System.nanoTime() - start) / 1_000_000.0);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Failed to retrieve page: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @GetMapping("/spring-data/data/slice")
+    public ResponseEntity<Map<String, Object>> getSpringDataSlice(@RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size,
+            @RequestParam(required = false) String prefix) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            response.put("success", false);
+            response.put("message", "page must not be negative and size must be between 1 and " + MAX_PAGE_SIZE);
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        try {
+            Slice<TestData> slice = springDataRedisService.getTestDataSlice(prefix, page, size);
+            response.put("success", true);
+            response.put("data", slice.getContent());
+            response.put("count", slice.getNumberOfElements());
+            response.put("page", slice.getNumber());
+            response.put("size", slice.getSize());
+            response.put("hasNext", slice.hasNext());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Failed to retrieve slice: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Streams every record as NDJSON while scanning, so the response never holds the whole dataset
+    @GetMapping(value = "/spring-data/data/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamSpringData(@RequestParam(required = false) String prefix) {
+        StreamingResponseBody body = output -> {
+            try (Stream<TestData> records = springDataRedisService.streamTestData(prefix)) {
+                for (var iterator = records.iterator(); iterator.hasNext(); ) {
+                    output.write(objectMapper.writeValueAsBytes(iterator.next()));
+                    output.write('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
+    @PostMapping("/spring-data/data/batch")
+    public ResponseEntity<Map<String, Object>> ingestSpringDataBatch(InputStream body) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            Map<String, Object> result = batchIngestService.ingest(body, BatchIngestService.Target.SPRING_DATA);
+            response.put("success", true);
+            response.put("message", "Batch ingested successfully using Spring Data");
+            response.put("result", result);
+            return ResponseEntity.ok(response);
+        } catch (BatchIngestService.BatchIngestException e) {
+            response.put("success", false);
+            response.put("message", "Failed to ingest batch: " + e.getMessage());
+            response.put("result", e.getProgress());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Failed to ingest batch: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     @DeleteMapping("/spring-data/data/{id}")
     public ResponseEntity<Map<String, Object>> deleteSpringData(@PathVariable String id) {
         try {
@@ -279,9 +534,96 @@ public class BasicController {
         }
     }
 
+    // Bucketed Storage Endpoints (records packed into hash buckets)
+    @PostMapping("/bucketed/data")
+    public ResponseEntity<Map<String, Object>> insertBucketedData(@RequestBody TestData testData) {
+        try {
+            bucketedTestDataStore.saveTestData(testData);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Data inserted successfully into bucket");
+            response.put("id", testData.getId());
+            response.put("bucket", bucketedTestDataStore.bucketKey(testData.getId()));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to insert data: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @GetMapping("/bucketed/data/{id}")
+    public ResponseEntity<Map<String, Object>> getBucketedData(@PathVariable String id) {
+        try {
+            TestData data = bucketedTestDataStore.getTestData(id);
+            Map<String, Object> response = new HashMap<>();
+            if (data != null) {
+                response.put("success", true);
+                response.put("data", data);
+            } else {
+                response.put("success", false);
+                response.put("message", "Data not found for id: " + id);
+            }
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to retrieve data: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @DeleteMapping("/bucketed/data/{id}")
+    public ResponseEntity<Map<String, Object>> deleteBucketedData(@PathVariable String id) {
+        try {
+            boolean deleted = bucketedTestDataStore.deleteTestData(id);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", deleted);
+            response.put("message", deleted ? "Data deleted successfully" : "Data not found");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to delete data: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @PostMapping("/bucketed/benchmark/start")
+    public ResponseEntity<Map<String, Object>> startBucketedStorageBenchmark(@RequestParam(defaultValue = "100000") int records,
+            @RequestParam(defaultValue = "50,100,500") java.util.List<Integer> bucketSizes,
+            @RequestParam(defaultValue = "50000") int operations,
+            @RequestParam(defaultValue = "4") int threads) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (records < 1 || threads < 1 || operations < threads || bucketSizes.stream().anyMatch(size -> size < 1)) {
+            response.put("success", false);
+            response.put("message", "records, threads and bucket sizes must be positive and operations at least threads");
+            return ResponseEntity.badRequest().body(response);
+        }
+        boolean started = bucketedStorageBenchmarkService.startBenchmark(records, bucketSizes, operations, threads);
+        response.put("success", started);
+        response.put("message", started ? "Bucketed storage benchmark started" : "Bucketed storage benchmark is already running");
+        return started ? ResponseEntity.ok(response) : ResponseEntity.badRequest().body(response);
+    }
+
+    @GetMapping("/bucketed/benchmark/status")
+    public ResponseEntity<Map<String, Object>> getBucketedStorageBenchmarkStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.putAll(bucketedStorageBenchmarkService.getStatus());
+        return ResponseEntity.ok(response);
+    }
+
     // Spring Data Performance Test Endpoints
     @PostMapping("/spring-data/performance/start")
-    public ResponseEntity<Map<String, Object>> startSpringDataPerformanceTest(@RequestParam(defaultValue = "100000") int records) {
+    public ResponseEntity<Map<String, Object>> startSpringDataPerformanceTest(@RequestParam(defaultValue = "100000") int records,
+            @RequestParam(required = false) Double rttMs,
+            @RequestParam(required = false) Long warmupMs,
+            @RequestParam(required = false) Long warmupOps,
+            @RequestParam(required = false) Long deadlineSec,
+            @RequestParam(required = false) Boolean jfr) {
         Map<String, Object> response = new HashMap<>();
         
         if (springDataPerformanceTestService.isTestRunning()) {
@@ -291,10 +633,14 @@ public class BasicController {
         }
 
         try {
-            springDataPerformanceTestService.startPerformanceTest(records);
+            networkSimulationService.applySimulatedRtt(rttMs);
+            RunOptions options = runOptions(records, warmupMs, warmupOps, deadlineSec, jfr);
+            springDataPerformanceTestService.startPerformanceTest(options);
             response.put("success", true);
             response.put("message", "Spring Data performance test started with " + records + " records");
             response.put("records", records);
+            response.put("simulatedRttMs", networkSimulationService.getSimulatedRttMs());
+            response.put("warmup", options.warmup());
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             response.put("success", false);
@@ -314,6 +660,8 @@ public class BasicController {
             response.put("totalInserted", springDataPerformanceTestService.getTotalInserted());
             response.put("totalRecordsInRedis", springDataPerformanceTestService.getTotalDataCount());
             response.put("performanceTestRecords", springDataPerformanceTestService.getPerformanceTestDataCount());
+            response.put("stopReason", springDataPerformanceTestService.getStopReason());
+            response.put("results", springDataPerformanceTestService.getRunResults());
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             response.put("success", false);
@@ -322,6 +670,15 @@ public class BasicController {
         }
     }
 
+    @PostMapping("/spring-data/performance/stop")
+    public ResponseEntity<Map<String, Object>> stopSpringDataPerformanceTest() {
+        Map<String, Object> response = new HashMap<>();
+        boolean stopped = springDataPerformanceTestService.stopPerformanceTest();
+        response.put("success", stopped);
+        response.put("message", stopped ? "Spring Data performance test is stopping" : "No Spring Data performance test is running");
+        return stopped ? ResponseEntity.ok(response) : ResponseEntity.badRequest().body(response);
+    }
+
     @GetMapping("/spring-data/performance/count")
     public ResponseEntity<Map<String, Object>> getSpringDataPerformanceTestCount() {
         Map<String, Object> response = new HashMap<>();
@@ -360,7 +717,12 @@ public class BasicController {
 
     // Redis Comparison Test Endpoints
     @PostMapping("/comparison/start")
-    public ResponseEntity<Map<String, Object>> startComparisonTest(@RequestParam(defaultValue = "10000") int records) {
+    public ResponseEntity<Map<String, Object>> startComparisonTest(@RequestParam(defaultValue = "10000") int records,
+            @RequestParam(required = false) Double rttMs,
+            @RequestParam(required = false) Long warmupMs,
+            @RequestParam(required = false) Long warmupOps,
+            @RequestParam(required = false) Long deadlineSec,
+            @RequestParam(required = false) Boolean jfr) {
         Map<String, Object> response = new HashMap<>();
         
         try {
@@ -370,10 +732,14 @@ public class BasicController {
                 return ResponseEntity.badRequest().body(response);
             }
             
-            redisComparisonService.startComparisonTest(records);
+            networkSimulationService.applySimulatedRtt(rttMs);
+            RunOptions options = runOptions(records, warmupMs, warmupOps, deadlineSec, jfr);
+            redisComparisonService.startComparisonTest(options);
             response.put("success", true);
             response.put("message", "Redis comparison test started with " + records + " records");
             response.put("records", records);
+            response.put("simulatedRttMs", networkSimulationService.getSimulatedRttMs());
+            response.put("warmup", options.warmup());
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             response.put("success", false);
@@ -391,6 +757,8 @@ public class BasicController {
             response.put("testRunning", redisComparisonService.isTestRunning());
             response.put("redisTemplateInserted", redisComparisonService.getRedisTemplateInsertedCount());
             response.put("springDataInserted", redisComparisonService.getSpringDataInsertedCount());
+            response.put("stopReason", redisComparisonService.getStopReason());
+            response.put("results", redisComparisonService.getRunResults());
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             response.put("success", false);
@@ -399,6 +767,69 @@ public class BasicController {
         }
     }
 
+    @PostMapping("/comparison/trials/start")
+    public ResponseEntity<Map<String, Object>> startTrialComparison(@RequestParam(defaultValue = "10000") int records,
+            @RequestParam(defaultValue = "5") int trials,
+            @RequestParam(required = false) Double rttMs,
+            @RequestParam(required = false) Long warmupMs,
+            @RequestParam(required = false) Long warmupOps,
+            @RequestParam(required = false) Long deadlineSec,
+            @RequestParam(required = false) Boolean jfr) {
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            if (redisComparisonService.isTestRunning()) {
+                response.put("success", false);
+                response.put("message", "Comparison test is already running");
+                return ResponseEntity.badRequest().body(response);
+            }
+            
+            networkSimulationService.applySimulatedRtt(rttMs);
+            RunOptions options = runOptions(records, warmupMs, warmupOps, deadlineSec, jfr);
+            redisComparisonService.startTrialComparison(options, trials);
+            response.put("success", true);
+            response.put("message", "Isolated comparison started with " + trials + " trials of " + records + " records");
+            response.put("records", records);
+            response.put("trials", trials);
+            response.put("simulatedRttMs", networkSimulationService.getSimulatedRttMs());
+            response.put("warmup", options.warmup());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Failed to start isolated comparison: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @GetMapping("/comparison/trials/status")
+    public ResponseEntity<Map<String, Object>> getTrialComparisonStatus() {
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            response.put("success", true);
+            response.put("testRunning", redisComparisonService.isTestRunning());
+            response.put("completedTrials", redisComparisonService.getCompletedTrials());
+            response.put("totalTrials", redisComparisonService.getTotalTrials());
+            response.put("stopReason", redisComparisonService.getStopReason());
+            response.put("results", redisComparisonService.getTrialResults());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Failed to get isolated comparison status: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Stops either the concurrent comparison or the isolated trials, whichever is running
+    @PostMapping("/comparison/stop")
+    public ResponseEntity<Map<String, Object>> stopComparisonTest() {
+        Map<String, Object> response = new HashMap<>();
+        boolean stopped = redisComparisonService.stopComparisonTest();
+        response.put("success", stopped);
+        response.put("message", stopped ? "Comparison test is stopping" : "No comparison test is running");
+        return stopped ? ResponseEntity.ok(response) : ResponseEntity.badRequest().body(response);
+    }
+
     @DeleteMapping("/comparison/clear")
     public ResponseEntity<Map<String, Object>> clearComparisonTestData() {
         Map<String, Object> response = new HashMap<>();
@@ -414,4 +845,655 @@ public class BasicController {
             return ResponseEntity.badRequest().body(response);
         }
     }
+
+    // Passthrough Read Benchmark (deserializing vs raw bytes)
+    @PostMapping("/passthrough/benchmark")
+    public ResponseEntity<Map<String, Object>> runPassthroughBenchmark(@RequestParam(defaultValue = "20000") int requests,
+            @RequestParam(defaultValue = "10") int batchSize,
+            @RequestParam(defaultValue = "1000") int seedRecords) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            response.put("success", true);
+            response.put("results", passthroughBenchmarkService.run(requests, batchSize, seedRecords));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Failed to run passthrough benchmark: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Write-Behind Buffer Endpoints
+    @GetMapping("/write-behind/status")
+    public ResponseEntity<Map<String, Object>> getWriteBehindStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("buffer", writeBehindBuffer.getMetrics());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/write-behind/flush")
+    public ResponseEntity<Map<String, Object>> flushWriteBehind() {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            boolean flushed = writeBehindBuffer.flush();
+            response.put("success", flushed);
+            response.put("message", flushed ? "Write-behind buffer flushed"
+                    : "Write-behind flush failed; the records stay buffered for the next flush");
+            response.put("buffer", writeBehindBuffer.getMetrics());
+            return flushed ? ResponseEntity.ok(response) : ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Failed to flush write-behind buffer: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @PostMapping("/write-behind/benchmark/start")
+    public ResponseEntity<Map<String, Object>> startWriteBehindBenchmark(@RequestParam(defaultValue = "8") int threads,
+            @RequestParam(defaultValue = "200000") int operations,
+            @RequestParam(defaultValue = "1000") int distinctKeys) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (threads < 1 || operations < threads || distinctKeys < 1) {
+            response.put("success", false);
+            response.put("message", "threads and distinctKeys must be positive and operations at least threads");
+            return ResponseEntity.badRequest().body(response);
+        }
+        boolean started = writeBehindBenchmarkService.startBenchmark(threads, operations, distinctKeys);
+        response.put("success", started);
+        response.put("message", started ? "Write-behind benchmark started (sync vs write-behind)" : "Write-behind benchmark is already running");
+        return started ? ResponseEntity.ok(response) : ResponseEntity.badRequest().body(response);
+    }
+
+    @GetMapping("/write-behind/benchmark/status")
+    public ResponseEntity<Map<String, Object>> getWriteBehindBenchmarkStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.putAll(writeBehindBenchmarkService.getStatus());
+        return ResponseEntity.ok(response);
+    }
+
+    // L1 Cache Endpoints (Spring Data findById)
+    @GetMapping("/spring-data/cache/status")
+    public ResponseEntity<Map<String, Object>> getL1CacheStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("cache", testDataL1Cache.getMetrics());
+        response.put("invalidation", keyspaceInvalidationListener.getMetrics());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/spring-data/cache/clear")
+    public ResponseEntity<Map<String, Object>> clearL1Cache() {
+        Map<String, Object> response = new HashMap<>();
+        testDataL1Cache.invalidateAll();
+        response.put("success", true);
+        response.put("message", "L1 cache cleared");
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/spring-data/cache/benchmark/start")
+    public ResponseEntity<Map<String, Object>> startL1CacheBenchmark(@RequestParam(defaultValue = "10000") int records,
+            @RequestParam(defaultValue = "200000") int reads,
+            @RequestParam(defaultValue = "4") int threads,
+            @RequestParam(defaultValue = "0,0.5,0.9,0.99") java.util.List<Double> hitRatios) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (records < 1 || threads < 1 || reads < threads || hitRatios.stream().anyMatch(r -> r < 0 || r > 1)) {
+            response.put("success", false);
+            response.put("message", "records and threads must be positive, reads at least threads and hit ratios within 0..1");
+            return ResponseEntity.badRequest().body(response);
+        }
+        boolean started = l1CacheBenchmarkService.startBenchmark(records, reads, threads, hitRatios);
+        response.put("success", started);
+        response.put("message", started ? "L1 cache benchmark started" : "L1 cache benchmark is already running");
+        return started ? ResponseEntity.ok(response) : ResponseEntity.badRequest().body(response);
+    }
+
+    @GetMapping("/spring-data/cache/benchmark/status")
+    public ResponseEntity<Map<String, Object>> getL1CacheBenchmarkStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.putAll(l1CacheBenchmarkService.getStatus());
+        return ResponseEntity.ok(response);
+    }
+
+    // Existence Filter Endpoints (Bloom filter over TestData ids)
+    @GetMapping("/existence-filter/status")
+    public ResponseEntity<Map<String, Object>> getExistenceFilterStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("filter", testDataBloomFilter.getMetrics());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/existence-filter/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildExistenceFilter() {
+        Map<String, Object> response = new HashMap<>();
+        if (!testDataBloomFilter.isEnabled()) {
+            response.put("success", false);
+            response.put("message", "Existence filter is disabled (redis.existence-filter.enabled=false)");
+            return ResponseEntity.badRequest().body(response);
+        }
+        boolean scheduled = testDataBloomFilter.requestRebuild();
+        response.put("success", scheduled);
+        response.put("message", scheduled ? "Existence filter rebuild scheduled" : "Existence filter rebuild is already pending");
+        return scheduled ? ResponseEntity.ok(response) : ResponseEntity.badRequest().body(response);
+    }
+
+    @PostMapping("/existence-filter/benchmark/start")
+    public ResponseEntity<Map<String, Object>> startExistenceFilterBenchmark(@RequestParam(defaultValue = "10000") int records,
+            @RequestParam(defaultValue = "100000") int lookups,
+            @RequestParam(defaultValue = "4") int threads,
+            @RequestParam(defaultValue = "0.9") double missRatio,
+            @RequestParam(defaultValue = "0.1,0.01,0.001") java.util.List<Double> falsePositiveRates) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (records < 1 || threads < 1 || lookups < threads || missRatio < 0 || missRatio > 1
+                || falsePositiveRates.isEmpty() || falsePositiveRates.stream().anyMatch(r -> r <= 0 || r >= 1)) {
+            response.put("success", false);
+            response.put("message", "records and threads must be positive, lookups at least threads, missRatio within 0..1 "
+                    + "and false-positive rates strictly between 0 and 1");
+            return ResponseEntity.badRequest().body(response);
+        }
+        boolean started = existenceFilterBenchmarkService.startBenchmark(records, lookups, threads, missRatio, falsePositiveRates);
+        response.put("success", started);
+        response.put("message", started ? "Existence filter benchmark started" : "Existence filter benchmark is already running");
+        return started ? ResponseEntity.ok(response) : ResponseEntity.badRequest().body(response);
+    }
+
+    @GetMapping("/existence-filter/benchmark/status")
+    public ResponseEntity<Map<String, Object>> getExistenceFilterBenchmarkStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.putAll(existenceFilterBenchmarkService.getStatus());
+        return ResponseEntity.ok(response);
+    }
+
+    // Topology Endpoints (standalone, Redis Cluster or client-side sharding)
+    @GetMapping("/topology")
+    public ResponseEntity<Map<String, Object>> getTopology() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("topology", redisShards.getTopology());
+        response.put("nodes", redisShards.getShards().stream().map(RedisShards.Shard::name).toList());
+        response.put("virtualNodes", redisShards.getSettings().virtualNodes());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/topology/benchmark/start")
+    public ResponseEntity<Map<String, Object>> startShardingBenchmark(@RequestParam(defaultValue = "10000") int records,
+            @RequestParam(defaultValue = "100000") int operations,
+            @RequestParam(defaultValue = "4") int threads,
+            @RequestParam(defaultValue = "0.2") double writeRatio,
+            @RequestParam(defaultValue = "1,2,4") java.util.List<Integer> nodeCounts,
+            @RequestParam(defaultValue = "true") boolean hashTags) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (records < 1 || threads < 1 || operations < threads || writeRatio < 0 || writeRatio > 1
+                || nodeCounts.isEmpty() || nodeCounts.stream().anyMatch(n -> n < 1)) {
+            response.put("success", false);
+            response.put("message", "records, threads and node counts must be positive, operations at least threads "
+                    + "and writeRatio within 0..1");
+            return ResponseEntity.badRequest().body(response);
+        }
+        boolean started = shardingBenchmarkService.startBenchmark(records, operations, threads, writeRatio, nodeCounts, hashTags);
+        response.put("success", started);
+        response.put("message", started ? "Sharding benchmark started" : "Sharding benchmark is already running");
+        return started ? ResponseEntity.ok(response) : ResponseEntity.badRequest().body(response);
+    }
+
+    @GetMapping("/topology/benchmark/status")
+    public ResponseEntity<Map<String, Object>> getShardingBenchmarkStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.putAll(shardingBenchmarkService.getStatus());
+        return ResponseEntity.ok(response);
+    }
+
+    // Replica Read Endpoints (master/replica reads with a ReadFrom policy)
+    @GetMapping("/replica-reads/status")
+    public ResponseEntity<Map<String, Object>> getReplicaReadsStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("enabled", replicaReads.isEnabled());
+        if (replicaReads.isEnabled()) {
+            response.put("readFrom", replicaReads.getSettings().readFrom());
+            response.put("nodes", replicaReads.describeNodes());
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/replica-reads/benchmark/start")
+    public ResponseEntity<Map<String, Object>> startReplicaReadBenchmark(@RequestParam(defaultValue = "1000") int keys,
+            @RequestParam(defaultValue = "50000") int operations,
+            @RequestParam(defaultValue = "4") int threads,
+            @RequestParam(defaultValue = "0.1") double writeRatio,
+            @RequestParam(defaultValue = "master,replicaPreferred,replica,any") java.util.List<String> policies) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (keys < 1 || threads < 1 || operations < threads || writeRatio < 0 || writeRatio > 1 || policies.isEmpty()) {
+            response.put("success", false);
+            response.put("message", "keys and threads must be positive, operations at least threads, writeRatio within 0..1 "
+                    + "and at least one policy given");
+            return ResponseEntity.badRequest().body(response);
+        }
+        try {
+            boolean started = replicaReadBenchmarkService.startBenchmark(keys, operations, threads, writeRatio, policies);
+            response.put("success", started);
+            response.put("message", started ? "Replica read benchmark started" : "Replica read benchmark is already running");
+            return started ? ResponseEntity.ok(response) : ResponseEntity.badRequest().body(response);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @GetMapping("/replica-reads/benchmark/status")
+    public ResponseEntity<Map<String, Object>> getReplicaReadBenchmarkStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.putAll(replicaReadBenchmarkService.getStatus());
+        return ResponseEntity.ok(response);
+    }
+
+    // Streams and Pub/Sub Benchmark Endpoints
+    @PostMapping("/streaming/benchmark/start")
+    public ResponseEntity<Map<String, Object>> startStreamingBenchmark(
+            @RequestParam(defaultValue = "STREAM,PUBSUB") java.util.List<StreamingBenchmarkService.Workload> workloads,
+            @RequestParam(defaultValue = "2") int producers,
+            @RequestParam(defaultValue = "2") int consumers,
+            @RequestParam(defaultValue = "100") int count,
+            @RequestParam(defaultValue = "10") int durationSec,
+            @RequestParam(defaultValue = "0") int producerRate) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (workloads.isEmpty() || producers < 1 || consumers < 1 || count < 1 || durationSec < 1 || producerRate < 0) {
+            response.put("success", false);
+            response.put("message", "producers, consumers, count and durationSec must be positive; producerRate 0 means unthrottled");
+            return ResponseEntity.badRequest().body(response);
+        }
+        boolean started = streamingBenchmarkService.startBenchmark(workloads, producers, consumers, count, durationSec, producerRate);
+        response.put("success", started);
+        response.put("message", started ? "Streaming benchmark started for " + workloads : "Streaming benchmark is already running");
+        return started ? ResponseEntity.ok(response) : ResponseEntity.badRequest().body(response);
+    }
+
+    @GetMapping("/streaming/benchmark/status")
+    public ResponseEntity<Map<String, Object>> getStreamingBenchmarkStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.putAll(streamingBenchmarkService.getStatus());
+        return ResponseEntity.ok(response);
+    }
+
+    // Data Structure Benchmark Endpoints (sorted sets, lists, hashes, sets)
+    @PostMapping("/data-structures/benchmark/start")
+    public ResponseEntity<Map<String, Object>> startDataStructureBenchmark(
+            @RequestParam(defaultValue = "ZSET,LIST,HASH,SET") java.util.List<DataStructureBenchmarkService.Family> families,
+            @RequestParam(defaultValue = "1000,100000,1000000") java.util.List<Integer> cardinalities,
+            @RequestParam(defaultValue = "20000") int operations,
+            @RequestParam(defaultValue = "4") int threads) {
+        Map<String, Object> response = new HashMap<>();
+
+        boolean validCardinalities = !cardinalities.isEmpty()
+                && cardinalities.stream().allMatch(c -> c >= 1 && c <= 10_000_000);
+        if (families.isEmpty() || !validCardinalities || threads < 1 || operations < threads) {
+            response.put("success", false);
+            response.put("message", "cardinalities must be between 1 and 10000000, threads positive and operations at least threads");
+            return ResponseEntity.badRequest().body(response);
+        }
+        boolean started = dataStructureBenchmarkService.startBenchmark(families, cardinalities, operations, threads);
+        response.put("success", started);
+        response.put("message", started ? "Data structure benchmark started for " + families : "Data structure benchmark is already running");
+        return started ? ResponseEntity.ok(response) : ResponseEntity.badRequest().body(response);
+    }
+
+    @GetMapping("/data-structures/benchmark/status")
+    public ResponseEntity<Map<String, Object>> getDataStructureBenchmarkStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.putAll(dataStructureBenchmarkService.getStatus());
+        return ResponseEntity.ok(response);
+    }
+
+    // Dataset Loader Endpoints (generator or memory-mapped NDJSON/CSV, checkpointed)
+    @PostMapping("/loader/start")
+    public ResponseEntity<Map<String, Object>> startDatasetLoad(@RequestParam(defaultValue = "default") String job,
+            @RequestParam(defaultValue = "GENERATOR") DatasetLoaderService.Source source,
+            @RequestParam(defaultValue = "10000000") long records,
+            @RequestParam(required = false) String file,
+            @RequestParam(defaultValue = "REDIS_TEMPLATE") BatchIngestService.Target target,
+            @RequestParam(defaultValue = "1000") int chunkSize,
+            @RequestParam(defaultValue = "0") long ttlSec,
+            @RequestParam(defaultValue = "false") boolean resume,
+            @RequestParam(required = false) Long deadlineSec) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (records < 1 || chunkSize < 1 || chunkSize > 100_000) {
+            response.put("success", false);
+            response.put("message", "records must be positive and chunkSize between 1 and 100000");
+            return ResponseEntity.badRequest().body(response);
+        }
+        try {
+            boolean started = datasetLoaderService.startLoad(job, source, records, file, target, chunkSize, ttlSec, resume,
+                    deadlineMs(deadlineSec));
+            response.put("success", started);
+            response.put("message", started ? "Dataset load " + job + " started" : "A dataset load is already running");
+            response.put("status", datasetLoaderService.getStatus());
+            return started ? ResponseEntity.ok(response) : ResponseEntity.badRequest().body(response);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @GetMapping("/loader/status")
+    public ResponseEntity<Map<String, Object>> getDatasetLoadStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.putAll(datasetLoaderService.getStatus());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/loader/stop")
+    public ResponseEntity<Map<String, Object>> stopDatasetLoad() {
+        Map<String, Object> response = new HashMap<>();
+        boolean stopped = datasetLoaderService.stopLoad();
+        response.put("success", stopped);
+        response.put("message", stopped ? "Dataset load is stopping; resume it with resume=true" : "No dataset load is running");
+        return stopped ? ResponseEntity.ok(response) : ResponseEntity.badRequest().body(response);
+    }
+
+    @GetMapping("/loader/checkpoint")
+    public ResponseEntity<Map<String, Object>> getDatasetLoadCheckpoint(@RequestParam(defaultValue = "default") String job) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("job", job);
+        response.put("checkpoint", datasetLoaderService.readCheckpoint(job));
+        return ResponseEntity.ok(response);
+    }
+
+    @DeleteMapping("/loader/checkpoint")
+    public ResponseEntity<Map<String, Object>> deleteDatasetLoadCheckpoint(@RequestParam(defaultValue = "default") String job) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("deleted", datasetLoaderService.deleteCheckpoint(job));
+        return ResponseEntity.ok(response);
+    }
+
+    @DeleteMapping("/loader/data")
+    public ResponseEntity<Map<String, Object>> clearLoadedData(@RequestParam(defaultValue = "REDIS_TEMPLATE") BatchIngestService.Target target) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            long cleared = datasetLoaderService.clearGeneratedData(target);
+            response.put("success", true);
+            response.put("message", "Cleared " + cleared + " generated records");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Failed to clear generated records: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Payload-Size Sweep Endpoints (description size from 64 B to 1 MB)
+    @PostMapping("/payload-sweep/start")
+    public ResponseEntity<Map<String, Object>> startPayloadSweep(
+            @RequestParam(defaultValue = "64,1024,16384,262144,1048576") java.util.List<Integer> sizes,
+            @RequestParam(defaultValue = "RANDOM") PayloadSweepBenchmarkService.Content content,
+            @RequestParam(defaultValue = "REDISTEMPLATE,SPRINGDATA") java.util.List<PayloadSweepBenchmarkService.Path> paths,
+            @RequestParam(defaultValue = "2000") int operations,
+            @RequestParam(defaultValue = "256") int budgetMb) {
+        Map<String, Object> response = new HashMap<>();
+
+        boolean validSizes = !sizes.isEmpty() && sizes.stream().allMatch(s -> s >= 1 && s <= 64 * 1024 * 1024);
+        if (!validSizes || paths.isEmpty() || operations < 1 || budgetMb < 1) {
+            response.put("success", false);
+            response.put("message", "sizes must be between 1 and 67108864 bytes; operations and budgetMb must be positive");
+            return ResponseEntity.badRequest().body(response);
+        }
+        boolean started = payloadSweepBenchmarkService.startSweep(sizes, content, paths, operations, budgetMb * 1024L * 1024L);
+        response.put("success", started);
+        response.put("message", started ? "Payload sweep started for sizes " + sizes : "Payload sweep is already running");
+        return started ? ResponseEntity.ok(response) : ResponseEntity.badRequest().body(response);
+    }
+
+    @GetMapping("/payload-sweep/status")
+    public ResponseEntity<Map<String, Object>> getPayloadSweepStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.putAll(payloadSweepBenchmarkService.getStatus());
+        return ResponseEntity.ok(response);
+    }
+
+    // Benchmark Run Scheduler Endpoints
+    @GetMapping("/benchmark/runs")
+    public ResponseEntity<Map<String, Object>> getBenchmarkRuns() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.putAll(benchmarkRunScheduler.getMetrics());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/benchmark/runs/{id}/stop")
+    public ResponseEntity<Map<String, Object>> stopBenchmarkRun(@PathVariable long id) {
+        Map<String, Object> response = new HashMap<>();
+        boolean stopped = benchmarkRunScheduler.stop(id);
+        response.put("success", stopped);
+        response.put("message", stopped ? "Benchmark run " + id + " is stopping" : "No active benchmark run with id " + id);
+        return stopped ? ResponseEntity.ok(response) : ResponseEntity.badRequest().body(response);
+    }
+
+    // Redis-side stats sampled while each of the recent runs was open
+    @GetMapping("/benchmark/server-stats")
+    public ResponseEntity<Map<String, Object>> getServerStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("runs", serverStatsSampler.recentReports());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/benchmark/runs/{id}/server-stats")
+    public ResponseEntity<Map<String, Object>> getRunServerStats(@PathVariable long id) {
+        Map<String, Object> response = new HashMap<>();
+        Map<String, Object> report = serverStatsSampler.report(id, java.util.List.of());
+        response.put("success", report != null);
+        if (report != null) {
+            response.put("serverStats", report);
+            return ResponseEntity.ok(response);
+        }
+        response.put("message", "No server stats recorded for run " + id);
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    // JFR summary of a run started with jfr=true; state is SUMMARIZING until the recording is parsed
+    @GetMapping("/benchmark/runs/{id}/profile")
+    public ResponseEntity<Map<String, Object>> getRunProfile(@PathVariable long id) {
+        Map<String, Object> response = new HashMap<>();
+        Map<String, Object> report = jfrRunProfiler.report(id);
+        response.put("success", report != null);
+        if (report != null) {
+            response.put("profile", report);
+            return ResponseEntity.ok(response);
+        }
+        response.put("message", "No JFR profile recorded for run " + id);
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    // Stored benchmark runs, newest first
+    @GetMapping("/benchmark/results")
+    public ResponseEntity<Map<String, Object>> listStoredRuns(@RequestParam(required = false) String name) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.put("success", true);
+            response.put("enabled", benchmarkResultStore.isEnabled());
+            response.put("runs", benchmarkResultStore.list(name));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Failed to list stored runs: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @GetMapping("/benchmark/results/{id}")
+    public ResponseEntity<Map<String, Object>> getStoredRun(@PathVariable String id) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.put("success", true);
+            response.put("run", benchmarkResultStore.load(id));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Failed to load stored run: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Later runs of the same name are compared with this one unless a baseline is given
+    @PostMapping("/benchmark/results/{id}/baseline")
+    public ResponseEntity<Map<String, Object>> markBaseline(@PathVariable String id) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.putAll(benchmarkResultStore.markBaseline(id));
+            response.put("success", true);
+            response.put("message", "Run " + id + " is now the baseline for " + response.get("name"));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Failed to mark baseline: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Diffs a run against its baseline and writes the markdown report; format=markdown returns the report itself
+    @GetMapping("/benchmark/results/{id}/compare")
+    public ResponseEntity<?> compareStoredRun(@PathVariable String id,
+                                              @RequestParam(required = false) String baseline,
+                                              @RequestParam(required = false) Double thresholdPct,
+                                              @RequestParam(required = false) Double significance,
+                                              @RequestParam(defaultValue = "json") String format) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            RunComparison.Settings defaults = benchmarkResultStore.getComparisonSettings();
+            RunComparison.Settings settings = new RunComparison.Settings(
+                    thresholdPct != null ? thresholdPct : defaults.thresholdPct(),
+                    significance != null ? significance : defaults.significance());
+            if (settings.thresholdPct() < 0 || settings.significance() <= 0 || settings.significance() >= 1) {
+                throw new IllegalArgumentException("thresholdPct must be >= 0 and significance within (0, 1)");
+            }
+            Map<String, Object> comparison = benchmarkResultStore.compare(id, baseline, settings);
+            if ("markdown".equalsIgnoreCase(format)) {
+                return ResponseEntity.ok().contentType(MediaType.parseMediaType("text/markdown;charset=UTF-8"))
+                        .body(comparison.get("markdown"));
+            }
+            response.put("success", true);
+            response.put("comparison", comparison);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Failed to compare stored run: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // HTTP Load Benchmark Endpoints (blocking vs reactive stack)
+    @PostMapping("/http-load/start")
+    public ResponseEntity<Map<String, Object>> startHttpLoadTest(
+            @RequestParam(defaultValue = "100,1000,10000") java.util.List<Integer> concurrency,
+            @RequestParam(defaultValue = "10") int durationSec,
+            @RequestParam(defaultValue = "2") int warmupSec,
+            @RequestParam(defaultValue = "data") String api,
+            @RequestParam(defaultValue = "read") String operation,
+            @RequestParam(defaultValue = "1000") int seedRecords) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            if (httpLoadBenchmarkService.isTestRunning()) {
+                response.put("success", false);
+                response.put("message", "HTTP load test is already running");
+                return ResponseEntity.badRequest().body(response);
+            }
+            boolean springData = "spring-data".equalsIgnoreCase(api);
+            HttpLoadBenchmarkService.Operation op = HttpLoadBenchmarkService.Operation.valueOf(operation.toUpperCase());
+            boolean started = httpLoadBenchmarkService.startLoadTest(concurrency, durationSec, warmupSec, springData, op, seedRecords);
+            response.put("success", started);
+            response.put("message", started ? "HTTP load test started (blocking vs reactive)" : "HTTP load test is already running");
+            response.put("status", httpLoadBenchmarkService.getStatus());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Failed to start HTTP load test: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @GetMapping("/http-load/status")
+    public ResponseEntity<Map<String, Object>> getHttpLoadTestStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.putAll(httpLoadBenchmarkService.getStatus());
+        return ResponseEntity.ok(response);
+    }
+
+    // Network Simulation Endpoints
+    @GetMapping("/network/proxy")
+    public ResponseEntity<Map<String, Object>> getProxySettings() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("proxy", networkSimulationService.getSettings());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/network/proxy")
+    public ResponseEntity<Map<String, Object>> updateProxySettings(
+            @RequestParam(required = false) Double rttMs,
+            @RequestParam(required = false) Double oneWayLatencyMs,
+            @RequestParam(required = false) Double jitterMs,
+            @RequestParam(required = false) Long bandwidthBytesPerSec,
+            @RequestParam(required = false) Integer packetSize,
+            @RequestParam(required = false) Long perPacketDelayUs) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            networkSimulationService.applySimulatedRtt(rttMs);
+            networkSimulationService.updateSettings(oneWayLatencyMs, jitterMs, bandwidthBytesPerSec, packetSize, perPacketDelayUs);
+            response.put("success", true);
+            response.put("proxy", networkSimulationService.getSettings());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Failed to update proxy settings: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Thrown when all benchmark run slots are taken (benchmark.runs.max-concurrent)
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Map<String, Object>> handleRunRejected(RejectedExecutionException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(response);
+    }
+
+    private static long deadlineMs(Long deadlineSec) {
+        return deadlineSec != null && deadlineSec > 0 ? deadlineSec * 1000 : 0;
+    }
+
+    // Unset warmup and jfr parameters fall back to the configured defaults
+    private RunOptions runOptions(int records, Long warmupMs, Long warmupOps, Long deadlineSec, Boolean jfr) {
+        return new RunOptions(records, benchmarkSettings.warmupPolicy(warmupMs, warmupOps), deadlineMs(deadlineSec),
+                jfrRunProfiler.shouldProfile(jfr));
+    }
+
+    private static ReplicaReads.Consistency consistency(boolean replica) {
+        return replica ? ReplicaReads.Consistency.EVENTUAL : ReplicaReads.Consistency.PRIMARY;
+    }
 }
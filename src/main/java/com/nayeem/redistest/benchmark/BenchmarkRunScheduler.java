@@ -0,0 +1,334 @@
+package com.nayeem.redistest.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Runs benchmark workloads on a dedicated executor instead of the common ForkJoinPool, so
+ * blocking Redis loops neither starve parallel streams nor compete with request threads.
+ *
+ * <p>A benchmark opens a {@link Run}, which holds one of {@code maxConcurrentRuns} slots until it
+ * is closed, and submits its tasks through it. Cancellation is cooperative: loops check
+ * {@link Run#isActive()}, which turns false after a stop request or once the run's deadline has
+ * passed.
+ *
+ * <p>The executor is a fixed pool of daemon threads with a bounded queue. Optionally it is a
+ * virtual-thread-per-task executor; that needs Java 21 at runtime and is looked up reflectively,
+ * so on Java 17 the scheduler logs a warning and keeps the platform pool.
+ */
+@Slf4j
+public class BenchmarkRunScheduler implements Closeable {
+
+    public record Settings(int maxConcurrentRuns, int poolSize, int queueCapacity,
+                           boolean virtualThreads, long defaultDeadlineMs) {
+    }
+
+    public enum StopReason { STOPPED, DEADLINE, SHUTDOWN }
+
+    // Notified on the thread that opens or closes a run; must not block. Close work a listener
+    // finishes later (a last sample, a summary) completes the returned future.
+    public interface RunListener {
+        void runOpened(Run run);
+
+        CompletableFuture<Void> runClosed(Run run);
+    }
+
+    // Upper bound on waiting for listeners' close work, so a stuck listener cannot hold up a result
+    private static final long CLOSE_WORK_TIMEOUT_SECONDS = 60;
+
+    public final class Run implements AutoCloseable {
+        private final long id;
+        private final String name;
+        private final long startedAtMillis = System.currentTimeMillis();
+        private final long deadlineMs;
+        private final long deadlineNanos;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+        private final CompletableFuture<Void> closeWork = new CompletableFuture<>();
+        private volatile StopReason stopReason;
+
+        private Run(long id, String name, long deadlineMs) {
+            this.id = id;
+            this.name = name;
+            this.deadlineMs = deadlineMs;
+            this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        // False once the run was stopped or its deadline passed; loops should exit when it is
+        public boolean isActive() {
+            if (stopReason != null) {
+                return false;
+            }
+            if (deadlineMs > 0 && System.nanoTime() - deadlineNanos >= 0) {
+                stop(StopReason.DEADLINE);
+                return false;
+            }
+            return true;
+        }
+
+        public void stop() {
+            stop(StopReason.STOPPED);
+        }
+
+        private synchronized void stop(StopReason reason) {
+            if (stopReason == null) {
+                stopReason = reason;
+                log.info("Benchmark run {} ({}) ending: {}", id, name, reason);
+            }
+        }
+
+        public StopReason getStopReason() {
+            return stopReason;
+        }
+
+        public CompletableFuture<Void> submit(Runnable task) {
+            return CompletableFuture.runAsync(task, executor);
+        }
+
+        // Releases the run's slot; safe to call more than once
+        @Override
+        public void close() {
+            closeAsync();
+        }
+
+        /**
+         * Releases the run's slot. The future completes once every listener has finished its close
+         * work, or after {@value #CLOSE_WORK_TIMEOUT_SECONDS} s; it never completes exceptionally.
+         */
+        public CompletableFuture<Void> closeAsync() {
+            if (closed.compareAndSet(false, true)) {
+                activeRuns.remove(id);
+                slots.release();
+                CompletableFuture.allOf(notifyClosed(this))
+                        .orTimeout(CLOSE_WORK_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                        .whenComplete((result, error) -> {
+                            if (error != null) {
+                                log.warn("Close work for run {} ({}) did not finish: {}", id, name, error.toString());
+                            }
+                            closeWork.complete(null);
+                        });
+            }
+            return closeWork;
+        }
+
+        // Closes the run and waits for the listeners' close work, so their reports for it are final
+        public void closeAndAwait() {
+            try {
+                closeAsync().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                log.warn("Close work for run {} ({}) failed: {}", id, name, e.getMessage());
+            }
+        }
+
+        public Map<String, Object> describe() {
+            Map<String, Object> description = new LinkedHashMap<>();
+            description.put("id", id);
+            description.put("name", name);
+            description.put("elapsedMs", System.currentTimeMillis() - startedAtMillis);
+            description.put("deadlineMs", deadlineMs > 0 ? deadlineMs : null);
+            description.put("stopReason", stopReason);
+            return description;
+        }
+    }
+
+    private final Settings settings;
+    private final ExecutorService executor;
+    private final boolean virtual;
+    private final Semaphore slots;
+    private final Map<Long, Run> activeRuns = new ConcurrentHashMap<>();
+    private final AtomicLong runIds = new AtomicLong();
+    private final List<RunListener> listeners = new CopyOnWriteArrayList<>();
+
+    public BenchmarkRunScheduler(Settings settings) {
+        this.settings = settings;
+        this.slots = new Semaphore(Math.max(1, settings.maxConcurrentRuns()));
+        ExecutorService virtualExecutor = settings.virtualThreads() ? newVirtualThreadExecutor() : null;
+        this.virtual = virtualExecutor != null;
+        this.executor = virtual ? virtualExecutor : newPlatformExecutor(settings);
+    }
+
+    private static ExecutorService newPlatformExecutor(Settings settings) {
+        AtomicInteger threadIds = new AtomicInteger();
+        int poolSize = Math.max(1, settings.poolSize());
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, settings.queueCapacity())), r -> {
+                    Thread thread = new Thread(r, "benchmark-run-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Virtual threads need Java 21+ (running {}); using the platform benchmark pool",
+                    System.getProperty("java.version"));
+            return null;
+        }
+    }
+
+    /**
+     * Opens a run, or throws {@link RejectedExecutionException} when {@code maxConcurrentRuns}
+     * runs are already open. A deadline of 0 or less falls back to the configured default;
+     * a default of 0 means no deadline.
+     */
+    public Run open(String name, long deadlineMs) {
+        if (!slots.tryAcquire()) {
+            throw new RejectedExecutionException("Maximum of " + settings.maxConcurrentRuns()
+                    + " concurrent benchmark runs reached; stop one or wait for it to finish");
+        }
+        Run run = new Run(runIds.incrementAndGet(), name, deadlineMs > 0 ? deadlineMs : settings.defaultDeadlineMs());
+        activeRuns.put(run.getId(), run);
+        notifyOpened(run);
+        return run;
+    }
+
+    public void addListener(RunListener listener) {
+        listeners.add(listener);
+    }
+
+    // A failing listener is logged and skipped; it never fails the run
+    private void notifyOpened(Run run) {
+        for (RunListener listener : listeners) {
+            try {
+                listener.runOpened(run);
+            } catch (RuntimeException e) {
+                log.warn("Run listener failed for run {} ({}): {}", run.getId(), run.getName(), e.getMessage());
+            }
+        }
+    }
+
+    private CompletableFuture<?>[] notifyClosed(Run run) {
+        List<CompletableFuture<?>> work = new ArrayList<>();
+        for (RunListener listener : listeners) {
+            try {
+                CompletableFuture<Void> pending = listener.runClosed(run);
+                if (pending != null) {
+                    // A failure here is the listener's own to report; waiting only needs completion
+                    work.add(pending.exceptionally(error -> null));
+                }
+            } catch (RuntimeException e) {
+                log.warn("Run listener failed for run {} ({}): {}", run.getId(), run.getName(), e.getMessage());
+            }
+        }
+        return work.toArray(CompletableFuture[]::new);
+    }
+
+    /**
+     * Opens a run and submits a single body to it; the run is closed when the body returns.
+     * Throws {@link RejectedExecutionException} when no slot is free or the queue is full.
+     */
+    public Run launch(String name, long deadlineMs, Consumer<Run> body) {
+        Run run = open(name, deadlineMs);
+        try {
+            run.submit(() -> {
+                try {
+                    body.accept(run);
+                } finally {
+                    run.close();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            run.close();
+            throw e;
+        }
+        return run;
+    }
+
+    /**
+     * Throws {@link RejectedExecutionException} when a run needs more concurrent workers than the
+     * platform pool can run next to the bodies of {@code maxConcurrentRuns} runs. Workers beyond
+     * that would wait in the queue and start late, which skews what the run measures.
+     */
+    public void requireWorkers(int workers) {
+        if (virtual) {
+            return;
+        }
+        int capacity = Math.max(1, settings.poolSize()) - settings.maxConcurrentRuns();
+        if (workers > capacity) {
+            throw new RejectedExecutionException("A run can use at most " + Math.max(0, capacity)
+                    + " worker threads (benchmark.runs.pool-size minus max-concurrent); " + workers + " requested");
+        }
+    }
+
+    public boolean stop(long runId) {
+        Run run = activeRuns.get(runId);
+        if (run == null) {
+            return false;
+        }
+        run.stop();
+        return true;
+    }
+
+    public List<Map<String, Object>> getActiveRuns() {
+        List<Map<String, Object>> runs = new ArrayList<>();
+        for (Run run : activeRuns.values()) {
+            runs.add(run.describe());
+        }
+        return runs;
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("executor", virtual ? "virtual" : "platform");
+        metrics.put("maxConcurrentRuns", settings.maxConcurrentRuns());
+        metrics.put("availableSlots", slots.availablePermits());
+        metrics.put("defaultDeadlineMs", settings.defaultDeadlineMs());
+        if (executor instanceof ThreadPoolExecutor pool) {
+            metrics.put("poolSize", pool.getMaximumPoolSize());
+            metrics.put("activeThreads", pool.getActiveCount());
+            metrics.put("queuedTasks", pool.getQueue().size());
+            metrics.put("completedTasks", pool.getCompletedTaskCount());
+        }
+        metrics.put("activeRuns", getActiveRuns());
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        for (Run run : activeRuns.values()) {
+            run.stop(StopReason.SHUTDOWN);
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+}
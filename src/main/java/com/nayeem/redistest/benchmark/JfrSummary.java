@@ -0,0 +1,238 @@
+package com.nayeem.redistest.benchmark;
+
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a JFR recording event by event with {@code jdk.jfr.consumer} and reduces it to the hot
+ * spots of a run: allocation sites by sampled bytes, CPU frames by execution samples (self time),
+ * GC pauses per collector, and thread park and monitor-blocked time by call site.
+ *
+ * <p>JDK frames (java.*, jdk.*, sun.*) are rarely actionable on their own, so allocation and park
+ * sites also name the first frame outside the JDK, which is usually Jackson, Lettuce, Netty,
+ * Spring or this project.
+ */
+public final class JfrSummary {
+
+    private static final String[] JDK_PACKAGES = {"java.", "jdk.", "sun.", "com.sun."};
+
+    private final int top;
+    private final Map<String, Site> allocations = new HashMap<>();
+    private final Map<String, Site> cpuFrames = new HashMap<>();
+    private final Map<String, Site> cpuPackages = new HashMap<>();
+    private final Map<String, Site> gcByCollector = new HashMap<>();
+    private final Map<String, Site> parkSites = new HashMap<>();
+    private final Map<String, Site> parkThreads = new HashMap<>();
+    private final Map<String, Site> monitorSites = new HashMap<>();
+    private long allocationBytes;
+    private long executionSamples;
+    private long gcPauseNanos;
+    private long gcMaxPauseNanos;
+    private long gcCount;
+    private long parkNanos;
+    private long monitorNanos;
+
+    private JfrSummary(int top) {
+        this.top = top;
+    }
+
+    private static final class Site {
+        final String name;
+        final String detail;
+        long count;
+        long weight;
+        long max;
+
+        Site(String name, String detail) {
+            this.name = name;
+            this.detail = detail;
+        }
+
+        void add(long value) {
+            count++;
+            weight += value;
+            max = Math.max(max, value);
+        }
+    }
+
+    public static Map<String, Object> summarize(Path file, int top) throws IOException {
+        JfrSummary summary = new JfrSummary(Math.max(1, top));
+        try (RecordingFile recording = new RecordingFile(file)) {
+            while (recording.hasMoreEvents()) {
+                summary.accept(recording.readEvent());
+            }
+        }
+        return summary.toMap();
+    }
+
+    private void accept(RecordedEvent event) {
+        switch (event.getEventType().getName()) {
+            case "jdk.ObjectAllocationSample" -> {
+                long weight = event.getLong("weight");
+                RecordedClass objectClass = event.getClass("objectClass");
+                String type = objectClass != null ? objectClass.getName() : "?";
+                String frame = frame(event.getStackTrace(), false);
+                String caller = frame(event.getStackTrace(), true);
+                String site = frame.equals(caller) ? frame : frame + " <- " + caller;
+                allocations.computeIfAbsent(site + "|" + type, k -> new Site(site, type)).add(weight);
+                allocationBytes += weight;
+            }
+            case "jdk.ExecutionSample" -> {
+                String frame = frame(event.getStackTrace(), false);
+                cpuFrames.computeIfAbsent(frame, k -> new Site(frame, null)).add(1);
+                String pkg = packageOf(frame);
+                cpuPackages.computeIfAbsent(pkg, k -> new Site(pkg, null)).add(1);
+                executionSamples++;
+            }
+            case "jdk.GarbageCollection" -> {
+                long pause = nanos(event.getDuration("sumOfPauses"));
+                String collector = event.getString("name");
+                gcByCollector.computeIfAbsent(collector, k -> new Site(collector, null)).add(pause);
+                gcPauseNanos += pause;
+                gcMaxPauseNanos = Math.max(gcMaxPauseNanos, nanos(event.getDuration("longestPause")));
+                gcCount++;
+            }
+            case "jdk.ThreadPark" -> {
+                long duration = nanos(event.getDuration());
+                RecordedClass parkedClass = event.getClass("parkedClass");
+                String site = frame(event.getStackTrace(), true);
+                parkSites.computeIfAbsent(site, k -> new Site(site, parkedClass != null ? parkedClass.getName() : null)).add(duration);
+                String thread = threadGroup(event.getThread());
+                parkThreads.computeIfAbsent(thread, k -> new Site(thread, null)).add(duration);
+                parkNanos += duration;
+            }
+            case "jdk.JavaMonitorEnter" -> {
+                long duration = nanos(event.getDuration());
+                RecordedClass monitorClass = event.getClass("monitorClass");
+                String site = frame(event.getStackTrace(), false);
+                monitorSites.computeIfAbsent(site, k -> new Site(site, monitorClass != null ? monitorClass.getName() : null)).add(duration);
+                monitorNanos += duration;
+            }
+            default -> {
+            }
+        }
+    }
+
+    private Map<String, Object> toMap() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+
+        Map<String, Object> allocation = new LinkedHashMap<>();
+        allocation.put("sampledBytes", allocationBytes);
+        allocation.put("topSites", rows(allocations, allocationBytes, "bytes", "objectClass", 1));
+        summary.put("allocation", allocation);
+
+        Map<String, Object> cpu = new LinkedHashMap<>();
+        cpu.put("samples", executionSamples);
+        cpu.put("topFrames", rows(cpuFrames, executionSamples, "samples", null, 1));
+        cpu.put("byPackage", rows(cpuPackages, executionSamples, "samples", null, 1));
+        summary.put("cpu", cpu);
+
+        Map<String, Object> gc = new LinkedHashMap<>();
+        gc.put("collections", gcCount);
+        gc.put("totalPauseMs", millis(gcPauseNanos));
+        gc.put("maxPauseMs", millis(gcMaxPauseNanos));
+        gc.put("byCollector", rows(gcByCollector, gcPauseNanos, "pauseMs", null, 1_000_000));
+        summary.put("gc", gc);
+
+        Map<String, Object> park = new LinkedHashMap<>();
+        park.put("totalMs", millis(parkNanos));
+        park.put("topSites", rows(parkSites, parkNanos, "parkedMs", "parkedClass", 1_000_000));
+        park.put("byThread", rows(parkThreads, parkNanos, "parkedMs", null, 1_000_000));
+        summary.put("threadPark", park);
+
+        Map<String, Object> monitor = new LinkedHashMap<>();
+        monitor.put("totalMs", millis(monitorNanos));
+        monitor.put("topSites", rows(monitorSites, monitorNanos, "blockedMs", "monitorClass", 1_000_000));
+        summary.put("monitorBlocked", monitor);
+        return summary;
+    }
+
+    // Top entries by weight; divisor converts nanos to millis for the time-based tables
+    private List<Map<String, Object>> rows(Map<String, Site> sites, long total, String weightName, String detailName, long divisor) {
+        List<Site> sorted = new ArrayList<>(sites.values());
+        sorted.sort(Comparator.comparingLong((Site site) -> site.weight).reversed());
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Site site : sorted.subList(0, Math.min(top, sorted.size()))) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("site", site.name);
+            if (detailName != null) {
+                row.put(detailName, site.detail);
+            }
+            if (divisor > 1) {
+                row.put(weightName, Statistics.round((double) site.weight / divisor, 2));
+                row.put("events", site.count);
+                row.put("maxMs", Statistics.round((double) site.max / divisor, 2));
+            } else {
+                row.put(weightName, site.weight);
+                row.put("events", site.count);
+            }
+            row.put("sharePct", Statistics.round(total > 0 ? site.weight * 100.0 / total : 0.0, 2));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    // Top frame, or with skipJdk the first frame outside the JDK (falling back to the top frame)
+    private static String frame(RecordedStackTrace stackTrace, boolean skipJdk) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "(no stack trace)";
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        for (RecordedFrame frame : frames) {
+            if (!skipJdk || !isJdk(frame)) {
+                return describe(frame);
+            }
+        }
+        return describe(frames.get(0));
+    }
+
+    private static boolean isJdk(RecordedFrame frame) {
+        String type = frame.getMethod().getType().getName();
+        for (String prefix : JDK_PACKAGES) {
+            if (type.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String describe(RecordedFrame frame) {
+        String method = frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+        return frame.getLineNumber() > 0 ? method + ":" + frame.getLineNumber() : method;
+    }
+
+    // First three package segments, e.g. "io.lettuce.core" or "com.fasterxml.jackson"
+    private static String packageOf(String frame) {
+        String[] parts = frame.split("\\.");
+        int segments = Math.min(3, Math.max(1, parts.length - 2));
+        return String.join(".", java.util.Arrays.copyOf(parts, segments));
+    }
+
+    // Thread name with numbers masked, so pool threads are grouped ("benchmark-run-#")
+    private static String threadGroup(RecordedThread thread) {
+        String name = thread != null ? thread.getJavaName() : null;
+        return name != null ? name.replaceAll("\\d+", "#") : "(unknown)";
+    }
+
+    private static long nanos(Duration duration) {
+        return duration != null ? duration.toNanos() : 0;
+    }
+
+    private static double millis(long nanos) {
+        return Statistics.round(nanos / 1_000_000.0, 2);
+    }
+}
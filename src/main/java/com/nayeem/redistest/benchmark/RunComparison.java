@@ -0,0 +1,416 @@
+package com.nayeem.redistest.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Diffs two stored benchmark runs and renders runs as markdown reports. A stored run holds its
+ * environment, config, raw results and one series per measured engine or phase, where a series
+ * has a point throughput and p99 plus the per-window (or per-trial) samples behind them.
+ *
+ * <p>A metric only counts as a regression when the candidate is worse by more than the threshold
+ * and a Welch t-test over the samples puts the difference below the significance level. Trial
+ * samples are independent runs and are tested as they are. Window samples come from one run and
+ * are autocorrelated (a slow stretch spans several windows), so they are tested as batch means;
+ * a series too short to give enough uncorrelated batches has no samples. Runs stored without
+ * series (benchmarks that only report totals) are compared on the throughput and p99 figures of
+ * their result entries. Without samples a change beyond the threshold is INCONCLUSIVE rather than
+ * a regression.
+ */
+public final class RunComparison {
+
+    public enum Verdict { REGRESSION, IMPROVEMENT, NO_CHANGE, INCONCLUSIVE }
+
+    public record Settings(double thresholdPct, double significance) {
+    }
+
+    private static final double CONFIDENCE = 0.95;
+    private static final String TRIALS = "trials";
+    private static final String WINDOWS = "windows";
+    private static final int MIN_BATCHES = 3;
+    private static final double MAX_BATCH_LAG1 = 0.2;
+    // Result entry fields that name what an entry measured; other strings (errors, keys) are values
+    private static final List<String> LABEL_KEYS = List.of("mode", "layout", "policy", "path", "engine", "family",
+            "operation", "stack", "workload", "approach", "target");
+    private static final List<String> THROUGHPUT_KEYS = List.of("throughput", "opsPerSec", "requestsPerSec",
+            "readThroughput", "rate");
+    // Numeric environment figures (RTT) jitter between runs; only a larger gap is worth a note
+    private static final double ENVIRONMENT_TOLERANCE = 0.5;
+    private static final List<String> ENVIRONMENT_ROWS = List.of("java", "processors", "maxHeapMb", "gc",
+            "redisVersion", "redisMode", "redisOs", "rttMedianUs");
+
+    // One comparable figure of one series, with the samples behind it when there are any
+    private record Metric(String series, String name, boolean higherIsBetter, double value, String sampleKind,
+                          List<Double> samples) {
+    }
+
+    private RunComparison() {
+    }
+
+    public static Map<String, Object> compare(Map<String, Object> baseline, Map<String, Object> candidate, Settings settings) {
+        Map<String, Metric> baselineMetrics = metrics(baseline);
+        Map<String, Metric> candidateMetrics = metrics(candidate);
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (Verdict verdict : Verdict.values()) {
+            counts.put(verdict.name(), 0);
+        }
+        for (Map.Entry<String, Metric> entry : candidateMetrics.entrySet()) {
+            Metric base = baselineMetrics.get(entry.getKey());
+            if (base != null) {
+                Map<String, Object> row = compare(base, entry.getValue(), settings);
+                counts.merge((String) row.get("verdict"), 1, Integer::sum);
+                rows.add(row);
+            }
+        }
+
+        Map<String, Object> comparison = new LinkedHashMap<>();
+        comparison.put("baseline", baseline.get("id"));
+        comparison.put("candidate", candidate.get("id"));
+        comparison.put("thresholdPct", settings.thresholdPct());
+        comparison.put("significance", settings.significance());
+        comparison.put("verdict", counts.get(Verdict.REGRESSION.name()) > 0 ? Verdict.REGRESSION.name() : "PASS");
+        comparison.put("counts", counts);
+        comparison.put("metrics", rows);
+        comparison.put("onlyInBaseline", missing(baselineMetrics, candidateMetrics));
+        comparison.put("onlyInCandidate", missing(candidateMetrics, baselineMetrics));
+        Map<String, Object> baselineConfig = map(baseline.get("config"));
+        Map<String, Object> candidateConfig = map(candidate.get("config"));
+        Set<String> configKeys = new LinkedHashSet<>(baselineConfig.keySet());
+        configKeys.addAll(candidateConfig.keySet());
+        comparison.put("configDifferences", differences(baselineConfig, candidateConfig, configKeys, 0));
+        comparison.put("environmentDifferences", differences(map(baseline.get("environment")), map(candidate.get("environment")),
+                ENVIRONMENT_ROWS, ENVIRONMENT_TOLERANCE));
+        return comparison;
+    }
+
+    private static Map<String, Object> compare(Metric base, Metric candidate, Settings settings) {
+        double changePct = base.value() != 0 ? (candidate.value() - base.value()) / base.value() * 100 : 0.0;
+        boolean worse = base.higherIsBetter() ? changePct < -settings.thresholdPct() : changePct > settings.thresholdPct();
+        boolean better = base.higherIsBetter() ? changePct > settings.thresholdPct() : changePct < -settings.thresholdPct();
+        boolean sampled = base.samples().size() >= 2 && candidate.samples().size() >= 2;
+        double pValue = sampled ? Statistics.welchPValue(candidate.samples(), base.samples()) : Double.NaN;
+
+        Verdict verdict;
+        if (!worse && !better) {
+            verdict = Verdict.NO_CHANGE;
+        } else if (!sampled) {
+            verdict = Verdict.INCONCLUSIVE;
+        } else if (pValue >= settings.significance()) {
+            verdict = Verdict.NO_CHANGE;
+        } else {
+            verdict = worse ? Verdict.REGRESSION : Verdict.IMPROVEMENT;
+        }
+
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("series", candidate.series());
+        row.put("metric", candidate.name());
+        row.put("higherIsBetter", candidate.higherIsBetter());
+        row.put("baseline", Statistics.round(base.value(), 2));
+        row.put("candidate", Statistics.round(candidate.value(), 2));
+        row.put("changePct", Statistics.round(changePct, 2));
+        row.put("sampleKind", candidate.sampleKind());
+        row.put("baselineSamples", base.samples().size());
+        row.put("candidateSamples", candidate.samples().size());
+        row.put("pValue", sampled ? Statistics.round(pValue, 6) : null);
+        if (sampled) {
+            double[] ratio = Statistics.ratioConfidenceInterval(candidate.samples(), base.samples(), CONFIDENCE);
+            row.put("ratioConfidenceInterval", List.of(Statistics.round(ratio[0], 4), Statistics.round(ratio[1], 4)));
+        }
+        row.put("verdict", verdict.name());
+        return row;
+    }
+
+    // Keyed by "series|metric"; series when the run stored them, result entries otherwise
+    private static Map<String, Metric> metrics(Map<String, Object> run) {
+        Map<String, Metric> metrics = new LinkedHashMap<>();
+        Object series = run.get("series");
+        if (series instanceof List<?> list && !list.isEmpty()) {
+            for (Object item : list) {
+                Map<String, Object> s = map(item);
+                String name = String.valueOf(s.get("name"));
+                String kind = TRIALS.equals(s.get("sampleKind")) ? TRIALS : WINDOWS;
+                add(metrics, new Metric(name, "throughput", true, number(s.get("rate")), kind,
+                        samples(kind, s.get("rateSamples"))));
+                add(metrics, new Metric(name, "p99Us", false, number(s.get("p99Us")), kind,
+                        samples(kind, s.get("p99Samples"))));
+            }
+            return metrics;
+        }
+        List<Map<String, Object>> entries = new ArrayList<>();
+        Object results = run.get("results");
+        if (results instanceof List<?> list) {
+            list.forEach(item -> entries.add(map(item)));
+        } else if (results instanceof Map<?, ?>) {
+            entries.add(map(results));
+        }
+        Map<String, Integer> seen = new HashMap<>();
+        for (Map<String, Object> entry : entries) {
+            String label = label(entry);
+            int occurrence = seen.merge(label, 1, Integer::sum);
+            String name = occurrence > 1 ? label + " #" + occurrence : label;
+            for (String key : THROUGHPUT_KEYS) {
+                if (entry.get(key) instanceof Number value) {
+                    add(metrics, new Metric(name, key, true, value.doubleValue(), null, List.of()));
+                }
+            }
+            for (Map.Entry<String, Object> field : entry.entrySet()) {
+                if (field.getValue() instanceof Map<?, ?> nested && nested.get("p99Us") instanceof Number p99) {
+                    add(metrics, new Metric(name, field.getKey() + ".p99Us", false, p99.doubleValue(), null, List.of()));
+                }
+            }
+        }
+        return metrics;
+    }
+
+    // Runs stored before series carried a sample kind recorded windows
+    private static List<Double> samples(String kind, Object values) {
+        List<Double> samples = numbers(values);
+        return TRIALS.equals(kind) ? samples : Statistics.batchMeans(samples, MIN_BATCHES, MAX_BATCH_LAG1);
+    }
+
+    private static void add(Map<String, Metric> metrics, Metric metric) {
+        metrics.put(metric.series() + "|" + metric.name(), metric);
+    }
+
+    // The naming fields of a result entry (mode, layout, policy...), in allow-list order
+    private static String label(Map<String, Object> entry) {
+        List<String> parts = new ArrayList<>();
+        for (String key : LABEL_KEYS) {
+            if (entry.get(key) != null) {
+                parts.add(String.valueOf(entry.get(key)));
+            }
+        }
+        return parts.isEmpty() ? "result" : String.join("/", parts);
+    }
+
+    private static List<String> missing(Map<String, Metric> from, Map<String, Metric> in) {
+        Set<String> series = new LinkedHashSet<>();
+        for (Map.Entry<String, Metric> entry : from.entrySet()) {
+            if (!in.containsKey(entry.getKey())) {
+                series.add(entry.getValue().series());
+            }
+        }
+        return new ArrayList<>(series);
+    }
+
+    // Numbers within the relative tolerance of each other count as equal
+    private static Map<String, Object> differences(Map<String, Object> baseline, Map<String, Object> candidate,
+                                                   Iterable<String> keys, double tolerance) {
+        Map<String, Object> differences = new LinkedHashMap<>();
+        for (String key : keys) {
+            Object base = baseline.get(key);
+            Object cand = candidate.get(key);
+            if (base instanceof Number a && cand instanceof Number b) {
+                double gap = Math.abs(a.doubleValue() - b.doubleValue());
+                if (gap <= tolerance * Math.max(Math.abs(a.doubleValue()), Math.abs(b.doubleValue()))) {
+                    continue;
+                }
+            }
+            if (!Objects.equals(String.valueOf(base), String.valueOf(cand))) {
+                differences.put(key, List.of(String.valueOf(base), String.valueOf(cand)));
+            }
+        }
+        return differences;
+    }
+
+    /**
+     * Markdown report of a stored run: environment, configuration, results per series, the
+     * throughput timeline and latency percentiles. With a baseline and its comparison, every
+     * table gets a baseline column and the results carry change, p-value and verdict.
+     */
+    public static String markdown(Map<String, Object> candidate, Map<String, Object> baseline, Map<String, Object> comparison) {
+        boolean compared = baseline != null && comparison != null;
+        StringBuilder md = new StringBuilder();
+        md.append("# Benchmark Report: ").append(candidate.get("name")).append("\n\n");
+
+        md.append("## Summary\n\n");
+        md.append("Run `").append(candidate.get("id")).append("`, saved at ").append(candidate.get("savedAt")).append(".\n");
+        if (compared) {
+            Map<String, Object> counts = map(comparison.get("counts"));
+            md.append("Compared with baseline `").append(baseline.get("id")).append("`: **")
+                    .append(comparison.get("verdict")).append("**. ")
+                    .append(counts.get("REGRESSION")).append(" regressions, ")
+                    .append(counts.get("IMPROVEMENT")).append(" improvements, ")
+                    .append(counts.get("NO_CHANGE")).append(" unchanged, ")
+                    .append(counts.get("INCONCLUSIVE")).append(" inconclusive (threshold ")
+                    .append(format(number(comparison.get("thresholdPct")))).append("%, significance ")
+                    .append(comparison.get("significance")).append(").\n");
+            appendDifferences(md, "Configuration differs", map(comparison.get("configDifferences")));
+            appendDifferences(md, "Environment differs", map(comparison.get("environmentDifferences")));
+        }
+        md.append('\n');
+
+        md.append("## Test Environment\n\n");
+        Map<String, Object> environment = map(candidate.get("environment"));
+        Map<String, Object> baselineEnvironment = compared ? map(baseline.get("environment")) : Map.of();
+        appendTableHeader(md, "Item", compared);
+        for (String key : ENVIRONMENT_ROWS) {
+            appendRow(md, key, baselineEnvironment.get(key), environment.get(key), compared);
+        }
+        md.append('\n');
+
+        md.append("## Configuration\n\n");
+        Map<String, Object> config = map(candidate.get("config"));
+        Map<String, Object> baselineConfig = compared ? map(baseline.get("config")) : Map.of();
+        Set<String> keys = new LinkedHashSet<>(config.keySet());
+        keys.addAll(baselineConfig.keySet());
+        appendTableHeader(md, "Setting", compared);
+        for (String key : keys) {
+            appendRow(md, key, baselineConfig.get(key), config.get(key), compared);
+        }
+        md.append('\n');
+
+        md.append("## Results\n\n");
+        if (compared) {
+            md.append("| Series | Metric | Baseline | Candidate | Change | p-value | Verdict |\n");
+            md.append("|--------|--------|----------|-----------|--------|---------|---------|\n");
+            for (Object item : list(comparison.get("metrics"))) {
+                Map<String, Object> row = map(item);
+                Object pValue = row.get("pValue");
+                md.append("| ").append(row.get("series"))
+                        .append(" | ").append(row.get("metric"))
+                        .append(" | ").append(format(number(row.get("baseline"))))
+                        .append(" | ").append(format(number(row.get("candidate"))))
+                        .append(" | ").append(String.format(Locale.ROOT, "%+.2f%%", number(row.get("changePct"))))
+                        .append(" | ").append(pValue != null ? String.format(Locale.ROOT, "%.4f", number(pValue)) : "n/a")
+                        .append(" | ").append(Verdict.REGRESSION.name().equals(String.valueOf(row.get("verdict")))
+                                ? "**REGRESSION**" : row.get("verdict"))
+                        .append(" |\n");
+            }
+            appendList(md, "Only in baseline", list(comparison.get("onlyInBaseline")));
+            appendList(md, "Only in candidate", list(comparison.get("onlyInCandidate")));
+        } else {
+            md.append("| Series | Metric | Value |\n");
+            md.append("|--------|--------|-------|\n");
+            for (Metric metric : metrics(candidate).values()) {
+                md.append("| ").append(metric.series()).append(" | ").append(metric.name())
+                        .append(" | ").append(format(metric.value())).append(" |\n");
+            }
+        }
+        md.append('\n');
+
+        List<Object> series = list(candidate.get("series"));
+        if (!series.isEmpty()) {
+            md.append("## Latency Percentiles (us)\n\n");
+            md.append("| Series | Run | Count | Mean | p50 | p90 | p99 | p99.9 | Max |\n");
+            md.append("|--------|-----|-------|------|-----|-----|-----|-------|-----|\n");
+            Map<String, Map<String, Object>> baselineSeries = new HashMap<>();
+            if (compared) {
+                list(baseline.get("series")).forEach(item -> baselineSeries.put(String.valueOf(map(item).get("name")), map(item)));
+            }
+            for (Object item : series) {
+                Map<String, Object> s = map(item);
+                Map<String, Object> base = baselineSeries.get(String.valueOf(s.get("name")));
+                if (base != null) {
+                    appendLatencyRow(md, s.get("name"), "baseline", map(base.get("latency")));
+                }
+                appendLatencyRow(md, s.get("name"), compared ? "candidate" : "run", map(s.get("latency")));
+            }
+            md.append('\n');
+
+            md.append("## Throughput Timeline\n\n");
+            for (Object item : series) {
+                Map<String, Object> s = map(item);
+                List<Object> timeline = list(s.get("timeline"));
+                if (timeline.isEmpty()) {
+                    continue;
+                }
+                md.append("### ").append(s.get("name")).append("\n\n```\n");
+                for (Object window : timeline) {
+                    Map<String, Object> w = map(window);
+                    md.append(String.format(Locale.ROOT, "%8.1fs  %-8s %12s ops/s  p99 %10s us%n",
+                            number(w.get("startMs")) / 1000.0, w.get("phase"), format(number(w.get("rate"))),
+                            format(number(w.get("p99Us")))));
+                }
+                md.append("```\n\n");
+            }
+        }
+        return md.toString();
+    }
+
+    private static void appendDifferences(StringBuilder md, String title, Map<String, Object> differences) {
+        if (differences.isEmpty()) {
+            return;
+        }
+        md.append("\n").append(title).append(", so the runs are not like for like:\n");
+        for (Map.Entry<String, Object> difference : differences.entrySet()) {
+            List<Object> values = list(difference.getValue());
+            md.append("- ").append(difference.getKey()).append(": ").append(values.get(0))
+                    .append(" → ").append(values.get(1)).append('\n');
+        }
+    }
+
+    private static void appendList(StringBuilder md, String title, List<Object> items) {
+        if (!items.isEmpty()) {
+            md.append("\n").append(title).append(": ").append(items).append('\n');
+        }
+    }
+
+    private static void appendTableHeader(StringBuilder md, String first, boolean compared) {
+        if (compared) {
+            md.append("| ").append(first).append(" | Baseline | Candidate |\n|------|----------|-----------|\n");
+        } else {
+            md.append("| ").append(first).append(" | Value |\n|------|-------|\n");
+        }
+    }
+
+    private static void appendRow(StringBuilder md, String key, Object baseline, Object candidate, boolean compared) {
+        md.append("| ").append(key).append(" | ");
+        if (compared) {
+            boolean differs = !Objects.equals(String.valueOf(baseline), String.valueOf(candidate));
+            md.append(cell(baseline)).append(" | ").append(differs ? "**" + cell(candidate) + "**" : cell(candidate));
+        } else {
+            md.append(cell(candidate));
+        }
+        md.append(" |\n");
+    }
+
+    private static void appendLatencyRow(StringBuilder md, Object series, String run, Map<String, Object> latency) {
+        md.append("| ").append(series).append(" | ").append(run).append(" | ").append(latency.get("count"));
+        for (String key : List.of("meanUs", "p50Us", "p90Us", "p99Us", "p999Us", "maxUs")) {
+            md.append(" | ").append(format(number(latency.get(key))));
+        }
+        md.append(" |\n");
+    }
+
+    private static String cell(Object value) {
+        return value == null ? "-" : String.valueOf(value).replace("|", "\\|");
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%,.2f", value);
+    }
+
+    private static double number(Object value) {
+        return value instanceof Number n ? n.doubleValue() : 0.0;
+    }
+
+    private static List<Double> numbers(Object value) {
+        List<Double> numbers = new ArrayList<>();
+        for (Object item : list(value)) {
+            if (item instanceof Number n) {
+                numbers.add(n.doubleValue());
+            }
+        }
+        return numbers;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> map(Object value) {
+        return value instanceof Map<?, ?> m ? (Map<String, Object>) m : Map.of();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> list(Object value) {
+        return value instanceof List<?> l ? (List<Object>) l : List.of();
+    }
+}
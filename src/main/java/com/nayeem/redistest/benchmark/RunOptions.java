@@ -0,0 +1,15 @@
+package com.nayeem.redistest.benchmark;
+
+import java.util.Objects;
+
+/**
+ * How a performance or comparison run is started: the records each approach writes, when its
+ * warmup ends, its deadline (0 uses the scheduler's default) and whether it gets a JFR recording
+ * summarized into its results.
+ */
+public record RunOptions(int records, WarmupPolicy warmup, long deadlineMs, boolean profile) {
+
+    public RunOptions {
+        Objects.requireNonNull(warmup, "warmup");
+    }
+}
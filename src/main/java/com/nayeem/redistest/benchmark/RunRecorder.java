@@ -0,0 +1,263 @@
+package com.nayeem.redistest.benchmark;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the client-side results of one benchmark run. A run goes through a warmup
+ * phase (JIT, connection setup, Jackson introspection) and a measured phase; each has its
+ * own counters and latency histogram. The monitor thread calls {@link #sample()} to build a
+ * throughput timeline, which is also used to detect when the measured phase becomes steady.
+ */
+public class RunRecorder {
+
+    public enum Phase { WARMUP, MEASURED, FINISHED }
+
+    // p50Nanos and p99Nanos cover the operations completed within the window
+    public record Window(Phase phase, long startMs, long durationMs, long ops, long p50Nanos, long p99Nanos) {
+        public double rate() {
+            return durationMs > 0 ? ops * 1000.0 / durationMs : 0.0;
+        }
+    }
+
+    private final String name;
+    private final WarmupPolicy warmupPolicy;
+    private final int steadyStateWindows;
+    private final double steadyStateMaxCv;
+
+    private final LongAdder warmupOps = new LongAdder();
+    private final LongAdder measuredOps = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram warmupLatency = new LatencyHistogram();
+    private final LatencyHistogram measuredLatency = new LatencyHistogram();
+    private final List<Window> timeline = new ArrayList<>();
+    private volatile LatencyHistogram windowLatency = new LatencyHistogram();
+
+    private volatile Phase phase = Phase.WARMUP;
+    private long startNanos;
+    private long measureStartNanos;
+    private long endNanos;
+    private long lastSampleNanos;
+    private long lastSampleOps;
+
+    public RunRecorder(String name, WarmupPolicy warmupPolicy, int steadyStateWindows, double steadyStateMaxCv) {
+        this.name = name;
+        this.warmupPolicy = warmupPolicy;
+        this.steadyStateWindows = Math.max(2, steadyStateWindows);
+        this.steadyStateMaxCv = steadyStateMaxCv;
+    }
+
+    public synchronized void start() {
+        startNanos = System.nanoTime();
+        lastSampleNanos = startNanos;
+        lastSampleOps = 0;
+        if (!warmupPolicy.isEnabled()) {
+            measureStartNanos = startNanos;
+            phase = Phase.MEASURED;
+        }
+    }
+
+    // True while the warmup policy has not been satisfied yet
+    public boolean isWarmingUp() {
+        if (phase != Phase.WARMUP) {
+            return false;
+        }
+        long elapsedMs = (System.nanoTime() - startNanos) / 1_000_000;
+        return !warmupPolicy.isComplete(elapsedMs, warmupOps.sum());
+    }
+
+    public synchronized void beginMeasurement() {
+        if (phase != Phase.WARMUP) {
+            return;
+        }
+        // Close the warmup window so no measured ops are attributed to it
+        sampleLocked(System.nanoTime());
+        measureStartNanos = lastSampleNanos;
+        phase = Phase.MEASURED;
+    }
+
+    public void recordWarmupOp(long latencyNanos) {
+        warmupOps.increment();
+        warmupLatency.record(latencyNanos);
+        windowLatency.record(latencyNanos);
+    }
+
+    public void recordOp(long latencyNanos) {
+        measuredOps.increment();
+        measuredLatency.record(latencyNanos);
+        windowLatency.record(latencyNanos);
+    }
+
+    public void recordError() {
+        errors.increment();
+    }
+
+    public synchronized void sample() {
+        if (phase != Phase.FINISHED) {
+            sampleLocked(System.nanoTime());
+        }
+    }
+
+    public synchronized void finish() {
+        if (phase == Phase.FINISHED) {
+            return;
+        }
+        if (phase == Phase.WARMUP) {
+            beginMeasurement();
+        }
+        sampleLocked(System.nanoTime());
+        endNanos = lastSampleNanos;
+        phase = Phase.FINISHED;
+    }
+
+    private void sampleLocked(long now) {
+        long ops = warmupOps.sum() + measuredOps.sum();
+        long durationMs = (now - lastSampleNanos) / 1_000_000;
+        if (durationMs <= 0) {
+            return;
+        }
+        LatencyHistogram latency = windowLatency;
+        windowLatency = new LatencyHistogram();
+        timeline.add(new Window(phase, (lastSampleNanos - startNanos) / 1_000_000, durationMs, ops - lastSampleOps,
+                latency.getPercentileNanos(50), latency.getPercentileNanos(99)));
+        lastSampleNanos = now;
+        lastSampleOps = ops;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // System.nanoTime() at start(); timeline windows are relative to it
+    public synchronized long getStartNanos() {
+        return startNanos;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public long getMeasuredOps() {
+        return measuredOps.sum();
+    }
+
+    public long getWarmupOps() {
+        return warmupOps.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public LatencyHistogram getMeasuredLatency() {
+        return measuredLatency;
+    }
+
+    public synchronized List<Window> getTimeline() {
+        return new ArrayList<>(timeline);
+    }
+
+    // Measured-phase throughput in ops/sec, up to now for a run still in progress
+    public synchronized double getMeasuredRate() {
+        if (phase == Phase.WARMUP) {
+            return 0.0;
+        }
+        long end = phase == Phase.FINISHED ? endNanos : System.nanoTime();
+        long nanos = end - measureStartNanos;
+        return nanos > 0 ? measuredOps.sum() * 1_000_000_000.0 / nanos : 0.0;
+    }
+
+    public synchronized long getMeasuredDurationMs() {
+        if (phase == Phase.WARMUP) {
+            return 0;
+        }
+        long end = phase == Phase.FINISHED ? endNanos : System.nanoTime();
+        return (end - measureStartNanos) / 1_000_000;
+    }
+
+    /**
+     * Index (into the measured windows) of the first window of a stable stretch: the first
+     * run of {@code steadyStateWindows} consecutive windows whose throughput CV is within
+     * the threshold. Returns -1 when the run never stabilised.
+     */
+    public synchronized int findSteadyStateStart() {
+        List<Double> rates = measuredRates();
+        for (int i = 0; i + steadyStateWindows <= rates.size(); i++) {
+            double cv = Statistics.coefficientOfVariation(rates.subList(i, i + steadyStateWindows));
+            if (cv <= steadyStateMaxCv) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private List<Double> measuredRates() {
+        List<Double> rates = new ArrayList<>();
+        for (Window window : timeline) {
+            if (window.phase() == Phase.MEASURED) {
+                rates.add(window.rate());
+            }
+        }
+        return rates;
+    }
+
+    public synchronized Map<String, Object> summary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("name", name);
+        summary.put("phase", phase.name());
+
+        Map<String, Object> warmup = new LinkedHashMap<>();
+        long warmupDurationMs = phase == Phase.WARMUP
+                ? (System.nanoTime() - startNanos) / 1_000_000
+                : (measureStartNanos - startNanos) / 1_000_000;
+        warmup.put("policyDurationMs", warmupPolicy.durationMs());
+        warmup.put("policyOps", warmupPolicy.ops());
+        warmup.put("ops", warmupOps.sum());
+        warmup.put("durationMs", warmupDurationMs);
+        warmup.put("rate", Statistics.round(warmupDurationMs > 0 ? warmupOps.sum() * 1000.0 / warmupDurationMs : 0.0, 2));
+        warmup.put("latency", warmupLatency.toSummary());
+        summary.put("warmup", warmup);
+
+        Map<String, Object> measured = new LinkedHashMap<>();
+        measured.put("ops", measuredOps.sum());
+        measured.put("errors", errors.sum());
+        measured.put("durationMs", getMeasuredDurationMs());
+        measured.put("rate", Statistics.round(getMeasuredRate(), 2));
+        measured.put("latency", measuredLatency.toSummary());
+        summary.put("measured", measured);
+
+        Map<String, Object> steady = new LinkedHashMap<>();
+        List<Double> rates = measuredRates();
+        int steadyStart = findSteadyStateStart();
+        steady.put("detected", steadyStart >= 0);
+        steady.put("requiredWindows", steadyStateWindows);
+        steady.put("maxCv", steadyStateMaxCv);
+        if (steadyStart >= 0) {
+            List<Double> steadyRates = rates.subList(steadyStart, rates.size());
+            steady.put("startWindow", steadyStart);
+            steady.put("windows", steadyRates.size());
+            steady.put("meanRate", Statistics.round(Statistics.mean(steadyRates), 2));
+            steady.put("stddevRate", Statistics.round(Statistics.stddev(steadyRates), 2));
+            steady.put("cv", Statistics.round(Statistics.coefficientOfVariation(steadyRates), 4));
+        }
+        summary.put("steadyState", steady);
+
+        List<Map<String, Object>> windows = new ArrayList<>();
+        for (Window window : timeline) {
+            Map<String, Object> w = new LinkedHashMap<>();
+            w.put("phase", window.phase().name());
+            w.put("startMs", window.startMs());
+            w.put("durationMs", window.durationMs());
+            w.put("ops", window.ops());
+            w.put("rate", Statistics.round(window.rate(), 2));
+            w.put("p50Us", Statistics.round(window.p50Nanos() / 1000.0, 2));
+            w.put("p99Us", Statistics.round(window.p99Nanos() / 1000.0, 2));
+            windows.add(w);
+        }
+        summary.put("timeline", windows);
+        return summary;
+    }
+}
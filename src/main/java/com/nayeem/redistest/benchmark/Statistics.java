@@ -0,0 +1,264 @@
+package com.nayeem.redistest.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Descriptive statistics over benchmark samples
+public final class Statistics {
+
+    private Statistics() {
+    }
+
+    public static double mean(List<Double> values) {
+        if (values.isEmpty()) {
+            return 0.0;
+        }
+        double sum = 0;
+        for (double v : values) {
+            sum += v;
+        }
+        return sum / values.size();
+    }
+
+    // Sample standard deviation (n - 1 denominator)
+    public static double stddev(List<Double> values) {
+        int n = values.size();
+        if (n < 2) {
+            return 0.0;
+        }
+        double mean = mean(values);
+        double squares = 0;
+        for (double v : values) {
+            squares += (v - mean) * (v - mean);
+        }
+        return Math.sqrt(squares / (n - 1));
+    }
+
+    // Coefficient of variation; infinite when the mean is zero
+    public static double coefficientOfVariation(List<Double> values) {
+        double mean = mean(values);
+        if (mean == 0.0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return stddev(values) / mean;
+    }
+
+    // Lag-1 autocorrelation of a sequence; 0 when it has fewer than three values or no variance
+    public static double lag1Autocorrelation(List<Double> values) {
+        int n = values.size();
+        if (n < 3) {
+            return 0.0;
+        }
+        double mean = mean(values);
+        double squares = 0;
+        double products = 0;
+        for (int i = 0; i < n; i++) {
+            double d = values.get(i) - mean;
+            squares += d * d;
+            if (i + 1 < n) {
+                products += d * (values.get(i + 1) - mean);
+            }
+        }
+        return squares == 0.0 ? 0.0 : products / squares;
+    }
+
+    /**
+     * Batch means of consecutive, autocorrelated samples such as the per-window rates of one run.
+     * Consecutive values are averaged in batches whose size doubles until the lag-1
+     * autocorrelation of the means is at most {@code maxLag1}, so the means can be tested as
+     * roughly independent. Trailing values that do not fill a batch are dropped. Returns an empty
+     * list when fewer than {@code minBatches} batches would be left.
+     */
+    public static List<Double> batchMeans(List<Double> values, int minBatches, double maxLag1) {
+        for (int size = 1; values.size() / size >= minBatches; size *= 2) {
+            List<Double> means = new ArrayList<>();
+            for (int start = 0; start + size <= values.size(); start += size) {
+                means.add(mean(values.subList(start, start + size)));
+            }
+            if (lag1Autocorrelation(means) <= maxLag1) {
+                return means;
+            }
+        }
+        return List.of();
+    }
+
+    // Two-sided confidence interval for the mean, using Student's t distribution
+    public static double[] confidenceInterval(List<Double> values, double confidence) {
+        int n = values.size();
+        double mean = mean(values);
+        if (n < 2) {
+            return new double[]{mean, mean};
+        }
+        double halfWidth = tQuantile(1 - (1 - confidence) / 2, n - 1) * stddev(values) / Math.sqrt(n);
+        return new double[]{mean - halfWidth, mean + halfWidth};
+    }
+
+    /**
+     * Confidence interval for the ratio of two means (a / b) by the delta method, with
+     * Welch-Satterthwaite degrees of freedom. Adequate when both CVs are small, which is
+     * the case for repeated throughput trials.
+     */
+    public static double[] ratioConfidenceInterval(List<Double> a, List<Double> b, double confidence) {
+        double meanA = mean(a);
+        double meanB = mean(b);
+        if (meanB == 0.0 || a.size() < 2 || b.size() < 2) {
+            double ratio = meanB == 0.0 ? Double.NaN : meanA / meanB;
+            return new double[]{ratio, ratio};
+        }
+        double ratio = meanA / meanB;
+        double relVarA = Math.pow(stddev(a) / meanA, 2) / a.size();
+        double relVarB = Math.pow(stddev(b) / meanB, 2) / b.size();
+        double df = welchDegreesOfFreedom(a, b);
+        double halfWidth = tQuantile(1 - (1 - confidence) / 2, df) * ratio * Math.sqrt(relVarA + relVarB);
+        return new double[]{ratio - halfWidth, ratio + halfWidth};
+    }
+
+    // Two-sided Welch t-test p-value for a difference in means
+    public static double welchPValue(List<Double> a, List<Double> b) {
+        if (a.size() < 2 || b.size() < 2) {
+            return Double.NaN;
+        }
+        double varA = Math.pow(stddev(a), 2) / a.size();
+        double varB = Math.pow(stddev(b), 2) / b.size();
+        if (varA + varB == 0.0) {
+            return mean(a) == mean(b) ? 1.0 : 0.0;
+        }
+        double t = Math.abs(mean(a) - mean(b)) / Math.sqrt(varA + varB);
+        return 2 * (1 - tCdf(t, welchDegreesOfFreedom(a, b)));
+    }
+
+    public static double welchDegreesOfFreedom(List<Double> a, List<Double> b) {
+        double varA = Math.pow(stddev(a), 2) / a.size();
+        double varB = Math.pow(stddev(b), 2) / b.size();
+        double denominator = varA * varA / (a.size() - 1) + varB * varB / (b.size() - 1);
+        if (denominator == 0.0) {
+            return a.size() + b.size() - 2;
+        }
+        return (varA + varB) * (varA + varB) / denominator;
+    }
+
+    // Quantile of Student's t distribution: exact for df 1 and 2, Cornish-Fisher expansion otherwise
+    public static double tQuantile(double p, double df) {
+        if (df <= 1.0) {
+            return Math.tan(Math.PI * (p - 0.5));
+        }
+        if (df <= 2.0) {
+            return (2 * p - 1) * Math.sqrt(2.0 / (4 * p * (1 - p)));
+        }
+        double z = normalQuantile(p);
+        double z3 = z * z * z;
+        double z5 = z3 * z * z;
+        double z7 = z5 * z * z;
+        double z9 = z7 * z * z;
+        return z
+                + (z3 + z) / (4 * df)
+                + (5 * z5 + 16 * z3 + 3 * z) / (96 * df * df)
+                + (3 * z7 + 19 * z5 + 17 * z3 - 15 * z) / (384 * df * df * df)
+                + (79 * z9 + 776 * z7 + 1482 * z5 - 1920 * z3 - 945 * z) / (92160 * df * df * df * df);
+    }
+
+    // Inverse standard normal CDF (Acklam's rational approximation, relative error < 1.2e-9)
+    public static double normalQuantile(double p) {
+        if (p <= 0.0 || p >= 1.0) {
+            throw new IllegalArgumentException("Probability must be in (0, 1)");
+        }
+        double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+                1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+                6.680131188771972e+01, -1.328068155288572e+01};
+        double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+                -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+                3.754408661907416e+00};
+        double low = 0.02425;
+        if (p < low) {
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        if (p > 1 - low) {
+            double q = Math.sqrt(-2 * Math.log(1 - p));
+            return -(((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        double q = p - 0.5;
+        double r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+                / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    }
+
+    // CDF of Student's t via the regularized incomplete beta function
+    public static double tCdf(double t, double df) {
+        double x = df / (df + t * t);
+        double tail = 0.5 * regularizedIncompleteBeta(x, df / 2, 0.5);
+        return t >= 0 ? 1 - tail : tail;
+    }
+
+    private static double regularizedIncompleteBeta(double x, double a, double b) {
+        if (x <= 0) {
+            return 0;
+        }
+        if (x >= 1) {
+            return 1;
+        }
+        double front = Math.exp(logGamma(a + b) - logGamma(a) - logGamma(b) + a * Math.log(x) + b * Math.log(1 - x));
+        if (x < (a + 1) / (a + b + 2)) {
+            return front * betaContinuedFraction(x, a, b) / a;
+        }
+        return 1 - front * betaContinuedFraction(1 - x, b, a) / b;
+    }
+
+    // Lentz's method for the continued fraction of the incomplete beta function
+    private static double betaContinuedFraction(double x, double a, double b) {
+        double tiny = 1e-30;
+        double c = 1;
+        double d = 1 - (a + b) * x / (a + 1);
+        d = Math.abs(d) < tiny ? tiny : d;
+        d = 1 / d;
+        double h = d;
+        for (int m = 1; m <= 200; m++) {
+            int m2 = 2 * m;
+            double aa = m * (b - m) * x / ((a + m2 - 1) * (a + m2));
+            d = 1 + aa * d;
+            d = Math.abs(d) < tiny ? tiny : d;
+            c = 1 + aa / c;
+            c = Math.abs(c) < tiny ? tiny : c;
+            d = 1 / d;
+            h *= d * c;
+            aa = -(a + m) * (a + b + m) * x / ((a + m2) * (a + m2 + 1));
+            d = 1 + aa * d;
+            d = Math.abs(d) < tiny ? tiny : d;
+            c = 1 + aa / c;
+            c = Math.abs(c) < tiny ? tiny : c;
+            d = 1 / d;
+            double delta = d * c;
+            h *= delta;
+            if (Math.abs(delta - 1) < 1e-12) {
+                break;
+            }
+        }
+        return h;
+    }
+
+    // Lanczos approximation
+    private static double logGamma(double x) {
+        double[] coefficients = {76.18009172947146, -86.50532032941677, 24.01409824083091,
+                -1.231739572450155, 0.1208650973866179e-2, -0.5395239384953e-5};
+        double y = x;
+        double tmp = x + 5.5;
+        tmp -= (x + 0.5) * Math.log(tmp);
+        double series = 1.000000000190015;
+        for (double coefficient : coefficients) {
+            series += coefficient / ++y;
+        }
+        return -tmp + Math.log(2.5066282746310005 * series / x);
+    }
+
+    public static double round(double value, int decimals) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return value;
+        }
+        double scale = Math.pow(10, decimals);
+        return Math.round(value * scale) / scale;
+    }
+}
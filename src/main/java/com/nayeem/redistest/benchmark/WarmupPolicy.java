@@ -0,0 +1,24 @@
+package com.nayeem.redistest.benchmark;
+
+/**
+ * When the warmup phase of a run ends. Warmup lasts until every configured threshold is
+ * reached; with both set to zero the run starts measuring immediately.
+ */
+public record WarmupPolicy(long durationMs, long ops) {
+
+    public static final WarmupPolicy NONE = new WarmupPolicy(0, 0);
+
+    public WarmupPolicy {
+        if (durationMs < 0 || ops < 0) {
+            throw new IllegalArgumentException("Warmup duration and ops must not be negative");
+        }
+    }
+
+    public boolean isEnabled() {
+        return durationMs > 0 || ops > 0;
+    }
+
+    public boolean isComplete(long elapsedMs, long completedOps) {
+        return elapsedMs >= durationMs && completedOps >= ops;
+    }
+}
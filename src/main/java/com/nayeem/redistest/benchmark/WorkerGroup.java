@@ -0,0 +1,73 @@
+package com.nayeem.redistest.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The workers of one benchmark phase, submitted through their {@link BenchmarkRunScheduler.Run}
+ * so they run on the benchmark pool. Worker loops check {@link #isRunning()}, which turns false
+ * when the group is told to stop or the run stops or passes its deadline.
+ *
+ * <p>{@link #await()} waits for every worker and rethrows a failure as an
+ * {@link IllegalStateException} carrying the first failure as its cause and the others as
+ * suppressed, so a phase never reports figures from workers that died part way. Closing the group
+ * stops and waits for its workers, so a coordinator that throws leaves none running.
+ */
+public final class WorkerGroup implements AutoCloseable {
+
+    private final BenchmarkRunScheduler.Run run;
+    private final String name;
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private final List<CompletableFuture<Void>> workers = new ArrayList<>();
+
+    public WorkerGroup(BenchmarkRunScheduler.Run run, String name) {
+        this.run = run;
+        this.name = name;
+    }
+
+    public void start(Runnable worker) {
+        workers.add(run.submit(worker));
+    }
+
+    public boolean isRunning() {
+        return running.get() && run.isActive();
+    }
+
+    public void stop() {
+        running.set(false);
+    }
+
+    /** Waits for every worker; throws if any of them failed. */
+    public void await() throws InterruptedException {
+        List<Throwable> failures = new ArrayList<>();
+        for (CompletableFuture<Void> worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                failures.add(e.getCause());
+            }
+        }
+        if (!failures.isEmpty()) {
+            IllegalStateException failure = new IllegalStateException(failures.size() + " of " + workers.size()
+                    + " " + name + " workers failed: " + failures.get(0).getMessage(), failures.get(0));
+            failures.subList(1, failures.size()).forEach(failure::addSuppressed);
+            throw failure;
+        }
+    }
+
+    // Stops the workers and waits for them; failures are left to await(), which the phase has called or skipped
+    @Override
+    public void close() throws InterruptedException {
+        stop();
+        for (CompletableFuture<Void> worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                // Reported by await()
+            }
+        }
+    }
+}
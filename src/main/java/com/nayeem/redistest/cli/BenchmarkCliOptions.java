@@ -0,0 +1,101 @@
+package com.nayeem.redistest.cli;
+
+import org.springframework.boot.ApplicationArguments;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Arguments of the headless runner, given as {@code --name=value}:
+ * <pre>
+ *   --workload=read|write|mixed      (default mixed)
+ *   --engines=redistemplate,spring-data,reactive,bucketed   (default redistemplate)
+ *   --concurrency=N                   worker threads per engine (default 4)
+ *   --duration=S                      measured seconds per engine (default 10)
+ *   --warmup-ms=MS                    unmeasured warmup per engine (default benchmark.warmup.duration-ms)
+ *   --records=N                       ids the workload reads and writes (default 10000)
+ *   --read-ratio=R                    share of reads in the mixed workload (default 0.8)
+ *   --format=json|csv                 (default json)
+ *   --output=PATH                     result file (default bench-result.json or .csv)
+ *   --baseline=ID|auto                compare with a stored run; auto picks the marked baseline or the previous run
+ *   --report=PATH                     also write the markdown comparison report there
+ * </pre>
+ * A comparison runs when either of the last two is given.
+ */
+public record BenchmarkCliOptions(Workload workload, List<Engine> engines, int concurrency, int durationSec,
+                                  Long warmupMs, int records, double readRatio, Format format, Path output,
+                                  String baseline, Path report) {
+
+    public enum Workload { READ, WRITE, MIXED }
+
+    public enum Engine { REDISTEMPLATE, SPRING_DATA, REACTIVE, BUCKETED }
+
+    public enum Format { JSON, CSV }
+
+    public static BenchmarkCliOptions parse(ApplicationArguments args) {
+        Workload workload = parseEnum(Workload.class, value(args, "workload", "mixed"));
+        List<Engine> engines = Arrays.stream(value(args, "engines", "redistemplate").split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .map(name -> parseEnum(Engine.class, name))
+                .distinct()
+                .toList();
+        int concurrency = Integer.parseInt(value(args, "concurrency", "4"));
+        int durationSec = Integer.parseInt(value(args, "duration", "10"));
+        String warmup = value(args, "warmup-ms", null);
+        int records = Integer.parseInt(value(args, "records", "10000"));
+        double readRatio = Double.parseDouble(value(args, "read-ratio", "0.8"));
+        Format format = parseEnum(Format.class, value(args, "format", "json"));
+        Path output = Path.of(value(args, "output", "bench-result." + format.name().toLowerCase(Locale.ROOT)));
+        String baseline = value(args, "baseline", null);
+        String report = value(args, "report", null);
+
+        if (engines.isEmpty()) {
+            throw new IllegalArgumentException("--engines needs at least one of " + Arrays.toString(Engine.values()));
+        }
+        if (concurrency < 1 || durationSec < 1 || records < 1) {
+            throw new IllegalArgumentException("--concurrency, --duration and --records must be positive");
+        }
+        if (readRatio < 0 || readRatio > 1) {
+            throw new IllegalArgumentException("--read-ratio must be within 0..1");
+        }
+        return new BenchmarkCliOptions(workload, engines, concurrency, durationSec,
+                warmup != null ? Long.valueOf(warmup) : null, records, readRatio, format, output,
+                baseline, report != null ? Path.of(report) : null);
+    }
+
+    public boolean compare() {
+        return baseline != null || report != null;
+    }
+
+    // "auto" leaves the choice to the result store
+    public String explicitBaseline() {
+        return baseline == null || baseline.equalsIgnoreCase("auto") ? null : baseline;
+    }
+
+    // Share of reads the workload issues
+    public double effectiveReadRatio() {
+        return switch (workload) {
+            case READ -> 1.0;
+            case WRITE -> 0.0;
+            case MIXED -> readRatio;
+        };
+    }
+
+    private static String value(ApplicationArguments args, String name, String defaultValue) {
+        List<String> values = args.getOptionValues(name);
+        return values != null && !values.isEmpty() ? values.get(values.size() - 1) : defaultValue;
+    }
+
+    // "spring-data" and "SPRING_DATA" both name Engine.SPRING_DATA
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value) {
+        try {
+            return Enum.valueOf(type, value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + type.getSimpleName().toLowerCase(Locale.ROOT) + " '" + value
+                    + "', expected one of " + Arrays.toString(type.getEnumConstants()));
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.nayeem.redistest.cli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nayeem.redistest.benchmark.BenchmarkRunScheduler;
+import com.nayeem.redistest.benchmark.RunComparison;
+import com.nayeem.redistest.benchmark.RunRecorder;
+import com.nayeem.redistest.benchmark.WarmupPolicy;
+import com.nayeem.redistest.benchmark.WorkerGroup;
+import com.nayeem.redistest.config.BenchmarkSettings;
+import com.nayeem.redistest.model.TestData;
+import com.nayeem.redistest.service.BenchmarkResultStore;
+import com.nayeem.redistest.service.BucketedTestDataStore;
+import com.nayeem.redistest.service.ReactiveRedisService;
+import com.nayeem.redistest.service.RedisService;
+import com.nayeem.redistest.service.ServerStatsSampler;
+import com.nayeem.redistest.service.SpringDataRedisService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Non-web entry point for CI: runs the workload against each engine through the same services
+ * the REST API uses and writes one result file. Started with the "bench" profile, which turns
+ * off both web servers and makes every bean lazy, so only what the chosen engines need is built.
+ * Each engine gets a seeded keyspace, an unmeasured warmup, a measured phase of the requested
+ * duration recorded by {@link RunRecorder}, and the server-side stats of its run.
+ *
+ * <p>The run is also kept in the {@link BenchmarkResultStore}. With {@code --baseline} or
+ * {@code --report} it is compared with a stored baseline, and a significant regression exits
+ * with code 3 so a CI job fails on it.
+ */
+@Component
+@Profile("bench")
+@Slf4j
+public class HeadlessBenchmarkRunner implements ApplicationRunner {
+
+    private static final String ID_PREFIX = "cli-bench-";
+    private static final long SAMPLE_INTERVAL_MS = 1000;
+
+    private final ConfigurableApplicationContext context;
+    private final BenchmarkSettings benchmarkSettings;
+    private final BenchmarkRunScheduler runScheduler;
+    private final ServerStatsSampler serverStatsSampler;
+    private final BenchmarkResultStore resultStore;
+    private final ObjectMapper objectMapper;
+    private final boolean exitOnFinish;
+
+    public HeadlessBenchmarkRunner(ConfigurableApplicationContext context, BenchmarkSettings benchmarkSettings,
+                                   BenchmarkRunScheduler runScheduler, ServerStatsSampler serverStatsSampler,
+                                   BenchmarkResultStore resultStore, ObjectMapper objectMapper,
+                                   @Value("${bench.exit-on-finish:true}") boolean exitOnFinish) {
+        this.context = context;
+        this.benchmarkSettings = benchmarkSettings;
+        this.runScheduler = runScheduler;
+        this.serverStatsSampler = serverStatsSampler;
+        this.resultStore = resultStore;
+        this.objectMapper = objectMapper;
+        this.exitOnFinish = exitOnFinish;
+    }
+
+    // The operations of one engine; only the chosen engines' services are instantiated
+    private record EngineOps(Consumer<TestData> save, Function<String, Object> get, Consumer<String> delete) {
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        long startupMs = ManagementFactory.getRuntimeMXBean().getUptime();
+        int exitCode;
+        try {
+            BenchmarkCliOptions options = BenchmarkCliOptions.parse(args);
+            log.info("Headless benchmark: {} (started in {} ms)", options, startupMs);
+            List<RunRecorder> recorders = new ArrayList<>();
+            Map<String, Object> result = runAll(options, startupMs, recorders);
+            String storedId = store(options, result, recorders);
+            result.put("storedRun", storedId);
+            write(options, result);
+            log.info("Wrote {} results to {}", options.engines().size(), options.output().toAbsolutePath());
+            exitCode = options.compare() && regressed(options, storedId) ? 3 : 0;
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid arguments: {}", e.getMessage());
+            exitCode = 2;
+        } catch (Exception e) {
+            log.error("Headless benchmark failed", e);
+            exitCode = 1;
+        }
+        if (exitOnFinish) {
+            int code = exitCode;
+            System.exit(SpringApplication.exit(context, () -> code));
+        } else if (exitCode != 0) {
+            throw new IllegalStateException("Headless benchmark failed with exit code " + exitCode);
+        }
+    }
+
+    private Map<String, Object> runAll(BenchmarkCliOptions options, long startupMs, List<RunRecorder> recorders)
+            throws InterruptedException {
+        runScheduler.requireWorkers(options.concurrency());
+        WarmupPolicy warmup = benchmarkSettings.warmupPolicy(options.warmupMs(), null);
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("workload", options.workload());
+        config.put("engines", options.engines());
+        config.put("concurrency", options.concurrency());
+        config.put("durationSec", options.durationSec());
+        config.put("warmup", warmup);
+        config.put("records", options.records());
+        config.put("readRatio", options.effectiveReadRatio());
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (BenchmarkCliOptions.Engine engine : options.engines()) {
+            results.add(runEngine(engine, ops(engine), options, warmup, recorders));
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("finishedAt", LocalDateTime.now());
+        result.put("startupMs", startupMs);
+        result.put("javaVersion", System.getProperty("java.version"));
+        result.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        result.put("config", config);
+        result.put("results", results);
+        return result;
+    }
+
+    private EngineOps ops(BenchmarkCliOptions.Engine engine) {
+        return switch (engine) {
+            case REDISTEMPLATE -> {
+                RedisService service = context.getBean(RedisService.class);
+                yield new EngineOps(service::saveTestData, service::getTestData, service::deleteTestData);
+            }
+            case SPRING_DATA -> {
+                SpringDataRedisService service = context.getBean(SpringDataRedisService.class);
+                yield new EngineOps(service::saveTestData, id -> service.getTestData(id).orElse(null), service::deleteTestData);
+            }
+            case REACTIVE -> {
+                ReactiveRedisService service = context.getBean(ReactiveRedisService.class);
+                yield new EngineOps(data -> service.saveTestData(data).block(), id -> service.getTestData(id).block(),
+                        id -> service.deleteTestData(id).block());
+            }
+            case BUCKETED -> {
+                BucketedTestDataStore store = context.getBean(BucketedTestDataStore.class);
+                yield new EngineOps(store::saveTestData, store::getTestData, store::deleteTestData);
+            }
+        };
+    }
+
+    private Map<String, Object> runEngine(BenchmarkCliOptions.Engine engine, EngineOps ops, BenchmarkCliOptions options,
+                                          WarmupPolicy warmup, List<RunRecorder> recorders) throws InterruptedException {
+        String name = engine.name().toLowerCase(Locale.ROOT).replace('_', '-');
+        log.info("Seeding {} records for {}", options.records(), name);
+        for (int i = 0; i < options.records(); i++) {
+            ops.save().accept(record(i));
+        }
+
+        RunRecorder recorder = benchmarkSettings.newRecorder(name, warmup);
+        recorders.add(recorder);
+        BenchmarkRunScheduler.Run run = runScheduler.open("headless-" + name, 0);
+        try {
+            recorder.start();
+            double readRatio = options.effectiveReadRatio();
+            long warmupEnd = System.nanoTime() + warmup.durationMs() * 1_000_000;
+            AtomicLong measureEnd = new AtomicLong();
+            try (WorkerGroup workers = new WorkerGroup(run, "headless " + name)) {
+                for (int t = 0; t < options.concurrency(); t++) {
+                    workers.start(() -> {
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        while (workers.isRunning()) {
+                            long end = measureEnd.get();
+                            if (end != 0 && System.nanoTime() >= end) {
+                                return;
+                            }
+                            int index = random.nextInt(options.records());
+                            long opStart = System.nanoTime();
+                            try {
+                                if (random.nextDouble() < readRatio) {
+                                    ops.get().apply(ID_PREFIX + index);
+                                } else {
+                                    ops.save().accept(record(index));
+                                }
+                                long latency = System.nanoTime() - opStart;
+                                if (recorder.getPhase() == RunRecorder.Phase.WARMUP) {
+                                    recorder.recordWarmupOp(latency);
+                                } else {
+                                    recorder.recordOp(latency);
+                                }
+                            } catch (RuntimeException e) {
+                                recorder.recordError();
+                            }
+                        }
+                    });
+                }
+                // This thread ends the warmup, samples the timeline and stops the workers
+                while (recorder.isWarmingUp() && System.nanoTime() < warmupEnd && run.isActive()) {
+                    Thread.sleep(Math.min(SAMPLE_INTERVAL_MS, Math.max(1, (warmupEnd - System.nanoTime()) / 1_000_000)));
+                    recorder.sample();
+                }
+                recorder.beginMeasurement();
+                long end = System.nanoTime() + options.durationSec() * 1_000_000_000L;
+                measureEnd.set(end);
+                while (System.nanoTime() < end && run.isActive()) {
+                    Thread.sleep(Math.min(SAMPLE_INTERVAL_MS, Math.max(1, (end - System.nanoTime()) / 1_000_000)));
+                    recorder.sample();
+                }
+                workers.await();
+            }
+            recorder.finish();
+        } finally {
+            // The report below needs the sampler's closing sample
+            run.closeAndAwait();
+        }
+
+        for (int i = 0; i < options.records(); i++) {
+            ops.delete().accept(ID_PREFIX + i);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("engine", name);
+        result.putAll(recorder.summary());
+        result.put("serverStats", serverStatsSampler.report(run.getId(), List.of(recorder)));
+        log.info("{}: {} ops/s over {} ms ({} errors)", name, Math.round(recorder.getMeasuredRate()),
+                recorder.getMeasuredDurationMs(), recorder.getErrors());
+        return result;
+    }
+
+    // Stored under one name per workload, so runs of the same workload are each other's baselines
+    @SuppressWarnings("unchecked")
+    private String store(BenchmarkCliOptions options, Map<String, Object> result, List<RunRecorder> recorders) {
+        Map<String, Object> stored = new LinkedHashMap<>();
+        stored.put("startupMs", result.get("startupMs"));
+        stored.put("engines", result.get("results"));
+        List<Map<String, Object>> series = new ArrayList<>();
+        recorders.forEach(recorder -> series.add(BenchmarkResultStore.series(recorder)));
+        return resultStore.save("headless-" + options.workload().name().toLowerCase(Locale.ROOT),
+                (Map<String, Object>) result.get("config"), stored, series);
+    }
+
+    private boolean regressed(BenchmarkCliOptions options, String storedId) throws IOException {
+        if (storedId == null) {
+            throw new IllegalStateException("Comparing needs the run to be stored; check benchmark.results.enabled and directory");
+        }
+        Map<String, Object> comparison = resultStore.compare(storedId, options.explicitBaseline(),
+                resultStore.getComparisonSettings());
+        if (options.report() != null) {
+            Path report = options.report().toAbsolutePath();
+            if (report.getParent() != null) {
+                Files.createDirectories(report.getParent());
+            }
+            Files.writeString(report, (String) comparison.get("markdown"));
+        }
+        log.info("Compared with baseline {}: {} (report {})", comparison.get("baseline"), comparison.get("verdict"),
+                options.report() != null ? options.report().toAbsolutePath() : comparison.get("reportFile"));
+        return RunComparison.Verdict.REGRESSION.name().equals(comparison.get("verdict"));
+    }
+
+    private static TestData record(int index) {
+        return new TestData(ID_PREFIX + index, "Performance Test Data " + index, "Headless benchmark record " + index,
+                LocalDateTime.now(), index);
+    }
+
+    private void write(BenchmarkCliOptions options, Map<String, Object> result) throws IOException {
+        Path output = options.output().toAbsolutePath();
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        if (options.format() == BenchmarkCliOptions.Format.JSON) {
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(output.toFile(), result);
+        } else {
+            Files.writeString(output, csv(result));
+        }
+    }
+
+    // One row per engine with the measured-phase figures
+    @SuppressWarnings("unchecked")
+    private static String csv(Map<String, Object> result) {
+        Map<String, Object> config = (Map<String, Object>) result.get("config");
+        StringBuilder csv = new StringBuilder("engine,workload,concurrency,readRatio,ops,errors,durationMs,rate,"
+                + "meanUs,p50Us,p90Us,p99Us,p999Us,maxUs,steadyState\n");
+        for (Map<String, Object> engine : (List<Map<String, Object>>) result.get("results")) {
+            Map<String, Object> measured = (Map<String, Object>) engine.get("measured");
+            Map<String, Object> latency = (Map<String, Object>) measured.get("latency");
+            Map<String, Object> steady = (Map<String, Object>) engine.get("steadyState");
+            csv.append(engine.get("engine")).append(',')
+                    .append(config.get("workload")).append(',')
+                    .append(config.get("concurrency")).append(',')
+                    .append(config.get("readRatio")).append(',')
+                    .append(measured.get("ops")).append(',')
+                    .append(measured.get("errors")).append(',')
+                    .append(measured.get("durationMs")).append(',')
+                    .append(measured.get("rate")).append(',')
+                    .append(latency.get("meanUs")).append(',')
+                    .append(latency.get("p50Us")).append(',')
+                    .append(latency.get("p90Us")).append(',')
+                    .append(latency.get("p99Us")).append(',')
+                    .append(latency.get("p999Us")).append(',')
+                    .append(latency.get("maxUs")).append(',')
+                    .append(steady.get("detected")).append('\n');
+        }
+        return csv.toString();
+    }
+}
@@ -0,0 +1,25 @@
+package com.nayeem.redistest.config;
+
+import com.nayeem.redistest.benchmark.BenchmarkRunScheduler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class BenchmarkExecutorConfig {
+
+    @Bean
+    public BenchmarkRunScheduler.Settings benchmarkRunSettings(@Value("${benchmark.runs.max-concurrent:2}") int maxConcurrentRuns,
+                                                              @Value("${benchmark.runs.pool-size:8}") int poolSize,
+                                                              @Value("${benchmark.runs.queue-capacity:16}") int queueCapacity,
+                                                              @Value("${benchmark.runs.virtual-threads:false}") boolean virtualThreads,
+                                                              @Value("${benchmark.runs.default-deadline-ms:1800000}") long defaultDeadlineMs) {
+        return new BenchmarkRunScheduler.Settings(maxConcurrentRuns, poolSize, queueCapacity, virtualThreads, defaultDeadlineMs);
+    }
+
+    // Shared by every benchmark service; separate from Tomcat's and Reactor's request threads
+    @Bean(destroyMethod = "close")
+    public BenchmarkRunScheduler benchmarkRunScheduler(BenchmarkRunScheduler.Settings benchmarkRunSettings) {
+        return new BenchmarkRunScheduler(benchmarkRunSettings);
+    }
+}
@@ -0,0 +1,36 @@
+package com.nayeem.redistest.config;
+
+import com.nayeem.redistest.benchmark.RunRecorder;
+import com.nayeem.redistest.benchmark.WarmupPolicy;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Defaults shared by every benchmark run; endpoints may override them per run
+@Component
+@Getter
+public class BenchmarkSettings {
+
+    @Value("${benchmark.warmup.duration-ms:2000}")
+    private long warmupDurationMs;
+
+    @Value("${benchmark.warmup.ops:0}")
+    private long warmupOps;
+
+    // Minimum number of consecutive timeline windows that must be stable
+    @Value("${benchmark.steady-state.windows:6}")
+    private int steadyStateWindows;
+
+    // Maximum coefficient of variation of window throughput considered steady
+    @Value("${benchmark.steady-state.max-cv:0.10}")
+    private double steadyStateMaxCv;
+
+    public WarmupPolicy warmupPolicy(Long durationMs, Long ops) {
+        return new WarmupPolicy(durationMs != null ? durationMs : warmupDurationMs,
+                ops != null ? ops : warmupOps);
+    }
+
+    public RunRecorder newRecorder(String name, WarmupPolicy warmupPolicy) {
+        return new RunRecorder(name, warmupPolicy, steadyStateWindows, steadyStateMaxCv);
+    }
+}
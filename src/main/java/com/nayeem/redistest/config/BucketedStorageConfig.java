@@ -0,0 +1,38 @@
+package com.nayeem.redistest.config;
+
+import com.nayeem.redistest.model.TestData;
+import com.nayeem.redistest.service.BucketedTestDataStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisTemplate;
+
+@Configuration
+public class BucketedStorageConfig {
+
+    @Bean
+    public BucketedTestDataStore.Settings bucketedStorageSettings(@Value("${redis.bucketed.bucket-size:100}") int bucketSize,
+                                                                  @Value("${redis.bucketed.expected-records:1000000}") long expectedRecords,
+                                                                  @Value("${redis.bucketed.ttl-seconds:3600}") long ttlSeconds,
+                                                                  @Value("${redis.bucketed.configure-encoding:false}") boolean configureEncoding,
+                                                                  @Value("${redis.bucketed.listpack-value-bytes:512}") int listpackValueBytes) {
+        return new BucketedTestDataStore.Settings(bucketSize, expectedRecords, ttlSeconds, configureEncoding, listpackValueBytes);
+    }
+
+    // Same TestData JSON as RedisService, stored as fields of testdata:bucket:<n> hashes
+    @Bean
+    public BucketedTestDataStore bucketedTestDataStore(RedisTemplate<String, TestData> redisTemplate,
+                                                       BucketedTestDataStore.Settings bucketedStorageSettings) {
+        return new BucketedTestDataStore(redisTemplate, bucketedStorageSettings, "testdata:bucket:");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void configureBucketEncoding(ApplicationReadyEvent event) {
+        BucketedTestDataStore store = event.getApplicationContext().getBean(BucketedTestDataStore.class);
+        if (store.getSettings().configureEncoding()) {
+            store.configureEncoding();
+        }
+    }
+}
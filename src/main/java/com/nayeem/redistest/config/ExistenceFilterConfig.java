@@ -0,0 +1,43 @@
+package com.nayeem.redistest.config;
+
+import com.nayeem.redistest.model.TestData;
+import com.nayeem.redistest.service.TestDataBloomFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisTemplate;
+
+@Configuration
+public class ExistenceFilterConfig {
+
+    @Bean
+    public TestDataBloomFilter.Settings existenceFilterSettings(@Value("${redis.existence-filter.enabled:false}") boolean enabled,
+                                                                @Value("${redis.existence-filter.expected-insertions:1000000}") long expectedInsertions,
+                                                                @Value("${redis.existence-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                                                                @Value("${redis.existence-filter.persist:false}") boolean persist,
+                                                                @Value("${redis.existence-filter.persist-interval-ms:1000}") long persistIntervalMs,
+                                                                @Value("${redis.existence-filter.rebuild-after-delete-ratio:0.2}") double rebuildAfterDeleteRatio,
+                                                                @Value("${redis.existence-filter.configure-notifications:true}") boolean configureNotifications) {
+        return new TestDataBloomFilter.Settings(enabled, expectedInsertions, falsePositiveRate, persist, persistIntervalMs,
+                rebuildAfterDeleteRatio, configureNotifications);
+    }
+
+    // Consulted by RedisService and SpringDataRedisService before existence checks, reads and deletes
+    @Bean(destroyMethod = "close")
+    public TestDataBloomFilter testDataBloomFilter(RedisTemplate<String, TestData> redisTemplate,
+                                                   TestDataBloomFilter.Settings existenceFilterSettings,
+                                                   @Value("${spring.data.redis.database:0}") int database) {
+        return new TestDataBloomFilter(redisTemplate, existenceFilterSettings, database);
+    }
+
+    // Built once the keyspace subscription is up, so writes during the scan are not missed
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeExistenceFilter(ApplicationReadyEvent event) {
+        TestDataBloomFilter filter = event.getApplicationContext().getBean(TestDataBloomFilter.class);
+        if (filter.isEnabled()) {
+            filter.initialize();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.nayeem.redistest.config;
+
+import com.nayeem.redistest.service.KeyspaceInvalidationListener;
+import com.nayeem.redistest.service.TestDataBloomFilter;
+import com.nayeem.redistest.service.TestDataL1Cache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.Properties;
+
+/**
+ * One subscription to the keyspace channel of {@code testdata:*} shared by the consumers that
+ * track other writers: the L1 cache (evicts on any change) and the existence filter (adds ids on
+ * writes, counts deletes). The filter is only trusted once CONFIG GET confirms its flags and while
+ * this container is listening.
+ */
+@Configuration
+@Slf4j
+public class KeyspaceNotificationConfig {
+
+    private static final String NOTIFY_KEYSPACE_EVENTS = "notify-keyspace-events";
+    // Keyspace channel (K) for generic (g: DEL, EXPIRE), hash (h) and expired (x) events
+    private static final String L1_CACHE_FLAGS = "Kghx";
+    // The filter also needs string (SET) events for the values RedisService writes
+    private static final String EXISTENCE_FILTER_FLAGS = "Kg$hx";
+
+    @Bean
+    @ConditionalOnExpression("${redis.l1-cache.enabled:false} or ${redis.existence-filter.enabled:false}")
+    public RedisMessageListenerContainer keyspaceNotificationContainer(RedisConnectionFactory connectionFactory,
+                                                                       TestDataL1Cache.Settings l1CacheSettings,
+                                                                       KeyspaceInvalidationListener keyspaceInvalidationListener,
+                                                                       TestDataBloomFilter testDataBloomFilter) {
+        StringBuilder flags = new StringBuilder();
+        if (l1CacheSettings.enabled() && l1CacheSettings.configureNotifications()) {
+            flags.append(L1_CACHE_FLAGS);
+        }
+        if (testDataBloomFilter.isEnabled() && testDataBloomFilter.getSettings().configureNotifications()) {
+            flags.append(EXISTENCE_FILTER_FLAGS);
+        }
+        String serverFlags = flags.isEmpty() && !testDataBloomFilter.isEnabled()
+                ? null
+                : keyspaceEventFlags(connectionFactory, flags.toString());
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        if (l1CacheSettings.enabled()) {
+            container.addMessageListener(keyspaceInvalidationListener, keyspaceInvalidationListener.topic());
+        }
+        if (testDataBloomFilter.isEnabled()) {
+            boolean confirmed = serverFlags != null && covers(serverFlags, EXISTENCE_FILTER_FLAGS);
+            if (!confirmed) {
+                log.warn("{} does not cover '{}'; the existence filter will answer \"maybe\" for every id",
+                        NOTIFY_KEYSPACE_EVENTS, EXISTENCE_FILTER_FLAGS);
+            }
+            testDataBloomFilter.attach(container::isListening, confirmed);
+            container.addMessageListener(testDataBloomFilter, testDataBloomFilter.topic());
+        }
+        return container;
+    }
+
+    // Adds the missing flags to the server's setting and returns the result, or null when CONFIG is
+    // unavailable (managed Redis often forbids it, which leaves the L1 cache on TTL-only expiry)
+    private static String keyspaceEventFlags(RedisConnectionFactory connectionFactory, String requiredFlags) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            Properties config = connection.serverCommands().getConfig(NOTIFY_KEYSPACE_EVENTS);
+            String current = config != null ? config.getProperty(NOTIFY_KEYSPACE_EVENTS, "") : "";
+            StringBuilder flags = new StringBuilder(current);
+            for (char flag : requiredFlags.toCharArray()) {
+                if (!covers(flags.toString(), String.valueOf(flag))) {
+                    flags.append(flag);
+                }
+            }
+            if (!flags.toString().equals(current)) {
+                connection.serverCommands().setConfig(NOTIFY_KEYSPACE_EVENTS, flags.toString());
+                log.info("Set {} from '{}' to '{}' for keyspace tracking", NOTIFY_KEYSPACE_EVENTS, current, flags);
+            }
+            return flags.toString();
+        } catch (RuntimeException e) {
+            log.warn("Could not enable keyspace notifications ({}); the L1 cache relies on its TTL and the existence "
+                    + "filter stays off", e.getMessage());
+            return null;
+        }
+    }
+
+    // 'A' stands for every event class except the keyspace/keyevent channel selectors
+    private static boolean covers(String flags, String required) {
+        for (char flag : required.toCharArray()) {
+            if (flags.indexOf(flag) < 0 && (flag == 'K' || flags.indexOf('A') < 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,33 @@
+package com.nayeem.redistest.config;
+
+import com.nayeem.redistest.service.KeyspaceInvalidationListener;
+import com.nayeem.redistest.service.TestDataL1Cache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class L1CacheConfig {
+
+    @Bean
+    public TestDataL1Cache.Settings l1CacheSettings(@Value("${redis.l1-cache.enabled:false}") boolean enabled,
+                                                    @Value("${redis.l1-cache.max-entries:10000}") int maxEntries,
+                                                    @Value("${redis.l1-cache.ttl-ms:30000}") long ttlMs,
+                                                    @Value("${redis.l1-cache.negative-ttl-ms:5000}") long negativeTtlMs,
+                                                    @Value("${redis.l1-cache.stripes:16}") int stripes,
+                                                    @Value("${redis.l1-cache.configure-notifications:true}") boolean configureNotifications) {
+        return new TestDataL1Cache.Settings(enabled, maxEntries, ttlMs, negativeTtlMs, stripes, configureNotifications);
+    }
+
+    // Used by SpringDataRedisService.getTestData only when enabled
+    @Bean
+    public TestDataL1Cache testDataL1Cache(TestDataL1Cache.Settings l1CacheSettings) {
+        return new TestDataL1Cache(l1CacheSettings);
+    }
+
+    @Bean
+    public KeyspaceInvalidationListener keyspaceInvalidationListener(TestDataL1Cache testDataL1Cache,
+                                                                     @Value("${spring.data.redis.database:0}") int database) {
+        return new KeyspaceInvalidationListener(testDataL1Cache, database, "testdata");
+    }
+}
@@ -0,0 +1,36 @@
+package com.nayeem.redistest.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nayeem.redistest.reactive.ReactiveApiServer;
+import com.nayeem.redistest.reactive.ReactiveDataHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+
+@Configuration
+public class ReactiveServerConfig {
+
+    // WebFlux endpoints on their own Netty port, next to the servlet API; only with reactive.server.enabled=true
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "reactive.server.enabled", havingValue = "true")
+    public ReactiveApiServer reactiveApiServer(ReactiveDataHandler handler,
+                                               ObjectMapper objectMapper,
+                                               @Value("${reactive.server.address:0.0.0.0}") String address,
+                                               @Value("${reactive.server.port:8081}") int port) {
+        // Same ObjectMapper as the servlet stack, so both produce identical JSON
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        ReactiveApiServer server = new ReactiveApiServer(RouterFunctions.toHttpHandler(handler.routes(), strategies), address, port);
+        server.start();
+        return server;
+    }
+}
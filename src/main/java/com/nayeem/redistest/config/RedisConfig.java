@@ -4,18 +4,30 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.nayeem.redistest.model.TestData;
+import com.nayeem.redistest.proxy.LatencyProxy;
+import com.nayeem.redistest.resp.EmbeddedRespServer;
+import com.nayeem.redistest.service.RedisShards;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.repository.configuration.EnableRedisRepositories;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
 @Configuration
 @EnableRedisRepositories(basePackages = "com.nayeem.redistest.repository")
 public class RedisConfig {
@@ -29,20 +41,85 @@ public class RedisConfig {
     @Value("${spring.data.redis.database:0}")
     private int redisDatabase;
 
+    // In-process RESP server, used instead of a real Redis for client-overhead-only runs and tests
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "redis.embedded.enabled", havingValue = "true")
+    public EmbeddedRespServer embeddedRespServer(@Value("${redis.embedded.port:0}") int port,
+                                                 @Value("${redis.embedded.threads:0}") int threads) throws IOException {
+        int workers = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        EmbeddedRespServer server = new EmbeddedRespServer(port, workers);
+        server.start();
+        return server;
+    }
+
+    // Latency-injecting proxy in front of the configured Redis (simulates a remote server)
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "redis.proxy.enabled", havingValue = "true")
+    public LatencyProxy latencyProxy(ObjectProvider<EmbeddedRespServer> embeddedServer,
+                                     @Value("${redis.proxy.port:0}") int proxyPort,
+                                     @Value("${redis.proxy.one-way-latency-ms:0}") double oneWayLatencyMs,
+                                     @Value("${redis.proxy.jitter-ms:0}") double jitterMs,
+                                     @Value("${redis.proxy.bandwidth-bytes-per-sec:0}") long bandwidthBytesPerSec,
+                                     @Value("${redis.proxy.packet-size:1460}") int packetSize,
+                                     @Value("${redis.proxy.per-packet-delay-us:0}") long perPacketDelayUs) throws IOException {
+        LatencyProxy proxy = new LatencyProxy(backendAddress(embeddedServer.getIfAvailable()), proxyPort);
+        proxy.setOneWayLatencyMillis(oneWayLatencyMs);
+        proxy.setJitterMillis(jitterMs);
+        proxy.setBandwidthBytesPerSec(bandwidthBytesPerSec);
+        proxy.setPacketSize(packetSize);
+        proxy.setPerPacketDelayMicros(perPacketDelayUs);
+        proxy.start();
+        return proxy;
+    }
+
     // Primary Redis connection factory for Spring Data Redis
     @Bean
     @Primary
-    public RedisConnectionFactory redisConnectionFactory() {
+    public RedisConnectionFactory redisConnectionFactory(ObjectProvider<LatencyProxy> latencyProxy,
+                                                         ObjectProvider<EmbeddedRespServer> embeddedServer,
+                                                         RedisShards.Settings topologySettings) {
+        if (topologySettings.topology() == RedisShards.Topology.CLUSTER) {
+            return clusterConnectionFactory(topologySettings, latencyProxy.getIfAvailable() != null || embeddedServer.getIfAvailable() != null);
+        }
         RedisStandaloneConfiguration config = new RedisStandaloneConfiguration();
-        config.setHostName(redisHost);
-        config.setPort(redisPort);
+        LatencyProxy proxy = latencyProxy.getIfAvailable();
+        // Route all traffic through the proxy so its delays apply to every command
+        InetSocketAddress target = proxy != null
+                ? new InetSocketAddress("127.0.0.1", proxy.getLocalPort())
+                : backendAddress(embeddedServer.getIfAvailable());
+        config.setHostName(target.getHostString());
+        config.setPort(target.getPort());
         config.setDatabase(redisDatabase);
         return new LettuceConnectionFactory(config);
     }
 
+    // Lettuce follows MOVED/ASK redirects and refreshes the slot map itself; the nodes are only seeds
+    private static RedisConnectionFactory clusterConnectionFactory(RedisShards.Settings topologySettings, boolean singleNodeBackend) {
+        if (singleNodeBackend) {
+            throw new IllegalStateException("redis.topology.mode=cluster cannot run through the embedded server or the latency proxy");
+        }
+        if (topologySettings.nodes().isEmpty()) {
+            throw new IllegalStateException("redis.topology.mode=cluster needs redis.topology.nodes (host:port seeds)");
+        }
+        return new LettuceConnectionFactory(new RedisClusterConfiguration(topologySettings.nodes()));
+    }
+
+    // The embedded server replaces the configured Redis host when enabled
+    private InetSocketAddress backendAddress(EmbeddedRespServer embeddedServer) {
+        if (embeddedServer != null) {
+            return new InetSocketAddress("127.0.0.1", embeddedServer.getPort());
+        }
+        return new InetSocketAddress(redisHost, redisPort);
+    }
+
     // RedisTemplate for manual Redis operations
     @Bean
     public RedisTemplate<String, TestData> redisTemplate(RedisConnectionFactory connectionFactory) {
+        return testDataTemplate(connectionFactory);
+    }
+
+    // Same encoding as redisTemplate over another factory, e.g. the replica read connection
+    static RedisTemplate<String, TestData> testDataTemplate(RedisConnectionFactory connectionFactory) {
         RedisTemplate<String, TestData> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
         
@@ -50,17 +127,33 @@ public class RedisConfig {
         template.setKeySerializer(new StringRedisSerializer());
         template.setHashKeySerializer(new StringRedisSerializer());
         
-        // Create ObjectMapper with JavaTimeModule for LocalDateTime support
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.registerModule(new JavaTimeModule());
-        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-        
         // Use Jackson2JsonRedisSerializer with specific type for values
-        Jackson2JsonRedisSerializer<TestData> jsonSerializer = new Jackson2JsonRedisSerializer<>(objectMapper, TestData.class);
+        Jackson2JsonRedisSerializer<TestData> jsonSerializer = testDataSerializer();
         template.setValueSerializer(jsonSerializer);
         template.setHashValueSerializer(jsonSerializer);
         
         template.afterPropertiesSet();
         return template;
     }
+
+    // Non-blocking counterpart of redisTemplate, sharing its key and value encoding
+    @Bean
+    public ReactiveRedisTemplate<String, TestData> reactiveTestDataRedisTemplate(RedisConnectionFactory connectionFactory) {
+        Jackson2JsonRedisSerializer<TestData> jsonSerializer = testDataSerializer();
+        RedisSerializationContext<String, TestData> context = RedisSerializationContext
+                .<String, TestData>newSerializationContext(new StringRedisSerializer())
+                .value(jsonSerializer)
+                .hashValue(jsonSerializer)
+                .build();
+        // LettuceConnectionFactory serves both the blocking and the reactive API
+        return new ReactiveRedisTemplate<>((ReactiveRedisConnectionFactory) connectionFactory, context);
+    }
+
+    private static Jackson2JsonRedisSerializer<TestData> testDataSerializer() {
+        // Create ObjectMapper with JavaTimeModule for LocalDateTime support
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return new Jackson2JsonRedisSerializer<>(objectMapper, TestData.class);
+    }
 }
@@ -0,0 +1,41 @@
+package com.nayeem.redistest.config;
+
+import com.nayeem.redistest.resp.EmbeddedRespServer;
+import com.nayeem.redistest.service.ReplicaReads;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.convert.RedisConverter;
+
+import java.util.List;
+
+@Configuration
+public class ReplicaReadsConfig {
+
+    @Bean
+    public ReplicaReads.Settings replicaReadsSettings(@Value("${redis.replica-reads.enabled:false}") boolean enabled,
+                                                      @Value("${redis.replica-reads.nodes:}") List<String> nodes,
+                                                      @Value("${redis.replica-reads.read-from:replicaPreferred}") String readFrom,
+                                                      @Value("${redis.replica-reads.preferred-nodes:}") List<String> preferredNodes,
+                                                      @Value("${redis.replica-reads.embedded-replicas:2}") int embeddedReplicas,
+                                                      @Value("${redis.replica-reads.replication-lag-ms:5}") long replicationLagMs) {
+        return new ReplicaReads.Settings(enabled, trimmed(nodes), readFrom, trimmed(preferredNodes), embeddedReplicas, replicationLagMs);
+    }
+
+    // Reads for RedisService and SpringDataRedisService; replicas attach to the embedded server before any write
+    @Bean(destroyMethod = "close")
+    public ReplicaReads replicaReads(ReplicaReads.Settings replicaReadsSettings,
+                                     ObjectProvider<EmbeddedRespServer> embeddedServer,
+                                     RedisConverter redisConverter,
+                                     @Value("${spring.data.redis.host:localhost}") String host,
+                                     @Value("${spring.data.redis.port:6379}") int port,
+                                     @Value("${spring.data.redis.database:0}") int database) {
+        return new ReplicaReads(replicaReadsSettings, host + ":" + port, embeddedServer.getIfAvailable(), database,
+                RedisConfig::testDataTemplate, redisConverter);
+    }
+
+    private static List<String> trimmed(List<String> values) {
+        return values.stream().map(String::trim).filter(value -> !value.isEmpty()).toList();
+    }
+}
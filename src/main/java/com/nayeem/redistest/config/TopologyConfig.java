@@ -0,0 +1,38 @@
+package com.nayeem.redistest.config;
+
+import com.nayeem.redistest.service.RedisShards;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.util.List;
+
+@Configuration
+public class TopologyConfig {
+
+    @Bean
+    public RedisShards.Settings topologySettings(@Value("${redis.topology.mode:standalone}") String mode,
+                                                 @Value("${redis.topology.nodes:}") List<String> nodes,
+                                                 @Value("${redis.topology.virtual-nodes:160}") int virtualNodes,
+                                                 @Value("${redis.topology.embedded-nodes:0}") int embeddedNodes,
+                                                 @Value("${redis.topology.embedded-threads:1}") int embeddedThreads) {
+        List<String> configured = nodes.stream().map(String::trim).filter(node -> !node.isEmpty()).toList();
+        return new RedisShards.Settings(RedisShards.Topology.parse(mode), configured, virtualNodes, embeddedNodes, embeddedThreads);
+    }
+
+    // Nodes the sharding benchmark spreads keys over; the application itself always uses the primary factory
+    @Bean(destroyMethod = "close")
+    public RedisShards redisShards(RedisShards.Settings topologySettings, RedisConnectionFactory connectionFactory,
+                                   @Value("${spring.data.redis.database:0}") int database) {
+        return new RedisShards(topologySettings, connectionFactory, describe(connectionFactory), database);
+    }
+
+    private static String describe(RedisConnectionFactory connectionFactory) {
+        if (connectionFactory instanceof LettuceConnectionFactory lettuce) {
+            return lettuce.getClusterConfiguration() != null ? "cluster" : lettuce.getHostName() + ":" + lettuce.getPort();
+        }
+        return "primary";
+    }
+}
@@ -0,0 +1,33 @@
+package com.nayeem.redistest.config;
+
+import com.nayeem.redistest.model.TestData;
+import com.nayeem.redistest.service.WriteBehindBuffer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
+
+@Configuration
+public class WriteBehindConfig {
+
+    @Bean
+    public WriteBehindBuffer.Settings writeBehindSettings(@Value("${redis.write-behind.enabled:false}") boolean enabled,
+                                                         @Value("${redis.write-behind.stripes:16}") int stripes,
+                                                         @Value("${redis.write-behind.capacity:10000}") int capacity,
+                                                         @Value("${redis.write-behind.flush-size:500}") int flushSize,
+                                                         @Value("${redis.write-behind.flush-interval-ms:50}") long flushIntervalMs,
+                                                         @Value("${redis.write-behind.put-timeout-ms:1000}") long putTimeoutMs) {
+        // Same one-hour expiry RedisService uses for direct writes
+        return new WriteBehindBuffer.Settings(enabled, stripes, capacity, flushSize, flushIntervalMs, putTimeoutMs, 3600);
+    }
+
+    // Buffer used by RedisService.saveTestData; the flusher only runs when write-behind is enabled
+    @Bean(destroyMethod = "close")
+    public WriteBehindBuffer writeBehindBuffer(RedisTemplate<String, TestData> redisTemplate, WriteBehindBuffer.Settings writeBehindSettings) {
+        WriteBehindBuffer buffer = new WriteBehindBuffer(redisTemplate, writeBehindSettings);
+        if (writeBehindSettings.enabled()) {
+            buffer.start();
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,463 @@
+package com.nayeem.redistest.proxy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded NIO TCP proxy that forwards bytes between a client and an upstream
+ * Redis while injecting one-way latency, jitter, a bandwidth cap and per-packet delays.
+ * Delivery order within each direction is preserved, just like on a real TCP link.
+ */
+@Slf4j
+public class LatencyProxy implements Closeable {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    // Stop reading from a socket when this many bytes are queued for the other side
+    private static final long MAX_QUEUED_BYTES = 8L * 1024 * 1024;
+
+    private final InetSocketAddress upstream;
+    private final int requestedPort;
+    private final List<Pipe> pipes = new ArrayList<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+    private volatile long oneWayLatencyNanos;
+    private volatile long jitterNanos;
+    private volatile long bandwidthBytesPerSec;
+    private volatile long perPacketDelayNanos;
+    private volatile int packetSize = 1460;
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread ioThread;
+    private volatile boolean running;
+
+    public LatencyProxy(InetSocketAddress upstream, int listenPort) {
+        this.upstream = upstream;
+        this.requestedPort = listenPort;
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress("127.0.0.1", requestedPort));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        running = true;
+        ioThread = new Thread(this::runLoop, "latency-proxy-" + getLocalPort());
+        ioThread.setDaemon(true);
+        ioThread.start();
+        log.info("Latency proxy listening on 127.0.0.1:{} -> {}:{} ({})",
+                getLocalPort(), upstream.getHostString(), upstream.getPort(), describe());
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            ioThread.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Latency proxy on port {} stopped", serverChannel.socket().getLocalPort());
+    }
+
+    public int getLocalPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public InetSocketAddress getUpstream() {
+        return upstream;
+    }
+
+    // Simulated RTT is split evenly between the two directions
+    public void setSimulatedRtt(double rttMillis) {
+        setOneWayLatencyMillis(rttMillis / 2.0);
+    }
+
+    public double getSimulatedRttMillis() {
+        return 2.0 * oneWayLatencyNanos / 1_000_000.0;
+    }
+
+    public void setOneWayLatencyMillis(double millis) {
+        this.oneWayLatencyNanos = toNanos(millis);
+    }
+
+    public double getOneWayLatencyMillis() {
+        return oneWayLatencyNanos / 1_000_000.0;
+    }
+
+    public void setJitterMillis(double millis) {
+        this.jitterNanos = toNanos(millis);
+    }
+
+    public double getJitterMillis() {
+        return jitterNanos / 1_000_000.0;
+    }
+
+    public void setBandwidthBytesPerSec(long bytesPerSec) {
+        this.bandwidthBytesPerSec = Math.max(0, bytesPerSec);
+    }
+
+    public long getBandwidthBytesPerSec() {
+        return bandwidthBytesPerSec;
+    }
+
+    public void setPerPacketDelayMicros(long micros) {
+        this.perPacketDelayNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, micros));
+    }
+
+    public long getPerPacketDelayMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(perPacketDelayNanos);
+    }
+
+    public void setPacketSize(int packetSize) {
+        if (packetSize <= 0) {
+            throw new IllegalArgumentException("Packet size must be positive");
+        }
+        this.packetSize = packetSize;
+    }
+
+    public int getPacketSize() {
+        return packetSize;
+    }
+
+    public Map<String, Object> getSettings() {
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("listenPort", getLocalPort());
+        settings.put("upstream", upstream.getHostString() + ":" + upstream.getPort());
+        settings.put("simulatedRttMs", getSimulatedRttMillis());
+        settings.put("oneWayLatencyMs", getOneWayLatencyMillis());
+        settings.put("jitterMs", getJitterMillis());
+        settings.put("bandwidthBytesPerSec", bandwidthBytesPerSec);
+        settings.put("packetSize", packetSize);
+        settings.put("perPacketDelayUs", getPerPacketDelayMicros());
+        return settings;
+    }
+
+    private String describe() {
+        return String.format("latency=%.3fms jitter=%.3fms bandwidth=%s packet=%dB perPacketDelay=%dus",
+                getOneWayLatencyMillis(), getJitterMillis(),
+                bandwidthBytesPerSec > 0 ? bandwidthBytesPerSec + "B/s" : "unlimited",
+                packetSize, getPerPacketDelayMicros());
+    }
+
+    private static long toNanos(double millis) {
+        return Math.max(0L, (long) (millis * 1_000_000.0));
+    }
+
+    private void runLoop() {
+        try {
+            while (running) {
+                long waitNanos = nanosUntilNextDelivery();
+                if (waitNanos == 0) {
+                    selector.selectNow();
+                } else if (waitNanos < 0) {
+                    selector.select();
+                } else {
+                    selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos + 999_999)));
+                }
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            Endpoint endpoint = (Endpoint) key.attachment();
+                            if (key.isConnectable()) {
+                                endpoint.pipe.finishConnect();
+                            }
+                            if (key.isValid() && key.isReadable()) {
+                                endpoint.pipe.read(endpoint);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                endpoint.pipe.flushTo(endpoint, System.nanoTime());
+                            }
+                        }
+                    } catch (IOException e) {
+                        Object attachment = key.attachment();
+                        if (attachment instanceof Endpoint endpoint) {
+                            log.debug("Proxy connection closed: {}", e.getMessage());
+                            endpoint.pipe.close();
+                        } else {
+                            log.error("Proxy accept failed: {}", e.getMessage());
+                        }
+                    }
+                }
+
+                flushDue();
+            }
+        } catch (IOException e) {
+            log.error("Latency proxy loop failed: {}", e.getMessage());
+        } finally {
+            for (Pipe pipe : new ArrayList<>(pipes)) {
+                pipe.close();
+            }
+            try {
+                serverChannel.close();
+                selector.close();
+            } catch (IOException e) {
+                log.warn("Error closing latency proxy: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel client = serverChannel.accept();
+        if (client == null) {
+            return;
+        }
+        client.configureBlocking(false);
+        client.socket().setTcpNoDelay(true);
+
+        SocketChannel server = SocketChannel.open();
+        server.configureBlocking(false);
+        server.socket().setTcpNoDelay(true);
+        boolean connected = server.connect(upstream);
+
+        Pipe pipe = new Pipe(client, server, connected);
+        pipes.add(pipe);
+        log.debug("Proxy accepted {} (open connections: {})", client.getRemoteAddress(), pipes.size());
+    }
+
+    private long nanosUntilNextDelivery() {
+        long next = Long.MAX_VALUE;
+        for (Pipe pipe : pipes) {
+            next = Math.min(next, pipe.toServer.nextDue());
+            next = Math.min(next, pipe.toClient.nextDue());
+        }
+        if (next == Long.MAX_VALUE) {
+            return -1;
+        }
+        return Math.max(0, next - System.nanoTime());
+    }
+
+    private void flushDue() {
+        long now = System.nanoTime();
+        for (Pipe pipe : new ArrayList<>(pipes)) {
+            try {
+                if (pipe.connected) {
+                    pipe.flushTo(pipe.serverEnd, now);
+                }
+                pipe.flushTo(pipe.clientEnd, now);
+            } catch (IOException e) {
+                log.debug("Proxy connection closed while flushing: {}", e.getMessage());
+                pipe.close();
+            }
+        }
+    }
+
+    private static final class Packet {
+        private final ByteBuffer data;
+        private final long dueNanos;
+
+        private Packet(ByteBuffer data, long dueNanos) {
+            this.data = data;
+            this.dueNanos = dueNanos;
+        }
+    }
+
+    // Bytes travelling in one direction, scheduled for delivery at their due time
+    private final class Direction {
+        private final ArrayDeque<Packet> queue = new ArrayDeque<>();
+        private long queuedBytes;
+        private long lastDueNanos;
+        private long lastTxEndNanos;
+        private boolean sourceClosed;
+        private boolean writeBlocked;
+
+        private long nextDue() {
+            if (writeBlocked) {
+                // Waiting for OP_WRITE, the selector wakes us up when the socket drains
+                return Long.MAX_VALUE;
+            }
+            Packet head = queue.peekFirst();
+            return head != null ? head.dueNanos : Long.MAX_VALUE;
+        }
+
+        private void enqueue(ByteBuffer chunk) {
+            long now = System.nanoTime();
+            int size = packetSize;
+            while (chunk.hasRemaining()) {
+                int length = Math.min(size, chunk.remaining());
+                ByteBuffer data = ByteBuffer.allocate(length);
+                int limit = chunk.limit();
+                chunk.limit(chunk.position() + length);
+                data.put(chunk);
+                chunk.limit(limit);
+                data.flip();
+
+                // Serialization delay from the bandwidth cap, then propagation delay
+                long txStart = Math.max(now, lastTxEndNanos);
+                long bandwidth = bandwidthBytesPerSec;
+                long txEnd = bandwidth > 0 ? txStart + length * 1_000_000_000L / bandwidth : txStart;
+                lastTxEndNanos = txEnd;
+
+                long jitter = jitterNanos;
+                long jitterOffset = jitter > 0 ? ThreadLocalRandom.current().nextLong(-jitter, jitter + 1) : 0;
+                long due = txEnd + Math.max(0, oneWayLatencyNanos + jitterOffset) + perPacketDelayNanos;
+                // TCP delivers in order, so jitter can delay but never reorder packets
+                due = Math.max(due, lastDueNanos);
+                lastDueNanos = due;
+
+                queue.addLast(new Packet(data, due));
+                queuedBytes += length;
+            }
+        }
+    }
+
+    private static final class Endpoint {
+        private final Pipe pipe;
+        private final SocketChannel channel;
+        private SelectionKey key;
+
+        private Endpoint(Pipe pipe, SocketChannel channel) {
+            this.pipe = pipe;
+            this.channel = channel;
+        }
+    }
+
+    private final class Pipe {
+        private final Endpoint clientEnd;
+        private final Endpoint serverEnd;
+        private final Direction toServer = new Direction();
+        private final Direction toClient = new Direction();
+        private boolean connected;
+        private boolean closed;
+
+        private Pipe(SocketChannel client, SocketChannel server, boolean connected) throws IOException {
+            this.clientEnd = new Endpoint(this, client);
+            this.serverEnd = new Endpoint(this, server);
+            this.connected = connected;
+            clientEnd.key = client.register(selector, SelectionKey.OP_READ, clientEnd);
+            serverEnd.key = server.register(selector, connected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, serverEnd);
+        }
+
+        private void finishConnect() throws IOException {
+            if (serverEnd.channel.finishConnect()) {
+                connected = true;
+                updateInterest(serverEnd);
+            }
+        }
+
+        private Direction outbound(Endpoint source) {
+            return source == clientEnd ? toServer : toClient;
+        }
+
+        private Endpoint peer(Endpoint endpoint) {
+            return endpoint == clientEnd ? serverEnd : clientEnd;
+        }
+
+        private void read(Endpoint source) throws IOException {
+            Direction direction = outbound(source);
+            readBuffer.clear();
+            int read = source.channel.read(readBuffer);
+            if (read < 0) {
+                direction.sourceClosed = true;
+                source.key.interestOps(source.key.interestOps() & ~SelectionKey.OP_READ);
+                if (direction.queue.isEmpty()) {
+                    close();
+                }
+                return;
+            }
+            if (read > 0) {
+                readBuffer.flip();
+                direction.enqueue(readBuffer);
+                updateInterest(source);
+            }
+        }
+
+        // Writes every packet that is due for the given destination
+        private void flushTo(Endpoint destination, long now) throws IOException {
+            if (closed || (destination == serverEnd && !connected)) {
+                return;
+            }
+            Endpoint source = peer(destination);
+            Direction direction = outbound(source);
+            direction.writeBlocked = false;
+            Packet head;
+            while ((head = direction.queue.peekFirst()) != null && head.dueNanos <= now) {
+                int written = destination.channel.write(head.data);
+                direction.queuedBytes -= written;
+                if (head.data.hasRemaining()) {
+                    direction.writeBlocked = true;
+                    break;
+                }
+                direction.queue.pollFirst();
+            }
+            if (direction.sourceClosed && direction.queue.isEmpty()) {
+                close();
+                return;
+            }
+            updateInterest(destination);
+            updateInterest(source);
+        }
+
+        private void updateInterest(Endpoint endpoint) {
+            if (closed || !endpoint.key.isValid()) {
+                return;
+            }
+            if (endpoint == serverEnd && !connected) {
+                endpoint.key.interestOps(SelectionKey.OP_CONNECT);
+                return;
+            }
+            int ops = 0;
+            Direction out = outbound(endpoint);
+            if (!out.sourceClosed && out.queuedBytes < MAX_QUEUED_BYTES) {
+                ops |= SelectionKey.OP_READ;
+            }
+            // Only ask for OP_WRITE when a due packet could not be written completely
+            if (outbound(peer(endpoint)).writeBlocked) {
+                ops |= SelectionKey.OP_WRITE;
+            }
+            endpoint.key.interestOps(ops);
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pipes.remove(this);
+            closeQuietly(clientEnd.channel);
+            closeQuietly(serverEnd.channel);
+        }
+
+        private void closeQuietly(SocketChannel channel) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Error closing proxy socket: {}", e.getMessage());
+            }
+        }
+    }
+}
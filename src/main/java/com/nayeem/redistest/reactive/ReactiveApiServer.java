@@ -0,0 +1,55 @@
+package com.nayeem.redistest.reactive;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.io.Closeable;
+import java.time.Duration;
+
+/**
+ * Reactor Netty server for the reactive API. The application itself runs on the servlet stack
+ * (Tomcat), so the reactive endpoints get their own event-loop server and port; both stacks share
+ * the same Lettuce connection factory and the same Redis data.
+ */
+@Slf4j
+public class ReactiveApiServer implements Closeable {
+
+    private final HttpHandler httpHandler;
+    private final String host;
+    private final int requestedPort;
+
+    private DisposableServer server;
+
+    public ReactiveApiServer(HttpHandler httpHandler, String host, int port) {
+        this.httpHandler = httpHandler;
+        this.host = host;
+        this.requestedPort = port;
+    }
+
+    public synchronized void start() {
+        if (server != null) {
+            return;
+        }
+        server = HttpServer.create()
+                .host(host)
+                .port(requestedPort)
+                .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                .bindNow();
+        log.info("Reactive API listening on {}:{}", host, getPort());
+    }
+
+    public int getPort() {
+        return server != null ? server.port() : requestedPort;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.disposeNow(Duration.ofSeconds(5));
+            server = null;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.nayeem.redistest.reactive;
+
+import com.nayeem.redistest.model.TestData;
+import com.nayeem.redistest.service.ReactiveRedisService;
+import com.nayeem.redistest.service.ReactiveSpringDataRedisService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.DELETE;
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+
+/**
+ * Reactive counterpart of the BasicController CRUD endpoints. Paths and response bodies are the
+ * same as on the servlet stack, so a client can switch stacks by changing only the port.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReactiveDataHandler {
+
+    private final ReactiveRedisService reactiveRedisService;
+    private final ReactiveSpringDataRedisService reactiveSpringDataRedisService;
+
+    public RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+                // Fixed paths before "{id}" so "all" is not taken as an id
+                .route(GET("/api/data/all"), this::getAllData)
+                .route(POST("/api/data"), this::insertData)
+                .route(GET("/api/data/{id}"), this::getData)
+                .route(DELETE("/api/data/{id}"), this::deleteData)
+                .route(GET("/api/spring-data/data/all"), this::getAllSpringData)
+                .route(POST("/api/spring-data/data"), this::insertSpringData)
+                .route(GET("/api/spring-data/data/{id}"), this::getSpringData)
+                .route(DELETE("/api/spring-data/data/{id}"), this::deleteSpringData)
+                .route(GET("/api/health"), request -> ok(Map.of("status", "UP", "stack", "reactive")))
+                .build();
+    }
+
+    private Mono<ServerResponse> insertData(ServerRequest request) {
+        return request.bodyToMono(TestData.class)
+                .flatMap(testData -> reactiveRedisService.saveTestData(testData).thenReturn(testData))
+                .flatMap(testData -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("success", true);
+                    response.put("message", "Data inserted successfully");
+                    response.put("id", testData.getId());
+                    return ok(response);
+                })
+                .onErrorResume(e -> badRequest("Failed to insert data: " + e.getMessage()));
+    }
+
+    private Mono<ServerResponse> getData(ServerRequest request) {
+        String id = request.pathVariable("id");
+        return reactiveRedisService.getTestData(id)
+                .flatMap(this::found)
+                .switchIfEmpty(Mono.defer(() -> notFound(id)))
+                .onErrorResume(e -> badRequest("Failed to retrieve data: " + e.getMessage()));
+    }
+
+    private Mono<ServerResponse> deleteData(ServerRequest request) {
+        return reactiveRedisService.deleteTestData(request.pathVariable("id"))
+                .flatMap(this::deleted)
+                .onErrorResume(e -> badRequest("Failed to delete data: " + e.getMessage()));
+    }
+
+    private Mono<ServerResponse> getAllData(ServerRequest request) {
+        return reactiveRedisService.getAllTestData().collectList()
+                .flatMap(allData -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("success", true);
+                    response.put("data", allData);
+                    response.put("count", allData.size());
+                    return ok(response);
+                })
+                .onErrorResume(e -> badRequest("Failed to retrieve all data: " + e.getMessage()));
+    }
+
+    private Mono<ServerResponse> insertSpringData(ServerRequest request) {
+        return request.bodyToMono(TestData.class)
+                .flatMap(testData -> reactiveSpringDataRedisService.saveTestData(testData).thenReturn(testData))
+                .flatMap(testData -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("success", true);
+                    response.put("message", "Data inserted successfully using Spring Data");
+                    response.put("id", testData.getId());
+                    return ok(response);
+                })
+                .onErrorResume(e -> badRequest("Failed to insert data: " + e.getMessage()));
+    }
+
+    private Mono<ServerResponse> getSpringData(ServerRequest request) {
+        String id = request.pathVariable("id");
+        return reactiveSpringDataRedisService.getTestData(id)
+                .flatMap(this::found)
+                .switchIfEmpty(Mono.defer(() -> notFound(id)))
+                .onErrorResume(e -> badRequest("Failed to retrieve data: " + e.getMessage()));
+    }
+
+    private Mono<ServerResponse> deleteSpringData(ServerRequest request) {
+        return reactiveSpringDataRedisService.deleteTestData(request.pathVariable("id"))
+                .flatMap(this::deleted)
+                .onErrorResume(e -> badRequest("Failed to delete data: " + e.getMessage()));
+    }
+
+    private Mono<ServerResponse> getAllSpringData(ServerRequest request) {
+        return reactiveSpringDataRedisService.getAllTestData().collectList()
+                .flatMap(allData -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("success", true);
+                    response.put("data", allData);
+                    response.put("count", allData.size());
+                    return ok(response);
+                })
+                .onErrorResume(e -> badRequest("Failed to retrieve all data: " + e.getMessage()));
+    }
+
+    private Mono<ServerResponse> found(TestData data) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", data);
+        return ok(response);
+    }
+
+    private Mono<ServerResponse> notFound(String id) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", "Data not found for id: " + id);
+        return ok(response);
+    }
+
+    private Mono<ServerResponse> deleted(boolean deleted) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", deleted);
+        response.put("message", deleted ? "Data deleted successfully" : "Data not found");
+        return ok(response);
+    }
+
+    private static Mono<ServerResponse> ok(Map<String, Object> body) {
+        return ServerResponse.ok().bodyValue(body);
+    }
+
+    private static Mono<ServerResponse> badRequest(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return ServerResponse.badRequest().bodyValue(response);
+    }
+}
@@ -0,0 +1,16 @@
+package com.nayeem.redistest.repository;
+
+import java.util.List;
+
+/**
+ * One page of an SSCAN-backed query. {@code nextCursor} is an opaque token for the following
+ * page, or null once the scan has covered the whole set. Like SCAN itself, a page can hold fewer
+ * records than asked for (or none) while {@code nextCursor} is still set, when a filtered query
+ * reaches its scan budget before filling the page.
+ */
+public record ScanSlice<T>(List<T> content, String nextCursor, long scanned) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -7,7 +7,7 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface TestDataRepository extends CrudRepository<TestData, String> {
+public interface TestDataRepository extends CrudRepository<TestData, String>, TestDataRepositoryCustom {
     
     // Find all records
     List<TestData> findAll();
@@ -18,7 +18,7 @@ public interface TestDataRepository extends CrudRepository<TestData, String> {
     // Find by name containing (using indexed field)
     List<TestData> findByNameContaining(String name);
     
-    // Find by performance test prefix
+    // Find by performance test prefix; loads every match, see scanByNameStartingWith for paging
     List<TestData> findByNameStartingWith(String prefix);
     
     // Count all records
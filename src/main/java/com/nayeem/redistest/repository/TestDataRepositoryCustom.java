@@ -0,0 +1,30 @@
+package com.nayeem.redistest.repository;
+
+import com.nayeem.redistest.model.TestData;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.stream.Stream;
+
+/**
+ * Paged and streaming queries that read the keyspace set with SSCAN and fetch entities with
+ * pipelined HGETALL, so the cost of a page depends on the page size, not on the number of
+ * records. Results come in SSCAN order, which is unspecified but stable while the set is unchanged.
+ */
+public interface TestDataRepositoryCustom {
+
+    // Page of up to size records, starting at the cursor token (null for the first page)
+    ScanSlice<TestData> scanAll(String cursor, int size);
+
+    ScanSlice<TestData> scanByNameStartingWith(String prefix, String cursor, int size);
+
+    // Offset paging; deep pages walk the scan up to the offset, so prefer cursor tokens for those
+    Slice<TestData> findAllSlice(Pageable pageable);
+
+    Slice<TestData> findSliceByNameStartingWith(String prefix, Pageable pageable);
+
+    // Lazily scans batch by batch; holds one batch at a time
+    Stream<TestData> streamAll();
+
+    Stream<TestData> streamByNameStartingWith(String prefix);
+}
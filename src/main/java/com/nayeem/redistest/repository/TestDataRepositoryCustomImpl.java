@@ -0,0 +1,298 @@
+package com.nayeem.redistest.repository;
+
+import com.nayeem.redistest.model.TestData;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.ValueScanCursor;
+import io.lettuce.core.api.async.RedisSetAsyncCommands;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.convert.Bucket;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * SSCAN over the "testdata" keyspace set, then one pipelined HGETALL per batch of ids, read back
+ * with the repository's converter. Ids whose hash has expired are skipped, as the repository does.
+ *
+ * <p>A cursor token is the SSCAN cursor of a batch plus how many of its members were already
+ * returned, because COUNT is only a hint and a batch can hold more members than a page needs.
+ * The rest of the batch is picked up by reissuing the same cursor, which Redis answers with the
+ * same members while the set is unchanged.
+ */
+public class TestDataRepositoryCustomImpl implements TestDataRepositoryCustom {
+
+    private static final String KEYSPACE = "testdata";
+    private static final int STREAM_BATCH_SIZE = 500;
+    private static final int MIN_FILTER_BATCH_SIZE = 100;
+    private static final long MIN_SCAN_BUDGET = 10_000;
+    private static final long COMMAND_TIMEOUT_SECONDS = 60;
+
+    private final RedisTemplate<byte[], byte[]> redisTemplate;
+    private final RedisConverter redisConverter;
+
+    // Without serializers, so pipelined HGETALL replies come back as raw maps for the converter
+    public TestDataRepositoryCustomImpl(RedisConnectionFactory connectionFactory, RedisConverter redisConverter) {
+        this.redisTemplate = new RedisTemplate<>();
+        this.redisTemplate.setConnectionFactory(connectionFactory);
+        this.redisTemplate.setEnableDefaultSerializer(false);
+        this.redisTemplate.afterPropertiesSet();
+        this.redisConverter = redisConverter;
+    }
+
+    @Override
+    public ScanSlice<TestData> scanAll(String cursor, int size) {
+        return page(null, Position.decode(cursor), size, Long.MAX_VALUE);
+    }
+
+    @Override
+    public ScanSlice<TestData> scanByNameStartingWith(String prefix, String cursor, int size) {
+        // Non-matching records are read too, so cap the scan per page instead of the matches
+        return page(nameStartsWith(prefix), Position.decode(cursor), size, Math.max(MIN_SCAN_BUDGET, 10L * size));
+    }
+
+    @Override
+    public Slice<TestData> findAllSlice(Pageable pageable) {
+        rejectSort(pageable);
+        Position start = skipMembers(Position.START, pageable.getOffset());
+        return slice(start != null ? page(null, start, pageable.getPageSize() + 1, Long.MAX_VALUE).content() : List.of(), pageable);
+    }
+
+    @Override
+    public Slice<TestData> findSliceByNameStartingWith(String prefix, Pageable pageable) {
+        rejectSort(pageable);
+        // Matches can only be told apart after fetching them, so the offset is walked record by record
+        List<TestData> content;
+        try (Stream<TestData> matches = streamByNameStartingWith(prefix)) {
+            content = matches.skip(pageable.getOffset()).limit(pageable.getPageSize() + 1L).toList();
+        }
+        return slice(content, pageable);
+    }
+
+    @Override
+    public Stream<TestData> streamAll() {
+        return stream(null);
+    }
+
+    @Override
+    public Stream<TestData> streamByNameStartingWith(String prefix) {
+        return stream(nameStartsWith(prefix));
+    }
+
+    private ScanSlice<TestData> page(Predicate<TestData> filter, Position position, int size, long scanBudget) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        List<TestData> content = new ArrayList<>(Math.min(size, 1024));
+        long scanned = 0;
+        String cursor = position.cursor();
+        int skip = position.skip();
+        while (true) {
+            int wanted = filter == null ? size - content.size() : Math.max(MIN_FILTER_BATCH_SIZE, size - content.size());
+            ValueScanCursor<byte[]> batch = sscan(cursor, skip + wanted);
+            List<byte[]> members = batch.getValues();
+            int from = Math.min(skip, members.size());
+            int to = filter == null ? Math.min(members.size(), from + wanted) : members.size();
+            List<TestData> fetched = fetch(members.subList(from, to));
+
+            int consumed = from;
+            for (TestData data : fetched) {
+                consumed++;
+                scanned++;
+                if (data != null && (filter == null || filter.test(data))) {
+                    content.add(data);
+                    if (content.size() == size) {
+                        break;
+                    }
+                }
+            }
+            if (consumed < members.size()) {
+                return new ScanSlice<>(content, new Position(cursor, consumed).encode(), scanned);
+            }
+            if (batch.isFinished()) {
+                return new ScanSlice<>(content, null, scanned);
+            }
+            cursor = batch.getCursor();
+            skip = 0;
+            if (content.size() == size || scanned >= scanBudget) {
+                return new ScanSlice<>(content, new Position(cursor, 0).encode(), scanned);
+            }
+        }
+    }
+
+    // Moves the position forward by count members without fetching them; null when the set ends first
+    private Position skipMembers(Position position, long count) {
+        String cursor = position.cursor();
+        int skip = position.skip();
+        long remaining = count;
+        while (remaining > 0) {
+            ValueScanCursor<byte[]> batch = sscan(cursor, skip + (int) Math.min(remaining, STREAM_BATCH_SIZE));
+            int available = Math.max(0, batch.getValues().size() - skip);
+            if (available > remaining) {
+                return new Position(cursor, skip + (int) remaining);
+            }
+            remaining -= available;
+            if (batch.isFinished()) {
+                return null;
+            }
+            cursor = batch.getCursor();
+            skip = 0;
+        }
+        return new Position(cursor, skip);
+    }
+
+    // Whole batches only, so the stream never reissues a cursor and stays correct while records are deleted behind it
+    private Stream<TestData> stream(Predicate<TestData> filter) {
+        Iterator<TestData> iterator = new Iterator<>() {
+            private Iterator<TestData> current = List.<TestData>of().iterator();
+            private String cursor = ScanCursor.INITIAL.getCursor();
+            private boolean finished;
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && !finished) {
+                    ValueScanCursor<byte[]> batch = sscan(cursor, STREAM_BATCH_SIZE);
+                    List<TestData> matches = new ArrayList<>(batch.getValues().size());
+                    for (TestData data : fetch(batch.getValues())) {
+                        if (data != null && (filter == null || filter.test(data))) {
+                            matches.add(data);
+                        }
+                    }
+                    current = matches.iterator();
+                    cursor = batch.getCursor();
+                    finished = batch.isFinished();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public TestData next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    // Spring's Cursor hides the cursor id and cannot start mid-scan, so SSCAN goes through Lettuce's typed API
+    @SuppressWarnings("unchecked")
+    private ValueScanCursor<byte[]> sscan(String cursor, int count) {
+        byte[] key = KEYSPACE.getBytes(StandardCharsets.UTF_8);
+        return redisTemplate.execute((RedisCallback<ValueScanCursor<byte[]>>) connection -> {
+            if (!(connection.getNativeConnection() instanceof RedisSetAsyncCommands<?, ?> commands)) {
+                throw new IllegalStateException("SSCAN paging needs a Lettuce connection");
+            }
+            try {
+                return ((RedisSetAsyncCommands<byte[], byte[]>) commands)
+                        .sscan(key, ScanCursor.of(cursor), ScanArgs.Builder.limit(count))
+                        .get(COMMAND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted during SSCAN", e);
+            } catch (ExecutionException | TimeoutException e) {
+                throw new IllegalStateException("SSCAN failed: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    // One pipelined HGETALL per id; the result lines up with ids, with null for missing hashes
+    @SuppressWarnings("unchecked")
+    private List<TestData> fetch(List<byte[]> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Object> hashes = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (byte[] id : ids) {
+                connection.hashCommands().hGetAll(objectKey(id));
+            }
+            return null;
+        });
+
+        List<TestData> entities = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Object hash = i < hashes.size() ? hashes.get(i) : null;
+            if (!(hash instanceof Map<?, ?> raw) || raw.isEmpty()) {
+                entities.add(null);
+                continue;
+            }
+            RedisData data = new RedisData(Bucket.newBucketFromRawMap((Map<byte[], byte[]>) raw));
+            data.setId(new String(ids.get(i), StandardCharsets.UTF_8));
+            data.setKeyspace(KEYSPACE);
+            entities.add(redisConverter.read(TestData.class, data));
+        }
+        return entities;
+    }
+
+    private static byte[] objectKey(byte[] id) {
+        byte[] prefix = (KEYSPACE + ":").getBytes(StandardCharsets.UTF_8);
+        byte[] key = new byte[prefix.length + id.length];
+        System.arraycopy(prefix, 0, key, 0, prefix.length);
+        System.arraycopy(id, 0, key, prefix.length, id.length);
+        return key;
+    }
+
+    private static Predicate<TestData> nameStartsWith(String prefix) {
+        return data -> data.getName() != null && data.getName().startsWith(prefix);
+    }
+
+    private static Slice<TestData> slice(List<TestData> content, Pageable pageable) {
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    private static void rejectSort(Pageable pageable) {
+        if (pageable.getSort().isSorted()) {
+            throw new IllegalArgumentException("SSCAN paging returns records in scan order and cannot sort");
+        }
+    }
+
+    // SSCAN cursor plus members of that batch already returned, as "cursor:skip" in URL-safe Base64
+    private record Position(String cursor, int skip) {
+
+        static final Position START = new Position(ScanCursor.INITIAL.getCursor(), 0);
+
+        static Position decode(String token) {
+            if (token == null || token.isEmpty()) {
+                return START;
+            }
+            try {
+                String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int separator = value.lastIndexOf(':');
+                String cursor = value.substring(0, separator);
+                int skip = Integer.parseInt(value.substring(separator + 1));
+                if (cursor.isEmpty() || skip < 0) {
+                    throw new IllegalArgumentException(value);
+                }
+                return new Position(cursor, skip);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor token: " + token);
+            }
+        }
+
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString((cursor + ":" + skip).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.nayeem.redistest.resp;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process RESP2/RESP3 server with near-zero server cost, used to measure how much of a
+ * write path's cost is client side. One acceptor hands connections round-robin to a fixed
+ * set of NIO worker threads; all workers share one concurrent {@link RespStore}.
+ */
+@Slf4j
+public class EmbeddedRespServer implements Closeable {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final int requestedPort;
+    private final int workerCount;
+    private final RespStore store = new RespStore();
+    private final AtomicLong clientIds = new AtomicLong();
+    private final RespPubSub pubSub = new RespPubSub();
+    private final RespCommandHandler handler = new RespCommandHandler(store, clientIds, pubSub);
+    private final List<Worker> workers = new ArrayList<>();
+
+    private ServerSocketChannel serverChannel;
+    private Selector acceptSelector;
+    private Thread acceptThread;
+    private ScheduledExecutorService sweeper;
+    private volatile boolean running;
+
+    public EmbeddedRespServer(int port, int workerCount) {
+        this.requestedPort = port;
+        this.workerCount = Math.max(1, workerCount);
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress("127.0.0.1", requestedPort));
+        serverChannel.configureBlocking(false);
+        acceptSelector = Selector.open();
+        serverChannel.register(acceptSelector, SelectionKey.OP_ACCEPT);
+
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            Worker worker = new Worker(i);
+            workers.add(worker);
+            worker.thread.start();
+        }
+        acceptThread = new Thread(this::acceptLoop, "resp-acceptor-" + getPort());
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "resp-expiry-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(store::sweepExpired, 10, 10, TimeUnit.SECONDS);
+
+        log.info("Embedded RESP server listening on 127.0.0.1:{} with {} worker threads", getPort(), workerCount);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        sweeper.shutdownNow();
+        handler.getReplication().close();
+        acceptSelector.wakeup();
+        for (Worker worker : workers) {
+            worker.selector.wakeup();
+        }
+        try {
+            acceptThread.join(2000);
+            for (Worker worker : workers) {
+                worker.thread.join(2000);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Embedded RESP server stopped after {} commands", handler.getTotalCommands());
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public RespStore getStore() {
+        return store;
+    }
+
+    public long getTotalCommands() {
+        return handler.getTotalCommands();
+    }
+
+    /**
+     * Makes the other server a replica of this one: every later write is applied there after
+     * lagMs, and its clients get READONLY errors for writes. Attach replicas before the first
+     * write, as there is no initial sync.
+     */
+    public void addReplica(EmbeddedRespServer replica, long lagMs) {
+        replica.handler.getReplication().replicaOf("127.0.0.1", getPort());
+        handler.getReplication().addLink(new RespReplication.Link("127.0.0.1", replica.getPort(), replica.handler, lagMs));
+    }
+
+    private void acceptLoop() {
+        int next = 0;
+        try {
+            while (running) {
+                acceptSelector.select();
+                acceptSelector.selectedKeys().clear();
+                SocketChannel channel;
+                while ((channel = serverChannel.accept()) != null) {
+                    channel.configureBlocking(false);
+                    channel.socket().setTcpNoDelay(true);
+                    workers.get(next++ % workers.size()).register(channel);
+                }
+            }
+        } catch (IOException e) {
+            if (running) {
+                log.error("Embedded RESP server accept loop failed: {}", e.getMessage());
+            }
+        } finally {
+            try {
+                serverChannel.close();
+                acceptSelector.close();
+            } catch (IOException e) {
+                log.warn("Error closing embedded RESP server socket: {}", e.getMessage());
+            }
+        }
+    }
+
+    private final class Worker {
+        private final Selector selector;
+        private final Thread thread;
+        private final Queue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+        // Connections with pub/sub messages published from other threads
+        private final Queue<Connection> pushReady = new ConcurrentLinkedQueue<>();
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+        private Worker(int index) throws IOException {
+            this.selector = Selector.open();
+            this.thread = new Thread(this::run, "resp-worker-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        private void register(SocketChannel channel) {
+            pending.add(channel);
+            selector.wakeup();
+        }
+
+        private void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    SocketChannel channel;
+                    while ((channel = pending.poll()) != null) {
+                        Connection connection = new Connection(this, channel, clientIds.incrementAndGet());
+                        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                    }
+                    Connection subscriber;
+                    while ((subscriber = pushReady.poll()) != null) {
+                        try {
+                            subscriber.writePushes();
+                        } catch (IOException e) {
+                            log.debug("Embedded RESP connection closed: {}", e.getMessage());
+                            subscriber.close();
+                        }
+                    }
+
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isValid() && key.isReadable()) {
+                                connection.read(readBuffer);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                connection.flush();
+                            }
+                        } catch (IOException | RespCodec.ProtocolException e) {
+                            log.debug("Embedded RESP connection closed: {}", e.getMessage());
+                            connection.close();
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                log.error("Embedded RESP worker failed: {}", e.getMessage());
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    if (key.attachment() instanceof Connection connection) {
+                        connection.close();
+                    }
+                }
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    log.warn("Error closing embedded RESP worker: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private final class Connection implements RespPubSub.Subscriber {
+        private final Worker worker;
+        private final SocketChannel channel;
+        private final RespConnectionState state;
+        private final RespCodec.Writer writer = new RespCodec.Writer();
+        private final Queue<byte[][]> pushes = new ConcurrentLinkedQueue<>();
+        private ByteBuffer input = ByteBuffer.allocate(16 * 1024);
+        private SelectionKey key;
+        private boolean closeAfterFlush;
+
+        private Connection(Worker worker, SocketChannel channel, long id) {
+            this.worker = worker;
+            this.channel = channel;
+            this.state = new RespConnectionState(id, this);
+        }
+
+        @Override
+        public void deliver(byte[] pattern, byte[] channelName, byte[] message) {
+            pushes.add(new byte[][]{pattern, channelName, message});
+            worker.pushReady.add(this);
+            worker.selector.wakeup();
+        }
+
+        // Runs on the worker thread, which owns the writer
+        private void writePushes() throws IOException {
+            if (!channel.isOpen()) {
+                return;
+            }
+            byte[][] push;
+            while ((push = pushes.poll()) != null) {
+                if (push[0] == null) {
+                    writer.pushHeader(3);
+                    writer.bulk("message");
+                } else {
+                    writer.pushHeader(4);
+                    writer.bulk("pmessage");
+                    writer.bulk(push[0]);
+                }
+                writer.bulk(push[1]);
+                writer.bulk(push[2]);
+            }
+            flush();
+        }
+
+        private void read(ByteBuffer readBuffer) throws IOException {
+            readBuffer.clear();
+            int read = channel.read(readBuffer);
+            if (read < 0) {
+                close();
+                return;
+            }
+            readBuffer.flip();
+            if (input.remaining() < readBuffer.remaining()) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(input.capacity() * 2, input.position() + readBuffer.remaining()));
+                input.flip();
+                bigger.put(input);
+                input = bigger;
+            }
+            input.put(readBuffer);
+
+            // Execute every complete command; pipelined replies go out in one write
+            input.flip();
+            List<byte[]> command;
+            while (!closeAfterFlush && (command = RespCodec.parseCommand(input)) != null) {
+                if (!handler.execute(command, state, writer)) {
+                    closeAfterFlush = true;
+                }
+            }
+            input.compact();
+            flush();
+        }
+
+        private void flush() throws IOException {
+            ByteBuffer out = writer.buffer();
+            out.flip();
+            channel.write(out);
+            out.compact();
+            if (writer.hasPending()) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            } else if (closeAfterFlush) {
+                close();
+            } else {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        private void close() {
+            handler.disconnected(state);
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Error closing embedded RESP connection: {}", e.getMessage());
+            }
+        }
+    }
+}
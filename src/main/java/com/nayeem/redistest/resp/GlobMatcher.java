@@ -0,0 +1,94 @@
+package com.nayeem.redistest.resp;
+
+// Redis-style glob matching: *, ?, [abc], [^a-z] and backslash escapes
+final class GlobMatcher {
+
+    private GlobMatcher() {
+    }
+
+    static boolean matches(String pattern, String text) {
+        return matches(pattern, 0, text, 0);
+    }
+
+    private static boolean matches(String pattern, int p, String text, int t) {
+        while (p < pattern.length()) {
+            char c = pattern.charAt(p);
+            switch (c) {
+                case '*' -> {
+                    while (p + 1 < pattern.length() && pattern.charAt(p + 1) == '*') {
+                        p++;
+                    }
+                    if (p + 1 == pattern.length()) {
+                        return true;
+                    }
+                    for (int i = t; i <= text.length(); i++) {
+                        if (matches(pattern, p + 1, text, i)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+                case '?' -> {
+                    if (t >= text.length()) {
+                        return false;
+                    }
+                    t++;
+                    p++;
+                }
+                case '[' -> {
+                    if (t >= text.length()) {
+                        return false;
+                    }
+                    int end = p + 1;
+                    boolean negate = end < pattern.length() && pattern.charAt(end) == '^';
+                    if (negate) {
+                        end++;
+                    }
+                    boolean matched = false;
+                    char ch = text.charAt(t);
+                    while (end < pattern.length() && pattern.charAt(end) != ']') {
+                        char from = pattern.charAt(end);
+                        if (from == '\\' && end + 1 < pattern.length()) {
+                            from = pattern.charAt(++end);
+                        }
+                        if (end + 2 < pattern.length() && pattern.charAt(end + 1) == '-' && pattern.charAt(end + 2) != ']') {
+                            char to = pattern.charAt(end + 2);
+                            if (ch >= Math.min(from, to) && ch <= Math.max(from, to)) {
+                                matched = true;
+                            }
+                            end += 3;
+                        } else {
+                            if (ch == from) {
+                                matched = true;
+                            }
+                            end++;
+                        }
+                    }
+                    if (matched == negate) {
+                        return false;
+                    }
+                    p = end + 1;
+                    t++;
+                }
+                case '\\' -> {
+                    if (p + 1 < pattern.length()) {
+                        p++;
+                    }
+                    if (t >= text.length() || text.charAt(t) != pattern.charAt(p)) {
+                        return false;
+                    }
+                    p++;
+                    t++;
+                }
+                default -> {
+                    if (t >= text.length() || text.charAt(t) != c) {
+                        return false;
+                    }
+                    p++;
+                    t++;
+                }
+            }
+        }
+        return t == text.length();
+    }
+}
@@ -0,0 +1,297 @@
+package com.nayeem.redistest.resp;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// RESP request parsing and RESP2/RESP3 reply encoding
+final class RespCodec {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final int MAX_BULK_LENGTH = 512 * 1024 * 1024;
+    // Redis' own limit on arguments per request; also bounds the list allocated up front
+    private static final int MAX_ARGUMENTS = 1024 * 1024;
+    // Redis' limit on an inline command line; a longer one without a newline is refused
+    private static final int MAX_INLINE_LENGTH = 64 * 1024;
+    // Long.MAX_VALUE has 19 digits; more can only be garbage or an attempt to overflow
+    private static final int MAX_NUMBER_DIGITS = 19;
+
+    private RespCodec() {
+    }
+
+    static final class ProtocolException extends RuntimeException {
+        ProtocolException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Parses one command from the buffer (in read mode). Returns null and leaves the
+     * position untouched when the command is not complete yet.
+     */
+    static List<byte[]> parseCommand(ByteBuffer in) {
+        int start = in.position();
+        if (!in.hasRemaining()) {
+            return null;
+        }
+        if (in.get(start) != '*') {
+            return parseInline(in, start);
+        }
+        in.position(start + 1);
+        long count = readLong(in);
+        if (count == Long.MIN_VALUE) {
+            in.position(start);
+            return null;
+        }
+        if (count > MAX_ARGUMENTS) {
+            throw new ProtocolException("Protocol error: invalid multibulk length");
+        }
+        List<byte[]> args = new ArrayList<>((int) Math.max(0, count));
+        for (long i = 0; i < count; i++) {
+            if (!in.hasRemaining()) {
+                in.position(start);
+                return null;
+            }
+            byte type = in.get();
+            if (type != '$') {
+                throw new ProtocolException("Protocol error: expected '$', got '" + (char) type + "'");
+            }
+            long length = readLong(in);
+            if (length == Long.MIN_VALUE) {
+                in.position(start);
+                return null;
+            }
+            // Checked before waiting for the payload, so a bogus length cannot make the input buffer grow
+            if (length < 0 || length > MAX_BULK_LENGTH) {
+                throw new ProtocolException("Protocol error: invalid bulk length");
+            }
+            if (in.remaining() < length + 2) {
+                in.position(start);
+                return null;
+            }
+            byte[] arg = new byte[(int) length];
+            in.get(arg);
+            in.position(in.position() + 2);
+            args.add(arg);
+        }
+        return args;
+    }
+
+    private static List<byte[]> parseInline(ByteBuffer in, int start) {
+        int end = -1;
+        for (int i = start; i < in.limit(); i++) {
+            if (in.get(i) == '\n') {
+                end = i;
+                break;
+            }
+        }
+        if (end < 0 ? in.limit() - start > MAX_INLINE_LENGTH : end - start > MAX_INLINE_LENGTH) {
+            throw new ProtocolException("Protocol error: too big inline request");
+        }
+        if (end < 0) {
+            return null;
+        }
+        byte[] line = new byte[end - start];
+        in.get(line);
+        in.position(end + 1);
+        String text = new String(line, StandardCharsets.ISO_8859_1).trim();
+        List<byte[]> args = new ArrayList<>();
+        for (String part : text.split("\\s+")) {
+            if (!part.isEmpty()) {
+                args.add(part.getBytes(StandardCharsets.ISO_8859_1));
+            }
+        }
+        return args;
+    }
+
+    // Reads a CRLF-terminated integer; Long.MIN_VALUE means more bytes are needed
+    private static long readLong(ByteBuffer in) {
+        long value = 0;
+        boolean negative = false;
+        boolean first = true;
+        int digits = 0;
+        while (in.hasRemaining()) {
+            byte b = in.get();
+            if (b == '\r') {
+                if (!in.hasRemaining()) {
+                    return Long.MIN_VALUE;
+                }
+                if (in.get() != '\n') {
+                    throw new ProtocolException("Protocol error: expected '\\n' after '\\r'");
+                }
+                return negative ? -value : value;
+            }
+            if (first && b == '-') {
+                negative = true;
+            } else if (b >= '0' && b <= '9') {
+                if (++digits > MAX_NUMBER_DIGITS || value > (Long.MAX_VALUE - (b - '0')) / 10) {
+                    throw new ProtocolException("Protocol error: invalid number");
+                }
+                value = value * 10 + (b - '0');
+            } else {
+                throw new ProtocolException("Protocol error: invalid number");
+            }
+            first = false;
+        }
+        return Long.MIN_VALUE;
+    }
+
+    // Reply encoder; RESP3 only changes how maps, sets and nulls are framed
+    static final class Writer {
+        private ByteBuffer out = ByteBuffer.allocate(16 * 1024);
+        private boolean resp3;
+
+        void setResp3(boolean resp3) {
+            this.resp3 = resp3;
+        }
+
+        boolean isResp3() {
+            return resp3;
+        }
+
+        ByteBuffer buffer() {
+            return out;
+        }
+
+        boolean hasPending() {
+            return out.position() > 0;
+        }
+
+        void simple(String value) {
+            writeByte((byte) '+');
+            writeAscii(value);
+            write(CRLF);
+        }
+
+        void ok() {
+            simple("OK");
+        }
+
+        void error(String message) {
+            writeByte((byte) '-');
+            writeAscii(message.replace('\r', ' ').replace('\n', ' '));
+            write(CRLF);
+        }
+
+        void integer(long value) {
+            writeByte((byte) ':');
+            writeAscii(Long.toString(value));
+            write(CRLF);
+        }
+
+        void bulk(byte[] value) {
+            if (value == null) {
+                nullBulk();
+                return;
+            }
+            writeByte((byte) '$');
+            writeAscii(Integer.toString(value.length));
+            write(CRLF);
+            write(value);
+            write(CRLF);
+        }
+
+        void bulk(String value) {
+            bulk(value == null ? null : value.getBytes(StandardCharsets.ISO_8859_1));
+        }
+
+        void nullBulk() {
+            if (resp3) {
+                writeAscii("_\r\n");
+            } else {
+                writeAscii("$-1\r\n");
+            }
+        }
+
+        // RESP3 double; RESP2 has no double type and sends the score as a bulk string
+        void doubleValue(double value) {
+            String text = formatDouble(value);
+            if (resp3) {
+                writeByte((byte) ',');
+                writeAscii(text);
+                write(CRLF);
+            } else {
+                bulk(text);
+            }
+        }
+
+        static String formatDouble(double value) {
+            if (Double.isInfinite(value)) {
+                return value > 0 ? "inf" : "-inf";
+            }
+            if (value == Math.rint(value) && Math.abs(value) < 1e17) {
+                return Long.toString((long) value);
+            }
+            return Double.toString(value);
+        }
+
+        void nullArray() {
+            if (resp3) {
+                writeAscii("_\r\n");
+            } else {
+                writeAscii("*-1\r\n");
+            }
+        }
+
+        // Out-of-band pub/sub message: a push frame in RESP3, a plain array in RESP2
+        void pushHeader(int size) {
+            writeByte((byte) (resp3 ? '>' : '*'));
+            writeAscii(Integer.toString(size));
+            write(CRLF);
+        }
+
+        void arrayHeader(int size) {
+            writeByte((byte) '*');
+            writeAscii(Integer.toString(size));
+            write(CRLF);
+        }
+
+        void mapHeader(int entries) {
+            if (resp3) {
+                writeByte((byte) '%');
+                writeAscii(Integer.toString(entries));
+                write(CRLF);
+            } else {
+                arrayHeader(entries * 2);
+            }
+        }
+
+        void setHeader(int size) {
+            if (resp3) {
+                writeByte((byte) '~');
+                writeAscii(Integer.toString(size));
+                write(CRLF);
+            } else {
+                arrayHeader(size);
+            }
+        }
+
+        private void writeAscii(String value) {
+            ensure(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                out.put((byte) value.charAt(i));
+            }
+        }
+
+        private void writeByte(byte b) {
+            ensure(1);
+            out.put(b);
+        }
+
+        private void write(byte[] bytes) {
+            ensure(bytes.length);
+            out.put(bytes);
+        }
+
+        private void ensure(int extra) {
+            if (out.remaining() < extra) {
+                int capacity = Math.max(out.capacity() * 2, out.position() + extra);
+                ByteBuffer bigger = ByteBuffer.allocate(capacity);
+                out.flip();
+                bigger.put(out);
+                out = bigger;
+            }
+        }
+    }
+}
@@ -0,0 +1,1446 @@
+package com.nayeem.redistest.resp;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Executes the subset of Redis commands issued by this project against a RespStore
+final class RespCommandHandler {
+
+    static final String VERSION = "7.2.0";
+    // Redis defaults for slowlog-log-slower-than (microseconds) and slowlog-max-len
+    private static final long SLOWLOG_SLOWER_THAN_US = 10_000;
+    private static final int SLOWLOG_MAX_LEN = 128;
+    private static final int SLOWLOG_MAX_ARGS = 32;
+    private static final int SLOWLOG_MAX_ARG_BYTES = 128;
+
+    private record SlowlogEntry(long id, long timestampSec, long durationUs, List<byte[]> args, String clientName) {
+    }
+
+    private static final class CommandStats {
+        final LongAdder calls = new LongAdder();
+        final LongAdder usec = new LongAdder();
+    }
+
+    // Keyspace notification per single-key write command: event name and notify-keyspace-events class.
+    // DEL and UNLINK notify per removed key inline; expiry is silent, as the sweep has no event hook
+    private record KeyspaceEvent(String name, char type) {
+    }
+
+    private static final Map<String, KeyspaceEvent> KEYSPACE_EVENTS = Map.ofEntries(
+            Map.entry("set", new KeyspaceEvent("set", '$')),
+            Map.entry("setex", new KeyspaceEvent("set", '$')),
+            Map.entry("psetex", new KeyspaceEvent("set", '$')),
+            Map.entry("setrange", new KeyspaceEvent("setrange", '$')),
+            Map.entry("expire", new KeyspaceEvent("expire", 'g')),
+            Map.entry("pexpire", new KeyspaceEvent("expire", 'g')),
+            Map.entry("persist", new KeyspaceEvent("persist", 'g')),
+            Map.entry("hset", new KeyspaceEvent("hset", 'h')),
+            Map.entry("hmset", new KeyspaceEvent("hset", 'h')),
+            Map.entry("hdel", new KeyspaceEvent("hdel", 'h')),
+            Map.entry("hincrby", new KeyspaceEvent("hincrby", 'h')),
+            Map.entry("sadd", new KeyspaceEvent("sadd", 's')),
+            Map.entry("srem", new KeyspaceEvent("srem", 's')),
+            Map.entry("lpush", new KeyspaceEvent("lpush", 'l')),
+            Map.entry("rpush", new KeyspaceEvent("rpush", 'l')),
+            Map.entry("lpop", new KeyspaceEvent("lpop", 'l')),
+            Map.entry("rpop", new KeyspaceEvent("rpop", 'l')),
+            Map.entry("zadd", new KeyspaceEvent("zadd", 'z')),
+            Map.entry("zincrby", new KeyspaceEvent("zincr", 'z')),
+            Map.entry("zrem", new KeyspaceEvent("zrem", 'z')),
+            Map.entry("xadd", new KeyspaceEvent("xadd", 't')));
+
+    // Commands that change the dataset: forwarded to replicas and refused by a replica's clients
+    private static final Set<String> WRITE_COMMANDS = Set.of("flushdb", "flushall", "set", "setex", "psetex", "setrange",
+            "del", "unlink", "expire", "pexpire", "persist", "hset", "hmset", "hdel", "hincrby", "sadd", "srem", "lpush",
+            "rpush", "lpop", "rpop", "zadd", "zincrby", "zrem", "xadd", "xgroup", "xreadgroup", "xack", "xtrim", "xdel");
+
+    private final RespStore store;
+    private final AtomicLong clientIds;
+    private final RespPubSub pubSub;
+    private final LongAdder totalCommands = new LongAdder();
+    private final Map<String, CommandStats> commandStats = new ConcurrentHashMap<>();
+    private final Deque<SlowlogEntry> slowlog = new ArrayDeque<>();
+    private final AtomicLong slowlogIds = new AtomicLong();
+    private final long startMillis = System.currentTimeMillis();
+    private long rateSampleNanos = System.nanoTime();
+    private long rateSampleCommands;
+    private double instantaneousOpsPerSec;
+    // notify-keyspace-events flags as set with CONFIG SET; empty (the Redis default) disables notifications
+    private volatile String notifyKeyspaceEvents = "";
+    private final RespReplication replication = new RespReplication();
+    // Connection identity of commands applied from the master
+    private final RespConnectionState replicationState = new RespConnectionState(-1, null);
+
+    RespCommandHandler(RespStore store, AtomicLong clientIds, RespPubSub pubSub) {
+        this.store = store;
+        this.clientIds = clientIds;
+        this.pubSub = pubSub;
+    }
+
+    // Drops the subscriptions of a closed connection
+    void disconnected(RespConnectionState state) {
+        for (String channel : state.getChannels()) {
+            pubSub.unsubscribe(channel, state.getSubscriber());
+        }
+        for (String pattern : state.getPatterns()) {
+            pubSub.punsubscribe(pattern, state.getSubscriber());
+        }
+        state.getChannels().clear();
+        state.getPatterns().clear();
+    }
+
+    long getTotalCommands() {
+        return totalCommands.sum();
+    }
+
+    RespReplication getReplication() {
+        return replication;
+    }
+
+    // Runs a write forwarded by the master; the reply is dropped
+    void applyReplicated(List<byte[]> args, RespCodec.Writer sink) {
+        execute(args, replicationState, sink);
+        sink.buffer().clear();
+    }
+
+    /**
+     * Executes a command and appends the reply. Returns false when the connection
+     * should be closed after the reply is flushed.
+     */
+    boolean execute(List<byte[]> args, RespConnectionState state, RespCodec.Writer out) {
+        if (args.isEmpty()) {
+            return true;
+        }
+        String command = str(args.get(0)).toLowerCase(Locale.ROOT);
+        totalCommands.increment();
+        long started = System.nanoTime();
+        boolean keepOpen = true;
+        boolean write = WRITE_COMMANDS.contains(command);
+        if (write && replication.isReplica() && state != replicationState) {
+            out.error("READONLY You can't write against a read only replica.");
+            return true;
+        }
+        try {
+            keepOpen = dispatch(command, args, state, out);
+            KeyspaceEvent event = KEYSPACE_EVENTS.get(command);
+            if (event != null) {
+                notifyKeyspace(event.name(), event.type(), str(args.get(1)));
+            }
+            if (write) {
+                replication.written(args);
+            }
+        } catch (RespStore.WrongTypeException e) {
+            out.error(e.getMessage());
+        } catch (NumberFormatException e) {
+            out.error("ERR value is not an integer or out of range");
+        } catch (IllegalArgumentException e) {
+            out.error(e.getMessage());
+        }
+        // Execution time only, without reading the request or flushing the reply, as Redis counts it
+        long micros = (System.nanoTime() - started) / 1000;
+        CommandStats stats = commandStats.computeIfAbsent(command, c -> new CommandStats());
+        stats.calls.increment();
+        stats.usec.add(micros);
+        if (micros >= SLOWLOG_SLOWER_THAN_US) {
+            logSlow(args, state, micros);
+        }
+        return keepOpen;
+    }
+
+    private void logSlow(List<byte[]> args, RespConnectionState state, long micros) {
+        List<byte[]> logged = new ArrayList<>(Math.min(args.size(), SLOWLOG_MAX_ARGS));
+        for (int i = 0; i < args.size() && i < SLOWLOG_MAX_ARGS; i++) {
+            byte[] arg = args.get(i);
+            logged.add(arg.length > SLOWLOG_MAX_ARG_BYTES ? Arrays.copyOf(arg, SLOWLOG_MAX_ARG_BYTES) : arg);
+        }
+        SlowlogEntry entry = new SlowlogEntry(slowlogIds.getAndIncrement(), System.currentTimeMillis() / 1000,
+                micros, logged, state.getName());
+        synchronized (slowlog) {
+            slowlog.addFirst(entry);
+            if (slowlog.size() > SLOWLOG_MAX_LEN) {
+                slowlog.removeLast();
+            }
+        }
+    }
+
+    private boolean dispatch(String command, List<byte[]> args, RespConnectionState state, RespCodec.Writer out) {
+        switch (command) {
+            case "ping" -> {
+                if (args.size() > 1) {
+                    out.bulk(args.get(1));
+                } else {
+                    out.simple("PONG");
+                }
+            }
+            case "echo" -> out.bulk(arg(args, 1));
+            case "hello" -> hello(args, state, out);
+            case "auth", "select", "readonly", "readwrite" -> out.ok();
+            case "client" -> client(args, state, out);
+            case "quit" -> {
+                out.ok();
+                return false;
+            }
+            case "info" -> out.bulk(info(args.size() > 1 ? str(args.get(1)) : "default"));
+            case "role" -> role(out);
+            case "config" -> config(args, out);
+            case "command" -> out.arrayHeader(0);
+            case "dbsize" -> out.integer(store.keys().size());
+            case "flushdb", "flushall" -> {
+                store.clear();
+                out.ok();
+            }
+            case "set" -> set(args, out);
+            case "setex" -> {
+                long seconds = Long.parseLong(str(arg(args, 2)));
+                store.put(str(args.get(1)), arg(args, 3), System.currentTimeMillis() + seconds * 1000);
+                out.ok();
+            }
+            case "psetex" -> {
+                long millis = Long.parseLong(str(arg(args, 2)));
+                store.put(str(args.get(1)), arg(args, 3), System.currentTimeMillis() + millis);
+                out.ok();
+            }
+            case "get" -> {
+                RespStore.Entry entry = store.getEntry(str(arg(args, 1)));
+                out.bulk(stringValue(entry));
+            }
+            case "setrange" -> {
+                int offset = Integer.parseInt(str(arg(args, 2)));
+                byte[] value = arg(args, 3);
+                if (offset < 0 || (long) offset + value.length > 512L * 1024 * 1024) {
+                    throw new IllegalArgumentException("ERR offset is out of range");
+                }
+                out.integer(store.setRange(str(args.get(1)), offset, value));
+            }
+            case "mget" -> {
+                out.arrayHeader(args.size() - 1);
+                for (int i = 1; i < args.size(); i++) {
+                    RespStore.Entry entry = store.getEntry(str(args.get(i)));
+                    out.bulk(entry != null && entry.value instanceof byte[] bytes ? bytes : null);
+                }
+            }
+            case "del", "unlink" -> {
+                long removed = 0;
+                for (int i = 1; i < args.size(); i++) {
+                    if (store.remove(str(args.get(i)))) {
+                        removed++;
+                        notifyKeyspace("del", 'g', str(args.get(i)));
+                    }
+                }
+                out.integer(removed);
+            }
+            case "exists" -> {
+                long found = 0;
+                for (int i = 1; i < args.size(); i++) {
+                    if (store.getEntry(str(args.get(i))) != null) {
+                        found++;
+                    }
+                }
+                out.integer(found);
+            }
+            case "type" -> out.simple(typeOf(store.getEntry(str(arg(args, 1)))));
+            case "expire", "pexpire" -> {
+                RespStore.Entry entry = store.getEntry(str(arg(args, 1)));
+                long amount = Long.parseLong(str(arg(args, 2)));
+                if (entry == null) {
+                    out.integer(0);
+                } else {
+                    long millis = command.equals("expire") ? amount * 1000 : amount;
+                    entry.expireAtMillis = System.currentTimeMillis() + millis;
+                    out.integer(1);
+                }
+            }
+            case "persist" -> {
+                RespStore.Entry entry = store.getEntry(str(arg(args, 1)));
+                if (entry == null || entry.expireAtMillis == 0) {
+                    out.integer(0);
+                } else {
+                    entry.expireAtMillis = 0;
+                    out.integer(1);
+                }
+            }
+            case "ttl", "pttl" -> {
+                RespStore.Entry entry = store.getEntry(str(arg(args, 1)));
+                if (entry == null) {
+                    out.integer(-2);
+                } else if (entry.expireAtMillis == 0) {
+                    out.integer(-1);
+                } else {
+                    long remaining = Math.max(0, entry.expireAtMillis - System.currentTimeMillis());
+                    out.integer(command.equals("ttl") ? (remaining + 999) / 1000 : remaining);
+                }
+            }
+            case "keys" -> {
+                String pattern = str(arg(args, 1));
+                List<String> matches = new ArrayList<>();
+                for (String key : store.keys()) {
+                    if (GlobMatcher.matches(pattern, key)) {
+                        matches.add(key);
+                    }
+                }
+                out.arrayHeader(matches.size());
+                for (String key : matches) {
+                    out.bulk(key);
+                }
+            }
+            case "scan" -> scan(args, state, out);
+            case "hset", "hmset" -> {
+                if (args.size() < 4 || args.size() % 2 != 0) {
+                    throw new IllegalArgumentException("ERR wrong number of arguments for '" + command + "' command");
+                }
+                long added = store.updateHash(str(args.get(1)), true, hash -> {
+                    long fields = 0;
+                    for (int i = 2; i < args.size(); i += 2) {
+                        if (hash.put(str(args.get(i)), args.get(i + 1)) == null) {
+                            fields++;
+                        }
+                    }
+                    return fields;
+                });
+                if (command.equals("hmset")) {
+                    out.ok();
+                } else {
+                    out.integer(added);
+                }
+            }
+            case "hget" -> {
+                Map<String, byte[]> hash = store.hashForRead(str(arg(args, 1)));
+                out.bulk(hash != null ? hash.get(str(arg(args, 2))) : null);
+            }
+            case "hgetall" -> {
+                Map<String, byte[]> hash = store.hashForRead(str(arg(args, 1)));
+                if (hash == null) {
+                    out.mapHeader(0);
+                } else {
+                    List<Map.Entry<String, byte[]>> entries = new ArrayList<>(hash.entrySet());
+                    out.mapHeader(entries.size());
+                    for (Map.Entry<String, byte[]> e : entries) {
+                        out.bulk(e.getKey());
+                        out.bulk(e.getValue());
+                    }
+                }
+            }
+            case "hdel" -> {
+                Long removed = store.updateHash(str(arg(args, 1)), false, hash -> {
+                    long fields = 0;
+                    for (int i = 2; i < args.size(); i++) {
+                        if (hash.remove(str(args.get(i))) != null) {
+                            fields++;
+                        }
+                    }
+                    return fields;
+                });
+                out.integer(removed != null ? removed : 0);
+            }
+            case "hexists" -> {
+                Map<String, byte[]> hash = store.hashForRead(str(arg(args, 1)));
+                out.integer(hash != null && hash.containsKey(str(arg(args, 2))) ? 1 : 0);
+            }
+            case "hlen" -> {
+                Map<String, byte[]> hash = store.hashForRead(str(arg(args, 1)));
+                out.integer(hash != null ? hash.size() : 0);
+            }
+            case "hincrby" -> {
+                String field = str(arg(args, 2));
+                long delta = Long.parseLong(str(arg(args, 3)));
+                // The store's hashes are ConcurrentHashMaps, so compute makes the increment atomic
+                byte[] updated = store.updateHash(str(arg(args, 1)), true, hash -> hash.compute(field, (f, current) -> {
+                    long value = current != null ? Long.parseLong(str(current)) : 0;
+                    return Long.toString(Math.addExact(value, delta)).getBytes(StandardCharsets.ISO_8859_1);
+                }));
+                out.integer(Long.parseLong(str(updated)));
+            }
+            case "sadd" -> {
+                long added = store.updateSet(str(arg(args, 1)), true, set -> {
+                    long members = 0;
+                    for (int i = 2; i < args.size(); i++) {
+                        if (set.add(str(args.get(i)))) {
+                            members++;
+                        }
+                    }
+                    return members;
+                });
+                out.integer(added);
+            }
+            case "srem" -> {
+                Long removed = store.updateSet(str(arg(args, 1)), false, set -> {
+                    long members = 0;
+                    for (int i = 2; i < args.size(); i++) {
+                        if (set.remove(str(args.get(i)))) {
+                            members++;
+                        }
+                    }
+                    return members;
+                });
+                out.integer(removed != null ? removed : 0);
+            }
+            case "scard" -> {
+                Set<String> set = store.setForRead(str(arg(args, 1)));
+                out.integer(set != null ? set.size() : 0);
+            }
+            case "sismember" -> {
+                Set<String> set = store.setForRead(str(arg(args, 1)));
+                out.integer(set != null && set.contains(str(arg(args, 2))) ? 1 : 0);
+            }
+            case "smembers" -> {
+                Set<String> set = store.setForRead(str(arg(args, 1)));
+                writeSet(set != null ? new ArrayList<>(set) : List.of(), out);
+            }
+            case "sinter", "sunion" -> {
+                Set<String> result = null;
+                for (int i = 1; i < args.size(); i++) {
+                    Set<String> set = store.setForRead(str(args.get(i)));
+                    Set<String> members = set != null ? set : Set.of();
+                    if (result == null) {
+                        result = new HashSet<>(members);
+                    } else if (command.equals("sinter")) {
+                        result.retainAll(members);
+                    } else {
+                        result.addAll(members);
+                    }
+                }
+                writeSet(result != null ? new ArrayList<>(result) : List.of(), out);
+            }
+            case "sscan" -> sscan(args, state, out);
+            case "lpush", "rpush" -> {
+                arg(args, 2);
+                int size = store.updateList(str(args.get(1)), true, list -> {
+                    for (int i = 2; i < args.size(); i++) {
+                        if (command.equals("lpush")) {
+                            list.addFirst(args.get(i));
+                        } else {
+                            list.addLast(args.get(i));
+                        }
+                    }
+                    return list.size();
+                });
+                out.integer(size);
+            }
+            case "lpop", "rpop" -> pop(command.equals("lpop"), args, out);
+            case "llen" -> {
+                Deque<byte[]> list = store.listForRead(str(arg(args, 1)));
+                if (list == null) {
+                    out.integer(0);
+                } else {
+                    synchronized (list) {
+                        out.integer(list.size());
+                    }
+                }
+            }
+            case "lrange" -> lrange(args, out);
+            case "zadd" -> zadd(args, out);
+            case "zincrby" -> {
+                double increment = parseScore(str(arg(args, 2)));
+                String member = str(arg(args, 3));
+                out.doubleValue(store.updateSortedSet(str(arg(args, 1)), true, zset -> zset.incrementBy(member, increment)));
+            }
+            case "zscore" -> {
+                RespSortedSet zset = store.sortedSetForRead(str(arg(args, 1)));
+                Double score = zset != null ? zset.score(str(arg(args, 2))) : null;
+                if (score == null) {
+                    out.nullBulk();
+                } else {
+                    out.doubleValue(score);
+                }
+            }
+            case "zcard" -> {
+                RespSortedSet zset = store.sortedSetForRead(str(arg(args, 1)));
+                out.integer(zset != null ? zset.size() : 0);
+            }
+            case "zrem" -> {
+                Long removed = store.updateSortedSet(str(arg(args, 1)), false, zset -> {
+                    long members = 0;
+                    for (int i = 2; i < args.size(); i++) {
+                        if (zset.remove(str(args.get(i)))) {
+                            members++;
+                        }
+                    }
+                    return members;
+                });
+                out.integer(removed != null ? removed : 0);
+            }
+            case "zrange", "zrevrange" -> zrange(command.equals("zrevrange"), args, out);
+            case "zrangebyscore", "zrevrangebyscore" -> zrangeByScore(command.equals("zrevrangebyscore"), args, out);
+            case "slowlog" -> slowlog(args, out);
+            case "latency" -> {
+                // The latency monitor is off, as it is in Redis by default, so there are no events
+                String subcommand = str(arg(args, 1)).toLowerCase(Locale.ROOT);
+                switch (subcommand) {
+                    case "latest" -> out.arrayHeader(0);
+                    case "reset" -> out.integer(0);
+                    default -> throw new IllegalArgumentException("ERR only LATENCY LATEST and RESET are supported by the embedded server");
+                }
+            }
+            case "memory" -> {
+                if (!str(arg(args, 1)).equalsIgnoreCase("usage")) {
+                    throw new IllegalArgumentException("ERR only MEMORY USAGE is supported by the embedded server");
+                }
+                RespStore.Entry entry = store.getEntry(str(arg(args, 2)));
+                if (entry == null) {
+                    out.nullBulk();
+                } else {
+                    out.integer(estimatedBytes(str(args.get(2)), entry));
+                }
+            }
+            case "xadd" -> xadd(args, out);
+            case "xlen" -> {
+                RespStream stream = store.streamForRead(str(arg(args, 1)));
+                out.integer(stream != null ? stream.length() : 0);
+            }
+            case "xgroup" -> xgroup(args, out);
+            case "xreadgroup" -> xreadgroup(args, out);
+            case "xack" -> {
+                RespStream stream = store.streamForRead(str(arg(args, 1)));
+                String group = str(arg(args, 2));
+                out.integer(stream != null ? stream.ack(group, streamIds(args, 3)) : 0);
+            }
+            case "xpending" -> xpending(args, out);
+            case "xtrim" -> {
+                RespStream stream = store.streamForRead(str(arg(args, 1)));
+                if (!str(arg(args, 2)).equalsIgnoreCase("maxlen")) {
+                    throw new IllegalArgumentException("ERR only XTRIM MAXLEN is supported by the embedded server");
+                }
+                String threshold = str(arg(args, 3));
+                if (threshold.equals("~") || threshold.equals("=")) {
+                    threshold = str(arg(args, 4));
+                }
+                out.integer(stream != null ? stream.trim(Long.parseLong(threshold)) : 0);
+            }
+            case "xdel" -> {
+                RespStream stream = store.streamForRead(str(arg(args, 1)));
+                out.integer(stream != null ? stream.delete(streamIds(args, 2)) : 0);
+            }
+            case "subscribe" -> {
+                arg(args, 1);
+                for (int i = 1; i < args.size(); i++) {
+                    String channel = str(args.get(i));
+                    if (state.getChannels().add(channel)) {
+                        pubSub.subscribe(channel, state.getSubscriber());
+                    }
+                    subscriptionReply("subscribe", channel, state, out);
+                }
+            }
+            case "unsubscribe" -> {
+                List<String> channels = new ArrayList<>();
+                for (int i = 1; i < args.size(); i++) {
+                    channels.add(str(args.get(i)));
+                }
+                if (channels.isEmpty()) {
+                    channels.addAll(state.getChannels());
+                }
+                if (channels.isEmpty()) {
+                    subscriptionReply("unsubscribe", null, state, out);
+                }
+                for (String channel : channels) {
+                    if (state.getChannels().remove(channel)) {
+                        pubSub.unsubscribe(channel, state.getSubscriber());
+                    }
+                    subscriptionReply("unsubscribe", channel, state, out);
+                }
+            }
+            case "psubscribe" -> {
+                arg(args, 1);
+                for (int i = 1; i < args.size(); i++) {
+                    String pattern = str(args.get(i));
+                    if (state.getPatterns().add(pattern)) {
+                        pubSub.psubscribe(pattern, state.getSubscriber());
+                    }
+                    subscriptionReply("psubscribe", pattern, state, out);
+                }
+            }
+            case "punsubscribe" -> {
+                List<String> patterns = new ArrayList<>();
+                for (int i = 1; i < args.size(); i++) {
+                    patterns.add(str(args.get(i)));
+                }
+                if (patterns.isEmpty()) {
+                    patterns.addAll(state.getPatterns());
+                }
+                if (patterns.isEmpty()) {
+                    subscriptionReply("punsubscribe", null, state, out);
+                }
+                for (String pattern : patterns) {
+                    if (state.getPatterns().remove(pattern)) {
+                        pubSub.punsubscribe(pattern, state.getSubscriber());
+                    }
+                    subscriptionReply("punsubscribe", pattern, state, out);
+                }
+            }
+            case "publish" -> out.integer(pubSub.publish(arg(args, 1), arg(args, 2)));
+            case "pubsub" -> {
+                if (!str(arg(args, 1)).equalsIgnoreCase("numsub")) {
+                    throw new IllegalArgumentException("ERR only PUBSUB NUMSUB is supported by the embedded server");
+                }
+                out.mapHeader(args.size() - 2);
+                for (int i = 2; i < args.size(); i++) {
+                    out.bulk(args.get(i));
+                    out.integer(pubSub.subscriberCount(str(args.get(i))));
+                }
+            }
+            case "evalsha" -> out.error("NOSCRIPT No matching script. Please use EVAL.");
+            case "eval" -> out.error("ERR scripting is not supported by the embedded server");
+            case "script" -> script(args, out);
+            default -> out.error("ERR unknown command '" + command + "'");
+        }
+        return true;
+    }
+
+    private void hello(List<byte[]> args, RespConnectionState state, RespCodec.Writer out) {
+        if (args.size() > 1) {
+            String version = str(args.get(1));
+            if (!version.equals("2") && !version.equals("3")) {
+                out.error("NOPROTO unsupported protocol version");
+                return;
+            }
+            out.setResp3(version.equals("3"));
+            for (int i = 2; i < args.size(); i++) {
+                if (str(args.get(i)).equalsIgnoreCase("setname") && i + 1 < args.size()) {
+                    state.setName(str(args.get(++i)));
+                } else if (str(args.get(i)).equalsIgnoreCase("auth")) {
+                    i += 2;
+                }
+            }
+        }
+        out.mapHeader(7);
+        out.bulk("server");
+        out.bulk("redis");
+        out.bulk("version");
+        out.bulk(VERSION);
+        out.bulk("proto");
+        out.integer(out.isResp3() ? 3 : 2);
+        out.bulk("id");
+        out.integer(state.getId());
+        out.bulk("mode");
+        out.bulk("standalone");
+        out.bulk("role");
+        out.bulk(replication.isReplica() ? "replica" : "master");
+        out.bulk("modules");
+        out.arrayHeader(0);
+    }
+
+    // Same shape as Redis: master with its replicas, or replica with its master and link state
+    private void role(RespCodec.Writer out) {
+        if (replication.isReplica()) {
+            out.arrayHeader(5);
+            out.bulk("slave");
+            out.bulk(replication.getMasterHost());
+            out.integer(replication.getMasterPort());
+            out.bulk("connected");
+            out.integer(replication.getOffset());
+            return;
+        }
+        List<RespReplication.Link> links = replication.getLinks();
+        out.arrayHeader(3);
+        out.bulk("master");
+        out.integer(replication.getOffset());
+        out.arrayHeader(links.size());
+        for (RespReplication.Link link : links) {
+            out.arrayHeader(3);
+            out.bulk(link.host);
+            out.bulk(String.valueOf(link.port));
+            out.bulk(String.valueOf(link.replica.getReplication().getOffset()));
+        }
+    }
+
+    private void client(List<byte[]> args, RespConnectionState state, RespCodec.Writer out) {
+        String sub = str(arg(args, 1)).toLowerCase(Locale.ROOT);
+        switch (sub) {
+            case "setname" -> {
+                state.setName(str(arg(args, 2)));
+                out.ok();
+            }
+            case "getname" -> out.bulk(state.getName());
+            case "id" -> out.integer(state.getId());
+            default -> out.ok();
+        }
+    }
+
+    // Only notify-keyspace-events is kept; other parameters read as unset and writes to them are accepted
+    private void config(List<byte[]> args, RespCodec.Writer out) {
+        String sub = str(arg(args, 1)).toLowerCase(Locale.ROOT);
+        if (sub.equals("get")) {
+            if (GlobMatcher.matches(str(arg(args, 2)).toLowerCase(Locale.ROOT), "notify-keyspace-events")) {
+                out.mapHeader(1);
+                out.bulk("notify-keyspace-events");
+                out.bulk(notifyKeyspaceEvents);
+            } else {
+                out.mapHeader(0);
+            }
+        } else {
+            if (sub.equals("set")) {
+                for (int i = 2; i + 1 < args.size(); i += 2) {
+                    if (str(args.get(i)).equalsIgnoreCase("notify-keyspace-events")) {
+                        notifyKeyspaceEvents = str(args.get(i + 1));
+                    }
+                }
+            }
+            out.ok();
+        }
+    }
+
+    // Publishes __keyspace@0__:<key> and/or __keyevent@0__:<event> as the configured flags ask
+    private void notifyKeyspace(String event, char type, String key) {
+        String flags = notifyKeyspaceEvents;
+        if (flags.isEmpty() || !pubSub.hasSubscribers() || (flags.indexOf(type) < 0 && flags.indexOf('A') < 0)) {
+            return;
+        }
+        if (flags.indexOf('K') >= 0) {
+            pubSub.publish(("__keyspace@0__:" + key).getBytes(StandardCharsets.ISO_8859_1), event.getBytes(StandardCharsets.ISO_8859_1));
+        }
+        if (flags.indexOf('E') >= 0) {
+            pubSub.publish(("__keyevent@0__:" + event).getBytes(StandardCharsets.ISO_8859_1), key.getBytes(StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    private void script(List<byte[]> args, RespCodec.Writer out) {
+        String sub = str(arg(args, 1)).toLowerCase(Locale.ROOT);
+        switch (sub) {
+            case "load" -> out.bulk(sha1Hex(arg(args, 2)));
+            case "exists" -> {
+                out.arrayHeader(args.size() - 2);
+                for (int i = 2; i < args.size(); i++) {
+                    out.integer(0);
+                }
+            }
+            default -> out.ok();
+        }
+    }
+
+    private void set(List<byte[]> args, RespCodec.Writer out) {
+        String key = str(arg(args, 1));
+        byte[] value = arg(args, 2);
+        long expireAt = 0;
+        boolean nx = false;
+        boolean xx = false;
+        boolean keepTtl = false;
+        boolean get = false;
+        for (int i = 3; i < args.size(); i++) {
+            String option = str(args.get(i)).toUpperCase(Locale.ROOT);
+            switch (option) {
+                case "EX" -> expireAt = System.currentTimeMillis() + Long.parseLong(str(arg(args, ++i))) * 1000;
+                case "PX" -> expireAt = System.currentTimeMillis() + Long.parseLong(str(arg(args, ++i)));
+                case "EXAT" -> expireAt = Long.parseLong(str(arg(args, ++i))) * 1000;
+                case "PXAT" -> expireAt = Long.parseLong(str(arg(args, ++i)));
+                case "NX" -> nx = true;
+                case "XX" -> xx = true;
+                case "KEEPTTL" -> keepTtl = true;
+                case "GET" -> get = true;
+                default -> throw new IllegalArgumentException("ERR syntax error");
+            }
+        }
+
+        RespStore.Entry existing = store.getEntry(key);
+        byte[] previous = get ? stringValue(existing) : null;
+        boolean written;
+        if (nx) {
+            written = store.putIfAbsent(key, value, expireAt);
+        } else if (xx && existing == null) {
+            written = false;
+        } else {
+            if (keepTtl && existing != null) {
+                expireAt = existing.expireAtMillis;
+            }
+            store.put(key, value, expireAt);
+            written = true;
+        }
+
+        if (get) {
+            out.bulk(previous);
+        } else if (written) {
+            out.ok();
+        } else {
+            out.nullBulk();
+        }
+    }
+
+    private void pop(boolean left, List<byte[]> args, RespCodec.Writer out) {
+        String key = str(arg(args, 1));
+        Integer count = args.size() > 2 ? Integer.parseInt(str(args.get(2))) : null;
+        int limit = count != null ? count : 1;
+        List<byte[]> popped = store.updateList(key, false, list -> {
+            List<byte[]> values = new ArrayList<>();
+            while (values.size() < limit && !list.isEmpty()) {
+                values.add(left ? list.pollFirst() : list.pollLast());
+            }
+            return values;
+        });
+        if (popped == null) {
+            if (count == null) {
+                out.nullBulk();
+            } else {
+                out.nullArray();
+            }
+            return;
+        }
+        if (count == null) {
+            out.bulk(popped.isEmpty() ? null : popped.get(0));
+            return;
+        }
+        out.arrayHeader(popped.size());
+        for (byte[] value : popped) {
+            out.bulk(value);
+        }
+    }
+
+    private void lrange(List<byte[]> args, RespCodec.Writer out) {
+        Deque<byte[]> list = store.listForRead(str(arg(args, 1)));
+        long start = Long.parseLong(str(arg(args, 2)));
+        long stop = Long.parseLong(str(arg(args, 3)));
+        List<byte[]> values = new ArrayList<>();
+        if (list != null) {
+            synchronized (list) {
+                int size = list.size();
+                long from = start < 0 ? Math.max(0, size + start) : start;
+                long to = Math.min(size - 1, stop < 0 ? size + stop : stop);
+                Iterator<byte[]> it = list.iterator();
+                for (long index = 0; index <= to && it.hasNext(); index++) {
+                    byte[] value = it.next();
+                    if (index >= from) {
+                        values.add(value);
+                    }
+                }
+            }
+        }
+        out.arrayHeader(values.size());
+        for (byte[] value : values) {
+            out.bulk(value);
+        }
+    }
+
+    private void zadd(List<byte[]> args, RespCodec.Writer out) {
+        String key = str(arg(args, 1));
+        boolean nx = false;
+        boolean xx = false;
+        boolean changed = false;
+        int i = 2;
+        for (; i < args.size(); i++) {
+            String option = str(args.get(i)).toUpperCase(Locale.ROOT);
+            if (option.equals("NX")) {
+                nx = true;
+            } else if (option.equals("XX")) {
+                xx = true;
+            } else if (option.equals("CH")) {
+                changed = true;
+            } else {
+                break;
+            }
+        }
+        if (i >= args.size() || (args.size() - i) % 2 != 0) {
+            throw new IllegalArgumentException("ERR syntax error");
+        }
+        // Scores are parsed first so a bad one fails the command before anything is written
+        Map<String, Double> members = new LinkedHashMap<>();
+        for (; i < args.size(); i += 2) {
+            members.put(str(args.get(i + 1)), parseScore(str(args.get(i))));
+        }
+        boolean onlyNew = nx;
+        boolean onlyExisting = xx;
+        boolean countChanged = changed;
+        long count = store.updateSortedSet(key, true, zset -> {
+            long updated = 0;
+            for (Map.Entry<String, Double> member : members.entrySet()) {
+                Double previous = zset.score(member.getKey());
+                if ((onlyNew && previous != null) || (onlyExisting && previous == null)) {
+                    continue;
+                }
+                boolean added = zset.add(member.getKey(), member.getValue());
+                if (added || (countChanged && previous.doubleValue() != member.getValue())) {
+                    updated++;
+                }
+            }
+            return updated;
+        });
+        out.integer(count);
+    }
+
+    private void zrange(boolean reverse, List<byte[]> args, RespCodec.Writer out) {
+        RespSortedSet zset = store.sortedSetForRead(str(arg(args, 1)));
+        long start = Long.parseLong(str(arg(args, 2)));
+        long stop = Long.parseLong(str(arg(args, 3)));
+        boolean withScores = false;
+        for (int i = 4; i < args.size(); i++) {
+            String option = str(args.get(i)).toUpperCase(Locale.ROOT);
+            switch (option) {
+                case "WITHSCORES" -> withScores = true;
+                case "REV" -> reverse = !reverse;
+                default -> throw new IllegalArgumentException("ERR only index ranges are supported by the embedded server's ZRANGE");
+            }
+        }
+        writeMembers(zset != null ? zset.rangeByRank(start, stop, reverse) : List.of(), withScores, out);
+    }
+
+    private void zrangeByScore(boolean reverse, List<byte[]> args, RespCodec.Writer out) {
+        RespSortedSet zset = store.sortedSetForRead(str(arg(args, 1)));
+        // ZREVRANGEBYSCORE takes max before min
+        String minArg = str(arg(args, reverse ? 3 : 2));
+        String maxArg = str(arg(args, reverse ? 2 : 3));
+        boolean withScores = false;
+        long offset = 0;
+        long count = -1;
+        for (int i = 4; i < args.size(); i++) {
+            String option = str(args.get(i)).toUpperCase(Locale.ROOT);
+            switch (option) {
+                case "WITHSCORES" -> withScores = true;
+                case "LIMIT" -> {
+                    offset = Long.parseLong(str(arg(args, ++i)));
+                    count = Long.parseLong(str(arg(args, ++i)));
+                }
+                default -> throw new IllegalArgumentException("ERR syntax error");
+            }
+        }
+        boolean minExclusive = minArg.startsWith("(");
+        boolean maxExclusive = maxArg.startsWith("(");
+        double min = parseScore(minExclusive ? minArg.substring(1) : minArg);
+        double max = parseScore(maxExclusive ? maxArg.substring(1) : maxArg);
+        writeMembers(zset != null ? zset.rangeByScore(min, minExclusive, max, maxExclusive, offset, count, reverse) : List.of(),
+                withScores, out);
+    }
+
+    // RESP3 nests [member, score] pairs; RESP2 flattens them into one array
+    private static void writeMembers(List<RespSortedSet.Member> members, boolean withScores, RespCodec.Writer out) {
+        if (!withScores) {
+            out.arrayHeader(members.size());
+            for (RespSortedSet.Member member : members) {
+                out.bulk(member.name());
+            }
+            return;
+        }
+        out.arrayHeader(out.isResp3() ? members.size() : members.size() * 2);
+        for (RespSortedSet.Member member : members) {
+            if (out.isResp3()) {
+                out.arrayHeader(2);
+            }
+            out.bulk(member.name());
+            out.doubleValue(member.score());
+        }
+    }
+
+    private static double parseScore(String value) {
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "inf", "+inf" -> {
+                return Double.POSITIVE_INFINITY;
+            }
+            case "-inf" -> {
+                return Double.NEGATIVE_INFINITY;
+            }
+            default -> {
+                try {
+                    return Double.parseDouble(value);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("ERR value is not a valid float");
+                }
+            }
+        }
+    }
+
+    // Rough per-key footprint for MEMORY USAGE, modelled on Java object overheads rather than Redis encodings
+    private static long estimatedBytes(String key, RespStore.Entry entry) {
+        long bytes = 64 + key.length();
+        Object value = entry.value;
+        if (value instanceof byte[] bytesValue) {
+            return bytes + bytesValue.length;
+        }
+        if (value instanceof Map<?, ?> hash) {
+            for (Map.Entry<?, ?> e : hash.entrySet()) {
+                bytes += 48 + e.getKey().toString().length() + ((byte[]) e.getValue()).length;
+            }
+            return bytes;
+        }
+        if (value instanceof Set<?> set) {
+            for (Object member : set) {
+                bytes += 48 + member.toString().length();
+            }
+            return bytes;
+        }
+        if (value instanceof Deque<?> list) {
+            synchronized (list) {
+                for (Object element : list) {
+                    bytes += 24 + ((byte[]) element).length;
+                }
+            }
+            return bytes;
+        }
+        if (value instanceof RespSortedSet zset) {
+            return bytes + zset.estimatedBytes();
+        }
+        if (value instanceof RespStream stream) {
+            return bytes + 128L * stream.length();
+        }
+        return bytes;
+    }
+
+    private static void subscriptionReply(String kind, String channel, RespConnectionState state, RespCodec.Writer out) {
+        out.pushHeader(3);
+        out.bulk(kind);
+        out.bulk(channel);
+        out.integer(state.getSubscriptionCount());
+    }
+
+    private void xadd(List<byte[]> args, RespCodec.Writer out) {
+        String key = str(arg(args, 1));
+        boolean noMkStream = false;
+        long maxLen = -1;
+        int i = 2;
+        for (; ; i++) {
+            String option = str(arg(args, i)).toUpperCase(Locale.ROOT);
+            if (option.equals("NOMKSTREAM")) {
+                noMkStream = true;
+            } else if (option.equals("MAXLEN")) {
+                String threshold = str(arg(args, ++i));
+                if (threshold.equals("~") || threshold.equals("=")) {
+                    threshold = str(arg(args, ++i));
+                }
+                maxLen = Long.parseLong(threshold);
+            } else if (option.equals("LIMIT")) {
+                i++;
+            } else {
+                break;
+            }
+        }
+        String id = str(arg(args, i));
+        int fieldCount = args.size() - i - 1;
+        if (fieldCount < 2 || fieldCount % 2 != 0) {
+            throw new IllegalArgumentException("ERR wrong number of arguments for 'xadd' command");
+        }
+        RespStream stream = noMkStream ? store.streamForRead(key) : store.streamForWrite(key);
+        if (stream == null) {
+            out.nullBulk();
+            return;
+        }
+        RespStream.StreamId added = stream.add(id, new ArrayList<>(args.subList(i + 1, args.size())));
+        if (maxLen >= 0) {
+            stream.trim(maxLen);
+        }
+        out.bulk(added.toString());
+    }
+
+    private void xgroup(List<byte[]> args, RespCodec.Writer out) {
+        String sub = str(arg(args, 1)).toLowerCase(Locale.ROOT);
+        String key = str(arg(args, 2));
+        switch (sub) {
+            case "create" -> {
+                String group = str(arg(args, 3));
+                String id = str(arg(args, 4));
+                boolean mkStream = false;
+                for (int i = 5; i < args.size(); i++) {
+                    if (str(args.get(i)).equalsIgnoreCase("mkstream")) {
+                        mkStream = true;
+                    }
+                }
+                RespStream stream = mkStream ? store.streamForWrite(key) : store.streamForRead(key);
+                if (stream == null) {
+                    throw new IllegalArgumentException("ERR The XGROUP subcommand requires the key to exist. "
+                            + "Note that for CREATE you may want to use the MKSTREAM option to create an empty stream automatically.");
+                }
+                if (!stream.createGroup(group, id)) {
+                    throw new IllegalArgumentException("BUSYGROUP Consumer Group name already exists");
+                }
+                out.ok();
+            }
+            case "destroy" -> {
+                RespStream stream = store.streamForRead(key);
+                out.integer(stream != null && stream.destroyGroup(str(arg(args, 3))) ? 1 : 0);
+            }
+            // Consumers are implicit in the pending entries list
+            case "createconsumer" -> out.integer(1);
+            case "delconsumer" -> out.integer(0);
+            default -> throw new IllegalArgumentException("ERR unknown XGROUP subcommand '" + sub + "'");
+        }
+    }
+
+    /**
+     * XREADGROUP without blocking: BLOCK is accepted but an empty read returns nil immediately,
+     * so callers poll instead of parking a connection on the server.
+     */
+    private void xreadgroup(List<byte[]> args, RespCodec.Writer out) {
+        if (!str(arg(args, 1)).equalsIgnoreCase("group")) {
+            throw new IllegalArgumentException("ERR syntax error");
+        }
+        String group = str(arg(args, 2));
+        String consumer = str(arg(args, 3));
+        int count = 0;
+        boolean noAck = false;
+        int i = 4;
+        for (; ; i++) {
+            String option = str(arg(args, i)).toUpperCase(Locale.ROOT);
+            if (option.equals("COUNT")) {
+                count = Integer.parseInt(str(arg(args, ++i)));
+            } else if (option.equals("BLOCK")) {
+                i++;
+            } else if (option.equals("NOACK")) {
+                noAck = true;
+            } else if (option.equals("STREAMS")) {
+                break;
+            } else {
+                throw new IllegalArgumentException("ERR syntax error");
+            }
+        }
+        int streams = (args.size() - i - 1) / 2;
+        if (streams == 0 || (args.size() - i - 1) % 2 != 0) {
+            throw new IllegalArgumentException("ERR Unbalanced 'xreadgroup' list of streams: for each stream key an ID or '>' must be specified.");
+        }
+
+        List<String> keys = new ArrayList<>();
+        List<List<RespStream.Message>> reads = new ArrayList<>();
+        for (int s = 0; s < streams; s++) {
+            String key = str(args.get(i + 1 + s));
+            String id = str(args.get(i + 1 + streams + s));
+            RespStream stream = store.streamForRead(key);
+            if (stream == null || !stream.hasGroup(group)) {
+                throw new IllegalArgumentException("NOGROUP No such key '" + key + "' or consumer group '" + group
+                        + "' in XREADGROUP with GROUP option");
+            }
+            boolean newOnly = id.equals(">");
+            List<RespStream.Message> messages = stream.readGroup(group, consumer, newOnly,
+                    newOnly ? null : RespStream.StreamId.parse(id, 0), count, noAck);
+            if (!messages.isEmpty() || !newOnly) {
+                keys.add(key);
+                reads.add(messages);
+            }
+        }
+        if (keys.isEmpty()) {
+            out.nullArray();
+            return;
+        }
+        // RESP3 replies with a map of stream name to entries, RESP2 with [name, entries] pairs
+        if (out.isResp3()) {
+            out.mapHeader(keys.size());
+        } else {
+            out.arrayHeader(keys.size());
+        }
+        for (int s = 0; s < keys.size(); s++) {
+            if (!out.isResp3()) {
+                out.arrayHeader(2);
+            }
+            out.bulk(keys.get(s));
+            out.arrayHeader(reads.get(s).size());
+            for (RespStream.Message message : reads.get(s)) {
+                out.arrayHeader(2);
+                out.bulk(message.id().toString());
+                if (message.fields() == null) {
+                    out.nullArray();
+                    continue;
+                }
+                out.arrayHeader(message.fields().size());
+                for (byte[] field : message.fields()) {
+                    out.bulk(field);
+                }
+            }
+        }
+    }
+
+    private void xpending(List<byte[]> args, RespCodec.Writer out) {
+        if (args.size() > 3) {
+            throw new IllegalArgumentException("ERR only the XPENDING summary form is supported by the embedded server");
+        }
+        String key = str(arg(args, 1));
+        String group = str(arg(args, 2));
+        RespStream stream = store.streamForRead(key);
+        if (stream == null) {
+            throw new IllegalArgumentException("NOGROUP No such key '" + key + "' or consumer group '" + group + "'");
+        }
+        RespStream.PendingSummary summary = stream.pending(group);
+        out.arrayHeader(4);
+        out.integer(summary.count());
+        out.bulk(summary.smallest() != null ? summary.smallest().toString() : null);
+        out.bulk(summary.greatest() != null ? summary.greatest().toString() : null);
+        if (summary.perConsumer().isEmpty()) {
+            out.nullArray();
+            return;
+        }
+        out.arrayHeader(summary.perConsumer().size());
+        for (Map.Entry<String, Long> e : summary.perConsumer().entrySet()) {
+            out.arrayHeader(2);
+            out.bulk(e.getKey());
+            out.bulk(Long.toString(e.getValue()));
+        }
+    }
+
+    private static List<RespStream.StreamId> streamIds(List<byte[]> args, int from) {
+        List<RespStream.StreamId> ids = new ArrayList<>();
+        for (int i = from; i < args.size(); i++) {
+            ids.add(RespStream.StreamId.parse(str(args.get(i)), 0));
+        }
+        return ids;
+    }
+
+    private void scan(List<byte[]> args, RespConnectionState state, RespCodec.Writer out) {
+        long cursor = Long.parseLong(str(arg(args, 1)));
+        String pattern = null;
+        int count = 10;
+        String type = null;
+        for (int i = 2; i < args.size(); i++) {
+            String option = str(args.get(i)).toUpperCase(Locale.ROOT);
+            switch (option) {
+                case "MATCH" -> pattern = str(arg(args, ++i));
+                case "COUNT" -> count = Integer.parseInt(str(arg(args, ++i)));
+                case "TYPE" -> type = str(arg(args, ++i)).toLowerCase(Locale.ROOT);
+                default -> throw new IllegalArgumentException("ERR syntax error");
+            }
+        }
+
+        Iterator<String> keys = openCursor(state, "", cursor, store.keyIterator());
+        List<String> matches = new ArrayList<>();
+        int visited = 0;
+        while (visited < count && keys.hasNext()) {
+            String key = keys.next();
+            visited++;
+            if (pattern != null && !GlobMatcher.matches(pattern, key)) {
+                continue;
+            }
+            RespStore.Entry entry = store.getEntry(key);
+            if (entry == null || (type != null && !type.equals(typeOf(entry)))) {
+                continue;
+            }
+            matches.add(key);
+        }
+        long next = keys.hasNext() ? state.saveCursor("", cursor + visited, keys) : 0;
+        out.arrayHeader(2);
+        out.bulk(Long.toString(next));
+        out.arrayHeader(matches.size());
+        for (String key : matches) {
+            out.bulk(key);
+        }
+    }
+
+    private void sscan(List<byte[]> args, RespConnectionState state, RespCodec.Writer out) {
+        Set<String> set = store.setForRead(str(arg(args, 1)));
+        long cursor = Long.parseLong(str(arg(args, 2)));
+        String pattern = null;
+        int count = 10;
+        for (int i = 3; i < args.size(); i++) {
+            String option = str(args.get(i)).toUpperCase(Locale.ROOT);
+            switch (option) {
+                case "MATCH" -> pattern = str(arg(args, ++i));
+                case "COUNT" -> count = Integer.parseInt(str(arg(args, ++i)));
+                default -> throw new IllegalArgumentException("ERR syntax error");
+            }
+        }
+
+        List<String> matches = new ArrayList<>();
+        long next = 0;
+        if (set != null) {
+            Iterator<String> members = openCursor(state, str(arg(args, 1)), cursor, set.iterator());
+            int visited = 0;
+            while (visited < count && members.hasNext()) {
+                String member = members.next();
+                visited++;
+                if (pattern == null || GlobMatcher.matches(pattern, member)) {
+                    matches.add(member);
+                }
+            }
+            next = members.hasNext() ? state.saveCursor(str(arg(args, 1)), cursor + visited, members) : 0;
+        }
+        out.arrayHeader(2);
+        out.bulk(Long.toString(next));
+        out.arrayHeader(matches.size());
+        for (String member : matches) {
+            out.bulk(member);
+        }
+    }
+
+    // Cursors are positions in iteration order. The iterator saved under the cursor is resumed when
+    // there is one; a cursor that is reissued, aged out or from another connection is replayed by
+    // position, so cursors stay valid across connections as with Redis
+    private static Iterator<String> openCursor(RespConnectionState state, String scope, long cursor, Iterator<String> fresh) {
+        Iterator<String> saved = cursor != 0 ? state.takeCursor(scope, cursor) : null;
+        if (saved != null) {
+            return saved;
+        }
+        for (long position = 0; position < cursor && fresh.hasNext(); position++) {
+            fresh.next();
+        }
+        return fresh;
+    }
+
+    private void slowlog(List<byte[]> args, RespCodec.Writer out) {
+        String subcommand = str(arg(args, 1)).toLowerCase(Locale.ROOT);
+        switch (subcommand) {
+            case "len" -> {
+                synchronized (slowlog) {
+                    out.integer(slowlog.size());
+                }
+            }
+            case "reset" -> {
+                synchronized (slowlog) {
+                    slowlog.clear();
+                }
+                out.ok();
+            }
+            case "get" -> {
+                int count = args.size() > 2 ? Integer.parseInt(str(args.get(2))) : 10;
+                List<SlowlogEntry> entries;
+                synchronized (slowlog) {
+                    entries = new ArrayList<>(slowlog);
+                }
+                if (count >= 0 && entries.size() > count) {
+                    entries = entries.subList(0, count);
+                }
+                out.arrayHeader(entries.size());
+                for (SlowlogEntry entry : entries) {
+                    out.arrayHeader(6);
+                    out.integer(entry.id());
+                    out.integer(entry.timestampSec());
+                    out.integer(entry.durationUs());
+                    out.arrayHeader(entry.args().size());
+                    for (byte[] arg : entry.args()) {
+                        out.bulk(arg);
+                    }
+                    out.bulk("");
+                    out.bulk(entry.clientName() != null ? entry.clientName() : "");
+                }
+            }
+            default -> throw new IllegalArgumentException("ERR unknown SLOWLOG subcommand '" + subcommand + "'");
+        }
+    }
+
+    // Commands per second since the previous INFO stats call at least 100 ms ago; Redis
+    // averages 100 ms samples over 1.6 s, which a sampler polling every second approximates
+    private synchronized double instantaneousOpsPerSec() {
+        long now = System.nanoTime();
+        long elapsed = now - rateSampleNanos;
+        if (elapsed >= 100_000_000L) {
+            long commands = totalCommands.sum();
+            instantaneousOpsPerSec = (commands - rateSampleCommands) * 1_000_000_000.0 / elapsed;
+            rateSampleNanos = now;
+            rateSampleCommands = commands;
+        }
+        return instantaneousOpsPerSec;
+    }
+
+    private String info(String section) {
+        String normalized = section.toLowerCase(Locale.ROOT);
+        boolean all = normalized.equals("all") || normalized.equals("everything") || normalized.equals("default");
+        Runtime runtime = Runtime.getRuntime();
+        StringBuilder sb = new StringBuilder();
+        if (all || normalized.equals("server")) {
+            sb.append("# Server\r\n")
+                    .append("redis_version:").append(VERSION).append("\r\n")
+                    .append("redis_mode:standalone\r\n")
+                    .append("server_name:embedded-resp\r\n")
+                    .append("uptime_in_seconds:").append((System.currentTimeMillis() - startMillis) / 1000).append("\r\n\r\n");
+        }
+        if (all || normalized.equals("clients")) {
+            sb.append("# Clients\r\n")
+                    .append("total_connections_received:").append(clientIds.get()).append("\r\n\r\n");
+        }
+        if (all || normalized.equals("memory")) {
+            sb.append("# Memory\r\n")
+                    .append("used_memory:").append(runtime.totalMemory() - runtime.freeMemory()).append("\r\n\r\n");
+        }
+        if (all || normalized.equals("stats")) {
+            sb.append("# Stats\r\n")
+                    .append("total_commands_processed:").append(totalCommands.sum()).append("\r\n")
+                    .append("instantaneous_ops_per_sec:").append(Math.round(instantaneousOpsPerSec())).append("\r\n\r\n");
+        }
+        if (normalized.equals("all") || normalized.equals("everything") || normalized.equals("commandstats")) {
+            sb.append("# Commandstats\r\n");
+            commandStats.forEach((name, stats) -> {
+                long calls = stats.calls.sum();
+                long usec = stats.usec.sum();
+                sb.append("cmdstat_").append(name).append(":calls=").append(calls).append(",usec=").append(usec)
+                        .append(",usec_per_call=").append(String.format(Locale.ROOT, "%.2f", calls > 0 ? (double) usec / calls : 0.0))
+                        .append("\r\n");
+            });
+            sb.append("\r\n");
+        }
+        if (all || normalized.equals("replication")) {
+            sb.append("# Replication\r\n");
+            if (replication.isReplica()) {
+                sb.append("role:slave\r\n")
+                        .append("master_host:").append(replication.getMasterHost()).append("\r\n")
+                        .append("master_port:").append(replication.getMasterPort()).append("\r\n")
+                        .append("master_link_status:up\r\n")
+                        .append("slave_repl_offset:").append(replication.getOffset()).append("\r\n\r\n");
+            } else {
+                List<RespReplication.Link> links = replication.getLinks();
+                sb.append("role:master\r\n").append("connected_slaves:").append(links.size()).append("\r\n");
+                for (int i = 0; i < links.size(); i++) {
+                    RespReplication.Link link = links.get(i);
+                    sb.append("slave").append(i).append(":ip=").append(link.host).append(",port=").append(link.port)
+                            .append(",state=online,offset=").append(link.replica.getReplication().getOffset()).append("\r\n");
+                }
+                sb.append("master_repl_offset:").append(replication.getOffset()).append("\r\n\r\n");
+            }
+        }
+        if (all || normalized.equals("keyspace")) {
+            sb.append("# Keyspace\r\n")
+                    .append("db0:keys=").append(store.size()).append(",expires=0\r\n");
+        }
+        return sb.toString();
+    }
+
+    private static void writeSet(List<String> members, RespCodec.Writer out) {
+        out.setHeader(members.size());
+        for (String member : members) {
+            out.bulk(member);
+        }
+    }
+
+    private static byte[] stringValue(RespStore.Entry entry) {
+        if (entry == null) {
+            return null;
+        }
+        if (!(entry.value instanceof byte[] bytes)) {
+            throw new RespStore.WrongTypeException();
+        }
+        return bytes;
+    }
+
+    private static String typeOf(RespStore.Entry entry) {
+        if (entry == null) {
+            return "none";
+        }
+        if (entry.value instanceof byte[]) {
+            return "string";
+        }
+        if (entry.value instanceof Map) {
+            return "hash";
+        }
+        if (entry.value instanceof RespStream) {
+            return "stream";
+        }
+        if (entry.value instanceof Deque) {
+            return "list";
+        }
+        if (entry.value instanceof RespSortedSet) {
+            return "zset";
+        }
+        return "set";
+    }
+
+    private static byte[] arg(List<byte[]> args, int index) {
+        if (index >= args.size()) {
+            throw new IllegalArgumentException("ERR wrong number of arguments for '" + str(args.get(0)) + "' command");
+        }
+        return args.get(index);
+    }
+
+    private static String str(byte[] bytes) {
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private static String sha1Hex(byte[] script) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(script));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
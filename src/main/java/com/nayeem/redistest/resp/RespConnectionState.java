@@ -0,0 +1,71 @@
+package com.nayeem.redistest.resp;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Per-connection client metadata visible to HELLO and CLIENT commands, pub/sub subscriptions and open SCAN cursors
+final class RespConnectionState {
+
+    private static final int MAX_OPEN_CURSORS = 32;
+
+    private final long id;
+    private final RespPubSub.Subscriber subscriber;
+    private final Set<String> channels = new LinkedHashSet<>();
+    private final Set<String> patterns = new LinkedHashSet<>();
+    private String name;
+    // SCAN/SSCAN iterators by scanned key and cursor. The keyspace and set iterators are weakly
+    // consistent, so deleting keys mid-scan does not shift the rest, as with Redis; abandoned
+    // cursors age out. Two scans of one key at the same position can share an entry safely
+    private final Map<String, Iterator<String>> cursors = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Iterator<String>> eldest) {
+            return size() > MAX_OPEN_CURSORS;
+        }
+    };
+
+    RespConnectionState(long id, RespPubSub.Subscriber subscriber) {
+        this.id = id;
+        this.subscriber = subscriber;
+    }
+
+    long getId() {
+        return id;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    void setName(String name) {
+        this.name = name;
+    }
+
+    RespPubSub.Subscriber getSubscriber() {
+        return subscriber;
+    }
+
+    synchronized long saveCursor(String scope, long position, Iterator<String> iterator) {
+        cursors.put(scope + '\0' + position, iterator);
+        return position;
+    }
+
+    synchronized Iterator<String> takeCursor(String scope, long cursor) {
+        return cursors.remove(scope + '\0' + cursor);
+    }
+
+    // Channels this connection subscribed to; only touched by the connection's worker thread
+    Set<String> getChannels() {
+        return channels;
+    }
+
+    Set<String> getPatterns() {
+        return patterns;
+    }
+
+    int getSubscriptionCount() {
+        return channels.size() + patterns.size();
+    }
+}
@@ -0,0 +1,78 @@
+package com.nayeem.redistest.resp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Channel and pattern subscriptions of the embedded RESP server. PUBLISH runs on the publisher's
+ * worker thread and hands the message to each subscriber, which queues it for its own worker thread.
+ */
+final class RespPubSub {
+
+    interface Subscriber {
+        // Called from any thread; the subscriber writes the push message on its own thread.
+        // The pattern is null for a channel subscription
+        void deliver(byte[] pattern, byte[] channel, byte[] message);
+    }
+
+    private final Map<String, Set<Subscriber>> channels = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscriber>> patterns = new ConcurrentHashMap<>();
+
+    void subscribe(String channel, Subscriber subscriber) {
+        channels.computeIfAbsent(channel, c -> ConcurrentHashMap.newKeySet()).add(subscriber);
+    }
+
+    void unsubscribe(String channel, Subscriber subscriber) {
+        channels.computeIfPresent(channel, (c, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    void psubscribe(String pattern, Subscriber subscriber) {
+        patterns.computeIfAbsent(pattern, p -> ConcurrentHashMap.newKeySet()).add(subscriber);
+    }
+
+    void punsubscribe(String pattern, Subscriber subscriber) {
+        patterns.computeIfPresent(pattern, (p, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    // Keyspace notifications are only built when someone could receive them
+    boolean hasSubscribers() {
+        return !channels.isEmpty() || !patterns.isEmpty();
+    }
+
+    // Returns the number of subscribers that received the message, counting each matching pattern
+    long publish(byte[] channel, byte[] message) {
+        String name = new String(channel, StandardCharsets.ISO_8859_1);
+        long delivered = 0;
+        Set<Subscriber> subscribers = channels.get(name);
+        if (subscribers != null) {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.deliver(null, channel, message);
+                delivered++;
+            }
+        }
+        for (Map.Entry<String, Set<Subscriber>> entry : patterns.entrySet()) {
+            if (!GlobMatcher.matches(entry.getKey(), name)) {
+                continue;
+            }
+            byte[] pattern = entry.getKey().getBytes(StandardCharsets.ISO_8859_1);
+            for (Subscriber subscriber : entry.getValue()) {
+                subscriber.deliver(pattern, channel, message);
+                delivered++;
+            }
+        }
+        return delivered;
+    }
+
+    long subscriberCount(String channel) {
+        Set<Subscriber> subscribers = channels.get(channel);
+        return subscribers != null ? subscribers.size() : 0;
+    }
+}
@@ -0,0 +1,95 @@
+package com.nayeem.redistest.resp;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replication state of one embedded server. A master forwards each write command to its replicas,
+ * which apply it after a fixed lag on one thread per replica, so writes arrive in order. There is
+ * no initial sync: replicas must be attached before the first write. Offsets count commands, not
+ * bytes as in Redis.
+ */
+final class RespReplication implements Closeable {
+
+    // One replica as seen from its master
+    static final class Link {
+        final String host;
+        final int port;
+        final RespCommandHandler replica;
+        final long lagNanos;
+        final ScheduledExecutorService executor;
+        // Only used by the link's thread; replies to replicated commands are discarded
+        final RespCodec.Writer sink = new RespCodec.Writer();
+
+        Link(String host, int port, RespCommandHandler replica, long lagMs) {
+            this.host = host;
+            this.port = port;
+            this.replica = replica;
+            this.lagNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, lagMs));
+            this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "resp-replication-" + port);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        void send(List<byte[]> args) {
+            // Equal delays keep submission order, so the replica applies writes as the master did
+            executor.schedule(() -> replica.applyReplicated(args, sink), lagNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private final List<Link> links = new CopyOnWriteArrayList<>();
+    private final AtomicLong offset = new AtomicLong();
+    private volatile String masterHost;
+    private volatile int masterPort;
+
+    void addLink(Link link) {
+        links.add(link);
+    }
+
+    List<Link> getLinks() {
+        return links;
+    }
+
+    void replicaOf(String host, int port) {
+        masterHost = host;
+        masterPort = port;
+    }
+
+    boolean isReplica() {
+        return masterHost != null;
+    }
+
+    String getMasterHost() {
+        return masterHost;
+    }
+
+    int getMasterPort() {
+        return masterPort;
+    }
+
+    long getOffset() {
+        return offset.get();
+    }
+
+    // A write applied here: counted, then forwarded to every replica
+    void written(List<byte[]> args) {
+        offset.incrementAndGet();
+        for (Link link : links) {
+            link.send(args);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Link link : links) {
+            link.executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.nayeem.redistest.resp;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Sorted set value for the embedded RESP server: a member-to-score map plus a tree ordered by
+ * (score, member), the same ordering Redis uses. All access goes through the set's monitor.
+ */
+final class RespSortedSet {
+
+    record Member(double score, String name) {
+    }
+
+    private static final String LAST_NAME = "\uffff";
+    private static final Comparator<Member> ORDER = Comparator.comparingDouble(Member::score).thenComparing(Member::name);
+
+    private final Map<String, Double> scores = new HashMap<>();
+    private final TreeSet<Member> ordered = new TreeSet<>(ORDER);
+
+    // Returns true when the member is new
+    synchronized boolean add(String name, double score) {
+        Double previous = scores.put(name, score);
+        if (previous != null) {
+            ordered.remove(new Member(previous, name));
+        }
+        ordered.add(new Member(score, name));
+        return previous == null;
+    }
+
+    synchronized double incrementBy(String name, double delta) {
+        double score = scores.getOrDefault(name, 0.0) + delta;
+        add(name, score);
+        return score;
+    }
+
+    synchronized Double score(String name) {
+        return scores.get(name);
+    }
+
+    synchronized boolean remove(String name) {
+        Double previous = scores.remove(name);
+        if (previous == null) {
+            return false;
+        }
+        ordered.remove(new Member(previous, name));
+        return true;
+    }
+
+    synchronized int size() {
+        return scores.size();
+    }
+
+    // Members with min <= score <= max (bounds optionally exclusive), after skipping offset
+    synchronized List<Member> rangeByScore(double min, boolean minExclusive, double max, boolean maxExclusive,
+                                           long offset, long count, boolean reverse) {
+        // Names are ISO-8859-1 strings, so "" and LAST_NAME bound every member with a given score
+        Member from = new Member(min, minExclusive ? LAST_NAME : "");
+        Member to = new Member(max, maxExclusive ? "" : LAST_NAME);
+        List<Member> result = new ArrayList<>();
+        if (ORDER.compare(from, to) >= 0) {
+            return result;
+        }
+        NavigableSet<Member> window = ordered.subSet(from, !minExclusive, to, !maxExclusive);
+        Iterator<Member> it = reverse ? window.descendingIterator() : window.iterator();
+        long skipped = 0;
+        while (it.hasNext() && (count < 0 || result.size() < count)) {
+            Member member = it.next();
+            if (skipped++ < offset) {
+                continue;
+            }
+            result.add(member);
+        }
+        return result;
+    }
+
+    // Members by rank; negative indexes count from the end as in ZRANGE
+    synchronized List<Member> rangeByRank(long start, long stop, boolean reverse) {
+        int size = ordered.size();
+        if (start < 0) {
+            start = Math.max(0, size + start);
+        }
+        if (stop < 0) {
+            stop = size + stop;
+        }
+        stop = Math.min(stop, size - 1);
+        List<Member> result = new ArrayList<>();
+        if (start > stop) {
+            return result;
+        }
+        Iterator<Member> it = reverse ? ordered.descendingIterator() : ordered.iterator();
+        for (long rank = 0; rank <= stop && it.hasNext(); rank++) {
+            Member member = it.next();
+            if (rank >= start) {
+                result.add(member);
+            }
+        }
+        return result;
+    }
+
+    // Rough heap footprint for MEMORY USAGE: two map/tree nodes plus the member string per entry
+    synchronized long estimatedBytes() {
+        long bytes = 0;
+        for (String name : scores.keySet()) {
+            bytes += 120 + name.length();
+        }
+        return bytes;
+    }
+}
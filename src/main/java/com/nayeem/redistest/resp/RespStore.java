@@ -0,0 +1,267 @@
+package com.nayeem.redistest.resp;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Concurrent in-memory keyspace for the embedded RESP server. Keys, hash fields and set
+ * members are kept as ISO-8859-1 strings so arbitrary bytes round-trip unchanged. Lists are
+ * ArrayDeques guarded by their own monitor; sorted sets and streams are {@link RespSortedSet} and
+ * {@link RespStream} values.
+ * Hashes, sets, lists and sorted sets are changed inside the map's per-key compute, which also
+ * drops a collection the change left empty, so a writer never adds to a collection that a
+ * concurrent removal has already detached from the keyspace.
+ * Expiry is lazy on access plus a periodic sweep.
+ */
+public class RespStore {
+
+    static final class Entry {
+        final Object value;
+        volatile long expireAtMillis;
+
+        Entry(Object value, long expireAtMillis) {
+            this.value = value;
+            this.expireAtMillis = expireAtMillis;
+        }
+
+        boolean isExpired(long now) {
+            return expireAtMillis > 0 && expireAtMillis <= now;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry> data = new ConcurrentHashMap<>();
+
+    Entry getEntry(String key) {
+        Entry entry = data.get(key);
+        if (entry != null && entry.isExpired(System.currentTimeMillis())) {
+            data.remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    void put(String key, Object value, long expireAtMillis) {
+        data.put(key, new Entry(value, expireAtMillis));
+    }
+
+    boolean putIfAbsent(String key, Object value, long expireAtMillis) {
+        Entry fresh = new Entry(value, expireAtMillis);
+        Entry result = data.compute(key, (k, existing) ->
+                existing == null || existing.isExpired(System.currentTimeMillis()) ? fresh : existing);
+        return result == fresh;
+    }
+
+    // SETRANGE: writes in place when the value is long enough, so patching a large bitmap does not copy it
+    int setRange(String key, int offset, byte[] bytes) {
+        Entry entry = data.compute(key, (k, existing) -> {
+            if (existing == null || existing.isExpired(System.currentTimeMillis())) {
+                byte[] value = new byte[offset + bytes.length];
+                System.arraycopy(bytes, 0, value, offset, bytes.length);
+                return new Entry(value, 0);
+            }
+            if (!(existing.value instanceof byte[] value)) {
+                throw new WrongTypeException();
+            }
+            if (value.length >= offset + bytes.length) {
+                System.arraycopy(bytes, 0, value, offset, bytes.length);
+                return existing;
+            }
+            byte[] grown = Arrays.copyOf(value, offset + bytes.length);
+            System.arraycopy(bytes, 0, grown, offset, bytes.length);
+            return new Entry(grown, existing.expireAtMillis);
+        });
+        return ((byte[]) entry.value).length;
+    }
+
+    boolean remove(String key) {
+        Entry removed = data.remove(key);
+        return removed != null && !removed.isExpired(System.currentTimeMillis());
+    }
+
+    /**
+     * Applies an update to the hash at key under the key's lock. With create, a missing hash is
+     * created first; without it the update is skipped and null returned. A hash the update leaves
+     * empty is removed.
+     */
+    @SuppressWarnings("unchecked")
+    <R> R updateHash(String key, boolean create, Function<Map<String, byte[]>, R> update) {
+        return update(key, Map.class, create ? ConcurrentHashMap::new : null,
+                value -> update.apply((Map<String, byte[]>) value));
+    }
+
+    @SuppressWarnings("unchecked")
+    Map<String, byte[]> hashForRead(String key) {
+        Entry entry = getEntry(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!(entry.value instanceof Map)) {
+            throw new WrongTypeException();
+        }
+        return (Map<String, byte[]>) entry.value;
+    }
+
+    @SuppressWarnings("unchecked")
+    <R> R updateSet(String key, boolean create, Function<Set<String>, R> update) {
+        return update(key, Set.class, create ? ConcurrentHashMap::newKeySet : null,
+                value -> update.apply((Set<String>) value));
+    }
+
+    @SuppressWarnings("unchecked")
+    Set<String> setForRead(String key) {
+        Entry entry = getEntry(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!(entry.value instanceof Set)) {
+            throw new WrongTypeException();
+        }
+        return (Set<String>) entry.value;
+    }
+
+    RespStream streamForWrite(String key) {
+        Entry entry = data.compute(key, (k, existing) ->
+                existing == null || existing.isExpired(System.currentTimeMillis())
+                        ? new Entry(new RespStream(), 0) : existing);
+        if (!(entry.value instanceof RespStream stream)) {
+            throw new WrongTypeException();
+        }
+        return stream;
+    }
+
+    RespStream streamForRead(String key) {
+        Entry entry = getEntry(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!(entry.value instanceof RespStream stream)) {
+            throw new WrongTypeException();
+        }
+        return stream;
+    }
+
+    // Readers still lock the deque itself, so the update is applied holding its monitor too
+    @SuppressWarnings("unchecked")
+    <R> R updateList(String key, boolean create, Function<Deque<byte[]>, R> update) {
+        return update(key, Deque.class, create ? ArrayDeque::new : null, value -> {
+            synchronized (value) {
+                return update.apply((Deque<byte[]>) value);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    Deque<byte[]> listForRead(String key) {
+        Entry entry = getEntry(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!(entry.value instanceof Deque)) {
+            throw new WrongTypeException();
+        }
+        return (Deque<byte[]>) entry.value;
+    }
+
+    <R> R updateSortedSet(String key, boolean create, Function<RespSortedSet, R> update) {
+        return update(key, RespSortedSet.class, create ? RespSortedSet::new : null,
+                value -> update.apply((RespSortedSet) value));
+    }
+
+    RespSortedSet sortedSetForRead(String key) {
+        Entry entry = getEntry(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!(entry.value instanceof RespSortedSet sortedSet)) {
+            throw new WrongTypeException();
+        }
+        return sortedSet;
+    }
+
+    // One compute per update: the type check, the change and the removal of an emptied value
+    private <R> R update(String key, Class<?> type, Supplier<?> create, Function<Object, R> update) {
+        Object[] result = new Object[1];
+        data.compute(key, (k, existing) -> {
+            Entry entry = existing == null || existing.isExpired(System.currentTimeMillis()) ? null : existing;
+            if (entry == null) {
+                if (create == null) {
+                    return null;
+                }
+                entry = new Entry(create.get(), 0);
+            }
+            if (!type.isInstance(entry.value)) {
+                throw new WrongTypeException();
+            }
+            result[0] = update.apply(entry.value);
+            return isEmpty(entry.value) ? null : entry;
+        });
+        @SuppressWarnings("unchecked")
+        R value = (R) result[0];
+        return value;
+    }
+
+    // Redis drops a hash, set, list or sorted set with its last member
+    private static boolean isEmpty(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            return map.isEmpty();
+        }
+        if (value instanceof Set<?> set) {
+            return set.isEmpty();
+        }
+        if (value instanceof Deque<?> list) {
+            synchronized (list) {
+                return list.isEmpty();
+            }
+        }
+        return value instanceof RespSortedSet sortedSet && sortedSet.size() == 0;
+    }
+
+    List<String> keys() {
+        long now = System.currentTimeMillis();
+        List<String> keys = new ArrayList<>(data.size());
+        for (Map.Entry<String, Entry> e : data.entrySet()) {
+            if (!e.getValue().isExpired(now)) {
+                keys.add(e.getKey());
+            }
+        }
+        return keys;
+    }
+
+    Iterator<String> keyIterator() {
+        return data.keySet().iterator();
+    }
+
+    public long size() {
+        return data.size();
+    }
+
+    public void clear() {
+        data.clear();
+    }
+
+    public int sweepExpired() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        for (Map.Entry<String, Entry> e : data.entrySet()) {
+            if (e.getValue().isExpired(now) && data.remove(e.getKey(), e.getValue())) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    static final class WrongTypeException extends RuntimeException {
+        WrongTypeException() {
+            super("WRONGTYPE Operation against a key holding the wrong kind of value", null, false, false);
+        }
+    }
+}
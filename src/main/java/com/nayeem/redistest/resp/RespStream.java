@@ -0,0 +1,204 @@
+package com.nayeem.redistest.resp;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Stream value for the embedded RESP server: entries ordered by ID, plus consumer groups with
+ * their last-delivered ID and pending entries list. All access goes through the stream's monitor.
+ */
+final class RespStream {
+
+    record StreamId(long ms, long seq) implements Comparable<StreamId> {
+
+        static final StreamId MIN = new StreamId(0, 0);
+
+        // "ms-seq", or "ms" with the given sequence
+        static StreamId parse(String value, long defaultSeq) {
+            int dash = value.indexOf('-');
+            try {
+                if (dash < 0) {
+                    return new StreamId(Long.parseLong(value), defaultSeq);
+                }
+                return new StreamId(Long.parseLong(value.substring(0, dash)), Long.parseLong(value.substring(dash + 1)));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("ERR Invalid stream ID specified as stream command argument");
+            }
+        }
+
+        @Override
+        public int compareTo(StreamId other) {
+            int byMs = Long.compare(ms, other.ms);
+            return byMs != 0 ? byMs : Long.compare(seq, other.seq);
+        }
+
+        @Override
+        public String toString() {
+            return ms + "-" + seq;
+        }
+    }
+
+    record Message(StreamId id, List<byte[]> fields) {
+    }
+
+    record PendingSummary(long count, StreamId smallest, StreamId greatest, Map<String, Long> perConsumer) {
+    }
+
+    private static final class PendingEntry {
+        String consumer;
+        long deliveredAtMillis;
+        long deliveries;
+    }
+
+    private static final class Group {
+        StreamId lastDelivered;
+        final TreeMap<StreamId, PendingEntry> pending = new TreeMap<>();
+
+        Group(StreamId lastDelivered) {
+            this.lastDelivered = lastDelivered;
+        }
+    }
+
+    private final TreeMap<StreamId, List<byte[]>> entries = new TreeMap<>();
+    private final Map<String, Group> groups = new HashMap<>();
+    private StreamId lastId = StreamId.MIN;
+
+    synchronized StreamId add(String idSpec, List<byte[]> fields) {
+        StreamId id;
+        if (idSpec.equals("*")) {
+            long now = System.currentTimeMillis();
+            id = now > lastId.ms() ? new StreamId(now, 0) : new StreamId(lastId.ms(), lastId.seq() + 1);
+        } else if (idSpec.endsWith("-*")) {
+            long ms = Long.parseLong(idSpec.substring(0, idSpec.length() - 2));
+            id = ms == lastId.ms() ? new StreamId(ms, lastId.seq() + 1) : new StreamId(ms, 0);
+        } else {
+            id = StreamId.parse(idSpec, 0);
+        }
+        if (id.compareTo(lastId) <= 0) {
+            throw new IllegalArgumentException("ERR The ID specified in XADD is equal or smaller than the target stream top item");
+        }
+        entries.put(id, fields);
+        lastId = id;
+        return id;
+    }
+
+    synchronized int length() {
+        return entries.size();
+    }
+
+    // Drops the oldest entries beyond maxLen; returns how many were removed
+    synchronized long trim(long maxLen) {
+        long removed = 0;
+        while (entries.size() > maxLen) {
+            entries.pollFirstEntry();
+            removed++;
+        }
+        return removed;
+    }
+
+    synchronized long delete(List<StreamId> ids) {
+        long removed = 0;
+        for (StreamId id : ids) {
+            if (entries.remove(id) != null) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    // "$" starts the group after the current last entry
+    synchronized boolean createGroup(String name, String idSpec) {
+        if (groups.containsKey(name)) {
+            return false;
+        }
+        groups.put(name, new Group(idSpec.equals("$") ? lastId : StreamId.parse(idSpec, 0)));
+        return true;
+    }
+
+    synchronized boolean destroyGroup(String name) {
+        return groups.remove(name) != null;
+    }
+
+    synchronized boolean hasGroup(String name) {
+        return groups.containsKey(name);
+    }
+
+    /**
+     * XREADGROUP for one stream. With {@code newOnly} (ID ">") it delivers entries after the group's
+     * last-delivered ID and adds them to the pending list unless {@code noAck}; otherwise it re-reads
+     * this consumer's pending entries after {@code after}.
+     */
+    synchronized List<Message> readGroup(String groupName, String consumer, boolean newOnly, StreamId after,
+                                         int count, boolean noAck) {
+        Group group = groups.get(groupName);
+        if (group == null) {
+            throw new IllegalArgumentException("NOGROUP No such key or consumer group '" + groupName + "'");
+        }
+        int limit = count > 0 ? count : Integer.MAX_VALUE;
+        List<Message> result = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        if (newOnly) {
+            for (Map.Entry<StreamId, List<byte[]>> e : entries.tailMap(group.lastDelivered, false).entrySet()) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                result.add(new Message(e.getKey(), e.getValue()));
+                group.lastDelivered = e.getKey();
+                if (!noAck) {
+                    PendingEntry pending = new PendingEntry();
+                    pending.consumer = consumer;
+                    pending.deliveredAtMillis = now;
+                    pending.deliveries = 1;
+                    group.pending.put(e.getKey(), pending);
+                }
+            }
+        } else {
+            for (Map.Entry<StreamId, PendingEntry> e : group.pending.tailMap(after, false).entrySet()) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                if (!e.getValue().consumer.equals(consumer)) {
+                    continue;
+                }
+                e.getValue().deliveredAtMillis = now;
+                e.getValue().deliveries++;
+                result.add(new Message(e.getKey(), entries.get(e.getKey())));
+            }
+        }
+        return result;
+    }
+
+    synchronized long ack(String groupName, List<StreamId> ids) {
+        Group group = groups.get(groupName);
+        if (group == null) {
+            return 0;
+        }
+        long acked = 0;
+        for (StreamId id : ids) {
+            if (group.pending.remove(id) != null) {
+                acked++;
+            }
+        }
+        return acked;
+    }
+
+    synchronized PendingSummary pending(String groupName) {
+        Group group = groups.get(groupName);
+        if (group == null) {
+            throw new IllegalArgumentException("NOGROUP No such key or consumer group '" + groupName + "'");
+        }
+        Map<String, Long> perConsumer = new TreeMap<>();
+        for (PendingEntry entry : group.pending.values()) {
+            perConsumer.merge(entry.consumer, 1L, Long::sum);
+        }
+        NavigableMap<StreamId, PendingEntry> pending = group.pending;
+        return new PendingSummary(pending.size(),
+                pending.isEmpty() ? null : pending.firstKey(),
+                pending.isEmpty() ? null : pending.lastKey(),
+                perConsumer);
+    }
+}
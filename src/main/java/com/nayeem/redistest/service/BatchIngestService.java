@@ -0,0 +1,189 @@
+package com.nayeem.redistest.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.nayeem.redistest.benchmark.LatencyHistogram;
+import com.nayeem.redistest.benchmark.Statistics;
+import com.nayeem.redistest.model.TestData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams TestData records out of an NDJSON or JSON-array request body with Jackson's
+ * streaming parser and writes them in pipelined chunks. Only one chunk is held in memory
+ * at a time, so the footprint is bounded regardless of the body size.
+ */
+@Service
+@Slf4j
+public class BatchIngestService {
+
+    private static final String KEY_PREFIX = "testdata:";
+    // Ingested records are scratch data for the endpoint's benchmarks and expire on their own
+    private static final long INGEST_TTL_SECONDS = 3600;
+    // Only the first batches are reported individually; the rest are summarised by the histogram
+    private static final int MAX_REPORTED_BATCHES = 100;
+
+    private final RedisTemplate<String, TestData> redisTemplate;
+    private final SpringDataBatchWriter springDataBatchWriter;
+    private final TestDataBloomFilter existenceFilter;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    public BatchIngestService(RedisTemplate<String, TestData> redisTemplate,
+                              SpringDataBatchWriter springDataBatchWriter,
+                              TestDataBloomFilter existenceFilter,
+                              ObjectMapper objectMapper,
+                              @Value("${batch.ingest.chunk-size:500}") int chunkSize) {
+        this.redisTemplate = redisTemplate;
+        this.springDataBatchWriter = springDataBatchWriter;
+        this.existenceFilter = existenceFilter;
+        this.objectMapper = objectMapper;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    public enum Target { REDIS_TEMPLATE, SPRING_DATA }
+
+    public static class BatchIngestException extends RuntimeException {
+        private final Map<String, Object> progress;
+
+        BatchIngestException(String message, Map<String, Object> progress, Throwable cause) {
+            super(message, cause);
+            this.progress = progress;
+        }
+
+        public Map<String, Object> getProgress() {
+            return progress;
+        }
+    }
+
+    public Map<String, Object> ingest(InputStream body, Target target) {
+        long startNanos = System.nanoTime();
+        long parseNanos = 0;
+        long writeNanos = 0;
+        long records = 0;
+        int batches = 0;
+        LatencyHistogram batchLatency = new LatencyHistogram();
+        List<Map<String, Object>> batchDetails = new ArrayList<>();
+        List<TestData> chunk = new ArrayList<>(chunkSize);
+        ObjectReader reader = objectMapper.readerFor(TestData.class);
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            JsonToken first = parser.nextToken();
+            // A top-level array is read element by element; otherwise the body is a stream of root values (NDJSON)
+            boolean array = first == JsonToken.START_ARRAY;
+            long parseStart = System.nanoTime();
+            JsonToken token = array ? parser.nextToken() : first;
+
+            while (token != null && token != JsonToken.END_ARRAY) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IOException("Expected a JSON object for record " + (records + chunk.size() + 1) + " but found " + token);
+                }
+                TestData testData = reader.readValue(parser);
+                testData.setCreatedAt(LocalDateTime.now());
+                chunk.add(testData);
+
+                if (chunk.size() == chunkSize) {
+                    parseNanos += System.nanoTime() - parseStart;
+                    long writeTime = writeChunk(chunk, target, INGEST_TTL_SECONDS);
+                    writeNanos += writeTime;
+                    batchLatency.record(writeTime);
+                    records += chunk.size();
+                    batches++;
+                    addBatchDetail(batchDetails, batches, chunk.size(), writeTime);
+                    chunk.clear();
+                    parseStart = System.nanoTime();
+                }
+                token = parser.nextToken();
+            }
+            parseNanos += System.nanoTime() - parseStart;
+
+            if (!chunk.isEmpty()) {
+                long writeTime = writeChunk(chunk, target, INGEST_TTL_SECONDS);
+                writeNanos += writeTime;
+                batchLatency.record(writeTime);
+                records += chunk.size();
+                batches++;
+                addBatchDetail(batchDetails, batches, chunk.size(), writeTime);
+                chunk.clear();
+            }
+        } catch (IOException | DataAccessException e) {
+            Map<String, Object> progress = summarize(target, records, batches, startNanos, parseNanos, writeNanos, batchLatency, batchDetails);
+            throw new BatchIngestException("Batch ingest stopped after " + records + " records: " + e.getMessage(), progress, e);
+        }
+
+        Map<String, Object> result = summarize(target, records, batches, startNanos, parseNanos, writeNanos, batchLatency, batchDetails);
+        log.info("Batch ingest ({}) wrote {} records in {} batches: {}", target, records, batches, result.get("recordsPerSec"));
+        return result;
+    }
+
+    // One pipelined round trip (two for Spring Data); returns the elapsed nanos. A ttlSeconds of 0
+    // writes RedisTemplate records without expiry; repository entities never have one.
+    long writeChunk(List<TestData> chunk, Target target, long ttlSeconds) {
+        long start = System.nanoTime();
+        if (target == Target.SPRING_DATA) {
+            springDataBatchWriter.saveAll(chunk);
+        } else {
+            chunk.forEach(testData -> existenceFilter.add(testData.getId()));
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                    RedisOperations<String, TestData> ops = (RedisOperations<String, TestData>) operations;
+                    for (TestData testData : chunk) {
+                        if (ttlSeconds > 0) {
+                            ops.opsForValue().set(KEY_PREFIX + testData.getId(), testData, ttlSeconds, TimeUnit.SECONDS);
+                        } else {
+                            ops.opsForValue().set(KEY_PREFIX + testData.getId(), testData);
+                        }
+                    }
+                    return null;
+                }
+            });
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void addBatchDetail(List<Map<String, Object>> details, int batch, int records, long writeNanos) {
+        if (details.size() >= MAX_REPORTED_BATCHES) {
+            return;
+        }
+        Map<String, Object> detail = new LinkedHashMap<>();
+        detail.put("batch", batch);
+        detail.put("records", records);
+        detail.put("writeMs", Statistics.round(writeNanos / 1_000_000.0, 3));
+        details.add(detail);
+    }
+
+    private Map<String, Object> summarize(Target target, long records, int batches, long startNanos, long parseNanos,
+                                          long writeNanos, LatencyHistogram batchLatency, List<Map<String, Object>> batchDetails) {
+        long totalNanos = System.nanoTime() - startNanos;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("target", target.name());
+        result.put("records", records);
+        result.put("batches", batches);
+        result.put("chunkSize", chunkSize);
+        result.put("totalMs", Statistics.round(totalNanos / 1_000_000.0, 3));
+        result.put("parseMs", Statistics.round(parseNanos / 1_000_000.0, 3));
+        result.put("writeMs", Statistics.round(writeNanos / 1_000_000.0, 3));
+        result.put("recordsPerSec", Statistics.round(totalNanos > 0 ? records * 1_000_000_000.0 / totalNanos : 0.0, 2));
+        result.put("batchLatency", batchLatency.toSummary());
+        result.put("batchDetails", batchDetails);
+        return result;
+    }
+}
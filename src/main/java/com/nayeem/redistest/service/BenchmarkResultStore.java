@@ -0,0 +1,365 @@
+package com.nayeem.redistest.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nayeem.redistest.benchmark.RunComparison;
+import com.nayeem.redistest.benchmark.RunRecorder;
+import com.nayeem.redistest.benchmark.Statistics;
+import com.nayeem.redistest.model.TestData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Keeps every finished benchmark run as {@code <directory>/<id>.json}: the run's config, the
+ * environment it ran in (JVM, Redis version and mode, PING round trip), its raw results, and one
+ * series per engine or phase with the throughput timeline, per-window samples and the full
+ * latency histogram. Runs can be compared with a baseline: the one marked for their name, or
+ * else the previous run of that name. Each comparison is also written as a markdown report
+ * under {@code <directory>/reports}.
+ *
+ * <p>Saving never fails a run; an unwritable directory is logged and the run goes on.
+ */
+@Component
+@Slf4j
+public class BenchmarkResultStore {
+
+    private static final DateTimeFormatter ID_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9._-]+");
+    private static final String BASELINES_FILE = "baselines.json";
+    private static final String REPORTS_DIRECTORY = "reports";
+
+    private final RedisTemplate<String, TestData> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Path directory;
+    private final int maxRuns;
+    private final int rttSamples;
+    private final RunComparison.Settings comparisonSettings;
+
+    public BenchmarkResultStore(RedisTemplate<String, TestData> redisTemplate, ObjectMapper objectMapper,
+                                @Value("${benchmark.results.enabled:true}") boolean enabled,
+                                @Value("${benchmark.results.directory:bench-results}") String directory,
+                                @Value("${benchmark.results.max-runs:200}") int maxRuns,
+                                @Value("${benchmark.results.rtt-samples:20}") int rttSamples,
+                                @Value("${benchmark.results.regression-threshold-pct:5}") double thresholdPct,
+                                @Value("${benchmark.results.significance:0.05}") double significance) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.maxRuns = Math.max(1, maxRuns);
+        this.rttSamples = Math.max(1, rttSamples);
+        this.comparisonSettings = new RunComparison.Settings(thresholdPct, significance);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public RunComparison.Settings getComparisonSettings() {
+        return comparisonSettings;
+    }
+
+    // A series from a recorder: measured-window rates and p99s, which the comparison tests as batch means
+    public static Map<String, Object> series(RunRecorder recorder) {
+        List<RunRecorder.Window> windows = new ArrayList<>();
+        for (RunRecorder.Window window : recorder.getTimeline()) {
+            if (window.phase() == RunRecorder.Phase.MEASURED) {
+                windows.add(window);
+            }
+        }
+        // A trailing window much shorter than the others (the run ended mid-window) is too noisy to keep
+        List<Double> durations = new ArrayList<>();
+        windows.forEach(window -> durations.add((double) window.durationMs()));
+        Collections.sort(durations);
+        double minDurationMs = durations.isEmpty() ? 0 : durations.get(durations.size() / 2) / 2;
+        List<Double> rates = new ArrayList<>();
+        List<Double> p99s = new ArrayList<>();
+        for (RunRecorder.Window window : windows) {
+            if (window.durationMs() >= minDurationMs && window.ops() > 0) {
+                rates.add(Statistics.round(window.rate(), 2));
+                p99s.add(Statistics.round(window.p99Nanos() / 1000.0, 2));
+            }
+        }
+        Map<String, Object> series = series(recorder.getName(), recorder.getMeasuredRate(), rates, p99s,
+                recorder.getMeasuredLatency().toSummary());
+        series.put("sampleKind", "windows");
+        series.put("ops", recorder.getMeasuredOps());
+        series.put("errors", recorder.getErrors());
+        series.put("timeline", recorder.summary().get("timeline"));
+        series.put("histogramNanos", recorder.getMeasuredLatency().getBuckets());
+        return series;
+    }
+
+    // A series from repeated trials: one rate and one p99 sample per trial
+    public static Map<String, Object> series(String name, double rate, List<Double> rateSamples, List<Double> p99Samples,
+                                             Map<String, Object> latency) {
+        Map<String, Object> series = new LinkedHashMap<>();
+        series.put("name", name);
+        series.put("rate", Statistics.round(rate, 2));
+        series.put("p99Us", latency.get("p99Us"));
+        series.put("latency", latency);
+        series.put("rateSamples", rateSamples);
+        series.put("p99Samples", p99Samples);
+        series.put("sampleKind", "trials");
+        return series;
+    }
+
+    /**
+     * Stores a finished run and returns its id, or null when the store is disabled or the file
+     * could not be written. Results are whatever the service reports; series may be empty.
+     */
+    public String save(String name, Map<String, Object> config, Object results, List<Map<String, Object>> series) {
+        if (!enabled) {
+            return null;
+        }
+        if (series.isEmpty() && (results == null || results instanceof Collection<?> c && c.isEmpty())) {
+            log.debug("Not storing benchmark run {}: it produced no results", name);
+            return null;
+        }
+        try {
+            Map<String, Object> environment = environment();
+            synchronized (this) {
+                Files.createDirectories(directory);
+                String id = newId(name);
+                Map<String, Object> run = new LinkedHashMap<>();
+                run.put("id", id);
+                run.put("name", name);
+                run.put("savedAt", LocalDateTime.now());
+                run.put("environment", environment);
+                run.put("config", config);
+                run.put("results", results);
+                run.put("series", series);
+                objectMapper.writerWithDefaultPrettyPrinter().writeValue(file(id).toFile(), run);
+                prune();
+                log.info("Stored benchmark run {} in {}", id, directory.toAbsolutePath());
+                return id;
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not store benchmark run {}: {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    private String newId(String name) {
+        String base = LocalDateTime.now().format(ID_TIME) + "-" + name.replaceAll("[^A-Za-z0-9._-]", "-");
+        String id = base;
+        for (int i = 2; Files.exists(file(id)); i++) {
+            id = base + "-" + i;
+        }
+        return id;
+    }
+
+    // Newest first, optionally only runs of one name
+    public synchronized List<Map<String, Object>> list(String name) throws IOException {
+        Map<String, String> baselines = baselines();
+        List<Map<String, Object>> runs = new ArrayList<>();
+        for (Path file : runFiles()) {
+            Map<String, Object> run = read(file);
+            if (name != null && !name.equals(run.get("name"))) {
+                continue;
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("id", run.get("id"));
+            entry.put("name", run.get("name"));
+            entry.put("savedAt", run.get("savedAt"));
+            entry.put("baseline", run.get("id").equals(baselines.get(String.valueOf(run.get("name")))));
+            List<Object> series = new ArrayList<>();
+            if (run.get("series") instanceof List<?> list) {
+                list.forEach(s -> series.add(s instanceof Map<?, ?> m ? m.get("name") : null));
+            }
+            entry.put("series", series);
+            runs.add(entry);
+        }
+        return runs;
+    }
+
+    public synchronized Map<String, Object> load(String id) throws IOException {
+        Path file = file(id);
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("No stored benchmark run '" + id + "'");
+        }
+        return read(file);
+    }
+
+    // The run becomes the baseline its later runs of the same name are compared with
+    public synchronized Map<String, Object> markBaseline(String id) throws IOException {
+        String name = String.valueOf(load(id).get("name"));
+        Map<String, String> baselines = baselines();
+        baselines.put(name, id);
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(directory.resolve(BASELINES_FILE).toFile(), baselines);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("name", name);
+        result.put("baseline", id);
+        return result;
+    }
+
+    /**
+     * Baseline for a candidate: the given id, else the run marked as baseline for the candidate's
+     * name, else the latest earlier run of that name. Null when there is none.
+     */
+    public synchronized String resolveBaseline(String candidateId, String baselineId) throws IOException {
+        if (baselineId != null && !baselineId.isBlank()) {
+            return load(baselineId).get("id").toString();
+        }
+        String name = String.valueOf(load(candidateId).get("name"));
+        String marked = baselines().get(name);
+        if (marked != null && !marked.equals(candidateId) && Files.isRegularFile(file(marked))) {
+            return marked;
+        }
+        // Ids start with their timestamp, so the first older id in the newest-first list is the previous run
+        for (Path file : runFiles()) {
+            String id = idOf(file);
+            if (id.compareTo(candidateId) < 0 && name.equals(read(file).get("name"))) {
+                return id;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compares a run with its baseline (see {@link #resolveBaseline}) and writes the markdown
+     * report. Without a baseline the report only describes the candidate.
+     */
+    public Map<String, Object> compare(String candidateId, String baselineId, RunComparison.Settings settings) throws IOException {
+        Map<String, Object> candidate = load(candidateId);
+        String resolved = resolveBaseline(candidateId, baselineId);
+        Map<String, Object> result = new LinkedHashMap<>();
+        Map<String, Object> baseline = null;
+        Map<String, Object> comparison = null;
+        if (resolved != null) {
+            baseline = load(resolved);
+            comparison = RunComparison.compare(baseline, candidate, settings);
+            result.putAll(comparison);
+        } else {
+            result.put("candidate", candidateId);
+            result.put("baseline", null);
+            result.put("verdict", "NO_BASELINE");
+        }
+        String markdown = RunComparison.markdown(candidate, baseline, comparison);
+        Path report = directory.resolve(REPORTS_DIRECTORY)
+                .resolve(resolved != null ? candidateId + "-vs-" + resolved + ".md" : candidateId + ".md");
+        Files.createDirectories(report.getParent());
+        Files.writeString(report, markdown);
+        result.put("reportFile", report.toAbsolutePath().toString());
+        result.put("markdown", markdown);
+        return result;
+    }
+
+    private Map<String, Object> environment() {
+        Map<String, Object> environment = new LinkedHashMap<>();
+        Runtime runtime = Runtime.getRuntime();
+        environment.put("java", System.getProperty("java.vm.vendor") + " " + System.getProperty("java.version"));
+        environment.put("vm", System.getProperty("java.vm.name"));
+        environment.put("os", System.getProperty("os.name") + " " + System.getProperty("os.version") + " " + System.getProperty("os.arch"));
+        environment.put("processors", runtime.availableProcessors());
+        environment.put("maxHeapMb", runtime.maxMemory() / (1024 * 1024));
+        List<String> collectors = new ArrayList<>();
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collectors.add(gc.getName());
+        }
+        environment.put("gc", String.join(", ", collectors));
+        environment.put("jvmArguments", ManagementFactory.getRuntimeMXBean().getInputArguments());
+        try {
+            Properties server = redisTemplate.execute((RedisCallback<Properties>) connection -> connection.serverCommands().info("server"));
+            if (server != null) {
+                environment.put("redisVersion", server.getProperty("redis_version"));
+                environment.put("redisMode", server.getProperty("redis_mode"));
+                environment.put("redisOs", server.getProperty("os"));
+            }
+            environment.putAll(roundTrip());
+        } catch (RuntimeException e) {
+            environment.put("redisError", e.getMessage());
+        }
+        return environment;
+    }
+
+    // PING round trips on the shared connection, after the run so they do not disturb it
+    private Map<String, Object> roundTrip() {
+        List<Double> samples = new ArrayList<>();
+        for (int i = 0; i < rttSamples; i++) {
+            long start = System.nanoTime();
+            redisTemplate.execute((RedisCallback<String>) connection -> connection.ping());
+            samples.add((System.nanoTime() - start) / 1000.0);
+        }
+        Collections.sort(samples);
+        Map<String, Object> rtt = new LinkedHashMap<>();
+        rtt.put("rttMinUs", Statistics.round(samples.get(0), 1));
+        rtt.put("rttMedianUs", Statistics.round(samples.get(samples.size() / 2), 1));
+        rtt.put("rttMaxUs", Statistics.round(samples.get(samples.size() - 1), 1));
+        return rtt;
+    }
+
+    // Drops the oldest runs beyond maxRuns, except marked baselines
+    private void prune() throws IOException {
+        List<Path> files = runFiles();
+        if (files.size() <= maxRuns) {
+            return;
+        }
+        Map<String, String> baselines = baselines();
+        for (Path file : files.subList(maxRuns, files.size())) {
+            if (!baselines.containsValue(idOf(file))) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    // Stored run files, newest first
+    private List<Path> runFiles() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".json"))
+                    .filter(file -> !file.getFileName().toString().equals(BASELINES_FILE))
+                    .sorted(Comparator.comparing((Path file) -> file.getFileName().toString()).reversed())
+                    .toList();
+        }
+    }
+
+    private Map<String, String> baselines() throws IOException {
+        Path file = directory.resolve(BASELINES_FILE);
+        if (!Files.isRegularFile(file)) {
+            return new LinkedHashMap<>();
+        }
+        return objectMapper.readValue(file.toFile(), new TypeReference<LinkedHashMap<String, String>>() { });
+    }
+
+    private Map<String, Object> read(Path file) throws IOException {
+        return objectMapper.readValue(file.toFile(), new TypeReference<LinkedHashMap<String, Object>>() { });
+    }
+
+    private Path file(String id) {
+        if (id == null || !VALID_ID.matcher(id).matches()) {
+            throw new IllegalArgumentException("Invalid run id '" + id + "'");
+        }
+        return directory.resolve(id + ".json");
+    }
+
+    private static String idOf(Path file) {
+        String name = file.getFileName().toString();
+        return name.substring(0, name.length() - ".json".length());
+    }
+}
@@ -0,0 +1,123 @@
+package com.nayeem.redistest.service;
+
+import com.nayeem.redistest.benchmark.BenchmarkRunScheduler;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Run lifecycle and status of a phase-by-phase benchmark suite. Each suite runs at most once at a
+ * time, keeps the config and results of its latest run, and reports the phase it is in. When the
+ * body ends, whether it finished, was stopped or failed, the run is closed; once its close work
+ * is done the results are saved to the {@link BenchmarkResultStore} and the suite is idle again.
+ */
+@Slf4j
+public final class BenchmarkSuite {
+
+    /** The work of one run; an exception ends the run and is reported in the status. */
+    public interface Body {
+        void run(BenchmarkRunScheduler.Run run) throws Exception;
+    }
+
+    private final String runName;
+    private final String label;
+    private final BenchmarkRunScheduler runScheduler;
+    private final BenchmarkResultStore resultStore;
+
+    private final AtomicBoolean testRunning = new AtomicBoolean(false);
+    private final List<Map<String, Object>> results = new ArrayList<>();
+    private volatile Map<String, Object> config = Map.of();
+    private volatile String currentPhase = "idle";
+    private volatile String failure;
+
+    /**
+     * @param runName scheduler run name, also the name results are saved under
+     * @param label   name used in log messages, e.g. "Streaming benchmark"
+     */
+    public BenchmarkSuite(String runName, String label, BenchmarkRunScheduler runScheduler,
+                          BenchmarkResultStore resultStore) {
+        this.runName = runName;
+        this.label = label;
+        this.runScheduler = runScheduler;
+        this.resultStore = resultStore;
+    }
+
+    /**
+     * Starts a run with the given config. Returns false while another run of this suite is in
+     * progress, and throws {@link RejectedExecutionException} when the scheduler has no free slot.
+     */
+    public boolean launch(Map<String, Object> runConfig, Body body) {
+        if (!testRunning.compareAndSet(false, true)) {
+            log.warn("{} is already running!", label);
+            return false;
+        }
+        config = runConfig;
+        synchronized (results) {
+            results.clear();
+        }
+        failure = null;
+
+        try {
+            runScheduler.launch(runName, 0, run -> {
+                try {
+                    body.run(run);
+                } catch (Exception e) {
+                    log.error("{} failed", label, e);
+                    failure = e.getMessage();
+                } finally {
+                    // Saved once the run's close work is done, so its server stats and profile are final
+                    run.closeAsync().whenComplete((result, error) -> {
+                        resultStore.save(run.getName(), config, results, List.of());
+                        currentPhase = "idle";
+                        testRunning.set(false);
+                    });
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            testRunning.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    public void phase(String phase) {
+        currentPhase = phase;
+    }
+
+    public void addResult(Map<String, Object> result) {
+        synchronized (results) {
+            results.add(result);
+        }
+    }
+
+    // Changes results already added, e.g. to relate each of them to a baseline measured later
+    public void updateResults(Consumer<Map<String, Object>> update) {
+        synchronized (results) {
+            results.forEach(update);
+        }
+    }
+
+    public boolean isRunning() {
+        return testRunning.get();
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("testRunning", testRunning.get());
+        status.put("phase", currentPhase);
+        status.put("config", config);
+        if (failure != null) {
+            status.put("failure", failure);
+        }
+        synchronized (results) {
+            status.put("results", new ArrayList<>(results));
+        }
+        return status;
+    }
+}
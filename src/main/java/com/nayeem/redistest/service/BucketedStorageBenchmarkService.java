@@ -0,0 +1,421 @@
+package com.nayeem.redistest.service;
+
+import com.nayeem.redistest.benchmark.BenchmarkRunScheduler;
+import com.nayeem.redistest.benchmark.LatencyHistogram;
+import com.nayeem.redistest.benchmark.Statistics;
+import com.nayeem.redistest.benchmark.WorkerGroup;
+import com.nayeem.redistest.model.TestData;
+import io.lettuce.core.api.async.RedisServerAsyncCommands;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ValueEncoding;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Memory and latency of one string key per record (as RedisService and PerformanceTestService
+ * store TestData, with a one hour TTL each) against {@link BucketedTestDataStore} at several
+ * bucket sizes. Each phase loads the same records, then reports the used_memory delta per
+ * record, MEMORY USAGE of sampled keys scaled to the whole dataset, the encoding of a sampled
+ * key, and the throughput and latency of random single-record GETs and SETs.
+ *
+ * <p>Bucketed phases raise hash-max-listpack-entries and hash-max-listpack-value for the run
+ * whatever redis.bucketed.configure-encoding says, since the comparison is meaningless once
+ * buckets fall back to hashtables. The limits found at the start are restored when the run ends,
+ * and a bucketed phase whose sampled key is still not a listpack is flagged in its result.
+ */
+@Service
+@Slf4j
+public class BucketedStorageBenchmarkService {
+
+    private static final String KEY_PREFIX = "bench:kpr:";
+    private static final String BUCKET_PREFIX = "bench:bucket:";
+    private static final String ID_PREFIX = "bucket-bench-";
+    private static final int LOAD_BATCH = 1000;
+    private static final int MEMORY_SAMPLE = 100;
+    private static final long KEY_TTL_SECONDS = 3600;
+
+    private final RedisTemplate<String, TestData> redisTemplate;
+    private final BucketedTestDataStore.Settings bucketedStorageSettings;
+    private final BenchmarkRunScheduler runScheduler;
+
+    private final BenchmarkSuite suite;
+
+    public BucketedStorageBenchmarkService(RedisTemplate<String, TestData> redisTemplate,
+                                           BucketedTestDataStore.Settings bucketedStorageSettings,
+                                           BenchmarkRunScheduler runScheduler,
+                                           BenchmarkResultStore resultStore) {
+        this.redisTemplate = redisTemplate;
+        this.bucketedStorageSettings = bucketedStorageSettings;
+        this.runScheduler = runScheduler;
+        this.suite = new BenchmarkSuite("bucketed-storage-benchmark", "Bucketed storage benchmark", runScheduler, resultStore);
+    }
+
+    // One storage layout under test: load, read, write and the keys it created
+    private interface Layout {
+        void load(List<TestData> records);
+
+        TestData get(String id);
+
+        void set(TestData record);
+
+        List<String> keys();
+
+        // Records per key, to scale sampled MEMORY USAGE to the whole dataset
+        double recordsPerKey();
+    }
+
+    public boolean startBenchmark(int records, List<Integer> bucketSizes, int operations, int threads) {
+        runScheduler.requireWorkers(threads);
+        Map<String, Object> runConfig = new LinkedHashMap<>();
+        runConfig.put("records", records);
+        runConfig.put("bucketSizes", bucketSizes);
+        runConfig.put("operations", operations);
+        runConfig.put("threads", threads);
+        runConfig.put("ttlSeconds", bucketedStorageSettings.ttlSeconds());
+
+        return suite.launch(runConfig, run -> {
+            Map<String, Object> originalLimits = encodingLimits();
+            try {
+                List<TestData> data = new ArrayList<>(records);
+                for (int i = 0; i < records; i++) {
+                    data.add(new TestData(ID_PREFIX + i, "Performance Test Data " + i,
+                            "Bucketed storage benchmark record " + i, LocalDateTime.now(), i));
+                }
+                Double keyPerRecordBytes = null;
+                boolean warmedUp = false;
+                List<String> layouts = new ArrayList<>();
+                layouts.add("KEY_PER_RECORD");
+                bucketSizes.forEach(size -> layouts.add("BUCKETED_" + size));
+                for (int p = 0; p < layouts.size() && run.isActive(); p++) {
+                    String name = layouts.get(p);
+                    Layout layout = p == 0 ? keyPerRecord(data) : bucketed(bucketSizes.get(p - 1), records);
+                    try {
+                        if (!warmedUp) {
+                            // Unrecorded pass so the first phase is not measured on a cold JIT
+                            suite.phase("warmup");
+                            layout.load(data);
+                            measure(run, layout, data, Math.min(operations, 10_000), threads, true);
+                            measure(run, layout, data, Math.min(operations, 10_000), threads, false);
+                            delete(layout.keys());
+                            warmedUp = true;
+                        }
+                        suite.phase(name);
+                        Map<String, Object> result = runPhase(run, name, layout, data, operations, threads);
+                        result.put("encodingLimits", encodingLimits());
+                        Double bytesPerRecord = (Double) result.get("sampledBytesPerRecord");
+                        if (p == 0) {
+                            keyPerRecordBytes = bytesPerRecord;
+                        } else if (keyPerRecordBytes != null && bytesPerRecord != null && bytesPerRecord > 0) {
+                            result.put("memorySavingVsKeyPerRecord", Statistics.round(1.0 - bytesPerRecord / keyPerRecordBytes, 4));
+                        }
+                        addResult(result);
+                    } finally {
+                        delete(layout.keys());
+                    }
+                }
+            } finally {
+                restoreEncodingLimits(originalLimits);
+            }
+        });
+    }
+
+    private Map<String, Object> runPhase(BenchmarkRunScheduler.Run run, String name, Layout layout, List<TestData> data, int operations, int threads)
+            throws InterruptedException {
+        Long memoryBefore = usedMemory();
+        long loadStart = System.nanoTime();
+        layout.load(data);
+        long loadNanos = System.nanoTime() - loadStart;
+        Long memoryAfter = usedMemory();
+        List<String> keys = layout.keys();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("layout", name);
+        result.put("records", data.size());
+        result.put("keys", keys.size());
+        result.put("loadMs", loadNanos / 1_000_000);
+        Long memoryDelta = memoryBefore != null && memoryAfter != null ? memoryAfter - memoryBefore : null;
+        result.put("usedMemoryDelta", memoryDelta);
+        result.put("usedMemoryPerRecord", memoryDelta != null ? Statistics.round((double) memoryDelta / data.size(), 1) : null);
+        result.put("sampledBytesPerRecord", sampledBytesPerRecord(keys, layout.recordsPerKey()));
+        String encoding = encoding(keys.get(ThreadLocalRandom.current().nextInt(keys.size())));
+        result.put("sampleEncoding", encoding);
+        if (layout.recordsPerKey() > 1 && encoding != null) {
+            // Redis before 7.0 calls the compact encoding ziplist
+            boolean compact = encoding.equals("listpack") || encoding.equals("ziplist");
+            result.put("listpackEncoded", compact);
+            if (!compact) {
+                log.warn("{} buckets are {}-encoded; raise hash-max-listpack-entries/value for a fair comparison",
+                        name, encoding);
+            }
+        }
+        result.put("get", measure(run, layout, data, operations, threads, true));
+        result.put("set", measure(run, layout, data, operations, threads, false));
+        return result;
+    }
+
+    private Layout keyPerRecord(List<TestData> data) {
+        RedisSerializer<TestData> serializer = valueSerializer();
+        return new Layout() {
+            @Override
+            public void load(List<TestData> records) {
+                for (int from = 0; from < records.size(); from += LOAD_BATCH) {
+                    List<TestData> batch = records.subList(from, Math.min(records.size(), from + LOAD_BATCH));
+                    redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                        for (TestData record : batch) {
+                            set(connection, record);
+                        }
+                        return null;
+                    });
+                }
+            }
+
+            @Override
+            public TestData get(String id) {
+                byte[] value = redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands().get(bytes(KEY_PREFIX + id)));
+                return value != null ? serializer.deserialize(value) : null;
+            }
+
+            @Override
+            public void set(TestData record) {
+                redisTemplate.execute((RedisCallback<Object>) connection -> {
+                    set(connection, record);
+                    return null;
+                });
+            }
+
+            // SET with EX, as RedisService.saveTestData stores a record
+            private void set(RedisConnection connection, TestData record) {
+                connection.stringCommands().set(bytes(KEY_PREFIX + record.getId()), serializer.serialize(record),
+                        Expiration.seconds(KEY_TTL_SECONDS), RedisStringCommands.SetOption.upsert());
+            }
+
+            @Override
+            public List<String> keys() {
+                return data.stream().map(record -> KEY_PREFIX + record.getId()).toList();
+            }
+
+            @Override
+            public double recordsPerKey() {
+                return 1.0;
+            }
+        };
+    }
+
+    private Layout bucketed(int bucketSize, int records) {
+        BucketedTestDataStore.Settings settings = new BucketedTestDataStore.Settings(bucketSize, records,
+                bucketedStorageSettings.ttlSeconds(), bucketedStorageSettings.configureEncoding(),
+                bucketedStorageSettings.listpackValueBytes());
+        BucketedTestDataStore store = new BucketedTestDataStore(redisTemplate, settings, BUCKET_PREFIX + bucketSize + ":");
+        try {
+            store.configureEncoding();
+        } catch (RuntimeException e) {
+            log.warn("Could not raise the listpack limits for bucket size {}: {}", bucketSize, e.getMessage());
+        }
+        return new Layout() {
+            @Override
+            public void load(List<TestData> data) {
+                store.saveAll(data);
+            }
+
+            @Override
+            public TestData get(String id) {
+                return store.getTestData(id);
+            }
+
+            @Override
+            public void set(TestData record) {
+                store.saveTestData(record);
+            }
+
+            @Override
+            public List<String> keys() {
+                return store.bucketKeys();
+            }
+
+            @Override
+            public double recordsPerKey() {
+                return (double) records / store.getBucketCount();
+            }
+        };
+    }
+
+    private Map<String, Object> measure(BenchmarkRunScheduler.Run run, Layout layout, List<TestData> data, int operations,
+                                        int threads, boolean reads) throws InterruptedException {
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder completed = new LongAdder();
+        LongAdder misses = new LongAdder();
+        int perThread = operations / threads;
+        long start = System.nanoTime();
+        try (WorkerGroup workers = new WorkerGroup(run, "bucketed " + (reads ? "get" : "set"))) {
+            for (int t = 0; t < threads; t++) {
+                int count = t == threads - 1 ? operations - perThread * (threads - 1) : perThread;
+                workers.start(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < count && workers.isRunning(); i++) {
+                        TestData record = data.get(random.nextInt(data.size()));
+                        long opStart = System.nanoTime();
+                        if (reads) {
+                            if (layout.get(record.getId()) == null) {
+                                misses.increment();
+                            }
+                        } else {
+                            layout.set(new TestData(record.getId(), record.getName(), record.getDescription(),
+                                    LocalDateTime.now(), record.getValue()));
+                        }
+                        latency.record(System.nanoTime() - opStart);
+                        completed.increment();
+                    }
+                });
+            }
+            workers.await();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // A stopped run ends the workers early, so rates come from the operations actually completed
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("operations", completed.sum());
+        if (reads) {
+            result.put("misses", misses.sum());
+        }
+        result.put("throughput", Statistics.round(completed.sum() * 1_000_000_000.0 / elapsed, 2));
+        result.put("latency", latency.toSummary());
+        return result;
+    }
+
+    // Mean MEMORY USAGE of up to MEMORY_SAMPLE random keys, divided by the records each key holds
+    private Double sampledBytesPerRecord(List<String> keys, double recordsPerKey) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long total = 0;
+        int sampled = 0;
+        for (int i = 0; i < Math.min(MEMORY_SAMPLE, keys.size()); i++) {
+            Long usage = memoryUsage(bytes(keys.get(random.nextInt(keys.size()))));
+            if (usage == null) {
+                return null;
+            }
+            total += usage;
+            sampled++;
+        }
+        return sampled > 0 ? Statistics.round((double) total / sampled / recordsPerKey, 1) : null;
+    }
+
+    // Spring's generic execute() drops MEMORY USAGE's integer reply; see DataStructureBenchmarkService
+    @SuppressWarnings("unchecked")
+    private Long memoryUsage(byte[] key) {
+        try {
+            return redisTemplate.execute((RedisCallback<Long>) connection -> {
+                if (!(connection.getNativeConnection() instanceof RedisServerAsyncCommands<?, ?> commands)) {
+                    return null;
+                }
+                try {
+                    return ((RedisServerAsyncCommands<byte[], byte[]>) commands).memoryUsage(key).get(5, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    log.debug("MEMORY USAGE unavailable: {}", e.getMessage());
+                    return null;
+                }
+            });
+        } catch (RuntimeException e) {
+            log.debug("MEMORY USAGE unavailable: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // OBJECT ENCODING, e.g. "listpack" or "hashtable"; null where the server does not support it
+    private String encoding(String key) {
+        try {
+            ValueEncoding encoding = redisTemplate.execute((RedisCallback<ValueEncoding>) connection ->
+                    connection.keyCommands().encodingOf(bytes(key)));
+            return encoding != null && encoding.raw() != null ? encoding.raw() : null;
+        } catch (RuntimeException e) {
+            log.debug("OBJECT ENCODING unavailable: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private Map<String, Object> encodingLimits() {
+        Map<String, Object> limits = new LinkedHashMap<>();
+        try {
+            Properties config = redisTemplate.execute((RedisCallback<Properties>) connection ->
+                    connection.serverCommands().getConfig("hash-max-listpack-*"));
+            if (config != null) {
+                config.stringPropertyNames().forEach(name -> limits.put(name, config.getProperty(name)));
+            }
+        } catch (RuntimeException e) {
+            log.debug("CONFIG GET unavailable: {}", e.getMessage());
+        }
+        return limits;
+    }
+
+    // Puts back the limits read at the start of the run; a server without CONFIG GET reported none
+    private void restoreEncodingLimits(Map<String, Object> limits) {
+        try {
+            redisTemplate.execute((RedisCallback<Object>) connection -> {
+                limits.forEach((name, value) -> connection.serverCommands().setConfig(name, String.valueOf(value)));
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not restore {}: {}", limits, e.getMessage());
+        }
+    }
+
+    private Long usedMemory() {
+        try {
+            Properties info = redisTemplate.execute((RedisCallback<Properties>) connection -> connection.serverCommands().info("memory"));
+            String value = info != null ? info.getProperty("used_memory") : null;
+            return value != null ? Long.parseLong(value) : null;
+        } catch (RuntimeException e) {
+            log.debug("INFO memory unavailable: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void delete(List<String> keys) {
+        try {
+            for (int from = 0; from < keys.size(); from += LOAD_BATCH) {
+                byte[][] batch = keys.subList(from, Math.min(keys.size(), from + LOAD_BATCH)).stream()
+                        .map(BucketedStorageBenchmarkService::bytes).toArray(byte[][]::new);
+                redisTemplate.execute((RedisCallback<Long>) connection -> connection.keyCommands().unlink(batch));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Bucketed storage benchmark cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisSerializer<TestData> valueSerializer() {
+        return (RedisSerializer<TestData>) redisTemplate.getValueSerializer();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void addResult(Map<String, Object> result) {
+        suite.addResult(result);
+        log.info("Bucketed storage benchmark {}: {} bytes per record (sampled), encoding {}", result.get("layout"),
+                result.get("sampledBytesPerRecord"), result.get("sampleEncoding"));
+    }
+
+    public boolean isTestRunning() {
+        return suite.isRunning();
+    }
+
+    public Map<String, Object> getStatus() {
+        return suite.getStatus();
+    }
+}
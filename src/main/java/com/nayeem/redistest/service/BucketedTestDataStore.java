@@ -0,0 +1,210 @@
+package com.nayeem.redistest.service;
+
+import com.nayeem.redistest.model.TestData;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * TestData packed into hash buckets instead of one string key per record. A record lives in
+ * field {@code id} of {@code <prefix><bucket>}, where the bucket is the id's hash modulo
+ * expectedRecords / bucketSize. Buckets hold about bucketSize records each. As long as that stays
+ * under hash-max-listpack-entries and every JSON value under hash-max-listpack-value, Redis keeps
+ * each bucket in its compact listpack encoding. Millions of small records then cost far less than
+ * a key, a dict entry and an expiry entry each.
+ *
+ * <p>Expiry is per bucket: every write refreshes the bucket's TTL, so a record lives at least
+ * ttlSeconds after its own write and at most that long after the bucket's last write. The
+ * get/set/delete methods mirror {@link RedisService}.
+ */
+@Slf4j
+public class BucketedTestDataStore {
+
+    public record Settings(int bucketSize, long expectedRecords, long ttlSeconds, boolean configureEncoding,
+                           int listpackValueBytes) {
+
+        public long bucketCount() {
+            return Math.max(1, (expectedRecords + bucketSize - 1) / bucketSize);
+        }
+    }
+
+    private static final int SAVE_BATCH = 1000;
+    private static final long COMMAND_TIMEOUT_SECONDS = 10;
+
+    private final RedisTemplate<String, TestData> redisTemplate;
+    private final Settings settings;
+    private final String keyPrefix;
+    private final long bucketCount;
+
+    public BucketedTestDataStore(RedisTemplate<String, TestData> redisTemplate, Settings settings, String keyPrefix) {
+        if (settings.bucketSize() < 1) {
+            throw new IllegalArgumentException("Bucket size must be positive");
+        }
+        this.redisTemplate = redisTemplate;
+        this.settings = settings;
+        this.keyPrefix = keyPrefix;
+        this.bucketCount = settings.bucketCount();
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    public long getBucketCount() {
+        return bucketCount;
+    }
+
+    public String bucketKey(String id) {
+        return keyPrefix + Math.floorMod(ConsistentHashRing.hash(id), bucketCount);
+    }
+
+    public List<String> bucketKeys() {
+        List<String> keys = new ArrayList<>();
+        for (long bucket = 0; bucket < bucketCount; bucket++) {
+            keys.add(keyPrefix + bucket);
+        }
+        return keys;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void saveTestData(TestData testData) {
+        testData.setCreatedAt(LocalDateTime.now());
+        byte[] rawKey = bytes(bucketKey(testData.getId()));
+        byte[] field = bytes(testData.getId());
+        byte[] value = serialize(testData);
+        if (settings.ttlSeconds() <= 0) {
+            redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.hashCommands().hSet(rawKey, field, value));
+            return;
+        }
+        // HSET and EXPIRE sent back to back on the shared connection: one round trip without
+        // executePipelined, which would open a dedicated connection for every call
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            if (!(connection.getNativeConnection() instanceof RedisAsyncCommands<?, ?> async)) {
+                connection.hashCommands().hSet(rawKey, field, value);
+                expire(connection, rawKey);
+                return null;
+            }
+            RedisAsyncCommands<byte[], byte[]> commands = (RedisAsyncCommands<byte[], byte[]>) async;
+            RedisFuture<Boolean> hset = commands.hset(rawKey, field, value);
+            RedisFuture<Boolean> expire = commands.expire(rawKey, settings.ttlSeconds());
+            await(hset);
+            await(expire);
+            return null;
+        });
+    }
+
+    // Groups each batch by bucket: one HMSET and one EXPIRE per bucket, pipelined
+    public void saveAll(List<TestData> records) {
+        for (int from = 0; from < records.size(); from += SAVE_BATCH) {
+            Map<String, Map<byte[], byte[]>> buckets = new LinkedHashMap<>();
+            for (TestData testData : records.subList(from, Math.min(records.size(), from + SAVE_BATCH))) {
+                buckets.computeIfAbsent(bucketKey(testData.getId()), key -> new LinkedHashMap<>())
+                        .put(bytes(testData.getId()), serialize(testData));
+            }
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Map.Entry<String, Map<byte[], byte[]>> bucket : buckets.entrySet()) {
+                    byte[] rawKey = bytes(bucket.getKey());
+                    connection.hashCommands().hMSet(rawKey, bucket.getValue());
+                    expire(connection, rawKey);
+                }
+                return null;
+            });
+        }
+    }
+
+    public TestData getTestData(String id) {
+        byte[] value = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.hashCommands().hGet(bytes(bucketKey(id)), bytes(id)));
+        return value != null ? deserialize(value) : null;
+    }
+
+    // One HGET per id, pipelined; the result has one entry per id, null for missing ids
+    public List<TestData> getTestDataBatch(List<String> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Object> values = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String id : ids) {
+                connection.hashCommands().hGet(bytes(bucketKey(id)), bytes(id));
+            }
+            return null;
+        }, RedisSerializer.byteArray());
+        List<TestData> result = new ArrayList<>(ids.size());
+        for (Object value : values) {
+            result.add(value instanceof byte[] raw ? deserialize(raw) : null);
+        }
+        return result;
+    }
+
+    public boolean deleteTestData(String id) {
+        Long removed = redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.hashCommands().hDel(bytes(bucketKey(id)), bytes(id)));
+        return removed != null && removed > 0;
+    }
+
+    public boolean existsTestData(String id) {
+        return Boolean.TRUE.equals(redisTemplate.execute((RedisCallback<Boolean>) connection ->
+                connection.hashCommands().hExists(bytes(bucketKey(id)), bytes(id))));
+    }
+
+    /**
+     * Raises hash-max-listpack-entries and hash-max-listpack-value so full buckets of TestData
+     * JSON stay listpacks. Both are server-wide settings and only affect hashes written later.
+     */
+    public void configureEncoding() {
+        String entries = Integer.toString(Math.max(128, settings.bucketSize() * 2));
+        String value = Integer.toString(settings.listpackValueBytes());
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().setConfig("hash-max-listpack-entries", entries);
+            connection.serverCommands().setConfig("hash-max-listpack-value", value);
+            return null;
+        });
+        log.info("Set hash-max-listpack-entries={} and hash-max-listpack-value={}", entries, value);
+    }
+
+    private void expire(RedisConnection connection, byte[] rawKey) {
+        if (settings.ttlSeconds() > 0) {
+            connection.keyCommands().expire(rawKey, settings.ttlSeconds());
+        }
+    }
+
+    private static <T> T await(RedisFuture<T> future) {
+        try {
+            return future.get(COMMAND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during bucket write", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Bucket write failed: " + e.getMessage(), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] serialize(TestData value) {
+        return ((RedisSerializer<TestData>) redisTemplate.getHashValueSerializer()).serialize(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private TestData deserialize(byte[] value) {
+        return ((RedisSerializer<TestData>) redisTemplate.getHashValueSerializer()).deserialize(value);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,53 @@
+package com.nayeem.redistest.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Client-side sharding over independent Redis nodes. Each node owns virtualNodes points on a
+ * 64-bit ring and a key goes to the first point at or after the hash of its routing key (see
+ * {@link HashTags#routingKey}). Adding a node moves only the keys that fall just before its
+ * points, about 1/N of them, instead of rehashing everything as modulo sharding would.
+ */
+public final class ConsistentHashRing<T> {
+
+    private final NavigableMap<Long, T> points = new TreeMap<>();
+    private final List<T> nodes;
+
+    public ConsistentHashRing(List<T> nodes, Function<T, String> name, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("A ring needs at least one node");
+        }
+        this.nodes = List.copyOf(nodes);
+        for (T node : nodes) {
+            for (int i = 0; i < Math.max(1, virtualNodes); i++) {
+                points.put(hash(name.apply(node) + "#" + i), node);
+            }
+        }
+    }
+
+    public T nodeFor(String key) {
+        Map.Entry<Long, T> point = points.ceilingEntry(hash(HashTags.routingKey(key)));
+        return point != null ? point.getValue() : points.firstEntry().getValue();
+    }
+
+    public List<T> getNodes() {
+        return nodes;
+    }
+
+    // FNV-1a over the UTF-8 bytes, then the SplitMix64 finalizer so nearby names spread over the ring
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+}
@@ -0,0 +1,312 @@
+package com.nayeem.redistest.service;
+
+import com.nayeem.redistest.benchmark.BenchmarkRunScheduler;
+import com.nayeem.redistest.benchmark.LatencyHistogram;
+import com.nayeem.redistest.benchmark.Statistics;
+import com.nayeem.redistest.benchmark.WorkerGroup;
+import com.nayeem.redistest.model.TestData;
+import io.lettuce.core.api.async.RedisServerAsyncCommands;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.connection.zset.DefaultTuple;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Benchmarks the Redis data structures behind leaderboards, queues, counters and membership
+ * checks at a range of cardinalities. Members are TestData ids ("testdata-N") and scores, counter
+ * fields and list items derive from TestData.value, so each key looks like production data:
+ * <ul>
+ *   <li>ZSET: a leaderboard scored by value; ZADD score updates, ZRANGEBYSCORE windows, top-10 ZREVRANGE</li>
+ *   <li>LIST: a queue of ids; LPUSH and RPOP, plus an LRANGE of the 100 newest items</li>
+ *   <li>HASH: HINCRBY counters with one field per value; HINCRBY and HGET</li>
+ *   <li>SET: a set of ids; SADD and SISMEMBER</li>
+ * </ul>
+ *
+ * <p>Each key is filled to the target cardinality with pipelined variadic commands before
+ * measuring. Memory is reported both as the used_memory delta from INFO and as MEMORY USAGE of
+ * the key. The key is deleted afterwards.
+ */
+@Service
+@Slf4j
+public class DataStructureBenchmarkService {
+
+    public enum Family {
+        ZSET, LIST, HASH, SET
+    }
+
+    private static final String KEY_PREFIX = "bench:ds:";
+    private static final int FILL_BATCH = 1000;
+    private static final int FILL_PIPELINE = 10;
+    private static final int RANGE_WINDOW = 100;
+
+    private final RedisTemplate<String, TestData> redisTemplate;
+    private final BenchmarkRunScheduler runScheduler;
+
+    private final BenchmarkSuite suite;
+
+    public DataStructureBenchmarkService(RedisTemplate<String, TestData> redisTemplate,
+                                         BenchmarkRunScheduler runScheduler,
+                                         BenchmarkResultStore resultStore) {
+        this.redisTemplate = redisTemplate;
+        this.runScheduler = runScheduler;
+        this.suite = new BenchmarkSuite("data-structure-benchmark", "Data structure benchmark", runScheduler, resultStore);
+    }
+
+    public boolean startBenchmark(List<Family> families, List<Integer> cardinalities, int operations, int threads) {
+        runScheduler.requireWorkers(threads);
+        Map<String, Object> runConfig = new LinkedHashMap<>();
+        runConfig.put("families", families);
+        runConfig.put("cardinalities", cardinalities);
+        runConfig.put("operations", operations);
+        runConfig.put("threads", threads);
+
+        return suite.launch(runConfig, run -> {
+            for (Family family : families) {
+                for (int cardinality : cardinalities) {
+                    if (!run.isActive()) {
+                        return;
+                    }
+                    suite.phase(family + " x " + cardinality);
+                    addResult(runFamily(run, family, cardinality, operations, threads));
+                }
+            }
+        });
+    }
+
+    private Map<String, Object> runFamily(BenchmarkRunScheduler.Run run, Family family, int cardinality, int operations,
+                                          int threads) throws InterruptedException {
+        byte[] key = bytes(KEY_PREFIX + family.name().toLowerCase(Locale.ROOT));
+        delete(key);
+        Long memoryBefore = usedMemory();
+
+        long fillStart = System.nanoTime();
+        fill(family, key, cardinality);
+        long fillNanos = System.nanoTime() - fillStart;
+
+        Long memoryAfter = usedMemory();
+        Long keyMemory = memoryUsage(key);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("family", family.name());
+        result.put("cardinality", cardinality);
+        result.put("fillMs", fillNanos / 1_000_000);
+        result.put("fillRate", Statistics.round(cardinality * 1_000_000_000.0 / fillNanos, 2));
+        result.put("usedMemoryDelta", memoryBefore != null && memoryAfter != null ? memoryAfter - memoryBefore : null);
+        result.put("memoryUsage", keyMemory);
+        result.put("bytesPerMember", keyMemory != null ? Statistics.round((double) keyMemory / cardinality, 1) : null);
+
+        List<Map<String, Object>> operationResults = new ArrayList<>();
+        try {
+            for (Map.Entry<String, Operation> op : operationsFor(family, key, cardinality).entrySet()) {
+                operationResults.add(measure(run, op.getKey(), op.getValue(), operations, threads));
+            }
+        } finally {
+            delete(key);
+        }
+        result.put("operations", operationResults);
+        return result;
+    }
+
+    private interface Operation {
+        void run(RedisConnection connection, ThreadLocalRandom random);
+    }
+
+    private Map<String, Operation> operationsFor(Family family, byte[] key, int cardinality) {
+        Map<String, Operation> ops = new LinkedHashMap<>();
+        switch (family) {
+            case ZSET -> {
+                // Score updates on existing members keep the cardinality fixed
+                ops.put("ZADD", (c, r) -> c.zSetCommands().zAdd(key, r.nextInt(cardinality), member(r.nextInt(cardinality))));
+                ops.put("ZRANGEBYSCORE", (c, r) -> {
+                    int from = r.nextInt(cardinality);
+                    c.zSetCommands().zRangeByScore(key, Range.closed((double) from, (double) cardinality),
+                            Limit.limit().count(RANGE_WINDOW));
+                });
+                ops.put("ZREVRANGE_TOP10", (c, r) -> c.zSetCommands().zRevRange(key, 0, 9));
+            }
+            case LIST -> {
+                // Each LPUSH is matched by an RPOP, so the queue length stays near the cardinality
+                ops.put("LPUSH", (c, r) -> c.listCommands().lPush(key, member(r.nextInt(cardinality))));
+                ops.put("RPOP", (c, r) -> c.listCommands().rPop(key));
+                ops.put("LRANGE_100", (c, r) -> c.listCommands().lRange(key, 0, RANGE_WINDOW - 1));
+            }
+            case HASH -> {
+                ops.put("HINCRBY", (c, r) -> c.hashCommands().hIncrBy(key, bytes(Integer.toString(r.nextInt(cardinality))), 1));
+                ops.put("HGET", (c, r) -> c.hashCommands().hGet(key, bytes(Integer.toString(r.nextInt(cardinality)))));
+            }
+            case SET -> {
+                // Half of the SADDs hit existing members, half add new ones
+                ops.put("SADD", (c, r) -> c.setCommands().sAdd(key, member(r.nextInt(cardinality * 2))));
+                ops.put("SISMEMBER", (c, r) -> c.setCommands().sIsMember(key, member(r.nextInt(cardinality * 2))));
+            }
+        }
+        return ops;
+    }
+
+    private Map<String, Object> measure(BenchmarkRunScheduler.Run run, String name, Operation operation, int operations,
+                                        int threads) throws InterruptedException {
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder completed = new LongAdder();
+        LongAdder errors = new LongAdder();
+        int perThread = operations / threads;
+        long start = System.nanoTime();
+        try (WorkerGroup workers = new WorkerGroup(run, "data structure " + name)) {
+            for (int t = 0; t < threads; t++) {
+                int count = t == threads - 1 ? operations - perThread * (threads - 1) : perThread;
+                workers.start(() -> redisTemplate.execute((RedisCallback<Object>) connection -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < count && workers.isRunning(); i++) {
+                        long opStart = System.nanoTime();
+                        try {
+                            operation.run(connection, random);
+                            latency.record(System.nanoTime() - opStart);
+                            completed.increment();
+                        } catch (RuntimeException e) {
+                            errors.increment();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            // A worker whose connection could not be obtained fails the phase here
+            workers.await();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // A stopped run ends the workers early, so the rate counts only operations that succeeded
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("operation", name);
+        result.put("operations", completed.sum() + errors.sum());
+        result.put("errors", errors.sum());
+        result.put("throughput", Statistics.round(completed.sum() * 1_000_000_000.0 / elapsed, 2));
+        result.put("latency", latency.toSummary());
+        return result;
+    }
+
+    // Fills the key with pipelined variadic commands of FILL_BATCH members each
+    private void fill(Family family, byte[] key, int cardinality) {
+        for (int from = 0; from < cardinality; from += FILL_BATCH * FILL_PIPELINE) {
+            int pipelineStart = from;
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                int pipelineEnd = (int) Math.min(cardinality, (long) pipelineStart + FILL_BATCH * FILL_PIPELINE);
+                for (int batchStart = pipelineStart; batchStart < pipelineEnd; batchStart += FILL_BATCH) {
+                    int batchEnd = Math.min(pipelineEnd, batchStart + FILL_BATCH);
+                    fillBatch(connection, family, key, batchStart, batchEnd);
+                }
+                return null;
+            });
+        }
+    }
+
+    private static void fillBatch(RedisConnection connection, Family family, byte[] key, int from, int to) {
+        switch (family) {
+            case ZSET -> {
+                Set<Tuple> tuples = new LinkedHashSet<>();
+                for (int i = from; i < to; i++) {
+                    tuples.add(new DefaultTuple(member(i), (double) i));
+                }
+                connection.zSetCommands().zAdd(key, tuples, RedisZSetCommands.ZAddArgs.empty());
+            }
+            case LIST -> {
+                byte[][] values = new byte[to - from][];
+                for (int i = from; i < to; i++) {
+                    values[i - from] = member(i);
+                }
+                connection.listCommands().lPush(key, values);
+            }
+            case HASH -> {
+                Map<byte[], byte[]> counters = new HashMap<>();
+                for (int i = from; i < to; i++) {
+                    counters.put(bytes(Integer.toString(i)), bytes("0"));
+                }
+                connection.hashCommands().hMSet(key, counters);
+            }
+            case SET -> {
+                byte[][] members = new byte[to - from][];
+                for (int i = from; i < to; i++) {
+                    members[i - from] = member(i);
+                }
+                connection.setCommands().sAdd(key, members);
+            }
+        }
+    }
+
+    private Long usedMemory() {
+        try {
+            Properties info = redisTemplate.execute((RedisCallback<Properties>) connection -> connection.serverCommands().info("memory"));
+            String value = info != null ? info.getProperty("used_memory") : null;
+            return value != null ? Long.parseLong(value) : null;
+        } catch (RuntimeException e) {
+            log.debug("INFO memory unavailable: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // Spring's generic execute() decodes unknown commands as bulk strings and drops MEMORY USAGE's
+    // integer reply, so this goes through Lettuce's typed API on the native connection
+    @SuppressWarnings("unchecked")
+    private Long memoryUsage(byte[] key) {
+        try {
+            return redisTemplate.execute((RedisCallback<Long>) connection -> {
+                if (!(connection.getNativeConnection() instanceof RedisServerAsyncCommands<?, ?> commands)) {
+                    return null;
+                }
+                try {
+                    return ((RedisServerAsyncCommands<byte[], byte[]>) commands).memoryUsage(key).get(5, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    log.debug("MEMORY USAGE unavailable: {}", e.getMessage());
+                    return null;
+                }
+            });
+        } catch (RuntimeException e) {
+            log.debug("MEMORY USAGE unavailable: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void delete(byte[] key) {
+        redisTemplate.execute((RedisCallback<Long>) connection -> connection.keyCommands().unlink(key));
+    }
+
+    private static byte[] member(int index) {
+        return bytes("testdata-" + index);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void addResult(Map<String, Object> result) {
+        suite.addResult(result);
+        log.info("Data structure benchmark {} x {}: {} bytes", result.get("family"), result.get("cardinality"),
+                result.get("memoryUsage"));
+    }
+
+    public boolean isTestRunning() {
+        return suite.isRunning();
+    }
+
+    public Map<String, Object> getStatus() {
+        return suite.getStatus();
+    }
+}
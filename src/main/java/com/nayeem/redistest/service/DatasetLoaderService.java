@@ -0,0 +1,421 @@
+package com.nayeem.redistest.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.nayeem.redistest.benchmark.BenchmarkRunScheduler;
+import com.nayeem.redistest.benchmark.Statistics;
+import com.nayeem.redistest.model.TestData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Loads large datasets (tens of millions of records) at constant heap. Records come from a
+ * generator or from a local NDJSON or CSV file read through {@link MappedLineReader}, and are
+ * written in pipelined chunks with the batch ingest writer, so only one chunk and one line are
+ * on the heap at a time.
+ *
+ * <p>After every chunk the loader stores a checkpoint in the Redis hash
+ * {@code loader:checkpoint:<job>}: records written and, for files, the byte offset of the next
+ * line. Keeping it next to the data means a Redis restart without persistence loses both
+ * together. A load that is stopped or reaches its run deadline keeps its checkpoint, so a long
+ * load can run in several sessions. A resumed load continues from the checkpoint; the chunk in
+ * flight when a load was interrupted is written again, which is harmless because writes are
+ * keyed by id.
+ *
+ * <p>The ingest rate is sampled once per second (interval rate and heap in use) so a slowdown
+ * as the keyspace grows, or heap growth, shows up in the timeline.
+ */
+@Service
+@Slf4j
+public class DatasetLoaderService {
+
+    public enum Source {
+        GENERATOR, NDJSON, CSV
+    }
+
+    private static final String CHECKPOINT_PREFIX = "loader:checkpoint:";
+    private static final String ID_PREFIX = "load-";
+    private static final Pattern JOB_NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final long SAMPLE_INTERVAL_NANOS = 1_000_000_000L;
+    private static final int MAX_TIMELINE_SAMPLES = 600;
+    private static final int MAX_REPORTED_REJECTS = 10;
+
+    private final RedisTemplate<String, TestData> redisTemplate;
+    private final BatchIngestService batchIngestService;
+    private final SpringDataBatchWriter springDataBatchWriter;
+    private final ObjectReader reader;
+    private final BenchmarkRunScheduler runScheduler;
+    private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+
+    private final AtomicBoolean testRunning = new AtomicBoolean(false);
+    private final AtomicLong loaded = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final Deque<Map<String, Object>> timeline = new ArrayDeque<>();
+    private final List<String> rejects = new ArrayList<>();
+    private volatile Map<String, Object> config = Map.of();
+    private volatile BenchmarkRunScheduler.Run activeRun;
+    private volatile String state = "IDLE";
+    private volatile String failure;
+    private volatile long startNanos;
+    private volatile long endNanos;
+    private volatile long peakHeapBytes;
+    private long lastSampleAt;
+    private long lastSampleRecords;
+
+    public DatasetLoaderService(RedisTemplate<String, TestData> redisTemplate,
+                                BatchIngestService batchIngestService,
+                                SpringDataBatchWriter springDataBatchWriter,
+                                ObjectMapper objectMapper,
+                                BenchmarkRunScheduler runScheduler) {
+        this.redisTemplate = redisTemplate;
+        this.batchIngestService = batchIngestService;
+        this.springDataBatchWriter = springDataBatchWriter;
+        this.reader = objectMapper.readerFor(TestData.class);
+        this.runScheduler = runScheduler;
+    }
+
+    /**
+     * Starts a load. ttlSeconds sets an expiry on REDIS_TEMPLATE records; 0 loads them without one,
+     * as a dataset that outlives the run should be. Repository entities have no TTL.
+     */
+    public boolean startLoad(String job, Source source, long records, String file, BatchIngestService.Target target,
+                             int chunkSize, long ttlSeconds, boolean resume, long deadlineMs) {
+        if (!JOB_NAME.matcher(job).matches()) {
+            throw new IllegalArgumentException("job must be 1-64 letters, digits, '-' or '_'");
+        }
+        if (ttlSeconds < 0 || (ttlSeconds > 0 && target != BatchIngestService.Target.REDIS_TEMPLATE)) {
+            throw new IllegalArgumentException("ttlSec must be 0, or positive for the REDIS_TEMPLATE target");
+        }
+        Path path = source == Source.GENERATOR ? null : Path.of(file == null ? "" : file).toAbsolutePath();
+        if (path != null && !Files.isRegularFile(path)) {
+            throw new IllegalArgumentException("File not found: " + path);
+        }
+        if (!testRunning.compareAndSet(false, true)) {
+            log.warn("Dataset load is already running!");
+            return false;
+        }
+        try {
+            Map<String, String> checkpoint = resume ? readCheckpoint(job) : Map.of();
+            String sourceName = path != null ? path.toString() : "generator";
+            if (!checkpoint.isEmpty()) {
+                if (!sourceName.equals(checkpoint.get("source")) || !target.name().equals(checkpoint.get("target"))) {
+                    throw new IllegalArgumentException("Checkpoint for job " + job + " was written for "
+                            + checkpoint.get("source") + " -> " + checkpoint.get("target"));
+                }
+                if ("COMPLETED".equals(checkpoint.get("state"))) {
+                    throw new IllegalStateException("Job " + job + " already completed; start it without resume to load again");
+                }
+            }
+            long startRecords = Long.parseLong(checkpoint.getOrDefault("records", "0"));
+            long startOffset = Long.parseLong(checkpoint.getOrDefault("offset", "0"));
+
+            Map<String, Object> runConfig = new LinkedHashMap<>();
+            runConfig.put("job", job);
+            runConfig.put("source", source);
+            runConfig.put("file", path != null ? path.toString() : null);
+            runConfig.put("records", source == Source.GENERATOR ? records : null);
+            runConfig.put("target", target);
+            runConfig.put("chunkSize", chunkSize);
+            runConfig.put("ttlSeconds", ttlSeconds);
+            runConfig.put("resumedFromRecords", startRecords);
+            runConfig.put("resumedFromOffset", startOffset);
+            config = runConfig;
+            loaded.set(startRecords);
+            rejected.set(0);
+            synchronized (timeline) {
+                timeline.clear();
+                rejects.clear();
+            }
+            failure = null;
+            state = "RUNNING";
+            peakHeapBytes = 0;
+            startNanos = System.nanoTime();
+            endNanos = 0;
+            log.info("Starting dataset load {} ({} -> {}), resuming at {} records", job, sourceName, target, startRecords);
+
+            activeRun = runScheduler.launch("dataset-loader", deadlineMs, run -> {
+                try {
+                    Chunker chunker = new Chunker(job, sourceName, target, chunkSize, ttlSeconds, run);
+                    if (source == Source.GENERATOR) {
+                        generate(chunker, startRecords, records);
+                    } else {
+                        readFile(chunker, path, source, startOffset);
+                    }
+                    state = run.getStopReason() != null ? "STOPPED" : "COMPLETED";
+                    chunker.checkpoint(state);
+                    log.info("Dataset load {} {} after {} records", job, state.toLowerCase(Locale.ROOT), loaded.get());
+                } catch (Exception e) {
+                    state = "FAILED";
+                    failure = e.getMessage();
+                    log.error("Dataset load {} failed after {} records", job, loaded.get(), e);
+                } finally {
+                    endNanos = System.nanoTime();
+                    sample();
+                    testRunning.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            if (!(e instanceof RejectedExecutionException)) {
+                state = "IDLE";
+            }
+            testRunning.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    private void generate(Chunker chunker, long from, long records) {
+        LocalDateTime createdAt = LocalDateTime.now();
+        for (long i = from; i < records && chunker.run.isActive(); i++) {
+            chunker.add(new TestData(ID_PREFIX + i, "Load Test Data " + i, "Generated dataset record " + i,
+                    createdAt, (int) (i % Integer.MAX_VALUE)), 0);
+        }
+        chunker.flush(0);
+    }
+
+    private void readFile(Chunker chunker, Path path, Source source, long fromOffset) throws IOException {
+        LocalDateTime createdAt = LocalDateTime.now();
+        try (MappedLineReader lines = new MappedLineReader(path, fromOffset)) {
+            boolean first = fromOffset == 0;
+            while (chunker.run.isActive() && lines.next()) {
+                if (lines.length() == 0) {
+                    continue;
+                }
+                String text = source == Source.CSV ? new String(lines.buffer(), 0, lines.length(), StandardCharsets.UTF_8) : null;
+                boolean header = first && text != null && text.toLowerCase(Locale.ROOT).startsWith("id,");
+                first = false;
+                if (header) {
+                    continue;
+                }
+                try {
+                    TestData data = text == null
+                            ? reader.readValue(lines.buffer(), 0, lines.length())
+                            : parseCsv(text);
+                    if (data.getId() == null || data.getId().isEmpty()) {
+                        throw new IOException("record has no id");
+                    }
+                    data.setCreatedAt(createdAt);
+                    chunker.add(data, lines.position());
+                } catch (IOException | RuntimeException e) {
+                    reject(lines.lineStart(), e.getMessage());
+                }
+            }
+            chunker.flush(lines.position());
+        }
+    }
+
+    // id,name,description,value with RFC 4180 quoting ("" inside a quoted field is a quote)
+    static TestData parseCsv(String line) throws IOException {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        if (fields.size() != 4) {
+            throw new IOException("expected 4 CSV fields (id,name,description,value) but found " + fields.size());
+        }
+        try {
+            return new TestData(fields.get(0), fields.get(1), fields.get(2), null, Integer.parseInt(fields.get(3).trim()));
+        } catch (NumberFormatException e) {
+            throw new IOException("value is not an integer: " + fields.get(3));
+        }
+    }
+
+    private void reject(long offset, String reason) {
+        rejected.incrementAndGet();
+        synchronized (timeline) {
+            if (rejects.size() < MAX_REPORTED_REJECTS) {
+                rejects.add("offset " + offset + ": " + reason);
+            }
+        }
+    }
+
+    // Holds the current chunk and writes it, followed by the checkpoint, once it is full
+    private final class Chunker {
+        private final String job;
+        private final String source;
+        private final BatchIngestService.Target target;
+        private final int chunkSize;
+        private final long ttlSeconds;
+        private final BenchmarkRunScheduler.Run run;
+        private final List<TestData> chunk;
+        private long offset;
+        private long lastSampleNanos = System.nanoTime();
+
+        Chunker(String job, String source, BatchIngestService.Target target, int chunkSize, long ttlSeconds,
+                BenchmarkRunScheduler.Run run) {
+            this.job = job;
+            this.source = source;
+            this.target = target;
+            this.chunkSize = chunkSize;
+            this.ttlSeconds = ttlSeconds;
+            this.run = run;
+            this.chunk = new ArrayList<>(chunkSize);
+        }
+
+        // nextOffset is where reading resumes once this record is written (0 for the generator)
+        void add(TestData data, long nextOffset) {
+            chunk.add(data);
+            if (chunk.size() == chunkSize) {
+                flush(nextOffset);
+            }
+        }
+
+        void flush(long nextOffset) {
+            if (!chunk.isEmpty()) {
+                batchIngestService.writeChunk(chunk, target, ttlSeconds);
+                loaded.addAndGet(chunk.size());
+                chunk.clear();
+            }
+            offset = nextOffset;
+            checkpoint("RUNNING");
+            long now = System.nanoTime();
+            if (now - lastSampleNanos >= SAMPLE_INTERVAL_NANOS) {
+                lastSampleNanos = now;
+                sample();
+            }
+        }
+
+        void checkpoint(String checkpointState) {
+            Map<byte[], byte[]> fields = new LinkedHashMap<>();
+            fields.put(bytes("source"), bytes(source));
+            fields.put(bytes("target"), bytes(target.name()));
+            fields.put(bytes("records"), bytes(Long.toString(loaded.get())));
+            fields.put(bytes("offset"), bytes(Long.toString(offset)));
+            fields.put(bytes("state"), bytes(checkpointState));
+            fields.put(bytes("updatedAt"), bytes(LocalDateTime.now().toString()));
+            redisTemplate.execute((RedisCallback<Object>) connection -> {
+                connection.hashCommands().hMSet(bytes(CHECKPOINT_PREFIX + job), fields);
+                return null;
+            });
+        }
+    }
+
+    private void sample() {
+        long now = System.nanoTime();
+        long records = loaded.get();
+        long heapUsed = memoryBean.getHeapMemoryUsage().getUsed();
+        peakHeapBytes = Math.max(peakHeapBytes, heapUsed);
+        synchronized (timeline) {
+            long previousAt = timeline.isEmpty() ? startNanos : lastSampleAt;
+            long previousRecords = timeline.isEmpty() ? (Long) config.getOrDefault("resumedFromRecords", 0L) : lastSampleRecords;
+            double seconds = (now - previousAt) / 1_000_000_000.0;
+            Map<String, Object> point = new LinkedHashMap<>();
+            point.put("elapsedSec", Statistics.round((now - startNanos) / 1_000_000_000.0, 1));
+            point.put("records", records);
+            point.put("recordsPerSec", Statistics.round(seconds > 0 ? (records - previousRecords) / seconds : 0.0, 1));
+            point.put("heapUsedMb", Statistics.round(heapUsed / (1024.0 * 1024.0), 1));
+            timeline.addLast(point);
+            if (timeline.size() > MAX_TIMELINE_SAMPLES) {
+                timeline.removeFirst();
+            }
+            lastSampleAt = now;
+            lastSampleRecords = records;
+        }
+    }
+
+    public Map<String, String> readCheckpoint(String job) {
+        Map<byte[], byte[]> raw = redisTemplate.execute((RedisCallback<Map<byte[], byte[]>>) connection ->
+                connection.hashCommands().hGetAll(bytes(CHECKPOINT_PREFIX + job)));
+        Map<String, String> checkpoint = new LinkedHashMap<>();
+        if (raw != null) {
+            raw.forEach((field, value) -> checkpoint.put(new String(field, StandardCharsets.UTF_8), new String(value, StandardCharsets.UTF_8)));
+        }
+        return checkpoint;
+    }
+
+    public boolean deleteCheckpoint(String job) {
+        Long removed = redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.keyCommands().del(bytes(CHECKPOINT_PREFIX + job)));
+        return removed != null && removed > 0;
+    }
+
+    // Removes generated records (ids "load-N"); ids read from files are left alone
+    public long clearGeneratedData(BatchIngestService.Target target) {
+        if (target == BatchIngestService.Target.SPRING_DATA) {
+            return ScanSupport.removeMembers(redisTemplate, "testdata", ID_PREFIX + "*",
+                    ids -> springDataBatchWriter.deleteAll("testdata", ids));
+        }
+        return ScanSupport.unlinkKeys(redisTemplate, "testdata:" + ID_PREFIX + "*");
+    }
+
+    public boolean stopLoad() {
+        BenchmarkRunScheduler.Run run = activeRun;
+        if (!testRunning.get() || run == null) {
+            return false;
+        }
+        run.stop();
+        return true;
+    }
+
+    public boolean isRunning() {
+        return testRunning.get();
+    }
+
+    public Map<String, Object> getStatus() {
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        double seconds = startNanos != 0 ? (end - startNanos) / 1_000_000_000.0 : 0;
+        long resumedFrom = (Long) config.getOrDefault("resumedFromRecords", 0L);
+        long written = loaded.get() - resumedFrom;
+
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", testRunning.get());
+        status.put("state", state);
+        status.put("config", config);
+        status.put("records", loaded.get());
+        status.put("rejected", rejected.get());
+        status.put("elapsedSec", Statistics.round(seconds, 1));
+        status.put("recordsPerSec", Statistics.round(seconds > 0 ? written / seconds : 0.0, 1));
+        status.put("peakHeapMb", Statistics.round(peakHeapBytes / (1024.0 * 1024.0), 1));
+        status.put("failure", failure);
+        synchronized (timeline) {
+            status.put("rejects", new ArrayList<>(rejects));
+            status.put("timeline", new ArrayList<>(timeline));
+        }
+        return status;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,232 @@
+package com.nayeem.redistest.service;
+
+import com.nayeem.redistest.benchmark.BenchmarkRunScheduler;
+import com.nayeem.redistest.benchmark.LatencyHistogram;
+import com.nayeem.redistest.benchmark.Statistics;
+import com.nayeem.redistest.benchmark.WorkerGroup;
+import com.nayeem.redistest.model.TestData;
+import com.nayeem.redistest.repository.TestDataRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures the existence filter two ways. The sizing sweep fills an in-memory filter per target
+ * false-positive rate with the record ids and probes it with ids that were never added, giving
+ * the measured rate, bits per entry and add/check cost. The lookup phases then run existsById
+ * against Spring Data with a share of lookups for missing ids, once straight to Redis and once
+ * filter-first, and count the round trips each one paid. Every phase uses its own filter, so
+ * application traffic does not affect the metrics.
+ */
+@Service
+@Slf4j
+public class ExistenceFilterBenchmarkService {
+
+    private static final String ID_PREFIX = "bloom-bench-";
+    private static final String MISSING_ID_PREFIX = "bloom-bench-missing-";
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    private final TestDataRepository testDataRepository;
+    private final TestDataBloomFilter.Settings existenceFilterSettings;
+    private final BenchmarkRunScheduler runScheduler;
+
+    private final BenchmarkSuite suite;
+
+    public ExistenceFilterBenchmarkService(TestDataRepository testDataRepository,
+                                           TestDataBloomFilter.Settings existenceFilterSettings,
+                                           BenchmarkRunScheduler runScheduler,
+                                           BenchmarkResultStore resultStore) {
+        this.testDataRepository = testDataRepository;
+        this.existenceFilterSettings = existenceFilterSettings;
+        this.runScheduler = runScheduler;
+        this.suite = new BenchmarkSuite("existence-filter-benchmark", "Existence filter benchmark", runScheduler, resultStore);
+    }
+
+    public boolean startBenchmark(int records, int lookups, int threads, double missRatio, List<Double> falsePositiveRates) {
+        runScheduler.requireWorkers(threads);
+        Map<String, Object> runConfig = new LinkedHashMap<>();
+        runConfig.put("records", records);
+        runConfig.put("lookups", lookups);
+        runConfig.put("threads", threads);
+        runConfig.put("missRatio", missRatio);
+        runConfig.put("falsePositiveRates", falsePositiveRates);
+        runConfig.put("lookupFalsePositiveRate", existenceFilterSettings.falsePositiveRate());
+
+        return suite.launch(runConfig, run -> {
+            try {
+                // Unrecorded pass, so the first rate does not pay for JIT compilation of the hashing
+                runSizing(records, falsePositiveRates.get(0));
+                for (double rate : falsePositiveRates) {
+                    if (!run.isActive()) {
+                        break;
+                    }
+                    suite.phase("sizing-" + rate);
+                    addResult(runSizing(records, rate));
+                }
+                suite.phase("seeding");
+                seed(records, run);
+                runLookupPhases(records, lookups, threads, missRatio, run);
+            } finally {
+                suite.phase("cleanup");
+                cleanup(records);
+            }
+        });
+    }
+
+    private Map<String, Object> runSizing(int records, double falsePositiveRate) {
+        TestDataBloomFilter.Bits bits = TestDataBloomFilter.Bits.forCapacity(records, falsePositiveRate);
+        long addStart = System.nanoTime();
+        for (int i = 0; i < records; i++) {
+            bits.put(ID_PREFIX + i, null);
+        }
+        long addNanos = System.nanoTime() - addStart;
+        int probes = Math.max(records, 100_000);
+        long falsePositives = 0;
+        long checkStart = System.nanoTime();
+        for (int i = 0; i < probes; i++) {
+            if (bits.mightContain(MISSING_ID_PREFIX + i)) {
+                falsePositives++;
+            }
+        }
+        long checkNanos = System.nanoTime() - checkStart;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("mode", "SIZING");
+        result.put("targetFalsePositiveRate", falsePositiveRate);
+        result.put("measuredFalsePositiveRate", Statistics.round((double) falsePositives / probes, 6));
+        result.put("probes", probes);
+        result.put("bits", bits.bitCount);
+        result.put("hashes", bits.hashes);
+        result.put("bitsPerEntry", Statistics.round((double) bits.bitCount / records, 2));
+        result.put("memoryBytes", bits.memoryBytes());
+        result.put("fillRatio", Statistics.round(bits.fillRatio(), 4));
+        result.put("addNs", Statistics.round((double) addNanos / records, 1));
+        result.put("checkNs", Statistics.round((double) checkNanos / probes, 1));
+        return result;
+    }
+
+    private void runLookupPhases(int records, int lookups, int threads, double missRatio, BenchmarkRunScheduler.Run run)
+            throws InterruptedException {
+        // Unrecorded pass, so the baseline does not pay for JIT compilation of the lookup path
+        suite.phase("warmup");
+        runLookups("WARMUP", null, records, Math.max(threads, lookups / 4), threads, missRatio, run);
+        if (!run.isActive()) {
+            return;
+        }
+        suite.phase("repository");
+        Map<String, Object> baseline = runLookups("REPOSITORY", null, records, lookups, threads, missRatio, run);
+        addResult(baseline);
+        if (!run.isActive()) {
+            return;
+        }
+        suite.phase("filtered");
+        TestDataBloomFilter.Bits bits = TestDataBloomFilter.Bits.forCapacity(records, existenceFilterSettings.falsePositiveRate());
+        for (int i = 0; i < records; i++) {
+            bits.put(ID_PREFIX + i, null);
+        }
+        Map<String, Object> filtered = runLookups("FILTERED", bits, records, lookups, threads, missRatio, run);
+        double baseThroughput = (double) baseline.get("throughput");
+        filtered.put("speedup", Statistics.round(baseThroughput > 0 ? (double) filtered.get("throughput") / baseThroughput : 0.0, 2));
+        addResult(filtered);
+    }
+
+    private Map<String, Object> runLookups(String mode, TestDataBloomFilter.Bits bits, int records, int lookups, int threads,
+                                           double missRatio, BenchmarkRunScheduler.Run run) throws InterruptedException {
+        LongAdder roundTrips = new LongAdder();
+        LongAdder missing = new LongAdder();
+        LongAdder definiteMisses = new LongAdder();
+        LongAdder falsePositives = new LongAdder();
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder completed = new LongAdder();
+        int perThread = lookups / threads;
+        long start = System.nanoTime();
+        try (WorkerGroup workers = new WorkerGroup(run, "existence filter " + mode.toLowerCase(Locale.ROOT))) {
+            for (int t = 0; t < threads; t++) {
+                int count = t == threads - 1 ? lookups - perThread * (threads - 1) : perThread;
+                workers.start(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < count && workers.isRunning(); i++) {
+                        boolean absent = random.nextDouble() < missRatio;
+                        String id = (absent ? MISSING_ID_PREFIX : ID_PREFIX) + random.nextInt(records);
+                        long opStart = System.nanoTime();
+                        if (bits != null && !bits.mightContain(id)) {
+                            definiteMisses.increment();
+                        } else {
+                            roundTrips.increment();
+                            if (!testDataRepository.existsById(id) && bits != null) {
+                                falsePositives.increment();
+                            }
+                        }
+                        latency.record(System.nanoTime() - opStart);
+                        if (absent) {
+                            missing.increment();
+                        }
+                        completed.increment();
+                    }
+                });
+            }
+            workers.await();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("mode", mode);
+        result.put("lookups", completed.sum());
+        result.put("missingLookups", missing.sum());
+        result.put("roundTrips", roundTrips.sum());
+        if (bits != null) {
+            long missingCount = missing.sum();
+            result.put("roundTripsSaved", definiteMisses.sum());
+            result.put("falsePositives", falsePositives.sum());
+            result.put("observedFalsePositiveRate", Statistics.round(missingCount > 0 ? (double) falsePositives.sum() / missingCount : 0.0, 6));
+            result.put("memoryBytes", bits.memoryBytes());
+        }
+        result.put("durationMs", elapsed / 1_000_000);
+        result.put("throughput", Statistics.round(completed.sum() * 1_000_000_000.0 / elapsed, 2));
+        result.put("latency", latency.toSummary());
+        return result;
+    }
+
+    private void seed(int records, BenchmarkRunScheduler.Run run) {
+        for (int i = 0; i < records && run.isActive(); i++) {
+            testDataRepository.save(new TestData(ID_PREFIX + i, "Bloom Bench " + i, "Existence filter benchmark record " + i, LocalDateTime.now(), i));
+        }
+    }
+
+    private void cleanup(int records) {
+        try {
+            List<String> ids = new ArrayList<>(DELETE_BATCH_SIZE);
+            for (int i = 0; i < records; i++) {
+                ids.add(ID_PREFIX + i);
+                if (ids.size() == DELETE_BATCH_SIZE || i == records - 1) {
+                    testDataRepository.deleteAllById(ids);
+                    ids.clear();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Existence filter benchmark cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    private void addResult(Map<String, Object> result) {
+        suite.addResult(result);
+        log.info("Existence filter benchmark {}: {}", result.get("mode"),
+                result.containsKey("throughput") ? result.get("throughput") + " lookups/s" : result.get("measuredFalsePositiveRate") + " false positives");
+    }
+
+    public boolean isTestRunning() {
+        return suite.isRunning();
+    }
+
+    public Map<String, Object> getStatus() {
+        return suite.getStatus();
+    }
+}
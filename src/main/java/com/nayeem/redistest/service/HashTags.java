@@ -0,0 +1,40 @@
+package com.nayeem.redistest.service;
+
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+
+/**
+ * Redis Cluster hash tags: when a key contains "{...}" with something between the braces, only
+ * that part is hashed, so keys sharing a tag land in the same slot (and on the same shard of the
+ * consistent-hash ring, which follows the same rule).
+ *
+ * <p>The Spring Data layout names a record's keys after its id ("testdata:&lt;id&gt;" and
+ * "testdata:&lt;id&gt;:idx"), so a tagged id such as "{abc}" co-locates the hash with its helper
+ * set without any repository changes. The keyspace set ("testdata") and secondary index sets
+ * ("testdata:name:&lt;value&gt;") are shared by every record and are placed by their own name.
+ */
+public final class HashTags {
+
+    private HashTags() {
+    }
+
+    /** Wraps the id in braces unless it already carries a tag. */
+    public static String tagged(String id) {
+        return routingKey(id).equals(id) ? "{" + id + "}" : id;
+    }
+
+    /** The part of the key that decides its slot: the first non-empty "{...}" or the whole key. */
+    public static String routingKey(String key) {
+        int open = key.indexOf('{');
+        if (open >= 0) {
+            int close = key.indexOf('}', open + 1);
+            if (close > open + 1) {
+                return key.substring(open + 1, close);
+            }
+        }
+        return key;
+    }
+
+    public static int slot(String key) {
+        return ClusterSlotHashUtil.calculateSlot(key);
+    }
+}
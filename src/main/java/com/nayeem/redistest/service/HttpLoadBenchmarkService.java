@@ -0,0 +1,224 @@
+package com.nayeem.redistest.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nayeem.redistest.benchmark.BenchmarkRunScheduler;
+import com.nayeem.redistest.benchmark.LatencyHistogram;
+import com.nayeem.redistest.benchmark.Statistics;
+import com.nayeem.redistest.model.TestData;
+import com.nayeem.redistest.reactive.ReactiveApiServer;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HTTP-level load benchmark of the blocking (Tomcat + RedisTemplate/repository) and reactive
+ * (Reactor Netty + ReactiveRedisTemplate) stacks. Each concurrency level runs a closed loop of
+ * N clients, each sending its next request as soon as the previous response arrives, against
+ * both stacks in turn. The load generator is non-blocking too, so 10,000 clients do not need
+ * 10,000 client threads.
+ */
+@Service
+@Slf4j
+public class HttpLoadBenchmarkService {
+
+    public enum Stack { BLOCKING, REACTIVE }
+
+    public enum Operation { READ, WRITE }
+
+    private static final String SEED_PREFIX = "http-load-";
+    private static final Duration RESPONSE_TIMEOUT = Duration.ofSeconds(30);
+
+    private final RedisService redisService;
+    private final SpringDataBatchWriter springDataBatchWriter;
+    private final ObjectProvider<ReactiveApiServer> reactiveApiServer;
+    private final ObjectMapper objectMapper;
+    private final Environment environment;
+
+    private final BenchmarkSuite suite;
+
+    public HttpLoadBenchmarkService(RedisService redisService,
+                                    SpringDataBatchWriter springDataBatchWriter,
+                                    ObjectProvider<ReactiveApiServer> reactiveApiServer,
+                                    ObjectMapper objectMapper,
+                                    Environment environment,
+                                    BenchmarkRunScheduler runScheduler,
+                                    BenchmarkResultStore resultStore) {
+        this.redisService = redisService;
+        this.springDataBatchWriter = springDataBatchWriter;
+        this.reactiveApiServer = reactiveApiServer;
+        this.objectMapper = objectMapper;
+        this.environment = environment;
+        this.suite = new BenchmarkSuite("http-load-benchmark", "HTTP load test", runScheduler, resultStore);
+    }
+
+    public boolean startLoadTest(List<Integer> concurrencyLevels, int durationSec, int warmupSec,
+                                 boolean springData, Operation operation, int seedRecords) {
+        ReactiveApiServer reactiveServer = reactiveApiServer.getIfAvailable();
+        if (reactiveServer == null) {
+            throw new IllegalStateException("Reactive server is disabled; start the application with reactive.server.enabled=true");
+        }
+        int blockingPort = environment.getProperty("local.server.port", Integer.class,
+                environment.getProperty("server.port", Integer.class, 8080));
+        String path = springData ? "/api/spring-data/data" : "/api/data";
+
+        Map<String, Object> runConfig = new LinkedHashMap<>();
+        runConfig.put("concurrency", concurrencyLevels);
+        runConfig.put("durationSec", durationSec);
+        runConfig.put("warmupSec", warmupSec);
+        runConfig.put("api", path);
+        runConfig.put("operation", operation.name());
+        runConfig.put("seedRecords", seedRecords);
+        runConfig.put("blockingPort", blockingPort);
+        runConfig.put("reactivePort", reactiveServer.getPort());
+
+        return suite.launch(runConfig, run -> {
+            seed(springData, seedRecords);
+            for (int concurrency : concurrencyLevels) {
+                for (Stack stack : Stack.values()) {
+                    if (!run.isActive()) {
+                        return;
+                    }
+                    int port = stack == Stack.BLOCKING ? blockingPort : reactiveServer.getPort();
+                    suite.phase(stack + " @ " + concurrency + " clients");
+                    Map<String, Object> result = runLevel(stack, port, path, operation, concurrency, durationSec, warmupSec, seedRecords);
+                    suite.addResult(result);
+                    log.info("HTTP load {} @ {} clients: {} req/s", stack, concurrency, result.get("requestsPerSec"));
+                }
+            }
+        });
+    }
+
+    private void seed(boolean springData, int seedRecords) {
+        suite.phase("seeding");
+        List<TestData> chunk = new ArrayList<>();
+        for (int i = 0; i < seedRecords; i++) {
+            TestData data = new TestData(SEED_PREFIX + i, "HTTP Load " + i, "HTTP load benchmark record", null, i);
+            if (springData) {
+                data.setCreatedAt(LocalDateTime.now());
+                chunk.add(data);
+                if (chunk.size() == 500) {
+                    springDataBatchWriter.saveAll(chunk);
+                    chunk.clear();
+                }
+            } else {
+                redisService.saveTestData(data);
+            }
+        }
+        if (springData) {
+            springDataBatchWriter.saveAll(chunk);
+        }
+    }
+
+    private Map<String, Object> runLevel(Stack stack, int port, String path, Operation operation, int concurrency,
+                                         int durationSec, int warmupSec, int seedRecords) {
+        ConnectionProvider provider = ConnectionProvider.builder("http-load-" + stack.name().toLowerCase())
+                .maxConnections(concurrency)
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(RESPONSE_TIMEOUT)
+                .build();
+        HttpClient client = HttpClient.create(provider)
+                .baseUrl("http://127.0.0.1:" + port)
+                .responseTimeout(RESPONSE_TIMEOUT);
+
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder requests = new LongAdder();
+        LongAdder errors = new LongAdder();
+        AtomicLong sequence = new AtomicLong();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        int threadsBefore = threads.getThreadCount();
+
+        long startNanos = System.nanoTime();
+        long measureStartNanos = startNanos + Duration.ofSeconds(warmupSec).toNanos();
+        long endNanos = measureStartNanos + Duration.ofSeconds(durationSec).toNanos();
+
+        try {
+            // Closed loop: each client repeats request -> response until the deadline
+            Flux.range(0, concurrency)
+                    .flatMap(clientId -> Mono.defer(() -> {
+                                long sent = System.nanoTime();
+                                return send(client, path, operation, clientId, sequence.incrementAndGet(), seedRecords)
+                                        .doOnNext(status -> {
+                                            long now = System.nanoTime();
+                                            if (sent >= measureStartNanos && now <= endNanos) {
+                                                requests.increment();
+                                                latency.record(now - sent);
+                                                if (status >= 400) {
+                                                    errors.increment();
+                                                }
+                                            }
+                                        })
+                                        .onErrorResume(e -> {
+                                            if (sent >= measureStartNanos) {
+                                                errors.increment();
+                                            }
+                                            return Mono.empty();
+                                        });
+                            })
+                            .repeat(() -> System.nanoTime() < endNanos), concurrency)
+                    .blockLast(Duration.ofSeconds(warmupSec + durationSec).plus(RESPONSE_TIMEOUT).plusSeconds(10));
+        } finally {
+            provider.disposeLater().block(Duration.ofSeconds(10));
+        }
+
+        double seconds = durationSec > 0 ? durationSec : 1;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("stack", stack.name());
+        result.put("concurrency", concurrency);
+        result.put("requests", requests.sum());
+        result.put("errors", errors.sum());
+        result.put("requestsPerSec", Statistics.round(requests.sum() / seconds, 2));
+        result.put("latency", latency.toSummary());
+        result.put("liveThreadsBefore", threadsBefore);
+        result.put("peakThreads", threads.getPeakThreadCount());
+        return result;
+    }
+
+    private Mono<Integer> send(HttpClient client, String path, Operation operation, int clientId, long sequence, int seedRecords) {
+        if (operation == Operation.READ) {
+            String id = SEED_PREFIX + ThreadLocalRandom.current().nextInt(Math.max(1, seedRecords));
+            return client.get().uri(path + "/" + id)
+                    .responseSingle((response, body) -> body.then(Mono.just(response.status().code())));
+        }
+        TestData data = new TestData(SEED_PREFIX + "w-" + clientId + "-" + (sequence % 1000), "HTTP Load Write", "HTTP load benchmark write", null, clientId);
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+        return client.headers(headers -> headers.set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON))
+                .post().uri(path)
+                .send(ByteBufFlux.fromString(Mono.just(json)))
+                .responseSingle((response, body) -> body.then(Mono.just(response.status().code())));
+    }
+
+    public boolean isTestRunning() {
+        return suite.isRunning();
+    }
+
+    public Map<String, Object> getStatus() {
+        return suite.getStatus();
+    }
+}
@@ -0,0 +1,231 @@
+package com.nayeem.redistest.service;
+
+import com.nayeem.redistest.benchmark.BenchmarkRunScheduler;
+import com.nayeem.redistest.benchmark.JfrSummary;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Optional JDK Flight Recorder recording per benchmark run. A service calls {@link #start} right
+ * after opening its run; the recording stops when the run closes and is then summarized on a
+ * thread of its own (see {@link JfrSummary}), so the run's result shows where allocation, CPU,
+ * GC and parking time went while it ran.
+ *
+ * <p>JFR records the whole JVM, not just the run's threads: request handling, the stats sampler
+ * and overlapping runs land in the same recording. The summary says so, and park time is also
+ * grouped by thread so the run's own pool can be picked out.
+ */
+@Component
+@Slf4j
+public class JfrRunProfiler implements BenchmarkRunScheduler.RunListener {
+
+    private static final int MAX_RECENT_PROFILES = 10;
+    private static final long MAX_RECORDING_BYTES = 512L * 1024 * 1024;
+
+    private final boolean enabledByDefault;
+    private final Path directory;
+    private final boolean keepFiles;
+    private final long executionSamplePeriodMs;
+    private final long parkThresholdMs;
+    private final int topFrames;
+    private final ExecutorService summarizer;
+    private final Map<Long, Profile> profiles = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Profile> eldest) {
+            return size() > MAX_RECENT_PROFILES && eldest.getValue().state != State.RECORDING;
+        }
+    };
+
+    public enum State { RECORDING, SUMMARIZING, DONE, FAILED }
+
+    private static final class Profile {
+        final long runId;
+        final String runName;
+        final Recording recording;
+        final Path file;
+        volatile State state = State.RECORDING;
+        volatile Map<String, Object> summary;
+        volatile String error;
+
+        Profile(long runId, String runName, Recording recording, Path file) {
+            this.runId = runId;
+            this.runName = runName;
+            this.recording = recording;
+            this.file = file;
+        }
+    }
+
+    public JfrRunProfiler(BenchmarkRunScheduler runScheduler,
+                          @Value("${benchmark.jfr.enabled:false}") boolean enabledByDefault,
+                          @Value("${benchmark.jfr.directory:${java.io.tmpdir}/redistest-jfr}") String directory,
+                          @Value("${benchmark.jfr.keep-files:false}") boolean keepFiles,
+                          @Value("${benchmark.jfr.execution-sample-period-ms:10}") long executionSamplePeriodMs,
+                          @Value("${benchmark.jfr.park-threshold-ms:1}") long parkThresholdMs,
+                          @Value("${benchmark.jfr.top-frames:15}") int topFrames) {
+        this.enabledByDefault = enabledByDefault;
+        this.directory = Paths.get(directory);
+        this.keepFiles = keepFiles;
+        this.executionSamplePeriodMs = Math.max(1, executionSamplePeriodMs);
+        this.parkThresholdMs = Math.max(0, parkThresholdMs);
+        this.topFrames = Math.max(1, topFrames);
+        // Parsing a recording takes a while; it must not hold a benchmark slot or thread
+        this.summarizer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "jfr-summarizer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        runScheduler.addListener(this);
+    }
+
+    // The request's flag wins; without one, benchmark.jfr.enabled decides
+    public boolean shouldProfile(Boolean requested) {
+        return requested != null ? requested : enabledByDefault;
+    }
+
+    /**
+     * Starts a recording for the run. Failures (JFR unavailable, directory not writable) are
+     * logged and kept as the profile's error; they never fail the run itself.
+     */
+    public void start(BenchmarkRunScheduler.Run run) {
+        Recording recording = null;
+        try {
+            Files.createDirectories(directory);
+            Path file = directory.resolve("run-" + run.getId() + "-" + run.getName() + ".jfr");
+            recording = new Recording();
+            recording.setName("benchmark-run-" + run.getId());
+            recording.setToDisk(true);
+            recording.setMaxSize(MAX_RECORDING_BYTES);
+            recording.setDestination(file);
+            recording.enable("jdk.ExecutionSample").withPeriod(Duration.ofMillis(executionSamplePeriodMs));
+            recording.enable("jdk.ObjectAllocationSample").with("throttle", "300/s").withStackTrace();
+            recording.enable("jdk.GarbageCollection");
+            recording.enable("jdk.ThreadPark").withThreshold(Duration.ofMillis(parkThresholdMs)).withStackTrace();
+            recording.enable("jdk.JavaMonitorEnter").withThreshold(Duration.ofMillis(parkThresholdMs)).withStackTrace();
+
+            Profile profile = new Profile(run.getId(), run.getName(), recording, file);
+            synchronized (profiles) {
+                profiles.put(run.getId(), profile);
+            }
+            recording.start();
+            log.info("JFR recording started for run {} ({}) -> {}", run.getId(), run.getName(), file);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not start JFR recording for run {}: {}", run.getId(), e.getMessage());
+            Profile failed = new Profile(run.getId(), run.getName(), null, null);
+            failed.state = State.FAILED;
+            failed.error = e.getMessage();
+            synchronized (profiles) {
+                profiles.put(run.getId(), failed);
+            }
+            if (recording != null) {
+                recording.close();
+            }
+        }
+    }
+
+    @Override
+    public void runOpened(BenchmarkRunScheduler.Run run) {
+        // Recordings are opt-in per run, see start()
+    }
+
+    @Override
+    public CompletableFuture<Void> runClosed(BenchmarkRunScheduler.Run run) {
+        Profile profile;
+        synchronized (profiles) {
+            profile = profiles.get(run.getId());
+        }
+        if (profile == null || profile.state != State.RECORDING) {
+            return CompletableFuture.completedFuture(null);
+        }
+        try {
+            // Stopping writes the destination file, so the run's end is the recording's end
+            profile.recording.stop();
+        } catch (RuntimeException e) {
+            fail(profile, e);
+            profile.recording.close();
+            return CompletableFuture.completedFuture(null);
+        }
+        profile.state = State.SUMMARIZING;
+        return CompletableFuture.runAsync(() -> summarize(profile), summarizer);
+    }
+
+    private void summarize(Profile profile) {
+        try {
+            Map<String, Object> summary = JfrSummary.summarize(profile.file, topFrames);
+            summary.put("scope", "JVM-wide: includes request handling, samplers and any overlapping runs");
+            profile.summary = summary;
+            profile.state = State.DONE;
+            log.info("JFR summary ready for run {} ({})", profile.runId, profile.runName);
+        } catch (IOException | RuntimeException e) {
+            fail(profile, e);
+        } finally {
+            profile.recording.close();
+            if (!keepFiles) {
+                try {
+                    Files.deleteIfExists(profile.file);
+                } catch (IOException e) {
+                    log.debug("Could not delete {}: {}", profile.file, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void fail(Profile profile, Exception e) {
+        log.warn("JFR profile for run {} failed: {}", profile.runId, e.getMessage());
+        profile.error = e.getMessage();
+        profile.state = State.FAILED;
+    }
+
+    /**
+     * The run's profile: state, then the summary once it is DONE or the error when it FAILED.
+     * Returns null when the run was not profiled.
+     */
+    public Map<String, Object> report(long runId) {
+        Profile profile;
+        synchronized (profiles) {
+            profile = profiles.get(runId);
+        }
+        if (profile == null) {
+            return null;
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("runId", profile.runId);
+        report.put("run", profile.runName);
+        report.put("state", profile.state);
+        if (keepFiles && profile.file != null) {
+            report.put("file", profile.file.toString());
+        }
+        if (profile.summary != null) {
+            report.put("summary", profile.summary);
+        }
+        if (profile.error != null) {
+            report.put("error", profile.error);
+        }
+        return report;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        summarizer.shutdownNow();
+        synchronized (profiles) {
+            for (Profile profile : profiles.values()) {
+                if (profile.state == State.RECORDING && profile.recording != null) {
+                    profile.recording.close();
+                }
+            }
+        }
+    }
+}
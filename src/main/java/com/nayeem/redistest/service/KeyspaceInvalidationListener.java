@@ -0,0 +1,53 @@
+package com.nayeem.redistest.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.PatternTopic;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drops L1 cache entries when Redis reports a change to their key. Subscribed to
+ * {@code __keyspace@<db>__:testdata:*}, so any write to an entity hash (HSET/HMSET, DEL, EXPIRE,
+ * expiry) from any instance evicts that id. Index and helper keys under the same prefix
+ * (testdata:name:..., testdata:&lt;id&gt;:idx) only evict ids that are never cached.
+ *
+ * <p>Pub/sub is at-most-once: events published while the subscription is down are lost, so the
+ * cache TTL bounds how long such a miss can serve a stale value.
+ */
+@Slf4j
+public class KeyspaceInvalidationListener implements MessageListener {
+
+    private final TestDataL1Cache cache;
+    private final String channelPrefix;
+    private final LongAdder received = new LongAdder();
+
+    public KeyspaceInvalidationListener(TestDataL1Cache cache, int database, String keyspace) {
+        this.cache = cache;
+        this.channelPrefix = "__keyspace@" + database + "__:" + keyspace + ":";
+    }
+
+    public PatternTopic topic() {
+        return new PatternTopic(channelPrefix + "*");
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        if (channel.startsWith(channelPrefix)) {
+            received.increment();
+            cache.invalidate(channel.substring(channelPrefix.length()));
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("channel", channelPrefix + "*");
+        metrics.put("notifications", received.sum());
+        return metrics;
+    }
+}
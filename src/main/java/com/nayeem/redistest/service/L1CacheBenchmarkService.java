@@ -0,0 +1,209 @@
+package com.nayeem.redistest.service;
+
+import com.nayeem.redistest.benchmark.BenchmarkRunScheduler;
+import com.nayeem.redistest.benchmark.LatencyHistogram;
+import com.nayeem.redistest.benchmark.Statistics;
+import com.nayeem.redistest.benchmark.WorkerGroup;
+import com.nayeem.redistest.model.TestData;
+import com.nayeem.redistest.repository.TestDataRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Measures findById through the L1 cache against plain repository reads. Each hit-ratio phase
+ * warms a cache holding every seeded record, then turns the requested share of reads into misses
+ * by invalidating the id first, so the phase pays the miss path (HGETALL plus conversion) that
+ * often. The missing-id phases read ids that do not exist, with and without negative caching.
+ * Every phase uses its own cache, so application traffic does not affect the metrics.
+ */
+@Service
+@Slf4j
+public class L1CacheBenchmarkService {
+
+    private static final String ID_PREFIX = "l1-bench-";
+    private static final String MISSING_ID_PREFIX = "l1-bench-missing-";
+    private static final long BENCHMARK_TTL_MS = 600_000;
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    private final TestDataRepository testDataRepository;
+    private final TestDataL1Cache.Settings l1CacheSettings;
+    private final BenchmarkRunScheduler runScheduler;
+
+    private final BenchmarkSuite suite;
+
+    public L1CacheBenchmarkService(TestDataRepository testDataRepository,
+                                   TestDataL1Cache.Settings l1CacheSettings,
+                                   BenchmarkRunScheduler runScheduler,
+                                   BenchmarkResultStore resultStore) {
+        this.testDataRepository = testDataRepository;
+        this.l1CacheSettings = l1CacheSettings;
+        this.runScheduler = runScheduler;
+        this.suite = new BenchmarkSuite("l1-cache-benchmark", "L1 cache benchmark", runScheduler, resultStore);
+    }
+
+    public boolean startBenchmark(int records, int reads, int threads, List<Double> hitRatios) {
+        runScheduler.requireWorkers(threads);
+        Map<String, Object> runConfig = new LinkedHashMap<>();
+        runConfig.put("records", records);
+        runConfig.put("reads", reads);
+        runConfig.put("threads", threads);
+        runConfig.put("hitRatios", hitRatios);
+        runConfig.put("stripes", l1CacheSettings.stripes());
+        runConfig.put("negativeTtlMs", l1CacheSettings.negativeTtlMs());
+
+        return suite.launch(runConfig, run -> {
+            try {
+                suite.phase("seeding");
+                seed(records, run);
+                runPhases(records, reads, threads, hitRatios, run);
+            } finally {
+                suite.phase("cleanup");
+                cleanup(records);
+            }
+        });
+    }
+
+    private void runPhases(int records, int reads, int threads, List<Double> hitRatios, BenchmarkRunScheduler.Run run)
+            throws InterruptedException {
+        // Unrecorded pass, so the baseline does not pay for JIT compilation of the read path
+        suite.phase("warmup");
+        runReads("WARMUP", null, ID_PREFIX, records, Math.max(threads, reads / 4), threads, 0.0, run);
+        suite.phase("repository");
+        Map<String, Object> baseline = runReads("REPOSITORY", null, ID_PREFIX, records, reads, threads, 0.0, run);
+        addResult(baseline, null);
+
+        for (double hitRatio : hitRatios) {
+            if (!run.isActive()) {
+                return;
+            }
+            suite.phase("l1-" + hitRatio);
+            TestDataL1Cache cache = newCache(records);
+            for (int i = 0; i < records; i++) {
+                cache.getOrLoad(ID_PREFIX + i, testDataRepository::findById);
+            }
+            addResult(runReads("L1", cache, ID_PREFIX, records, reads, threads, hitRatio, run), baseline);
+        }
+
+        if (!run.isActive()) {
+            return;
+        }
+        suite.phase("repository-missing");
+        Map<String, Object> missingBaseline = runReads("REPOSITORY_MISSING", null, MISSING_ID_PREFIX, records, reads, threads, 0.0, run);
+        addResult(missingBaseline, null);
+        if (run.isActive() && l1CacheSettings.negativeTtlMs() > 0) {
+            suite.phase("l1-missing");
+            // Cold cache: each missing id costs one lookup, then is answered locally until its negative TTL
+            addResult(runReads("L1_MISSING", newCache(records), MISSING_ID_PREFIX, records, reads, threads, 1.0, run), missingBaseline);
+        }
+    }
+
+    private TestDataL1Cache newCache(int records) {
+        TestDataL1Cache.Settings s = l1CacheSettings;
+        // Sized and timed so that only the forced misses miss
+        return new TestDataL1Cache(new TestDataL1Cache.Settings(true, Math.max(records * 2, s.maxEntries()),
+                BENCHMARK_TTL_MS, s.negativeTtlMs(), s.stripes(), false));
+    }
+
+    private Map<String, Object> runReads(String mode, TestDataL1Cache cache, String idPrefix, int records, int reads,
+                                         int threads, double hitRatio, BenchmarkRunScheduler.Run run) throws InterruptedException {
+        LongAdder redisReads = new LongAdder();
+        Function<String, Optional<TestData>> loader = id -> {
+            redisReads.increment();
+            return testDataRepository.findById(id);
+        };
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder completed = new LongAdder();
+        int perThread = reads / threads;
+        long start = System.nanoTime();
+        try (WorkerGroup workers = new WorkerGroup(run, "l1 cache " + mode.toLowerCase(Locale.ROOT))) {
+            for (int t = 0; t < threads; t++) {
+                int count = t == threads - 1 ? reads - perThread * (threads - 1) : perThread;
+                workers.start(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < count && workers.isRunning(); i++) {
+                        String id = idPrefix + random.nextInt(records);
+                        boolean forceMiss = cache != null && random.nextDouble() >= hitRatio;
+                        long opStart = System.nanoTime();
+                        if (cache == null) {
+                            loader.apply(id);
+                        } else {
+                            if (forceMiss) {
+                                cache.invalidate(id);
+                            }
+                            cache.getOrLoad(id, loader);
+                        }
+                        latency.record(System.nanoTime() - opStart);
+                        completed.increment();
+                    }
+                });
+            }
+            workers.await();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("mode", mode);
+        if (cache != null && !mode.endsWith("MISSING")) {
+            result.put("targetHitRatio", hitRatio);
+        }
+        result.put("reads", completed.sum());
+        result.put("redisReads", redisReads.sum());
+        result.put("measuredHitRatio", Statistics.round(completed.sum() > 0 ? 1.0 - (double) redisReads.sum() / completed.sum() : 0.0, 4));
+        result.put("durationMs", elapsed / 1_000_000);
+        result.put("throughput", Statistics.round(completed.sum() * 1_000_000_000.0 / elapsed, 2));
+        result.put("latency", latency.toSummary());
+        if (cache != null) {
+            result.put("cache", cache.getMetrics());
+        }
+        return result;
+    }
+
+    private void seed(int records, BenchmarkRunScheduler.Run run) {
+        for (int i = 0; i < records && run.isActive(); i++) {
+            testDataRepository.save(new TestData(ID_PREFIX + i, "L1 Bench " + i, "L1 cache benchmark record " + i, LocalDateTime.now(), i));
+        }
+    }
+
+    private void cleanup(int records) {
+        try {
+            List<String> ids = new ArrayList<>(DELETE_BATCH_SIZE);
+            for (int i = 0; i < records; i++) {
+                ids.add(ID_PREFIX + i);
+                if (ids.size() == DELETE_BATCH_SIZE || i == records - 1) {
+                    testDataRepository.deleteAllById(ids);
+                    ids.clear();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("L1 cache benchmark cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    private void addResult(Map<String, Object> result, Map<String, Object> baseline) {
+        if (baseline != null) {
+            double baseThroughput = (double) baseline.get("throughput");
+            result.put("speedup", Statistics.round(baseThroughput > 0 ? (double) result.get("throughput") / baseThroughput : 0.0, 2));
+        }
+        suite.addResult(result);
+        log.info("L1 cache benchmark {} (hit ratio {}): {} reads/s", result.get("mode"), result.get("measuredHitRatio"), result.get("throughput"));
+    }
+
+    public boolean isTestRunning() {
+        return suite.isRunning();
+    }
+
+    public Map<String, Object> getStatus() {
+        return suite.getStatus();
+    }
+}
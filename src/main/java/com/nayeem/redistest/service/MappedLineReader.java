@@ -0,0 +1,107 @@
+package com.nayeem.redistest.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a file line by line through memory-mapped windows. Each line is copied into one reusable
+ * buffer, so the heap holds a single line however large the file is; the mapped pages are read
+ * by the OS and count against the page cache, not the heap. Lines end at '\n', with a trailing
+ * '\r' stripped. {@link #lineStart()} is the byte offset of the current line and
+ * {@link #position()} that of the next one, which is what a checkpoint stores to resume.
+ */
+final class MappedLineReader implements Closeable {
+
+    private static final long WINDOW_BYTES = 64L * 1024 * 1024;
+    private static final int MAX_LINE_BYTES = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+    private long lineStart;
+    private byte[] line = new byte[8192];
+    private int lineLength;
+
+    MappedLineReader(Path file, long startOffset) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        if (startOffset < 0 || startOffset > size) {
+            channel.close();
+            throw new IOException("Offset " + startOffset + " is outside " + file + " (" + size + " bytes)");
+        }
+        this.position = startOffset;
+        map(startOffset);
+    }
+
+    /** Advances to the next line; returns false at the end of the file. */
+    boolean next() throws IOException {
+        if (position >= size) {
+            return false;
+        }
+        lineLength = 0;
+        lineStart = position;
+        while (position < size) {
+            if (position >= windowStart + window.limit()) {
+                map(position);
+            }
+            byte b = window.get((int) (position - windowStart));
+            position++;
+            if (b == '\n') {
+                break;
+            }
+            append(b);
+        }
+        if (lineLength > 0 && line[lineLength - 1] == '\r') {
+            lineLength--;
+        }
+        return true;
+    }
+
+    byte[] buffer() {
+        return line;
+    }
+
+    int length() {
+        return lineLength;
+    }
+
+    long lineStart() {
+        return lineStart;
+    }
+
+    long position() {
+        return position;
+    }
+
+    long size() {
+        return size;
+    }
+
+    private void append(byte b) throws IOException {
+        if (lineLength == line.length) {
+            if (line.length >= MAX_LINE_BYTES) {
+                throw new IOException("Line at offset " + lineStart + " is longer than " + MAX_LINE_BYTES + " bytes");
+            }
+            line = Arrays.copyOf(line, Math.min(MAX_LINE_BYTES, line.length * 2));
+        }
+        line[lineLength++] = b;
+    }
+
+    private void map(long start) throws IOException {
+        windowStart = start;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_BYTES, size - start));
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
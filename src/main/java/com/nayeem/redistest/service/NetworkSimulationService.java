@@ -0,0 +1,79 @@
+package com.nayeem.redistest.service;
+
+import com.nayeem.redistest.proxy.LatencyProxy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Service
+@Slf4j
+public class NetworkSimulationService {
+
+    private final LatencyProxy latencyProxy;
+
+    public NetworkSimulationService(ObjectProvider<LatencyProxy> latencyProxy) {
+        this.latencyProxy = latencyProxy.getIfAvailable();
+    }
+
+    public boolean isProxyEnabled() {
+        return latencyProxy != null;
+    }
+
+    // Applies the simulated RTT requested for a benchmark run; null keeps the current setting
+    public void applySimulatedRtt(Double rttMs) {
+        if (rttMs == null) {
+            return;
+        }
+        if (rttMs < 0) {
+            throw new IllegalArgumentException("Simulated RTT must not be negative");
+        }
+        requireProxy().setSimulatedRtt(rttMs);
+        log.info("Simulated RTT set to {} ms", rttMs);
+    }
+
+    public void updateSettings(Double oneWayLatencyMs, Double jitterMs, Long bandwidthBytesPerSec,
+                               Integer packetSize, Long perPacketDelayUs) {
+        LatencyProxy proxy = requireProxy();
+        if (oneWayLatencyMs != null) {
+            proxy.setOneWayLatencyMillis(oneWayLatencyMs);
+        }
+        if (jitterMs != null) {
+            proxy.setJitterMillis(jitterMs);
+        }
+        if (bandwidthBytesPerSec != null) {
+            proxy.setBandwidthBytesPerSec(bandwidthBytesPerSec);
+        }
+        if (packetSize != null) {
+            proxy.setPacketSize(packetSize);
+        }
+        if (perPacketDelayUs != null) {
+            proxy.setPerPacketDelayMicros(perPacketDelayUs);
+        }
+        log.info("Latency proxy settings updated: {}", proxy.getSettings());
+    }
+
+    public double getSimulatedRttMs() {
+        return latencyProxy != null ? latencyProxy.getSimulatedRttMillis() : 0.0;
+    }
+
+    public Map<String, Object> getSettings() {
+        if (latencyProxy == null) {
+            Map<String, Object> settings = new HashMap<>();
+            settings.put("enabled", false);
+            return settings;
+        }
+        Map<String, Object> settings = latencyProxy.getSettings();
+        settings.put("enabled", true);
+        return settings;
+    }
+
+    private LatencyProxy requireProxy() {
+        if (latencyProxy == null) {
+            throw new IllegalStateException("Latency proxy is not enabled (set redis.proxy.enabled=true)");
+        }
+        return latencyProxy;
+    }
+}
@@ -0,0 +1,143 @@
+package com.nayeem.redistest.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nayeem.redistest.benchmark.LatencyHistogram;
+import com.nayeem.redistest.benchmark.Statistics;
+import com.nayeem.redistest.model.TestData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compares the deserializing read path (Redis JSON -> TestData -> HashMap -> Jackson) with the
+ * passthrough path (Redis bytes copied into the envelope), for single and multi-get reads. Each
+ * request runs what the controller would, including building the response body, and is measured
+ * for CPU time and bytes allocated on the calling thread, process CPU (which also covers Lettuce's
+ * event-loop threads) and latency.
+ */
+@Service
+@Slf4j
+public class PassthroughBenchmarkService {
+
+    public enum Mode { TYPED_SINGLE, RAW_SINGLE, TYPED_MULTI, RAW_MULTI }
+
+    private static final String SEED_PREFIX = "passthrough-";
+
+    private final RedisService redisService;
+    private final ObjectMapper objectMapper;
+    private final com.sun.management.ThreadMXBean threadBean;
+    private final com.sun.management.OperatingSystemMXBean osBean;
+
+    public PassthroughBenchmarkService(RedisService redisService, ObjectMapper objectMapper) {
+        this.redisService = redisService;
+        this.objectMapper = objectMapper;
+        this.threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        this.osBean = (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+    }
+
+    public Map<String, Object> run(int requests, int batchSize, int seedRecords) throws Exception {
+        int records = Math.max(1, seedRecords);
+        for (int i = 0; i < records; i++) {
+            redisService.saveTestData(new TestData(SEED_PREFIX + i, "Passthrough " + i, "Passthrough benchmark record", null, i));
+        }
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("requests", requests);
+        results.put("batchSize", batchSize);
+        results.put("seedRecords", records);
+        results.put("threadCpuMeasured", threadBean.isCurrentThreadCpuTimeSupported());
+        results.put("allocationMeasured", threadBean.isThreadAllocatedMemorySupported());
+        List<Map<String, Object>> modes = new ArrayList<>();
+        for (Mode mode : Mode.values()) {
+            // Untimed warmup so JIT and connection setup are not charged to the first mode
+            for (int i = 0; i < Math.max(100, requests / 10); i++) {
+                execute(mode, batchSize, records);
+            }
+            modes.add(measure(mode, requests, batchSize, records));
+        }
+        results.put("modes", modes);
+        log.info("Passthrough benchmark finished: {} requests per mode", requests);
+        return results;
+    }
+
+    private Map<String, Object> measure(Mode mode, int requests, int batchSize, int records) throws Exception {
+        LatencyHistogram latency = new LatencyHistogram();
+        long threadId = Thread.currentThread().getId();
+        long responseBytes = 0;
+
+        long cpuStart = threadBean.getCurrentThreadCpuTime();
+        long allocStart = threadBean.getThreadAllocatedBytes(threadId);
+        long processCpuStart = osBean.getProcessCpuTime();
+        long wallStart = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            long start = System.nanoTime();
+            responseBytes += execute(mode, batchSize, records).length;
+            latency.record(System.nanoTime() - start);
+        }
+        long wallNanos = System.nanoTime() - wallStart;
+        long processCpuNanos = osBean.getProcessCpuTime() - processCpuStart;
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocStart;
+        long cpuNanos = threadBean.getCurrentThreadCpuTime() - cpuStart;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("mode", mode.name());
+        result.put("requestsPerSec", Statistics.round(wallNanos > 0 ? requests * 1_000_000_000.0 / wallNanos : 0.0, 2));
+        result.put("threadCpuUsPerRequest", Statistics.round(cpuNanos / 1000.0 / requests, 3));
+        result.put("processCpuUsPerRequest", Statistics.round(processCpuNanos / 1000.0 / requests, 3));
+        result.put("allocatedBytesPerRequest", allocated / requests);
+        result.put("responseBytesPerRequest", responseBytes / requests);
+        result.put("latency", latency.toSummary());
+        return result;
+    }
+
+    // One request as the controller serves it; returns the response body
+    private byte[] execute(Mode mode, int batchSize, int records) throws Exception {
+        switch (mode) {
+            case TYPED_SINGLE -> {
+                TestData data = redisService.getTestData(randomId(records));
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", true);
+                response.put("data", data);
+                return objectMapper.writeValueAsBytes(response);
+            }
+            case RAW_SINGLE -> {
+                return RawJsonEnvelope.single(Objects.requireNonNull(redisService.getRawTestData(randomId(records))));
+            }
+            case TYPED_MULTI -> {
+                List<String> ids = randomIds(batchSize, records);
+                RedisService.MultiGet result = redisService.multiGet(ids, ReplicaReads.Consistency.PRIMARY);
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", true);
+                response.put("data", result.found());
+                response.put("count", result.found().size());
+                response.put("missing", result.missing());
+                return objectMapper.writeValueAsBytes(response);
+            }
+            case RAW_MULTI -> {
+                List<String> ids = randomIds(batchSize, records);
+                return RawJsonEnvelope.multi(ids, redisService.getRawTestDataBatch(ids));
+            }
+            default -> throw new IllegalArgumentException("Unknown mode " + mode);
+        }
+    }
+
+    private static String randomId(int records) {
+        return SEED_PREFIX + ThreadLocalRandom.current().nextInt(records);
+    }
+
+    private static List<String> randomIds(int count, int records) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(randomId(records));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,241 @@
+package com.nayeem.redistest.service;
+
+import com.nayeem.redistest.benchmark.BenchmarkRunScheduler;
+import com.nayeem.redistest.benchmark.LatencyHistogram;
+import com.nayeem.redistest.benchmark.Statistics;
+import com.nayeem.redistest.model.TestData;
+import com.nayeem.redistest.repository.TestDataRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sweeps the size of TestData.description (64 B to 1 MB by default) and measures writes and
+ * reads through RedisTemplate (SET EX / GET of the JSON value) and the Spring Data repository
+ * (HMSET of the hash plus its indexes / HGETALL). Every step reports ops/s, payload MB/s, latency
+ * percentiles, bytes allocated per operation on the benchmark thread (serialization, Lettuce
+ * command encoding and reply copies) and the GC activity of the whole JVM, which also covers
+ * Lettuce's event-loop threads.
+ *
+ * <p>Content is either random alphanumerics or a repeated phrase. Neither path compresses
+ * values, so the two differ only in what Jackson and the network have to move; the option is
+ * there to compare against a compressing serializer or a proxy that compresses.
+ *
+ * <p>Operations per step are capped by a byte budget so the 1 MB step does not write gigabytes,
+ * and ids cycle over a small key space that is deleted after each step.
+ */
+@Service
+@Slf4j
+public class PayloadSweepBenchmarkService {
+
+    public enum Content {
+        RANDOM, COMPRESSIBLE
+    }
+
+    public enum Path {
+        REDISTEMPLATE, SPRINGDATA
+    }
+
+    private static final String KEY_PREFIX = "testdata:";
+    private static final String ID_PREFIX = "payload-sweep-";
+    private static final int MIN_OPERATIONS = 20;
+    private static final long KEYSPACE_BYTES = 64L * 1024 * 1024;
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+    private static final String PHRASE = "Redis performance test payload. ";
+
+    private final RedisTemplate<String, TestData> redisTemplate;
+    private final TestDataRepository testDataRepository;
+    private final TestDataBloomFilter existenceFilter;
+    private final com.sun.management.ThreadMXBean threadBean;
+
+    private final BenchmarkSuite suite;
+
+    public PayloadSweepBenchmarkService(RedisTemplate<String, TestData> redisTemplate,
+                                        TestDataRepository testDataRepository,
+                                        BenchmarkRunScheduler runScheduler,
+                                        BenchmarkResultStore resultStore,
+                                        TestDataBloomFilter existenceFilter) {
+        this.redisTemplate = redisTemplate;
+        this.testDataRepository = testDataRepository;
+        this.suite = new BenchmarkSuite("payload-sweep", "Payload sweep", runScheduler, resultStore);
+        this.existenceFilter = existenceFilter;
+        this.threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+
+    public boolean startSweep(List<Integer> sizes, Content content, List<Path> paths, int operations, long byteBudget) {
+        Map<String, Object> runConfig = new LinkedHashMap<>();
+        runConfig.put("sizes", sizes);
+        runConfig.put("content", content);
+        runConfig.put("paths", paths);
+        runConfig.put("operations", operations);
+        runConfig.put("byteBudget", byteBudget);
+        runConfig.put("allocationMeasured", threadBean.isThreadAllocatedMemorySupported());
+
+        return suite.launch(runConfig, run -> {
+            for (int size : sizes) {
+                String description = description(size, content);
+                for (Path path : paths) {
+                    if (!run.isActive()) {
+                        return;
+                    }
+                    suite.phase(path + " @ " + size + " B");
+                    addResult(runStep(path, size, description, operations, byteBudget, run));
+                }
+            }
+        });
+    }
+
+    private Map<String, Object> runStep(Path path, int size, String description, int operations, long byteBudget,
+                                        BenchmarkRunScheduler.Run run) {
+        int ops = (int) Math.max(MIN_OPERATIONS, Math.min(operations, byteBudget / size));
+        int keys = (int) Math.max(1, Math.min(ops, KEYSPACE_BYTES / size));
+        TestData sample = record(0, description);
+        @SuppressWarnings("unchecked")
+        RedisSerializer<TestData> serializer = (RedisSerializer<TestData>) redisTemplate.getValueSerializer();
+        byte[] json = serializer.serialize(sample);
+        int payloadBytes = json != null ? json.length : size;
+
+        // Untimed warmup so JIT and buffer growth are not charged to the first sample
+        for (int i = 0; i < Math.min(MIN_OPERATIONS, keys) && run.isActive(); i++) {
+            write(path, record(i, description));
+            read(path, i);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("path", path.name());
+        result.put("descriptionBytes", size);
+        result.put("payloadBytes", payloadBytes);
+        result.put("operations", ops);
+        result.put("distinctKeys", keys);
+        result.put("write", measure(ops, payloadBytes, run, i -> write(path, record(i % keys, description))));
+        result.put("read", measure(ops, payloadBytes, run, i -> read(path, i % keys)));
+        cleanup(path, keys);
+        return result;
+    }
+
+    private interface Operation {
+        void run(int index);
+    }
+
+    private Map<String, Object> measure(int ops, int payloadBytes, BenchmarkRunScheduler.Run run, Operation operation) {
+        LatencyHistogram latency = new LatencyHistogram();
+        long threadId = Thread.currentThread().getId();
+        long errors = 0;
+        int completed = 0;
+        long[] gcBefore = gcTotals();
+        long allocStart = threadBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < ops && run.isActive(); i++) {
+            long opStart = System.nanoTime();
+            try {
+                operation.run(i);
+                latency.record(System.nanoTime() - opStart);
+            } catch (RuntimeException e) {
+                errors++;
+            }
+            completed++;
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocStart;
+        long[] gcAfter = gcTotals();
+
+        double seconds = elapsed / 1_000_000_000.0;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("operations", completed);
+        result.put("errors", errors);
+        result.put("opsPerSec", Statistics.round(seconds > 0 ? completed / seconds : 0.0, 2));
+        result.put("mbPerSec", Statistics.round(seconds > 0 ? (double) completed * payloadBytes / seconds / (1024 * 1024) : 0.0, 2));
+        result.put("latency", latency.toSummary());
+        result.put("allocatedBytesPerOp", completed > 0 ? allocated / completed : 0);
+        result.put("allocationPerPayloadByte", Statistics.round(completed > 0 ? (double) allocated / completed / payloadBytes : 0.0, 2));
+        result.put("gcCount", gcAfter[0] - gcBefore[0]);
+        result.put("gcTimeMs", gcAfter[1] - gcBefore[1]);
+        return result;
+    }
+
+    private void write(Path path, TestData data) {
+        if (path == Path.REDISTEMPLATE) {
+            existenceFilter.add(data.getId());
+            redisTemplate.opsForValue().set(KEY_PREFIX + data.getId(), data, 1, TimeUnit.HOURS);
+        } else {
+            testDataRepository.save(data);
+        }
+    }
+
+    private void read(Path path, int index) {
+        TestData data = path == Path.REDISTEMPLATE
+                ? redisTemplate.opsForValue().get(KEY_PREFIX + ID_PREFIX + index)
+                : testDataRepository.findById(ID_PREFIX + index).orElse(null);
+        if (data == null) {
+            throw new IllegalStateException("Missing " + ID_PREFIX + index);
+        }
+    }
+
+    private void cleanup(Path path, int keys) {
+        List<String> ids = new ArrayList<>(keys);
+        for (int i = 0; i < keys; i++) {
+            ids.add(ID_PREFIX + i);
+        }
+        if (path == Path.REDISTEMPLATE) {
+            redisTemplate.delete(ids.stream().map(id -> KEY_PREFIX + id).toList());
+        } else {
+            testDataRepository.deleteAllById(ids);
+        }
+    }
+
+    private static TestData record(int index, String description) {
+        return new TestData(ID_PREFIX + index, "Payload Sweep " + index, description, LocalDateTime.now(), index);
+    }
+
+    // Random alphanumerics barely compress; the repeated phrase compresses to almost nothing
+    static String description(int size, Content content) {
+        StringBuilder builder = new StringBuilder(size);
+        if (content == Content.RANDOM) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < size; i++) {
+                builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+        } else {
+            while (builder.length() < size) {
+                builder.append(PHRASE, 0, Math.min(PHRASE.length(), size - builder.length()));
+            }
+        }
+        return builder.toString();
+    }
+
+    private static long[] gcTotals() {
+        long count = 0;
+        long timeMs = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+            timeMs += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[] {count, timeMs};
+    }
+
+    private void addResult(Map<String, Object> result) {
+        suite.addResult(result);
+        log.info("Payload sweep {} @ {} B: write {}, read {}", result.get("path"), result.get("descriptionBytes"),
+                ((Map<?, ?>) result.get("write")).get("mbPerSec") + " MB/s",
+                ((Map<?, ?>) result.get("read")).get("mbPerSec") + " MB/s");
+    }
+
+    public boolean isTestRunning() {
+        return suite.isRunning();
+    }
+
+    public Map<String, Object> getStatus() {
+        return suite.getStatus();
+    }
+}
@@ -1,5 +1,10 @@
 package com.nayeem.redistest.service;
 
+import com.nayeem.redistest.benchmark.BenchmarkRunScheduler;
+import com.nayeem.redistest.benchmark.RunOptions;
+import com.nayeem.redistest.benchmark.RunRecorder;
+import com.nayeem.redistest.benchmark.WarmupPolicy;
+import com.nayeem.redistest.config.BenchmarkSettings;
 import com.nayeem.redistest.model.TestData;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -7,7 +12,12 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -17,37 +27,63 @@ import java.util.concurrent.atomic.AtomicLong;
 public class PerformanceTestService {
 
     private final RedisTemplate<String, TestData> redisTemplate;
+    private final BenchmarkSettings benchmarkSettings;
+    private final BenchmarkRunScheduler runScheduler;
+    private final ServerStatsSampler serverStatsSampler;
+    private final JfrRunProfiler jfrRunProfiler;
+    private final BenchmarkResultStore resultStore;
+    private final TestDataBloomFilter existenceFilter;
     private static final String KEY_PREFIX = "testdata:";
     private static final String PERFORMANCE_TEST_PREFIX = "perf-test:";
+    // Warmup records are kept apart from the measured perf-test ids and removed after the run
+    private static final String WARMUP_PREFIX = "perf-warmup-";
     
     private final AtomicBoolean testRunning = new AtomicBoolean(false);
     private final AtomicLong insertedCount = new AtomicLong(0);
     private final AtomicLong totalInserted = new AtomicLong(0);
+    private volatile RunRecorder currentRun;
+    private volatile BenchmarkRunScheduler.Run activeRun;
 
-    public void startPerformanceTest(int totalRecords) {
-        if (testRunning.get()) {
+    // A profiled run gets a JFR recording summarized into its results
+    public void startPerformanceTest(RunOptions options) {
+        if (!testRunning.compareAndSet(false, true)) {
             log.warn("Performance test is already running!");
             return;
         }
-
-        testRunning.set(true);
+        BenchmarkRunScheduler.Run run;
+        try {
+            run = runScheduler.open("redistemplate-performance", options.deadlineMs());
+        } catch (RejectedExecutionException e) {
+            testRunning.set(false);
+            throw e;
+        }
+        activeRun = run;
+        if (options.profile()) {
+            jfrRunProfiler.start(run);
+        }
         insertedCount.set(0);
         totalInserted.set(0);
+        RunRecorder recorder = benchmarkSettings.newRecorder("redistemplate", options.warmup());
+        currentRun = recorder;
+        recorder.start();
 
-        log.info("Starting performance test with {} records", totalRecords);
-
-        // Start data insertion thread
-        CompletableFuture<Void> insertionTask = CompletableFuture.runAsync(() -> {
-            insertDataInBatches(totalRecords);
-        });
+        log.info("Starting performance test with {} records (warmup: {})", options.records(), options.warmup());
 
-        // Start count monitoring thread
-        CompletableFuture<Void> monitoringTask = CompletableFuture.runAsync(() -> {
-            monitorDataCount();
-        });
+        // Insertion and monitoring run on the benchmark executor, not the common ForkJoinPool
+        CompletableFuture<Void> insertionTask;
+        CompletableFuture<Void> monitoringTask;
+        try {
+            insertionTask = run.submit(() -> insertDataInBatches(options.records(), recorder, run));
+            monitoringTask = run.submit(() -> monitorDataCount(recorder));
+        } catch (RejectedExecutionException e) {
+            run.stop();
+            run.close();
+            testRunning.set(false);
+            throw e;
+        }
 
         // Wait for insertion to complete
-        insertionTask.thenRun(() -> {
+        insertionTask.whenComplete((result, error) -> {
             log.info("Data insertion completed. Total inserted: {}", totalInserted.get());
             testRunning.set(false);
         });
@@ -56,14 +92,33 @@ public class PerformanceTestService {
         monitoringTask.thenRun(() -> {
             log.info("Monitoring completed");
         });
+        // Saved once the run's last server sample and profile summary are in
+        CompletableFuture.allOf(insertionTask, monitoringTask).whenComplete((result, error) -> {
+            run.closeAndAwait();
+            resultStore.save(run.getName(), runConfig(options.records(), options.warmup(), run), runResults(recorder, run),
+                    List.of(BenchmarkResultStore.series(recorder)));
+        });
     }
 
-    private void insertDataInBatches(int totalRecords) {
+    // Asks the running test to stop after its current write; returns false when none is running
+    public boolean stopPerformanceTest() {
+        BenchmarkRunScheduler.Run run = activeRun;
+        if (!testRunning.get() || run == null) {
+            return false;
+        }
+        run.stop();
+        return true;
+    }
+
+    private void insertDataInBatches(int totalRecords, RunRecorder recorder, BenchmarkRunScheduler.Run run) {
+        warmUp(recorder, run);
+        recorder.beginMeasurement();
         long startTime = System.currentTimeMillis();
+        String idFormat = idFormat(totalRecords);
         
-        for (int i = 1; i <= totalRecords; i++) {
+        for (int i = 1; i <= totalRecords && run.isActive(); i++) {
             try {
-                String id = PERFORMANCE_TEST_PREFIX + String.format("%06d", i);
+                String id = PERFORMANCE_TEST_PREFIX + String.format(idFormat, i);
                 TestData testData = new TestData(
                     id,
                     "Performance Test Data " + i,
@@ -73,7 +128,10 @@ public class PerformanceTestService {
                 );
 
                 String key = KEY_PREFIX + id;
+                long opStart = System.nanoTime();
+                existenceFilter.add(id);
                 redisTemplate.opsForValue().set(key, testData, 1, java.util.concurrent.TimeUnit.HOURS);
+                recorder.recordOp(System.nanoTime() - opStart);
                 
                 insertedCount.incrementAndGet();
                 totalInserted.incrementAndGet();
@@ -86,28 +144,75 @@ public class PerformanceTestService {
                 }
 
             } catch (Exception e) {
+                recorder.recordError();
                 log.error("Error inserting record {}: {}", i, e.getMessage());
             }
         }
         
+        recorder.finish();
         long endTime = System.currentTimeMillis();
-        double totalRate = (double) totalRecords / ((endTime - startTime) / 1000.0);
+        double totalRate = (double) insertedCount.get() / ((endTime - startTime) / 1000.0);
+        if (run.getStopReason() != null) {
+            log.info("Insertion ended early ({}) after {} of {} records", run.getStopReason(), insertedCount.get(), totalRecords);
+        }
         log.info("Insertion completed in {} ms. Average rate: {:.2f} records/sec", 
                 (endTime - startTime), totalRate);
+        removeWarmupData();
+    }
+
+    // Zero-padded to at least six digits, wider when the run needs more, so ids keep sorting numerically
+    static String idFormat(int totalRecords) {
+        return "%0" + Math.max(6, Integer.toString(totalRecords).length()) + "d";
+    }
+
+    // Same write path as the measured phase, but excluded from the results
+    private void warmUp(RunRecorder recorder, BenchmarkRunScheduler.Run run) {
+        int i = 0;
+        while (recorder.isWarmingUp() && run.isActive()) {
+            i++;
+            try {
+                String id = WARMUP_PREFIX + i;
+                TestData testData = new TestData(
+                    id,
+                    "Warmup Data " + i,
+                    "This is performance test warmup entry number " + i,
+                    LocalDateTime.now(),
+                    i
+                );
+                long opStart = System.nanoTime();
+                redisTemplate.opsForValue().set(KEY_PREFIX + id, testData, 5, java.util.concurrent.TimeUnit.MINUTES);
+                recorder.recordWarmupOp(System.nanoTime() - opStart);
+            } catch (Exception e) {
+                log.error("Error inserting warmup record {}: {}", i, e.getMessage());
+            }
+        }
+        if (i > 0) {
+            log.info("Warmup completed with {} records", i);
+        }
+    }
+
+    // The TTL only covers a process that dies mid-run; a finished run removes its warmup keys at once
+    private void removeWarmupData() {
+        try {
+            ScanSupport.unlinkKeys(redisTemplate, KEY_PREFIX + WARMUP_PREFIX + "*");
+        } catch (Exception e) {
+            log.error("Error removing warmup records: {}", e.getMessage());
+        }
     }
 
-    private void monitorDataCount() {
+    private void monitorDataCount(RunRecorder recorder) {
         long startTime = System.currentTimeMillis();
         int monitoringCount = 0;
         
         while (testRunning.get()) {
             try {
+                recorder.sample();
                 long currentCount = getTotalDataCount();
                 long currentTime = System.currentTimeMillis();
                 monitoringCount++;
                 
-                log.info("Monitoring #{} - Total records in Redis: {} (elapsed: {} ms)", 
-                        monitoringCount, currentCount, (currentTime - startTime));
+                log.info("Monitoring #{} - Total records in Redis: {} (elapsed: {} ms, phase: {})", 
+                        monitoringCount, currentCount, (currentTime - startTime), recorder.getPhase());
                 
                 Thread.sleep(500); // Wait 0.5 seconds
                 
@@ -127,8 +232,7 @@ public class PerformanceTestService {
 
     public long getTotalDataCount() {
         try {
-            java.util.Set<String> keys = redisTemplate.keys(KEY_PREFIX + "*");
-            return keys != null ? keys.size() : 0;
+            return ScanSupport.countKeys(redisTemplate, KEY_PREFIX + "*");
         } catch (Exception e) {
             log.error("Error getting total count: {}", e.getMessage());
             return 0;
@@ -137,8 +241,7 @@ public class PerformanceTestService {
 
     public long getPerformanceTestDataCount() {
         try {
-            java.util.Set<String> keys = redisTemplate.keys(KEY_PREFIX + PERFORMANCE_TEST_PREFIX + "*");
-            return keys != null ? keys.size() : 0;
+            return ScanSupport.countKeys(redisTemplate, KEY_PREFIX + PERFORMANCE_TEST_PREFIX + "*");
         } catch (Exception e) {
             log.error("Error getting performance test count: {}", e.getMessage());
             return 0;
@@ -147,10 +250,10 @@ public class PerformanceTestService {
 
     public void clearPerformanceTestData() {
         try {
-            java.util.Set<String> keys = redisTemplate.keys(KEY_PREFIX + PERFORMANCE_TEST_PREFIX + "*");
-            if (keys != null && !keys.isEmpty()) {
-                redisTemplate.delete(keys);
-                log.info("Cleared {} performance test records", keys.size());
+            // SCAN + UNLINK in batches, so millions of keys are never held in memory at once
+            long cleared = ScanSupport.unlinkKeys(redisTemplate, KEY_PREFIX + PERFORMANCE_TEST_PREFIX + "*");
+            if (cleared > 0) {
+                log.info("Cleared {} performance test records", cleared);
             }
         } catch (Exception e) {
             log.error("Error clearing performance test data: {}", e.getMessage());
@@ -168,4 +271,38 @@ public class PerformanceTestService {
     public long getTotalInserted() {
         return totalInserted.get();
     }
+
+    // STOPPED or DEADLINE when the last run ended early, otherwise null
+    public String getStopReason() {
+        BenchmarkRunScheduler.Run run = activeRun;
+        return run != null && run.getStopReason() != null ? run.getStopReason().name() : null;
+    }
+
+    public Map<String, Object> getRunResults() {
+        RunRecorder recorder = currentRun;
+        if (recorder == null) {
+            return Collections.emptyMap();
+        }
+        return runResults(recorder, activeRun);
+    }
+
+    private Map<String, Object> runResults(RunRecorder recorder, BenchmarkRunScheduler.Run run) {
+        Map<String, Object> results = recorder.summary();
+        if (run != null) {
+            results.put("serverStats", serverStatsSampler.report(run.getId(), List.of(recorder)));
+            Map<String, Object> jfr = jfrRunProfiler.report(run.getId());
+            if (jfr != null) {
+                results.put("profile", jfr);
+            }
+        }
+        return results;
+    }
+
+    private static Map<String, Object> runConfig(int totalRecords, WarmupPolicy warmupPolicy, BenchmarkRunScheduler.Run run) {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("records", totalRecords);
+        config.put("warmup", warmupPolicy);
+        config.put("stopReason", run.getStopReason());
+        return config;
+    }
 }
@@ -0,0 +1,79 @@
+package com.nayeem.redistest.service;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Builds the usual {"success": ..., "data": ...} response body around JSON values that are
+ * already serialized (as stored in Redis), by copying bytes instead of going through Jackson.
+ */
+public final class RawJsonEnvelope {
+
+    private static final byte[] SUCCESS_DATA = ascii("{\"success\":true,\"data\":");
+    private static final byte[] NOT_FOUND = ascii("{\"success\":false,\"message\":\"Data not found for id: ");
+    private static final byte[] COUNT = ascii(",\"count\":");
+    private static final byte[] MISSING = ascii(",\"missing\":[");
+
+    private RawJsonEnvelope() {
+    }
+
+    public static byte[] single(byte[] json) {
+        byte[] body = new byte[SUCCESS_DATA.length + json.length + 1];
+        System.arraycopy(SUCCESS_DATA, 0, body, 0, SUCCESS_DATA.length);
+        System.arraycopy(json, 0, body, SUCCESS_DATA.length, json.length);
+        body[body.length - 1] = '}';
+        return body;
+    }
+
+    public static byte[] notFound(String id) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(NOT_FOUND.length + id.length() + 2);
+        body.writeBytes(NOT_FOUND);
+        body.writeBytes(JsonStringEncoder.getInstance().quoteAsUTF8(id));
+        body.writeBytes(ascii("\"}"));
+        return body.toByteArray();
+    }
+
+    // Found values in request order, plus the ids that had no value
+    public static byte[] multi(List<String> ids, List<byte[]> values) {
+        int size = SUCCESS_DATA.length + COUNT.length + MISSING.length + 16;
+        for (byte[] value : values) {
+            size += value != null ? value.length + 1 : 0;
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream(size);
+        body.writeBytes(SUCCESS_DATA);
+        body.write('[');
+        int found = 0;
+        for (byte[] value : values) {
+            if (value != null) {
+                if (found++ > 0) {
+                    body.write(',');
+                }
+                body.writeBytes(value);
+            }
+        }
+        body.write(']');
+        body.writeBytes(COUNT);
+        body.writeBytes(ascii(Integer.toString(found)));
+        body.writeBytes(MISSING);
+        int missing = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            if (i >= values.size() || values.get(i) == null) {
+                if (missing++ > 0) {
+                    body.write(',');
+                }
+                body.write('"');
+                body.writeBytes(JsonStringEncoder.getInstance().quoteAsUTF8(ids.get(i)));
+                body.write('"');
+            }
+        }
+        body.writeBytes(ascii("]}"));
+        return body.toByteArray();
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
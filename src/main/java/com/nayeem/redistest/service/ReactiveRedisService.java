@@ -0,0 +1,51 @@
+package com.nayeem.redistest.service;
+
+import com.nayeem.redistest.model.TestData;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// Non-blocking variant of RedisService, writing the same "testdata:<id>" JSON values
+@Service
+@RequiredArgsConstructor
+public class ReactiveRedisService {
+
+    private final ReactiveRedisTemplate<String, TestData> reactiveRedisTemplate;
+    private final TestDataBloomFilter existenceFilter;
+    private static final String KEY_PREFIX = "testdata:";
+
+    public Mono<Boolean> saveTestData(TestData testData) {
+        String key = KEY_PREFIX + testData.getId();
+        testData.setCreatedAt(LocalDateTime.now());
+        existenceFilter.add(testData.getId());
+        return reactiveRedisTemplate.opsForValue().set(key, testData, Duration.ofHours(1)); // Expire after 1 hour
+    }
+
+    public Mono<TestData> getTestData(String id) {
+        return reactiveRedisTemplate.opsForValue().get(KEY_PREFIX + id);
+    }
+
+    public Mono<Boolean> deleteTestData(String id) {
+        return reactiveRedisTemplate.delete(KEY_PREFIX + id).map(deleted -> deleted > 0);
+    }
+
+    public Mono<Boolean> existsTestData(String id) {
+        return reactiveRedisTemplate.hasKey(KEY_PREFIX + id);
+    }
+
+    public Flux<TestData> getAllTestData() {
+        ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build();
+        return reactiveRedisTemplate.scan(options)
+                .buffer(500)
+                .concatMap(keys -> reactiveRedisTemplate.opsForValue().multiGet(keys))
+                // MGET returns nil for missing keys and for non-string keys under the same prefix
+                .flatMapIterable(values -> values.stream().filter(Objects::nonNull).toList());
+    }
+}
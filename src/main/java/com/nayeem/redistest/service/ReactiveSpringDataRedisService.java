@@ -0,0 +1,142 @@
+package com.nayeem.redistest.service;
+
+import com.nayeem.redistest.model.TestData;
+import org.springframework.data.redis.connection.ReactiveRedisConnection;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.convert.IndexedData;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Non-blocking variant of SpringDataRedisService. Spring Data Redis has no reactive repository
+ * support, so this maps entities with the repository's RedisConverter and issues the commands
+ * the repository would (hash, keyspace set, index sets) on the reactive connection. Data written
+ * here is readable through TestDataRepository and the other way round.
+ */
+@Service
+public class ReactiveSpringDataRedisService {
+
+    private static final String KEYSPACE = "testdata";
+
+    private final ReactiveRedisTemplate<String, TestData> reactiveRedisTemplate;
+    private final RedisConverter redisConverter;
+    private final RedisHashLayout layout;
+    private final TestDataBloomFilter existenceFilter;
+
+    public ReactiveSpringDataRedisService(ReactiveRedisTemplate<String, TestData> reactiveRedisTemplate,
+                                          RedisConverter redisConverter,
+                                          TestDataBloomFilter existenceFilter) {
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.redisConverter = redisConverter;
+        this.layout = new RedisHashLayout(redisConverter);
+        this.existenceFilter = existenceFilter;
+    }
+
+    public Mono<Void> saveTestData(TestData testData) {
+        testData.setCreatedAt(LocalDateTime.now());
+        RedisData data = new RedisData();
+        redisConverter.write(testData, data);
+        existenceFilter.add(data.getId());
+        byte[] id = layout.toBytes(data.getId());
+        byte[] objectKey = layout.objectKey(data.getKeyspace(), data.getId());
+        byte[] helperKey = layout.indexHelperKey(data.getKeyspace(), data.getId());
+
+        return withConnection(connection -> removeFromIndexes(connection, helperKey, id)
+                .then(Mono.defer(() -> {
+                    // Subscribed in order on one connection, so the commands are pipelined but applied in sequence
+                    List<Mono<?>> commands = new ArrayList<>();
+                    commands.add(connection.keyCommands().del(wrap(objectKey)));
+                    commands.add(connection.hashCommands().hMSet(wrap(objectKey), wrapAll(data.getBucket().rawMap())));
+                    commands.add(connection.setCommands().sAdd(wrap(layout.toBytes(data.getKeyspace())), wrap(id)));
+                    if (data.getTimeToLive() != null && data.getTimeToLive() > 0) {
+                        commands.add(connection.keyCommands().expire(wrap(objectKey), Duration.ofSeconds(data.getTimeToLive())));
+                    }
+                    for (IndexedData indexed : data.getIndexedData()) {
+                        byte[] indexKey = layout.indexKey(indexed);
+                        if (indexKey != null) {
+                            commands.add(connection.setCommands().sAdd(wrap(indexKey), wrap(id)));
+                            commands.add(connection.setCommands().sAdd(wrap(helperKey), wrap(indexKey)));
+                        }
+                    }
+                    return Mono.when(commands);
+                })));
+    }
+
+    public Mono<TestData> getTestData(String id) {
+        byte[] objectKey = layout.objectKey(KEYSPACE, id);
+        return withConnection(connection -> connection.hashCommands().hGetAll(wrap(objectKey))
+                .collectMap(entry -> toArray(entry.getKey()), entry -> toArray(entry.getValue()), LinkedHashMap::new)
+                .filter(raw -> !raw.isEmpty())
+                .map(raw -> {
+                    RedisData data = new RedisData(raw);
+                    data.setId(id);
+                    data.setKeyspace(KEYSPACE);
+                    return redisConverter.read(TestData.class, data);
+                }));
+    }
+
+    public Mono<Boolean> deleteTestData(String id) {
+        byte[] idBytes = layout.toBytes(id);
+        byte[] objectKey = layout.objectKey(KEYSPACE, id);
+        byte[] helperKey = layout.indexHelperKey(KEYSPACE, id);
+        return withConnection(connection -> connection.keyCommands().exists(wrap(objectKey))
+                .flatMap(exists -> !exists ? Mono.just(false) : removeFromIndexes(connection, helperKey, idBytes)
+                        .then(Mono.when(
+                                connection.keyCommands().del(wrap(objectKey)),
+                                connection.setCommands().sRem(wrap(layout.toBytes(KEYSPACE)), wrap(idBytes))))
+                        .thenReturn(true)));
+    }
+
+    public Mono<Boolean> existsTestData(String id) {
+        byte[] objectKey = layout.objectKey(KEYSPACE, id);
+        return withConnection(connection -> connection.keyCommands().exists(wrap(objectKey)));
+    }
+
+    public Flux<TestData> getAllTestData() {
+        byte[] keyspace = layout.toBytes(KEYSPACE);
+        return reactiveRedisTemplate.execute(connection -> connection.setCommands().sMembers(wrap(keyspace)))
+                .flatMap(member -> getTestData(new String(toArray(member), StandardCharsets.UTF_8)), 64);
+    }
+
+    // SMEMBERS the helper set, then SREM the id from every index set it lists and drop the helper set
+    private Mono<Void> removeFromIndexes(ReactiveRedisConnection connection, byte[] helperKey, byte[] id) {
+        return connection.setCommands().sMembers(wrap(helperKey))
+                .flatMap(indexKey -> connection.setCommands().sRem(indexKey, wrap(id)))
+                .then(connection.keyCommands().del(wrap(helperKey)))
+                .then();
+    }
+
+    private <T> Mono<T> withConnection(Function<ReactiveRedisConnection, Mono<T>> action) {
+        return reactiveRedisTemplate.execute(action::apply).next();
+    }
+
+    private static Map<ByteBuffer, ByteBuffer> wrapAll(Map<byte[], byte[]> raw) {
+        Map<ByteBuffer, ByteBuffer> wrapped = new HashMap<>(raw.size() * 2);
+        raw.forEach((field, value) -> wrapped.put(wrap(field), wrap(value)));
+        return wrapped;
+    }
+
+    private static ByteBuffer wrap(byte[] bytes) {
+        return ByteBuffer.wrap(bytes);
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+}
@@ -1,17 +1,34 @@
 package com.nayeem.redistest.service;
 
+import com.nayeem.redistest.benchmark.BenchmarkRunScheduler;
+import com.nayeem.redistest.benchmark.LatencyHistogram;
+import com.nayeem.redistest.benchmark.RunOptions;
+import com.nayeem.redistest.benchmark.RunRecorder;
+import com.nayeem.redistest.benchmark.Statistics;
+import com.nayeem.redistest.benchmark.WarmupPolicy;
+import com.nayeem.redistest.config.BenchmarkSettings;
 import com.nayeem.redistest.model.TestData;
 import com.nayeem.redistest.repository.TestDataRepository;
 import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 @Service
@@ -21,54 +38,126 @@ public class RedisComparisonService {
 
     private final RedisTemplate<String, TestData> redisTemplate;
     private final TestDataRepository testDataRepository;
+    private final BenchmarkSettings benchmarkSettings;
+    private final BenchmarkRunScheduler runScheduler;
+    private final ServerStatsSampler serverStatsSampler;
+    private final JfrRunProfiler jfrRunProfiler;
+    private final BenchmarkResultStore resultStore;
     
     private final AtomicBoolean testRunning = new AtomicBoolean(false);
     private final AtomicLong redisTemplateInsertedCount = new AtomicLong(0);
     private final AtomicLong springDataInsertedCount = new AtomicLong(0);
+    private volatile RunRecorder redisTemplateRun;
+    private volatile RunRecorder springDataRun;
+    private volatile BenchmarkRunScheduler.Run activeRun;
 
-    public void startComparisonTest(int totalRecords) {
+    private static final String REDIS_TEMPLATE = "redistemplate";
+    private static final String SPRING_DATA = "springdata";
+    private static final double CONFIDENCE = 0.95;
+
+    private final ScheduledExecutorService timelineSampler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "comparison-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicInteger completedTrials = new AtomicInteger(0);
+    private volatile int totalTrials;
+    private volatile Map<String, Object> trialResults = new LinkedHashMap<>();
+
+    // A profiled run gets a JFR recording summarized into its results
+    public void startComparisonTest(RunOptions options) {
         if (testRunning.compareAndSet(false, true)) {
-            log.info("Starting Redis comparison test with {} records", totalRecords);
+            BenchmarkRunScheduler.Run run = openRun("comparison", options.deadlineMs());
+            if (options.profile()) {
+                jfrRunProfiler.start(run);
+            }
+            log.info("Starting Redis comparison test with {} records (warmup: {})", options.records(), options.warmup());
             
             // Reset counters
             redisTemplateInsertedCount.set(0);
             springDataInsertedCount.set(0);
+            RunRecorder redisTemplateRecorder = benchmarkSettings.newRecorder("redistemplate", options.warmup());
+            RunRecorder springDataRecorder = benchmarkSettings.newRecorder("springdata", options.warmup());
+            redisTemplateRun = redisTemplateRecorder;
+            springDataRun = springDataRecorder;
+            redisTemplateRecorder.start();
+            springDataRecorder.start();
             
             // Start insertion threads for both approaches on the same Redis server
-            CompletableFuture<Void> redisTemplateInsertion = CompletableFuture.runAsync(() -> 
-                insertDataWithRedisTemplate(redisTemplate, "redistemplate", totalRecords, redisTemplateInsertedCount));
-            
-            CompletableFuture<Void> springDataInsertion = CompletableFuture.runAsync(() -> 
-                insertDataWithSpringData(totalRecords, springDataInsertedCount));
-            
-            // Start monitoring thread
-            CompletableFuture<Void> monitoring = CompletableFuture.runAsync(() -> 
-                monitorAllApproaches(totalRecords));
+            CompletableFuture<Void> redisTemplateInsertion;
+            CompletableFuture<Void> springDataInsertion;
+            CompletableFuture<Void> monitoring;
+            try {
+                redisTemplateInsertion = run.submit(() ->
+                    insertDataWithRedisTemplate(redisTemplate, "redistemplate", options.records(), redisTemplateInsertedCount, redisTemplateRecorder, run));
+
+                springDataInsertion = run.submit(() ->
+                    insertDataWithSpringData(options.records(), springDataInsertedCount, springDataRecorder, run));
+
+                // Start monitoring thread
+                monitoring = run.submit(() ->
+                    monitorAllApproaches(options.records(), redisTemplateRecorder, springDataRecorder));
+            } catch (RejectedExecutionException e) {
+                run.stop();
+                run.close();
+                testRunning.set(false);
+                throw e;
+            }
             
             // Wait for all insertions to complete
             CompletableFuture.allOf(redisTemplateInsertion, springDataInsertion)
-                .thenRun(() -> {
+                .whenComplete((result, error) -> {
                     testRunning.set(false);
                     log.info("Redis comparison test completed");
                 });
+            CompletableFuture.allOf(redisTemplateInsertion, springDataInsertion, monitoring)
+                .whenComplete((result, error) -> {
+                    // Saved once the run's last server sample and profile summary are in
+                    run.closeAndAwait();
+                    Map<String, Object> config = new LinkedHashMap<>();
+                    config.put("records", options.records());
+                    config.put("warmup", options.warmup());
+                    config.put("stopReason", run.getStopReason());
+                    resultStore.save(run.getName(), config, getRunResults(), List.of(
+                            BenchmarkResultStore.series(redisTemplateRecorder), BenchmarkResultStore.series(springDataRecorder)));
+                });
         } else {
             log.warn("Comparison test is already running");
         }
     }
 
     private void insertDataWithRedisTemplate(RedisTemplate<String, TestData> template, String serverName, 
-                                           int totalRecords, AtomicLong counter) {
-        long startTime = System.currentTimeMillis();
+                                           int totalRecords, AtomicLong counter, RunRecorder recorder,
+                                           BenchmarkRunScheduler.Run run) {
         String keyPrefix = "comparison:" + serverName + ":";
         
+        // Warmup writes go to their own expiring keys and are excluded from the results
+        int w = 0;
+        while (recorder.isWarmingUp() && run.isActive()) {
+            w++;
+            try {
+                TestData warmupData = new TestData(serverName + "-warmup-" + w, "Comparison Warmup Data",
+                    "Warming up " + serverName, LocalDateTime.now(), w);
+                long opStart = System.nanoTime();
+                template.opsForValue().set("comparison-warmup:" + serverName + ":" + w, warmupData, 5, java.util.concurrent.TimeUnit.MINUTES);
+                recorder.recordWarmupOp(System.nanoTime() - opStart);
+            } catch (Exception e) {
+                log.error("Error inserting warmup data to {} Redis: {}", serverName, e.getMessage());
+            }
+        }
+        recorder.beginMeasurement();
+        long startTime = System.currentTimeMillis();
+        
         try {
-            for (int i = 1; i <= totalRecords; i++) {
+            for (int i = 1; i <= totalRecords && run.isActive(); i++) {
                 String id = serverName + "-" + i;
                 TestData testData = new TestData(id, "Comparison Test Data", 
                     "Testing " + serverName + " Redis server", LocalDateTime.now(), i);
                 
                 String key = keyPrefix + id;
+                long opStart = System.nanoTime();
                 template.opsForValue().set(key, testData);
+                recorder.recordOp(System.nanoTime() - opStart);
                 counter.incrementAndGet();
                 
                 if (i % 1000 == 0) {
@@ -80,25 +169,45 @@ public class RedisComparisonService {
             }
             
             long totalTime = System.currentTimeMillis() - startTime;
-            double avgRate = (double) totalRecords / totalTime * 1000;
+            double avgRate = (double) counter.get() / totalTime * 1000;
             log.info("{} Redis insertion completed in {} ms. Average rate: {:.2f} records/sec", 
                 serverName, totalTime, avgRate);
                 
         } catch (Exception e) {
+            recorder.recordError();
             log.error("Error inserting data to {} Redis: {}", serverName, e.getMessage());
+        } finally {
+            recorder.finish();
         }
     }
 
-    private void insertDataWithSpringData(int totalRecords, AtomicLong counter) {
+    private void insertDataWithSpringData(int totalRecords, AtomicLong counter, RunRecorder recorder,
+                                          BenchmarkRunScheduler.Run run) {
+        int w = 0;
+        while (recorder.isWarmingUp() && run.isActive()) {
+            w++;
+            try {
+                TestData warmupData = new TestData("springdata-warmup-" + w, "Spring Data Warmup",
+                    "Warming up Spring Data Redis", LocalDateTime.now(), w);
+                long opStart = System.nanoTime();
+                testDataRepository.save(warmupData);
+                recorder.recordWarmupOp(System.nanoTime() - opStart);
+            } catch (Exception e) {
+                log.error("Error inserting warmup data with Spring Data: {}", e.getMessage());
+            }
+        }
+        recorder.beginMeasurement();
         long startTime = System.currentTimeMillis();
         
         try {
-            for (int i = 1; i <= totalRecords; i++) {
+            for (int i = 1; i <= totalRecords && run.isActive(); i++) {
                 String id = "springdata-" + i;
                 TestData testData = new TestData(id, "Spring Data Test", 
                     "Testing Spring Data Redis", LocalDateTime.now(), i);
                 
+                long opStart = System.nanoTime();
                 testDataRepository.save(testData);
+                recorder.recordOp(System.nanoTime() - opStart);
                 counter.incrementAndGet();
                 
                 if (i % 1000 == 0) {
@@ -109,21 +218,36 @@ public class RedisComparisonService {
             }
             
             long totalTime = System.currentTimeMillis() - startTime;
-            double avgRate = (double) totalRecords / totalTime * 1000;
+            double avgRate = (double) counter.get() / totalTime * 1000;
             log.info("Spring Data insertion completed in {} ms. Average rate: {:.2f} records/sec", 
                 totalTime, avgRate);
                 
         } catch (Exception e) {
+            recorder.recordError();
             log.error("Error inserting data with Spring Data: {}", e.getMessage());
+        } finally {
+            recorder.finish();
+        }
+        
+        // Repository entities have no TTL, so warmup records are removed once the run is over
+        for (int i = 1; i <= w; i++) {
+            try {
+                testDataRepository.deleteById("springdata-warmup-" + i);
+            } catch (Exception e) {
+                log.error("Error removing Spring Data warmup record {}: {}", i, e.getMessage());
+            }
         }
     }
 
-    private void monitorAllApproaches(int totalRecords) {
+    private void monitorAllApproaches(int totalRecords, RunRecorder redisTemplateRecorder, RunRecorder springDataRecorder) {
+        long startTime = System.currentTimeMillis();
         int monitoringCount = 0;
         
         while (testRunning.get()) {
             try {
                 monitoringCount++;
+                redisTemplateRecorder.sample();
+                springDataRecorder.sample();
                 
                 // Count records in RedisTemplate approach
                 long redisTemplateCount = getRedisTemplateCount(redisTemplate, "comparison:redistemplate:");
@@ -131,7 +255,7 @@ public class RedisComparisonService {
                 // Count records with Spring Data
                 long springDataCount = testDataRepository.count();
                 
-                long elapsed = System.currentTimeMillis() - System.currentTimeMillis();
+                long elapsed = System.currentTimeMillis() - startTime;
                 
                 log.info("Comparison Monitoring #{} - RedisTemplate: {}, Spring Data: {} (elapsed: {} ms)", 
                     monitoringCount, redisTemplateCount, springDataCount, elapsed);
@@ -156,13 +280,258 @@ public class RedisComparisonService {
 
     private long getRedisTemplateCount(RedisTemplate<String, TestData> template, String keyPrefix) {
         try {
-            return template.keys(keyPrefix + "*").size();
+            return ScanSupport.countKeys(template, keyPrefix + "*");
         } catch (Exception e) {
             log.error("Error counting records: {}", e.getMessage());
             return 0;
         }
     }
 
+    /**
+     * Runs each approach in isolation for the given number of trials. The order alternates
+     * between trials (RT/SD, SD/RT, ...) so drift in the environment affects both approaches
+     * equally, and both keyspaces are flushed before every run.
+     */
+    // One recording covers all trials, both approaches, and the flushes between them
+    public void startTrialComparison(RunOptions options, int trials) {
+        if (trials < 2) {
+            throw new IllegalArgumentException("At least 2 trials are needed for confidence intervals");
+        }
+        if (!testRunning.compareAndSet(false, true)) {
+            log.warn("Comparison test is already running");
+            return;
+        }
+        completedTrials.set(0);
+        totalTrials = trials;
+        trialResults = new LinkedHashMap<>();
+        log.info("Starting isolated comparison: {} trials of {} records (warmup: {})", trials, options.records(), options.warmup());
+
+        // Trials run one approach at a time on the benchmark executor, away from the common pool
+        try {
+            activeRun = runScheduler.launch("comparison-trials", options.deadlineMs(), run -> {
+                if (options.profile()) {
+                    jfrRunProfiler.start(run);
+                }
+                List<RunRecorder> recorders = new ArrayList<>();
+                List<Map<String, Object>> series = null;
+                try {
+                    series = runTrials(options.records(), trials, options.warmup(), run, recorders);
+                } catch (Exception e) {
+                    log.error("Isolated comparison failed: {}", e.getMessage());
+                } finally {
+                    // Saved once the run's last server sample and profile summary are in
+                    run.closeAndAwait();
+                    if (series != null) {
+                        saveTrials(run, options, trials, series, recorders);
+                    }
+                    testRunning.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            testRunning.set(false);
+            throw e;
+        }
+    }
+
+    private BenchmarkRunScheduler.Run openRun(String name, long deadlineMs) {
+        try {
+            BenchmarkRunScheduler.Run run = runScheduler.open(name, deadlineMs);
+            activeRun = run;
+            return run;
+        } catch (RejectedExecutionException e) {
+            testRunning.set(false);
+            throw e;
+        }
+    }
+
+    // Asks the running comparison to stop after its current write; returns false when none is running
+    public boolean stopComparisonTest() {
+        BenchmarkRunScheduler.Run run = activeRun;
+        if (!testRunning.get() || run == null) {
+            return false;
+        }
+        run.stop();
+        return true;
+    }
+
+    // STOPPED or DEADLINE when the last comparison ended early, otherwise null
+    public String getStopReason() {
+        BenchmarkRunScheduler.Run run = activeRun;
+        return run != null && run.getStopReason() != null ? run.getStopReason().name() : null;
+    }
+
+    // Returns the series to store, one sample per completed trial, or null when no trial completed
+    private List<Map<String, Object>> runTrials(int totalRecords, int trials, WarmupPolicy warmupPolicy,
+                                                BenchmarkRunScheduler.Run run, List<RunRecorder> recorders) {
+        List<Map<String, Object>> trialRows = new ArrayList<>();
+        List<Double> redisTemplateRates = new ArrayList<>();
+        List<Double> springDataRates = new ArrayList<>();
+        List<Double> redisTemplateP99 = new ArrayList<>();
+        List<Double> springDataP99 = new ArrayList<>();
+        LatencyHistogram redisTemplateLatency = new LatencyHistogram();
+        LatencyHistogram springDataLatency = new LatencyHistogram();
+
+        trials:
+        for (int trial = 1; trial <= trials && run.isActive(); trial++) {
+            List<String> order = trial % 2 == 1 ? List.of(REDIS_TEMPLATE, SPRING_DATA) : List.of(SPRING_DATA, REDIS_TEMPLATE);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("trial", trial);
+            row.put("order", order);
+
+            for (String approach : order) {
+                flushComparisonKeyspaces(totalRecords);
+                RunRecorder recorder = runIsolated(approach, totalRecords, warmupPolicy, run);
+                recorders.add(recorder);
+                if (!run.isActive()) {
+                    // A trial cut short would skew the intervals, so only completed trials are reported
+                    log.info("Isolated comparison ended early ({}) after {} of {} trials", run.getStopReason(), trial - 1, trials);
+                    break trials;
+                }
+                double rate = recorder.getMeasuredRate();
+                double p99Us = recorder.getMeasuredLatency().getPercentileNanos(99) / 1000.0;
+                if (approach.equals(REDIS_TEMPLATE)) {
+                    redisTemplateRates.add(rate);
+                    redisTemplateP99.add(p99Us);
+                    redisTemplateLatency.merge(recorder.getMeasuredLatency());
+                } else {
+                    springDataRates.add(rate);
+                    springDataP99.add(p99Us);
+                    springDataLatency.merge(recorder.getMeasuredLatency());
+                }
+                Map<String, Object> approachRun = new LinkedHashMap<>();
+                approachRun.put("rate", Statistics.round(rate, 2));
+                approachRun.put("latency", recorder.getMeasuredLatency().toSummary());
+                approachRun.put("errors", recorder.getErrors());
+                row.put(approach, approachRun);
+                log.info("Trial {}/{} - {}: {} records/sec, p99 {} us", trial, trials, approach,
+                        Statistics.round(rate, 2), Statistics.round(p99Us, 2));
+            }
+            trialRows.add(row);
+            completedTrials.incrementAndGet();
+
+            Map<String, Object> results = new LinkedHashMap<>();
+            results.put("records", totalRecords);
+            results.put("trials", trials);
+            results.put("confidence", CONFIDENCE);
+            results.put("redisTemplate", describeApproach(redisTemplateRates, redisTemplateP99));
+            results.put("springData", describeApproach(springDataRates, springDataP99));
+            results.put("speedup", describeSpeedup(redisTemplateRates, springDataRates));
+            results.put("trialRuns", trialRows);
+            trialResults = results;
+        }
+        flushComparisonKeyspaces(totalRecords);
+        log.info("Isolated comparison completed: {}", trialResults.get("speedup"));
+        if (trialRows.isEmpty()) {
+            return null;
+        }
+        // Each trial is one sample, so a later run is compared trial against trial
+        return List.of(
+                BenchmarkResultStore.series(REDIS_TEMPLATE, Statistics.mean(redisTemplateRates), redisTemplateRates,
+                        redisTemplateP99, redisTemplateLatency.toSummary()),
+                BenchmarkResultStore.series(SPRING_DATA, Statistics.mean(springDataRates), springDataRates,
+                        springDataP99, springDataLatency.toSummary()));
+    }
+
+    private void saveTrials(BenchmarkRunScheduler.Run run, RunOptions options, int trials, List<Map<String, Object>> series,
+                            List<RunRecorder> recorders) {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("records", options.records());
+        config.put("trials", trials);
+        config.put("warmup", options.warmup());
+        config.put("stopReason", run.getStopReason());
+        Map<String, Object> results = new LinkedHashMap<>(trialResults);
+        results.put("serverStats", serverStatsSampler.report(run.getId(), recorders));
+        Map<String, Object> jfr = jfrRunProfiler.report(run.getId());
+        if (jfr != null) {
+            results.put("profile", jfr);
+        }
+        resultStore.save(run.getName(), config, results, series);
+    }
+
+    private RunRecorder runIsolated(String approach, int totalRecords, WarmupPolicy warmupPolicy, BenchmarkRunScheduler.Run run) {
+        RunRecorder recorder = benchmarkSettings.newRecorder(approach, warmupPolicy);
+        recorder.start();
+        // Only samples in-process counters, so it does not add load on Redis
+        ScheduledFuture<?> sampling = timelineSampler.scheduleAtFixedRate(recorder::sample, 500, 500, TimeUnit.MILLISECONDS);
+        try {
+            if (approach.equals(REDIS_TEMPLATE)) {
+                insertDataWithRedisTemplate(redisTemplate, REDIS_TEMPLATE, totalRecords, new AtomicLong(), recorder, run);
+            } else {
+                insertDataWithSpringData(totalRecords, new AtomicLong(), recorder, run);
+            }
+        } finally {
+            sampling.cancel(false);
+            recorder.finish();
+        }
+        return recorder;
+    }
+
+    private Map<String, Object> describeApproach(List<Double> rates, List<Double> p99s) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        double[] ci = Statistics.confidenceInterval(rates, CONFIDENCE);
+        summary.put("n", rates.size());
+        summary.put("meanRate", Statistics.round(Statistics.mean(rates), 2));
+        summary.put("stddevRate", Statistics.round(Statistics.stddev(rates), 2));
+        summary.put("cv", Statistics.round(Statistics.coefficientOfVariation(rates), 4));
+        summary.put("rateCi", List.of(Statistics.round(ci[0], 2), Statistics.round(ci[1], 2)));
+        double[] p99Ci = Statistics.confidenceInterval(p99s, CONFIDENCE);
+        summary.put("meanP99Us", Statistics.round(Statistics.mean(p99s), 2));
+        summary.put("p99UsCi", List.of(Statistics.round(p99Ci[0], 2), Statistics.round(p99Ci[1], 2)));
+        return summary;
+    }
+
+    private Map<String, Object> describeSpeedup(List<Double> redisTemplateRates, List<Double> springDataRates) {
+        Map<String, Object> speedup = new LinkedHashMap<>();
+        if (redisTemplateRates.size() < 2 || springDataRates.size() < 2) {
+            return speedup;
+        }
+        double[] ci = Statistics.ratioConfidenceInterval(redisTemplateRates, springDataRates, CONFIDENCE);
+        double pValue = Statistics.welchPValue(redisTemplateRates, springDataRates);
+        speedup.put("redisTemplateOverSpringData", Statistics.round(Statistics.mean(redisTemplateRates) / Statistics.mean(springDataRates), 4));
+        speedup.put("ci", List.of(Statistics.round(ci[0], 4), Statistics.round(ci[1], 4)));
+        speedup.put("welchPValue", Statistics.round(pValue, 6));
+        speedup.put("significant", pValue < 1 - CONFIDENCE);
+        return speedup;
+    }
+
+    // Removes everything the comparison approaches wrote, so each trial starts from the same state
+    private void flushComparisonKeyspaces(int totalRecords) {
+        long removed = ScanSupport.unlinkKeys(redisTemplate, "comparison:" + REDIS_TEMPLATE + ":*");
+        List<String> ids = new ArrayList<>(1000);
+        for (int i = 1; i <= totalRecords; i++) {
+            ids.add(SPRING_DATA + "-" + i);
+            if (ids.size() == 1000 || i == totalRecords) {
+                testDataRepository.deleteAllById(ids);
+                ids.clear();
+            }
+        }
+        log.debug("Flushed {} RedisTemplate keys and {} Spring Data ids between trials", removed, totalRecords);
+    }
+
+    public int getCompletedTrials() {
+        return completedTrials.get();
+    }
+
+    public int getTotalTrials() {
+        return totalTrials;
+    }
+
+    public Map<String, Object> getTrialResults() {
+        BenchmarkRunScheduler.Run run = activeRun;
+        Map<String, Object> jfr = run != null && "comparison-trials".equals(run.getName()) ? jfrRunProfiler.report(run.getId()) : null;
+        if (jfr == null) {
+            return trialResults;
+        }
+        Map<String, Object> results = new LinkedHashMap<>(trialResults);
+        results.put("profile", jfr);
+        return results;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timelineSampler.shutdownNow();
+    }
+
     public boolean isTestRunning() {
         return testRunning.get();
     }
@@ -175,10 +544,39 @@ public class RedisComparisonService {
         return springDataInsertedCount.get();
     }
 
+    public Map<String, Object> getRunResults() {
+        Map<String, Object> results = new LinkedHashMap<>();
+        RunRecorder redisTemplateRecorder = redisTemplateRun;
+        RunRecorder springDataRecorder = springDataRun;
+        if (redisTemplateRecorder != null) {
+            results.put("redisTemplate", redisTemplateRecorder.summary());
+        }
+        if (springDataRecorder != null) {
+            results.put("springData", springDataRecorder.summary());
+        }
+        // Both approaches share the server in a comparison run, so their records are counted together
+        BenchmarkRunScheduler.Run run = activeRun;
+        if (run != null) {
+            List<RunRecorder> recorders = new ArrayList<>();
+            if (redisTemplateRecorder != null) {
+                recorders.add(redisTemplateRecorder);
+            }
+            if (springDataRecorder != null) {
+                recorders.add(springDataRecorder);
+            }
+            results.put("serverStats", serverStatsSampler.report(run.getId(), recorders));
+            Map<String, Object> jfr = jfrRunProfiler.report(run.getId());
+            if (jfr != null) {
+                results.put("profile", jfr);
+            }
+        }
+        return results;
+    }
+
     public void clearAllTestData() {
         try {
             // Clear RedisTemplate data
-            redisTemplate.delete(redisTemplate.keys("comparison:redistemplate:*"));
+            ScanSupport.unlinkKeys(redisTemplate, "comparison:redistemplate:*");
             
             // Clear Spring Data Redis
             testDataRepository.deleteAll();
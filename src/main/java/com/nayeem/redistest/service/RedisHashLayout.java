@@ -0,0 +1,63 @@
+package com.nayeem.redistest.service;
+
+import org.springframework.data.redis.core.convert.IndexedData;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.core.convert.SimpleIndexedPropertyValue;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Key names of the Spring Data repository layout: the entity hash ("keyspace:id"), the keyspace
+ * set, secondary index sets ("keyspace:property:value") and the per-entity "keyspace:id:idx" set
+ * listing the index sets an entity is in. Used by code that writes that layout without the repository.
+ */
+final class RedisHashLayout {
+
+    private static final byte[] SEPARATOR = ":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] IDX_SUFFIX = ":idx".getBytes(StandardCharsets.UTF_8);
+
+    private final RedisConverter redisConverter;
+
+    RedisHashLayout(RedisConverter redisConverter) {
+        this.redisConverter = redisConverter;
+    }
+
+    byte[] objectKey(String keyspace, String id) {
+        return concat(toBytes(keyspace), SEPARATOR, toBytes(id));
+    }
+
+    byte[] indexHelperKey(String keyspace, String id) {
+        return concat(toBytes(keyspace), SEPARATOR, toBytes(id), IDX_SUFFIX);
+    }
+
+    // Index set for a simple indexed property, or null for index types the repository layout does not use here
+    byte[] indexKey(IndexedData indexed) {
+        if (!(indexed instanceof SimpleIndexedPropertyValue property) || property.getValue() == null) {
+            return null;
+        }
+        return concat(toBytes(indexed.getKeyPrefix()), SEPARATOR, toBytes(property.getValue()));
+    }
+
+    // Same conversion the repository's IndexWriter uses, so keys match byte for byte
+    byte[] toBytes(Object value) {
+        if (value instanceof byte[] bytes) {
+            return bytes;
+        }
+        byte[] converted = redisConverter.getConversionService().convert(value, byte[].class);
+        return converted != null ? converted : new byte[0];
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        byte[] result = new byte[length];
+        int offset = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, result, offset, part.length);
+            offset += part.length;
+        }
+        return result;
+    }
+}
@@ -2,10 +2,16 @@ package com.nayeem.redistest.service;
 
 import com.nayeem.redistest.model.TestData;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @Service
@@ -13,34 +19,155 @@ import java.util.concurrent.TimeUnit;
 public class RedisService {
 
     private final RedisTemplate<String, TestData> redisTemplate;
+    private final WriteBehindBuffer writeBehindBuffer;
+    private final TestDataBloomFilter existenceFilter;
+    private final ReplicaReads replicaReads;
     private static final String KEY_PREFIX = "testdata:";
 
     public void saveTestData(TestData testData) {
         String key = KEY_PREFIX + testData.getId();
         testData.setCreatedAt(LocalDateTime.now());
+        existenceFilter.add(testData.getId());
+        if (writeBehindBuffer.isEnabled()) {
+            writeBehindBuffer.put(key, testData); // Flushed later with the same 1 hour expiry
+            return;
+        }
         redisTemplate.opsForValue().set(key, testData, 1, TimeUnit.HOURS); // Expire after 1 hour
     }
 
     public TestData getTestData(String id) {
+        return getTestData(id, ReplicaReads.Consistency.PRIMARY);
+    }
+
+    public TestData getTestData(String id, ReplicaReads.Consistency consistency) {
         String key = KEY_PREFIX + id;
-        Object data = redisTemplate.opsForValue().get(key);
+        TestData buffered = bufferedValue(key);
+        if (buffered != null) {
+            return buffered;
+        }
+        if (!existenceFilter.mightContain(id)) {
+            return null;
+        }
+        Object data = reads(consistency).opsForValue().get(key);
         if (data instanceof TestData) {
             return (TestData) data;
         }
+        existenceFilter.falsePositive();
         return null;
     }
 
+    // Stored JSON exactly as Redis holds it, skipping Jackson (null when absent)
+    public byte[] getRawTestData(String id) {
+        return getRawTestData(id, ReplicaReads.Consistency.PRIMARY);
+    }
+
+    public byte[] getRawTestData(String id, ReplicaReads.Consistency consistency) {
+        TestData buffered = bufferedValue(KEY_PREFIX + id);
+        if (buffered != null) {
+            return serialize(buffered);
+        }
+        byte[] key = (KEY_PREFIX + id).getBytes(StandardCharsets.UTF_8);
+        return reads(consistency).execute((RedisCallback<byte[]>) connection -> connection.stringCommands().get(key));
+    }
+
+    // One MGET; the result has one entry per id, null for missing ids
+    public List<byte[]> getRawTestDataBatch(List<String> ids) {
+        return getRawTestDataBatch(ids, ReplicaReads.Consistency.PRIMARY);
+    }
+
+    public List<byte[]> getRawTestDataBatch(List<String> ids, ReplicaReads.Consistency consistency) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        byte[][] keys = new byte[ids.size()][];
+        for (int i = 0; i < ids.size(); i++) {
+            keys[i] = (KEY_PREFIX + ids.get(i)).getBytes(StandardCharsets.UTF_8);
+        }
+        List<byte[]> values = reads(consistency).execute((RedisCallback<List<byte[]>>) connection -> connection.stringCommands().mGet(keys));
+        List<byte[]> result = values != null ? new ArrayList<>(values) : new ArrayList<>(Collections.nCopies(ids.size(), null));
+        if (writeBehindBuffer.isEnabled()) {
+            for (int i = 0; i < ids.size(); i++) {
+                TestData buffered = writeBehindBuffer.get(KEY_PREFIX + ids.get(i));
+                if (buffered != null) {
+                    result.set(i, serialize(buffered));
+                }
+            }
+        }
+        return result;
+    }
+
+    // Deserializing counterpart of getRawTestDataBatch
+    public List<TestData> getTestDataBatch(List<String> ids) {
+        return getTestDataBatch(ids, ReplicaReads.Consistency.PRIMARY);
+    }
+
+    public List<TestData> getTestDataBatch(List<String> ids, ReplicaReads.Consistency consistency) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<TestData> values = reads(consistency).opsForValue().multiGet(ids.stream().map(id -> KEY_PREFIX + id).toList());
+        List<TestData> result = values != null ? new ArrayList<>(values) : new ArrayList<>(Collections.nCopies(ids.size(), null));
+        if (writeBehindBuffer.isEnabled()) {
+            for (int i = 0; i < ids.size(); i++) {
+                TestData buffered = writeBehindBuffer.get(KEY_PREFIX + ids.get(i));
+                if (buffered != null) {
+                    result.set(i, buffered);
+                }
+            }
+        }
+        return result;
+    }
+
+    // A multi-get split into the values found, in request order, and the ids that had none
+    public record MultiGet(List<TestData> found, List<String> missing) {
+    }
+
+    public MultiGet multiGet(List<String> ids, ReplicaReads.Consistency consistency) {
+        List<TestData> values = getTestDataBatch(ids, consistency);
+        List<TestData> found = new ArrayList<>(ids.size());
+        List<String> missing = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            TestData value = i < values.size() ? values.get(i) : null;
+            if (value != null) {
+                found.add(value);
+            } else {
+                missing.add(ids.get(i));
+            }
+        }
+        return new MultiGet(found, missing);
+    }
+
     public boolean deleteTestData(String id) {
         String key = KEY_PREFIX + id;
-        return Boolean.TRUE.equals(redisTemplate.delete(key));
+        boolean discarded = writeBehindBuffer.isEnabled() && writeBehindBuffer.remove(key);
+        // Always sent: a filter that missed a write must not leave the record behind
+        return Boolean.TRUE.equals(redisTemplate.delete(key)) || discarded;
     }
 
     public boolean existsTestData(String id) {
+        return existsTestData(id, ReplicaReads.Consistency.PRIMARY);
+    }
+
+    public boolean existsTestData(String id, ReplicaReads.Consistency consistency) {
         String key = KEY_PREFIX + id;
-        return Boolean.TRUE.equals(redisTemplate.hasKey(key));
+        if (bufferedValue(key) != null) {
+            return true;
+        }
+        if (!existenceFilter.mightContain(id)) {
+            return false;
+        }
+        boolean exists = Boolean.TRUE.equals(reads(consistency).hasKey(key));
+        if (!exists) {
+            existenceFilter.falsePositive();
+        }
+        return exists;
     }
 
     public java.util.List<TestData> getAllTestData() {
+        // Listing reads Redis only, so push buffered writes first
+        if (writeBehindBuffer.isEnabled() && !writeBehindBuffer.flush()) {
+            throw new IllegalStateException("Write-behind flush failed; buffered records are not in Redis yet");
+        }
         java.util.Set<String> keys = redisTemplate.keys(KEY_PREFIX + "*");
         if (keys == null || keys.isEmpty()) {
             return java.util.Collections.emptyList();
@@ -55,4 +182,21 @@ public class RedisService {
         }
         return allData;
     }
+
+    // Reads that opt into EVENTUAL may go to a replica; everything else, writes, deletes and listing stay on the master
+    private RedisTemplate<String, TestData> reads(ReplicaReads.Consistency consistency) {
+        return consistency == ReplicaReads.Consistency.EVENTUAL && replicaReads.isEnabled()
+                ? replicaReads.getTemplate()
+                : redisTemplate;
+    }
+
+    // Read-your-writes: a value still in the write-behind buffer is newer than Redis
+    private TestData bufferedValue(String key) {
+        return writeBehindBuffer.isEnabled() ? writeBehindBuffer.get(key) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] serialize(TestData value) {
+        return ((RedisSerializer<TestData>) redisTemplate.getValueSerializer()).serialize(value);
+    }
 }
@@ -0,0 +1,155 @@
+package com.nayeem.redistest.service;
+
+import com.nayeem.redistest.resp.EmbeddedRespServer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The Redis nodes a benchmark can spread keys over. In standalone and cluster mode that is the
+ * application's own connection factory (Lettuce routes cluster commands by slot); in sharded mode
+ * it is one standalone connection per configured node plus any in-process RESP servers started
+ * here, routed by a {@link ConsistentHashRing}. The application's services keep using the
+ * primary factory in every mode.
+ */
+@Slf4j
+public class RedisShards implements Closeable {
+
+    public enum Topology {
+        STANDALONE, CLUSTER, SHARDED;
+
+        public static Topology parse(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    public record Settings(Topology topology, List<String> nodes, int virtualNodes, int embeddedNodes, int embeddedThreads) {
+    }
+
+    public record Shard(String name, RedisConnectionFactory connectionFactory) {
+    }
+
+    private final Settings settings;
+    private final RedisConnectionFactory primary;
+    private final List<Shard> shards = new ArrayList<>();
+    private final List<LettuceConnectionFactory> ownedFactories = new ArrayList<>();
+    private final List<EmbeddedRespServer> ownedServers = new ArrayList<>();
+
+    public RedisShards(Settings settings, RedisConnectionFactory primary, String primaryName, int database) {
+        this.settings = settings;
+        this.primary = primary;
+        if (settings.topology() != Topology.SHARDED) {
+            shards.add(new Shard(primaryName, primary));
+            return;
+        }
+        try {
+            for (String node : settings.nodes()) {
+                HostAndPort address = HostAndPort.parse(node);
+                shards.add(new Shard(address.toString(), connect(address.host(), address.port(), database)));
+            }
+            for (int i = 0; i < settings.embeddedNodes(); i++) {
+                EmbeddedRespServer server = new EmbeddedRespServer(0, Math.max(1, settings.embeddedThreads()));
+                server.start();
+                ownedServers.add(server);
+                shards.add(new Shard("embedded-" + i + "@127.0.0.1:" + server.getPort(), connect("127.0.0.1", server.getPort(), 0)));
+            }
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException("Could not start embedded shard", e);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+        if (shards.isEmpty()) {
+            throw new IllegalStateException("redis.topology.mode=sharded needs redis.topology.nodes or redis.topology.embedded-nodes");
+        }
+        log.info("Sharded topology over {} nodes: {}", shards.size(), shards.stream().map(Shard::name).toList());
+    }
+
+    private LettuceConnectionFactory connect(String host, int port, int database) {
+        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(host, port);
+        config.setDatabase(database);
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(config);
+        factory.afterPropertiesSet();
+        factory.start();
+        ownedFactories.add(factory);
+        return factory;
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    public Topology getTopology() {
+        return settings.topology();
+    }
+
+    public List<Shard> getShards() {
+        return Collections.unmodifiableList(shards);
+    }
+
+    /** A ring over the first nodeCount shards, so one run can measure 1..N nodes. */
+    public ConsistentHashRing<Shard> ring(int nodeCount) {
+        int count = Math.max(1, Math.min(nodeCount, shards.size()));
+        return new ConsistentHashRing<>(shards.subList(0, count), Shard::name, settings.virtualNodes());
+    }
+
+    /** Owner of each of the 16384 slots, as "host:port" of its master; cluster mode only. */
+    public String[] clusterSlotOwners() {
+        if (settings.topology() != Topology.CLUSTER) {
+            throw new IllegalStateException("Slot owners are only known in cluster mode");
+        }
+        String[] owners = new String[16384];
+        try (RedisClusterConnection connection = primary.getClusterConnection()) {
+            for (RedisClusterNode node : connection.clusterGetNodes()) {
+                if (node.isMaster()) {
+                    String name = node.getHost() + ":" + node.getPort();
+                    for (int slot : node.getSlotRange().getSlotsArray()) {
+                        owners[slot] = name;
+                    }
+                }
+            }
+        }
+        return owners;
+    }
+
+    @Override
+    public void close() {
+        for (LettuceConnectionFactory factory : ownedFactories) {
+            factory.destroy();
+        }
+        ownedFactories.clear();
+        for (EmbeddedRespServer server : ownedServers) {
+            server.close();
+        }
+        ownedServers.clear();
+    }
+
+    public record HostAndPort(String host, int port) {
+
+        public static HostAndPort parse(String node) {
+            String value = node.trim();
+            int colon = value.lastIndexOf(':');
+            if (colon <= 0 || colon == value.length() - 1) {
+                throw new IllegalArgumentException("Expected host:port but got '" + node + "'");
+            }
+            return new HostAndPort(value.substring(0, colon), Integer.parseInt(value.substring(colon + 1)));
+        }
+
+        @Override
+        public String toString() {
+            return host + ":" + port;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.nayeem.redistest.service;
+
+import com.nayeem.redistest.benchmark.BenchmarkRunScheduler;
+import com.nayeem.redistest.benchmark.LatencyHistogram;
+import com.nayeem.redistest.benchmark.Statistics;
+import com.nayeem.redistest.benchmark.WorkerGroup;
+import io.lettuce.core.ReadFrom;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-heavy workload over the master/replica nodes of {@link ReplicaReads}, one phase per
+ * ReadFrom policy. Every key holds a version number: writes SET the next version through the
+ * master and publish it once acknowledged, reads GET through the policy. A read that returns a
+ * version older than the newest one acknowledged before the read started is stale, and its
+ * staleness is the time since that acknowledgement. Reads per node come from the GET call
+ * counts in INFO commandstats before and after the phase.
+ */
+@Service
+@Slf4j
+public class ReplicaReadBenchmarkService {
+
+    private static final String KEY_PREFIX = "replica-bench:";
+    private static final long REPLICATION_TIMEOUT_MS = 10_000;
+
+    private final ReplicaReads replicaReads;
+    private final BenchmarkRunScheduler runScheduler;
+
+    private final BenchmarkSuite suite;
+
+    public ReplicaReadBenchmarkService(ReplicaReads replicaReads, BenchmarkRunScheduler runScheduler,
+                                       BenchmarkResultStore resultStore) {
+        this.replicaReads = replicaReads;
+        this.runScheduler = runScheduler;
+        this.suite = new BenchmarkSuite("replica-read-benchmark", "Replica read benchmark", runScheduler, resultStore);
+    }
+
+    public boolean startBenchmark(int keys, int operations, int threads, double writeRatio, List<String> policies) {
+        if (!replicaReads.isEnabled()) {
+            throw new IllegalStateException("Replica reads are disabled; set redis.replica-reads.enabled=true");
+        }
+        List<ReadFrom> readFroms = policies.stream()
+                .map(name -> ReplicaReads.parseReadFrom(name, replicaReads.getSettings().preferredNodes()))
+                .toList();
+        runScheduler.requireWorkers(threads);
+        Map<String, Object> runConfig = new LinkedHashMap<>();
+        runConfig.put("nodes", replicaReads.getNodes());
+        runConfig.put("keys", keys);
+        runConfig.put("operations", operations);
+        runConfig.put("threads", threads);
+        runConfig.put("writeRatio", writeRatio);
+        runConfig.put("policies", policies);
+        runConfig.put("replicationLagMs", replicaReads.getSettings().replicationLagMs());
+
+        return suite.launch(runConfig, run -> {
+            LettuceConnectionFactory master = replicaReads.connect(ReadFrom.UPSTREAM);
+            try {
+                suite.phase("seeding");
+                seed(master, keys);
+                awaitReplication();
+                suite.phase("warmup");
+                runPhase(ReadFrom.UPSTREAM, keys, Math.min(operations, 10_000), threads, writeRatio, run);
+                Double masterThroughput = null;
+                for (int p = 0; p < readFroms.size() && run.isActive(); p++) {
+                    suite.phase(policies.get(p));
+                    awaitReplication();
+                    Map<String, Object> result = runPhase(readFroms.get(p), keys, operations, threads, writeRatio, run);
+                    result.put("policy", policies.get(p));
+                    double throughput = (double) result.get("throughput");
+                    if (masterThroughput == null && isMasterOnly(policies.get(p))) {
+                        masterThroughput = throughput;
+                    }
+                    addResult(result);
+                }
+                if (masterThroughput != null) {
+                    double base = masterThroughput;
+                    suite.updateResults(result -> result.put("speedupVsMaster",
+                            Statistics.round(base > 0 ? (double) result.get("throughput") / base : 0.0, 2)));
+                }
+            } finally {
+                suite.phase("cleanup");
+                cleanup(master, keys);
+                replicaReads.release(master);
+            }
+        });
+    }
+
+    private static boolean isMasterOnly(String policy) {
+        return policy.trim().equalsIgnoreCase("master") || policy.trim().equalsIgnoreCase("upstream");
+    }
+
+    private void seed(LettuceConnectionFactory master, int keys) {
+        try (RedisConnection connection = master.getConnection()) {
+            for (int i = 0; i < keys; i++) {
+                connection.stringCommands().set(key(i), bytes("0"));
+            }
+        }
+    }
+
+    private Map<String, Object> runPhase(ReadFrom readFrom, int keys, int operations, int threads, double writeRatio,
+                                         BenchmarkRunScheduler.Run run) throws InterruptedException {
+        // Newest acknowledged version per key, when it was acknowledged, and the last version handed out
+        AtomicLongArray acknowledged = new AtomicLongArray(keys);
+        AtomicLongArray acknowledgedAt = new AtomicLongArray(keys);
+        AtomicLongArray issued = new AtomicLongArray(keys);
+        LettuceConnectionFactory factory = replicaReads.connect(readFrom);
+        try (RedisConnection connection = factory.getConnection()) {
+            // Versions continue from what the previous phase left behind
+            for (int i = 0; i < keys; i++) {
+                byte[] value = connection.stringCommands().get(key(i));
+                long version = value != null ? Long.parseLong(new String(value, StandardCharsets.UTF_8)) : 0;
+                acknowledged.set(i, version);
+                issued.set(i, version);
+            }
+        }
+        Map<String, Long> readsBefore = readsPerNode();
+        LatencyHistogram readLatency = new LatencyHistogram();
+        LatencyHistogram writeLatency = new LatencyHistogram();
+        LatencyHistogram staleness = new LatencyHistogram();
+        LongAdder reads = new LongAdder();
+        LongAdder writes = new LongAdder();
+        LongAdder staleReads = new LongAdder();
+        int perThread = operations / threads;
+        long start = System.nanoTime();
+        try (WorkerGroup workers = new WorkerGroup(run, "replica read")) {
+            for (int t = 0; t < threads; t++) {
+                int count = t == threads - 1 ? operations - perThread * (threads - 1) : perThread;
+                workers.start(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    try (RedisConnection connection = factory.getConnection()) {
+                        for (int i = 0; i < count && workers.isRunning(); i++) {
+                            int index = random.nextInt(keys);
+                            long opStart = System.nanoTime();
+                            if (random.nextDouble() < writeRatio) {
+                                long version = issued.incrementAndGet(index);
+                                connection.stringCommands().set(key(index), bytes(Long.toString(version)));
+                                long acked = System.nanoTime();
+                                // Concurrent writers to one key may finish out of order; keep the newest
+                                if (acknowledged.accumulateAndGet(index, version, Math::max) == version) {
+                                    acknowledgedAt.set(index, acked);
+                                }
+                                writeLatency.record(acked - opStart);
+                                writes.increment();
+                            } else {
+                                long expected = acknowledged.get(index);
+                                long expectedAt = acknowledgedAt.get(index);
+                                byte[] value = connection.stringCommands().get(key(index));
+                                long now = System.nanoTime();
+                                readLatency.record(now - opStart);
+                                long version = value != null ? Long.parseLong(new String(value, StandardCharsets.UTF_8)) : -1;
+                                if (version < expected) {
+                                    staleReads.increment();
+                                    // The time can lag its version by a moment; fall back to the read's own start
+                                    staleness.record(now - (expectedAt > 0 ? expectedAt : opStart));
+                                }
+                                reads.increment();
+                            }
+                        }
+                    }
+                });
+            }
+            workers.await();
+        } finally {
+            replicaReads.release(factory);
+        }
+        long elapsed = System.nanoTime() - start;
+        Map<String, Long> readsAfter = readsPerNode();
+
+        List<Map<String, Object>> perNode = new ArrayList<>();
+        for (Map.Entry<String, Long> node : readsAfter.entrySet()) {
+            long served = node.getValue() - readsBefore.getOrDefault(node.getKey(), 0L);
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("node", node.getKey());
+            entry.put("reads", served);
+            entry.put("readShare", Statistics.round(reads.sum() > 0 ? (double) served / reads.sum() : 0.0, 4));
+            perNode.add(entry);
+        }
+        long operationsDone = reads.sum() + writes.sum();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("operations", operationsDone);
+        result.put("reads", reads.sum());
+        result.put("writes", writes.sum());
+        result.put("durationMs", elapsed / 1_000_000);
+        result.put("throughput", Statistics.round(operationsDone * 1_000_000_000.0 / elapsed, 2));
+        result.put("readThroughput", Statistics.round(reads.sum() * 1_000_000_000.0 / elapsed, 2));
+        result.put("readLatency", readLatency.toSummary());
+        result.put("writeLatency", writeLatency.toSummary());
+        result.put("staleReads", staleReads.sum());
+        result.put("staleReadRate", Statistics.round(reads.sum() > 0 ? (double) staleReads.sum() / reads.sum() : 0.0, 4));
+        result.put("staleness", staleness.toSummary());
+        result.put("perNode", perNode);
+        return result;
+    }
+
+    // GET calls served so far by each node, from INFO commandstats
+    private Map<String, Long> readsPerNode() {
+        Map<String, Long> reads = new LinkedHashMap<>();
+        for (String node : replicaReads.getNodes()) {
+            reads.put(node, commandCalls(info(node, "commandstats"), "get"));
+        }
+        return reads;
+    }
+
+    // Until every replica has applied what its master has written, as reported by INFO replication
+    private void awaitReplication() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + REPLICATION_TIMEOUT_MS;
+        while (true) {
+            long masterOffset = -1;
+            long lowestReplicaOffset = Long.MAX_VALUE;
+            for (String node : replicaReads.getNodes()) {
+                Properties replication = info(node, "replication");
+                if ("master".equals(replication.getProperty("role"))) {
+                    masterOffset = Math.max(masterOffset, parseLong(replication.getProperty("master_repl_offset")));
+                } else {
+                    lowestReplicaOffset = Math.min(lowestReplicaOffset, parseLong(replication.getProperty("slave_repl_offset")));
+                }
+            }
+            if (lowestReplicaOffset >= masterOffset) {
+                return;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                log.warn("Replicas still behind the master after {} ms (offset {} < {})", REPLICATION_TIMEOUT_MS,
+                        lowestReplicaOffset, masterOffset);
+                return;
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private Properties info(String node, String section) {
+        LettuceConnectionFactory factory = replicaReads.connectNode(node);
+        try (RedisConnection connection = factory.getConnection()) {
+            Properties properties = connection.serverCommands().info(section);
+            return properties != null ? properties : new Properties();
+        } finally {
+            replicaReads.release(factory);
+        }
+    }
+
+    private static long commandCalls(Properties commandstats, String command) {
+        String value = commandstats.getProperty("cmdstat_" + command);
+        if (value == null) {
+            return 0;
+        }
+        for (String field : value.split(",")) {
+            if (field.startsWith("calls=")) {
+                return parseLong(field.substring("calls=".length()));
+            }
+        }
+        return 0;
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return value != null ? Long.parseLong(value.trim()) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private void cleanup(LettuceConnectionFactory master, int keys) {
+        try (RedisConnection connection = master.getConnection()) {
+            for (int i = 0; i < keys; i++) {
+                connection.keyCommands().del(key(i));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Replica read benchmark cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    private static byte[] key(int index) {
+        return bytes(KEY_PREFIX + index);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void addResult(Map<String, Object> result) {
+        suite.addResult(result);
+        log.info("Replica read benchmark {}: {} ops/s, {} stale reads", result.get("policy"), result.get("throughput"),
+                result.get("staleReads"));
+    }
+
+    public boolean isTestRunning() {
+        return suite.isRunning();
+    }
+
+    public Map<String, Object> getStatus() {
+        return suite.getStatus();
+    }
+}
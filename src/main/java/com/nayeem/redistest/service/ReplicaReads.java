@@ -0,0 +1,260 @@
+package com.nayeem.redistest.service;
+
+import com.nayeem.redistest.model.TestData;
+import com.nayeem.redistest.resp.EmbeddedRespServer;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.models.role.RedisNodeDescription;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.RedisStaticMasterReplicaConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisKeyValueAdapter;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.convert.RedisConverter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.function.Function;
+
+/**
+ * Read path over a master and its replicas. RedisService and SpringDataRedisService send their
+ * reads here when enabled; writes, pub/sub and everything else stay on the primary (master)
+ * connection. Lettuce discovers each node's role with ROLE and picks the node for every read
+ * with the configured {@link ReadFrom}. Names are Lettuce's (master, replicaPreferred, replica,
+ * nearest, lowestLatency, any, anyReplica, subnet:..., regex:...) plus "preferred": the replicas
+ * in {@code preferredNodes} in that order, then the other replicas, then the master.
+ *
+ * <p>Replication is asynchronous, so a read served by a replica can miss a write the master has
+ * already acknowledged. The services therefore read the primary unless a call asks for
+ * {@link Consistency#EVENTUAL}, which keeps read-your-writes for everything else. For local runs
+ * the embedded server can be given in-process replicas with a fixed replication lag.
+ */
+@Slf4j
+public class ReplicaReads implements Closeable {
+
+    public record Settings(boolean enabled, List<String> nodes, String readFrom, List<String> preferredNodes,
+                           int embeddedReplicas, long replicationLagMs) {
+    }
+
+    /** Per-call choice between the primary (read-your-writes) and the replica read path. */
+    public enum Consistency { PRIMARY, EVENTUAL }
+
+    private static final String KEYSPACE = "testdata";
+
+    private final Settings settings;
+    private final int database;
+    private final List<String> nodes = new ArrayList<>();
+    private final List<EmbeddedRespServer> ownedReplicas = new ArrayList<>();
+    private final List<LettuceConnectionFactory> ownedFactories = new ArrayList<>();
+    private final Function<LettuceConnectionFactory, RedisTemplate<String, TestData>> templates;
+    private final RedisTemplate<String, TestData> template;
+    private final RedisKeyValueAdapter keyValueAdapter;
+
+    /**
+     * @param master   the primary's "host:port", used as the only node when none are configured
+     * @param embedded the embedded master, which gets the in-process replicas; null when not embedded
+     */
+    public ReplicaReads(Settings settings, String master, EmbeddedRespServer embedded, int database,
+                        Function<LettuceConnectionFactory, RedisTemplate<String, TestData>> templates,
+                        RedisConverter redisConverter) {
+        this.settings = settings;
+        this.database = database;
+        this.templates = templates;
+        if (!settings.enabled()) {
+            this.template = null;
+            this.keyValueAdapter = null;
+            return;
+        }
+        try {
+            if (embedded != null) {
+                nodes.add("127.0.0.1:" + embedded.getPort());
+                for (int i = 0; i < settings.embeddedReplicas(); i++) {
+                    EmbeddedRespServer replica = new EmbeddedRespServer(0, 1);
+                    replica.start();
+                    ownedReplicas.add(replica);
+                    embedded.addReplica(replica, settings.replicationLagMs());
+                    nodes.add("127.0.0.1:" + replica.getPort());
+                }
+            } else {
+                nodes.addAll(settings.nodes().isEmpty() ? List.of(master) : settings.nodes());
+            }
+            LettuceConnectionFactory factory = connect(parseReadFrom(settings.readFrom(), settings.preferredNodes()));
+            this.template = templates.apply(factory);
+            this.keyValueAdapter = new RedisKeyValueAdapter(template, redisConverter);
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException("Could not start embedded replica", e);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+        log.info("Replica reads over {} with ReadFrom {}", nodes, settings.readFrom());
+    }
+
+    /** A master/replica factory over the same nodes with another policy; closed with this component. */
+    public LettuceConnectionFactory connect(ReadFrom readFrom) {
+        RedisShards.HostAndPort first = RedisShards.HostAndPort.parse(nodes.get(0));
+        RedisStaticMasterReplicaConfiguration config = new RedisStaticMasterReplicaConfiguration(first.host(), first.port());
+        for (String node : nodes.subList(1, nodes.size())) {
+            RedisShards.HostAndPort parsed = RedisShards.HostAndPort.parse(node);
+            config.node(parsed.host(), parsed.port());
+        }
+        config.setDatabase(database);
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(config, LettuceClientConfiguration.builder().readFrom(readFrom).build());
+        factory.afterPropertiesSet();
+        factory.start();
+        synchronized (ownedFactories) {
+            ownedFactories.add(factory);
+        }
+        return factory;
+    }
+
+    /** A plain connection to one node, for per-node statistics; closed with this component. */
+    public LettuceConnectionFactory connectNode(String node) {
+        RedisShards.HostAndPort parsed = RedisShards.HostAndPort.parse(node);
+        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(parsed.host(), parsed.port());
+        config.setDatabase(database);
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(config);
+        factory.afterPropertiesSet();
+        factory.start();
+        synchronized (ownedFactories) {
+            ownedFactories.add(factory);
+        }
+        return factory;
+    }
+
+    public void release(LettuceConnectionFactory factory) {
+        synchronized (ownedFactories) {
+            ownedFactories.remove(factory);
+        }
+        factory.destroy();
+    }
+
+    public RedisTemplate<String, TestData> templateFor(LettuceConnectionFactory factory) {
+        return templates.apply(factory);
+    }
+
+    public boolean isEnabled() {
+        return settings.enabled();
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    public List<String> getNodes() {
+        return Collections.unmodifiableList(nodes);
+    }
+
+    /** Template over the master/replica connection, for RedisService reads. */
+    public RedisTemplate<String, TestData> getTemplate() {
+        return template;
+    }
+
+    /** findById in the repository layout, read through the replica connection. */
+    public Optional<TestData> findById(String id) {
+        return Optional.ofNullable(keyValueAdapter.get(id, KEYSPACE, TestData.class));
+    }
+
+    public boolean existsById(String id) {
+        return keyValueAdapter.contains(id, KEYSPACE);
+    }
+
+    // Role of every node as it reports itself, e.g. {"127.0.0.1:6380": "slave"}
+    public Map<String, Object> describeNodes() {
+        Map<String, Object> roles = new LinkedHashMap<>();
+        for (String node : nodes) {
+            LettuceConnectionFactory factory = connectNode(node);
+            try {
+                Properties info = templateFor(factory).execute((RedisCallback<Properties>) connection -> connection.serverCommands().info("replication"));
+                roles.put(node, info != null ? info.getProperty("role", "unknown") : "unknown");
+            } catch (RuntimeException e) {
+                roles.put(node, "unreachable: " + e.getMessage());
+            } finally {
+                release(factory);
+            }
+        }
+        return roles;
+    }
+
+    static ReadFrom parseReadFrom(String name, List<String> preferredNodes) {
+        if (name.trim().equalsIgnoreCase("preferred")) {
+            return new PreferredReplicas(preferredNodes);
+        }
+        return ReadFrom.valueOf(name.trim());
+    }
+
+    // Listed replicas first, in order, then the other replicas, then the master; Lettuce uses the first reachable one
+    static final class PreferredReplicas extends ReadFrom {
+
+        private final List<String> preferred;
+
+        PreferredReplicas(List<String> preferred) {
+            this.preferred = preferred.stream().map(node -> node.trim().toLowerCase(Locale.ROOT)).toList();
+        }
+
+        @Override
+        public List<RedisNodeDescription> select(Nodes nodes) {
+            List<RedisNodeDescription> ordered = new ArrayList<>();
+            for (String wanted : preferred) {
+                for (RedisNodeDescription node : nodes) {
+                    if (node.getRole().isReplica() && address(node).equals(wanted)) {
+                        ordered.add(node);
+                    }
+                }
+            }
+            for (RedisNodeDescription node : nodes) {
+                if (node.getRole().isReplica() && !ordered.contains(node)) {
+                    ordered.add(node);
+                }
+            }
+            for (RedisNodeDescription node : nodes) {
+                if (node.getRole().isUpstream()) {
+                    ordered.add(node);
+                }
+            }
+            return ordered;
+        }
+
+        @Override
+        protected boolean isOrderSensitive() {
+            return true;
+        }
+
+        private static String address(RedisNodeDescription node) {
+            return (node.getUri().getHost() + ":" + node.getUri().getPort()).toLowerCase(Locale.ROOT);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (keyValueAdapter != null) {
+            try {
+                keyValueAdapter.destroy();
+            } catch (Exception e) {
+                log.warn("Could not close replica read adapter: {}", e.getMessage());
+            }
+        }
+        synchronized (ownedFactories) {
+            for (LettuceConnectionFactory factory : ownedFactories) {
+                factory.destroy();
+            }
+            ownedFactories.clear();
+        }
+        for (EmbeddedRespServer replica : ownedReplicas) {
+            replica.close();
+        }
+        ownedReplicas.clear();
+    }
+}
@@ -0,0 +1,95 @@
+package com.nayeem.redistest.service;
+
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * SCAN/SSCAN helpers that hand keys or set members to the caller in batches, so counting or
+ * clearing millions of keys holds one batch in memory instead of the whole KEYS reply.
+ */
+final class ScanSupport {
+
+    static final int BATCH_SIZE = 1000;
+
+    private ScanSupport() {
+    }
+
+    static long countKeys(RedisTemplate<String, ?> template, String pattern) {
+        Long count = template.execute((RedisCallback<Long>) connection -> forEachKeyBatch(connection, pattern, batch -> { }));
+        return count != null ? count : 0;
+    }
+
+    static long unlinkKeys(RedisTemplate<String, ?> template, String pattern) {
+        // Deleting behind a SCAN cursor is safe: keys present for the whole scan are still returned
+        Long removed = template.execute((RedisCallback<Long>) connection -> forEachKeyBatch(connection, pattern,
+                batch -> connection.keyCommands().unlink(batch.toArray(new byte[0][]))));
+        return removed != null ? removed : 0;
+    }
+
+    static long countMembers(RedisTemplate<String, ?> template, String setKey, String pattern) {
+        Long count = template.execute((RedisCallback<Long>) connection ->
+                forEachMemberBatch(connection, setKey, pattern, batch -> { }));
+        return count != null ? count : 0;
+    }
+
+    // Hands matching members to the given action batch by batch, which removes them from the set
+    static long removeMembers(RedisTemplate<String, ?> template, String setKey, String pattern, Consumer<List<String>> remove) {
+        Long removed = template.execute((RedisCallback<Long>) connection -> forEachMemberBatch(connection, setKey, pattern, batch -> {
+            List<String> members = new ArrayList<>(batch.size());
+            for (byte[] member : batch) {
+                members.add(new String(member, StandardCharsets.UTF_8));
+            }
+            remove.accept(members);
+        }));
+        return removed != null ? removed : 0;
+    }
+
+    static long forEachKeyBatch(RedisConnection connection, String pattern, Consumer<List<byte[]>> action) {
+        try (Cursor<byte[]> cursor = connection.keyCommands().scan(
+                ScanOptions.scanOptions().match(pattern).count(BATCH_SIZE).build())) {
+            return drain(cursor, action);
+        }
+    }
+
+    // SCAN ... TYPE, so e.g. entity hashes can be told apart from index sets under one prefix
+    static long forEachKeyBatch(RedisConnection connection, String pattern, DataType type, Consumer<List<byte[]>> action) {
+        try (Cursor<byte[]> cursor = connection.keyCommands().scan(
+                ScanOptions.scanOptions().match(pattern).type(type).count(BATCH_SIZE).build())) {
+            return drain(cursor, action);
+        }
+    }
+
+    static long forEachMemberBatch(RedisConnection connection, String setKey, String pattern, Consumer<List<byte[]>> action) {
+        try (Cursor<byte[]> cursor = connection.setCommands().sScan(setKey.getBytes(StandardCharsets.UTF_8),
+                ScanOptions.scanOptions().match(pattern).count(BATCH_SIZE).build())) {
+            return drain(cursor, action);
+        }
+    }
+
+    private static long drain(Cursor<byte[]> cursor, Consumer<List<byte[]>> action) {
+        long seen = 0;
+        List<byte[]> batch = new ArrayList<>(BATCH_SIZE);
+        while (cursor.hasNext()) {
+            batch.add(cursor.next());
+            if (batch.size() == BATCH_SIZE) {
+                action.accept(batch);
+                seen += batch.size();
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            action.accept(batch);
+            seen += batch.size();
+        }
+        return seen;
+    }
+}
@@ -0,0 +1,535 @@
+package com.nayeem.redistest.service;
+
+import com.nayeem.redistest.benchmark.BenchmarkRunScheduler;
+import com.nayeem.redistest.benchmark.RunRecorder;
+import com.nayeem.redistest.benchmark.Statistics;
+import com.nayeem.redistest.model.TestData;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.api.async.BaseRedisAsyncCommands;
+import io.lettuce.core.api.async.RedisServerAsyncCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.output.ArrayOutput;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.ProtocolKeyword;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples Redis while benchmark runs are open: INFO commandstats, stats and memory, new SLOWLOG
+ * entries and LATENCY LATEST, every {@code benchmark.server-stats.interval-ms}. Services that keep
+ * a {@link RunRecorder} get the samples lined up with their client-side throughput and latency
+ * windows, plus the number of commands Redis executed per logical record. A ratio well above
+ * what the write path should need, or a server busy share near 100%, shows where the time goes.
+ *
+ * <p>The counters are server-wide, so runs that overlap (or other clients) are counted together;
+ * the report flags runs that overlapped. The sampler's own INFO, SLOWLOG and LATENCY commands are
+ * left out of the counts.
+ */
+@Component
+@Slf4j
+public class ServerStatsSampler implements BenchmarkRunScheduler.RunListener {
+
+    private static final int MAX_RECENT_RUNS = 20;
+    private static final int MAX_SAMPLES = 3600;
+    private static final int MAX_SLOWLOG_ENTRIES = 128;
+    private static final int TOP_COMMANDS = 15;
+    private static final int MAX_LOGGED_COMMAND_CHARS = 200;
+    private static final List<String> OWN_COMMANDS = List.of("info", "slowlog", "latency");
+    private static final long COMMAND_TIMEOUT_SECONDS = 5;
+
+    private static final ProtocolKeyword LATENCY = new ProtocolKeyword() {
+        private final byte[] bytes = "LATENCY".getBytes(StandardCharsets.US_ASCII);
+
+        @Override
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return "LATENCY";
+        }
+    };
+
+    private final RedisTemplate<String, TestData> redisTemplate;
+    private final long intervalMs;
+    private final int slowlogEntries;
+    private final ScheduledExecutorService executor;
+    private final Map<Long, Recording> recordings = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Recording> eldest) {
+            return size() > MAX_RECENT_RUNS;
+        }
+    };
+
+    public ServerStatsSampler(RedisTemplate<String, TestData> redisTemplate,
+                              BenchmarkRunScheduler runScheduler,
+                              @Value("${benchmark.server-stats.enabled:true}") boolean enabled,
+                              @Value("${benchmark.server-stats.interval-ms:1000}") long intervalMs,
+                              @Value("${benchmark.server-stats.slowlog-entries:32}") int slowlogEntries) {
+        this.redisTemplate = redisTemplate;
+        this.intervalMs = Math.max(100, intervalMs);
+        this.slowlogEntries = Math.max(1, slowlogEntries);
+        // One thread of its own, so sampling never takes a slot or a thread from the benchmark pool
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "server-stats-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled) {
+            runScheduler.addListener(this);
+        }
+    }
+
+    @Override
+    public void runOpened(BenchmarkRunScheduler.Run run) {
+        Recording recording = new Recording(run.getId(), run.getName());
+        synchronized (recordings) {
+            for (Recording other : recordings.values()) {
+                if (!other.closed) {
+                    other.overlapped = true;
+                    recording.overlapped = true;
+                }
+            }
+            recordings.put(run.getId(), recording);
+        }
+        recording.future = executor.scheduleAtFixedRate(() -> poll(recording), 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public CompletableFuture<Void> runClosed(BenchmarkRunScheduler.Run run) {
+        Recording recording;
+        synchronized (recordings) {
+            recording = recordings.get(run.getId());
+        }
+        if (recording == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        recording.closed = true;
+        if (recording.future != null) {
+            recording.future.cancel(false);
+        }
+        // A last sample so the counts cover the run up to its end
+        return CompletableFuture.runAsync(() -> {
+            poll(recording);
+            recording.finished = true;
+        }, executor);
+    }
+
+    /**
+     * Server-side report for a run, lined up with the given recorders' timelines (which may be
+     * empty). Returns null when the run was not sampled.
+     */
+    public Map<String, Object> report(long runId, List<RunRecorder> recorders) {
+        Recording recording;
+        synchronized (recordings) {
+            recording = recordings.get(runId);
+        }
+        return recording != null ? recording.report(recorders) : null;
+    }
+
+    // Reports of the most recent runs, newest first, without client-side data
+    public List<Map<String, Object>> recentReports() {
+        List<Recording> recent;
+        synchronized (recordings) {
+            recent = new ArrayList<>(recordings.values());
+        }
+        List<Map<String, Object>> reports = new ArrayList<>();
+        for (int i = recent.size() - 1; i >= 0; i--) {
+            reports.add(recent.get(i).report(List.of()));
+        }
+        return reports;
+    }
+
+    private void poll(Recording recording) {
+        try {
+            recording.add(snapshot(recording));
+        } catch (RuntimeException e) {
+            recording.error = e.getMessage();
+            log.debug("Server stats sample for run {} failed: {}", recording.runId, e.getMessage());
+        }
+    }
+
+    private Snapshot snapshot(Recording recording) {
+        long nanos = System.nanoTime();
+        Properties commandstats = info("commandstats");
+        Properties stats = info("stats");
+        Properties memory = info("memory");
+
+        Map<String, long[]> commands = new HashMap<>();
+        for (String name : commandstats.stringPropertyNames()) {
+            if (name.startsWith("cmdstat_")) {
+                commands.put(name.substring("cmdstat_".length()), parseCommandStat(commandstats.getProperty(name)));
+            }
+        }
+        return new Snapshot(nanos, commands,
+                parseDouble(stats.getProperty("instantaneous_ops_per_sec")),
+                parseLong(memory.getProperty("used_memory")),
+                parseLong(memory.getProperty("used_memory_rss")),
+                parseDouble(memory.getProperty("mem_fragmentation_ratio")),
+                recording.slowlogAvailable ? slowlog(recording) : List.of(),
+                recording.latencyAvailable ? latencyLatest(recording) : List.of());
+    }
+
+    private Properties info(String section) {
+        Properties properties = redisTemplate.execute((RedisCallback<Properties>) connection -> connection.serverCommands().info(section));
+        return properties != null ? properties : new Properties();
+    }
+
+    // SLOWLOG GET through Lettuce's typed API; Spring Data Redis has no SLOWLOG command
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> slowlog(Recording recording) {
+        try {
+            List<Object> entries = redisTemplate.execute((RedisCallback<List<Object>>) connection -> {
+                if (!(connection.getNativeConnection() instanceof RedisServerAsyncCommands<?, ?> commands)) {
+                    return null;
+                }
+                return await(((RedisServerAsyncCommands<byte[], byte[]>) commands).slowlogGet(slowlogEntries));
+            });
+            return entries != null ? parseSlowlog(entries) : List.of();
+        } catch (RuntimeException e) {
+            recording.slowlogAvailable = false;
+            log.debug("SLOWLOG unavailable: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    // LATENCY LATEST has no typed method in Lettuce, so it is dispatched as a raw command
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> latencyLatest(Recording recording) {
+        try {
+            List<Object> events = redisTemplate.execute((RedisCallback<List<Object>>) connection -> {
+                if (!(connection.getNativeConnection() instanceof BaseRedisAsyncCommands<?, ?> commands)) {
+                    return null;
+                }
+                return await(((BaseRedisAsyncCommands<byte[], byte[]>) commands).dispatch(LATENCY,
+                        new ArrayOutput<>(ByteArrayCodec.INSTANCE),
+                        new CommandArgs<>(ByteArrayCodec.INSTANCE).add("LATEST")));
+            });
+            List<Map<String, Object>> latest = new ArrayList<>();
+            if (events != null) {
+                for (Object event : events) {
+                    if (event instanceof List<?> fields && fields.size() >= 4) {
+                        Map<String, Object> entry = new LinkedHashMap<>();
+                        entry.put("event", text(fields.get(0)));
+                        entry.put("timestamp", fields.get(1));
+                        entry.put("latestMs", fields.get(2));
+                        entry.put("maxMs", fields.get(3));
+                        latest.add(entry);
+                    }
+                }
+            }
+            return latest;
+        } catch (RuntimeException e) {
+            recording.latencyAvailable = false;
+            log.debug("LATENCY LATEST unavailable: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    private static <T> T await(RedisFuture<T> future) {
+        try {
+            return future.get(COMMAND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted", e);
+        } catch (Exception e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    // Entries are [id, unix time, duration (us), [args...], client address, client name], newest first
+    private static List<Map<String, Object>> parseSlowlog(List<Object> entries) {
+        List<Map<String, Object>> parsed = new ArrayList<>();
+        for (Object entry : entries) {
+            if (!(entry instanceof List<?> fields) || fields.size() < 4) {
+                continue;
+            }
+            StringBuilder command = new StringBuilder();
+            if (fields.get(3) instanceof List<?> args) {
+                for (Object arg : args) {
+                    if (command.length() > 0) {
+                        command.append(' ');
+                    }
+                    command.append(text(arg));
+                }
+            }
+            Map<String, Object> slow = new LinkedHashMap<>();
+            slow.put("id", fields.get(0));
+            slow.put("timestamp", fields.get(1));
+            slow.put("durationUs", fields.get(2));
+            slow.put("command", command.length() > MAX_LOGGED_COMMAND_CHARS
+                    ? command.substring(0, MAX_LOGGED_COMMAND_CHARS) + "..." : command.toString());
+            parsed.add(slow);
+        }
+        return parsed;
+    }
+
+    // "calls=10,usec=25,usec_per_call=2.50,..." -> {calls, usec}
+    private static long[] parseCommandStat(String value) {
+        long[] parsed = new long[2];
+        for (String field : value.split(",")) {
+            int separator = field.indexOf('=');
+            if (separator < 0) {
+                continue;
+            }
+            String key = field.substring(0, separator);
+            if (key.equals("calls")) {
+                parsed[0] = parseLong(field.substring(separator + 1), 0L);
+            } else if (key.equals("usec")) {
+                parsed[1] = parseLong(field.substring(separator + 1), 0L);
+            }
+        }
+        return parsed;
+    }
+
+    private static boolean isOwnCommand(String command) {
+        String lower = command.toLowerCase(Locale.ROOT);
+        for (String own : OWN_COMMANDS) {
+            // Redis 7 reports subcommands as "slowlog|get"
+            if (lower.equals(own) || lower.startsWith(own + "|")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Long parseLong(String value) {
+        return value != null ? parseLong(value, null) : null;
+    }
+
+    private static Long parseLong(String value, Long fallback) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private static Double parseDouble(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String text(Object value) {
+        return value instanceof byte[] bytes ? new String(bytes, StandardCharsets.UTF_8) : String.valueOf(value);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private record Snapshot(long nanos, Map<String, long[]> commands, Double instantaneousOpsPerSec,
+                            Long usedMemory, Long usedMemoryRss, Double fragmentationRatio,
+                            List<Map<String, Object>> slowlog, List<Map<String, Object>> latencyEvents) {
+
+        // Calls and usec summed over every command except the sampler's own
+        long[] totals() {
+            long calls = 0;
+            long usec = 0;
+            for (Map.Entry<String, long[]> entry : commands.entrySet()) {
+                if (!isOwnCommand(entry.getKey())) {
+                    calls += entry.getValue()[0];
+                    usec += entry.getValue()[1];
+                }
+            }
+            return new long[] {calls, usec};
+        }
+    }
+
+    private record Sample(long startMs, long endMs, long commands, long usec, Double instantaneousOpsPerSec,
+                          Long usedMemory, Double fragmentationRatio) {
+    }
+
+    private final class Recording {
+        private final long runId;
+        private final String name;
+        private final long startNanos = System.nanoTime();
+        private final List<Sample> samples = new ArrayList<>();
+        private final List<Map<String, Object>> slowlog = new ArrayList<>();
+        private final Set<Long> seenSlowlogIds = new HashSet<>();
+        private List<Map<String, Object>> latencyEvents = List.of();
+        private Snapshot baseline;
+        private Snapshot last;
+        private long peakMemory;
+        private volatile ScheduledFuture<?> future;
+        private volatile boolean overlapped;
+        private volatile boolean closed;
+        private volatile boolean finished;
+        private volatile boolean slowlogAvailable = true;
+        private volatile boolean latencyAvailable = true;
+        private volatile String error;
+
+        Recording(long runId, String name) {
+            this.runId = runId;
+            this.name = name;
+        }
+
+        synchronized void add(Snapshot snapshot) {
+            if (snapshot.usedMemory() != null) {
+                peakMemory = Math.max(peakMemory, snapshot.usedMemory());
+            }
+            if (baseline == null) {
+                // Entries logged before the run started are not part of it
+                snapshot.slowlog().forEach(entry -> seenSlowlogIds.add(((Number) entry.get("id")).longValue()));
+                baseline = snapshot;
+                last = snapshot;
+                return;
+            }
+            long[] before = last.totals();
+            long[] after = snapshot.totals();
+            if (samples.size() < MAX_SAMPLES) {
+                samples.add(new Sample(elapsedMs(last.nanos()), elapsedMs(snapshot.nanos()),
+                        Math.max(0, after[0] - before[0]), Math.max(0, after[1] - before[1]),
+                        snapshot.instantaneousOpsPerSec(), snapshot.usedMemory(), snapshot.fragmentationRatio()));
+            }
+            for (Map<String, Object> entry : snapshot.slowlog()) {
+                long id = ((Number) entry.get("id")).longValue();
+                if (seenSlowlogIds.add(id) && slowlog.size() < MAX_SLOWLOG_ENTRIES) {
+                    slowlog.add(entry);
+                }
+            }
+            latencyEvents = snapshot.latencyEvents();
+            last = snapshot;
+        }
+
+        private long elapsedMs(long nanos) {
+            return (nanos - startNanos) / 1_000_000;
+        }
+
+        synchronized Map<String, Object> report(List<RunRecorder> recorders) {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("runId", runId);
+            report.put("name", name);
+            report.put("finished", finished);
+            report.put("intervalMs", intervalMs);
+            report.put("samples", samples.size());
+            report.put("overlappedOtherRuns", overlapped);
+            report.put("error", error);
+            if (baseline == null || last == baseline) {
+                report.put("available", false);
+                return report;
+            }
+            report.put("available", true);
+
+            long clientRecords = 0;
+            for (RunRecorder recorder : recorders) {
+                clientRecords += recorder.getWarmupOps() + recorder.getMeasuredOps();
+            }
+            long wallNanos = last.nanos() - baseline.nanos();
+            long[] totals = {last.totals()[0] - baseline.totals()[0], last.totals()[1] - baseline.totals()[1]};
+
+            Map<String, Object> commands = new LinkedHashMap<>();
+            commands.put("executed", totals[0]);
+            commands.put("perSec", Statistics.round(wallNanos > 0 ? totals[0] * 1_000_000_000.0 / wallNanos : 0.0, 2));
+            commands.put("clientRecords", clientRecords);
+            commands.put("perRecord", clientRecords > 0 ? Statistics.round((double) totals[0] / clientRecords, 3) : null);
+            commands.put("serverUsecPerRecord", clientRecords > 0 ? Statistics.round((double) totals[1] / clientRecords, 3) : null);
+            // Share of wall time the server spent executing commands; near 100% means Redis is the bottleneck
+            commands.put("serverBusyPct", Statistics.round(wallNanos > 0 ? totals[1] * 100_000.0 / wallNanos : 0.0, 2));
+            commands.put("byCommand", byCommand(clientRecords));
+            report.put("commands", commands);
+
+            Map<String, Object> memory = new LinkedHashMap<>();
+            memory.put("startBytes", baseline.usedMemory());
+            memory.put("endBytes", last.usedMemory());
+            memory.put("peakBytes", peakMemory);
+            if (baseline.usedMemory() != null && last.usedMemory() != null && clientRecords > 0) {
+                memory.put("bytesPerRecord", Statistics.round((double) (last.usedMemory() - baseline.usedMemory()) / clientRecords, 1));
+            }
+            memory.put("usedMemoryRss", last.usedMemoryRss());
+            memory.put("fragmentationRatio", last.fragmentationRatio());
+            report.put("memory", memory);
+
+            report.put("slowlog", slowlogAvailable ? new ArrayList<>(slowlog) : "unavailable");
+            report.put("latencyEvents", latencyAvailable ? latencyEvents : "unavailable");
+            report.put("timeline", timeline(recorders));
+            return report;
+        }
+
+        private List<Map<String, Object>> byCommand(long clientRecords) {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (Map.Entry<String, long[]> entry : last.commands().entrySet()) {
+                if (isOwnCommand(entry.getKey())) {
+                    continue;
+                }
+                long[] before = baseline.commands().getOrDefault(entry.getKey(), new long[2]);
+                long calls = entry.getValue()[0] - before[0];
+                long usec = entry.getValue()[1] - before[1];
+                if (calls <= 0) {
+                    continue;
+                }
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("command", entry.getKey());
+                row.put("calls", calls);
+                row.put("perRecord", clientRecords > 0 ? Statistics.round((double) calls / clientRecords, 3) : null);
+                row.put("usecPerCall", Statistics.round((double) usec / calls, 2));
+                rows.add(row);
+            }
+            rows.sort((a, b) -> Long.compare((Long) b.get("calls"), (Long) a.get("calls")));
+            return rows.size() > TOP_COMMANDS ? new ArrayList<>(rows.subList(0, TOP_COMMANDS)) : rows;
+        }
+
+        // Each server interval next to the client ops completed in it, pro rata from the recorders' windows
+        private List<Map<String, Object>> timeline(List<RunRecorder> recorders) {
+            List<Map<String, Object>> timeline = new ArrayList<>();
+            for (Sample sample : samples) {
+                double seconds = (sample.endMs() - sample.startMs()) / 1000.0;
+                Map<String, Object> point = new LinkedHashMap<>();
+                point.put("elapsedMs", sample.endMs());
+                point.put("serverCommandsPerSec", Statistics.round(seconds > 0 ? sample.commands() / seconds : 0.0, 1));
+                point.put("serverInstantaneousOpsPerSec", sample.instantaneousOpsPerSec());
+                point.put("serverBusyPct", Statistics.round(seconds > 0 ? sample.usec() / 10_000.0 / seconds : 0.0, 2));
+                point.put("usedMemory", sample.usedMemory());
+                point.put("fragmentationRatio", sample.fragmentationRatio());
+                if (!recorders.isEmpty()) {
+                    double clientOps = 0;
+                    long clientP99Nanos = 0;
+                    for (RunRecorder recorder : recorders) {
+                        long offsetMs = (recorder.getStartNanos() - startNanos) / 1_000_000;
+                        for (RunRecorder.Window window : recorder.getTimeline()) {
+                            long from = Math.max(sample.startMs(), window.startMs() + offsetMs);
+                            long to = Math.min(sample.endMs(), window.startMs() + offsetMs + window.durationMs());
+                            if (to > from) {
+                                clientOps += (double) window.ops() * (to - from) / window.durationMs();
+                                clientP99Nanos = Math.max(clientP99Nanos, window.p99Nanos());
+                            }
+                        }
+                    }
+                    point.put("clientRecordsPerSec", Statistics.round(seconds > 0 ? clientOps / seconds : 0.0, 1));
+                    point.put("clientP99Us", Statistics.round(clientP99Nanos / 1000.0, 2));
+                    point.put("commandsPerRecord", clientOps >= 1 ? Statistics.round(sample.commands() / clientOps, 3) : null);
+                }
+                timeline.add(point);
+            }
+            return timeline;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.nayeem.redistest.service;
+
+import com.nayeem.redistest.benchmark.BenchmarkRunScheduler;
+import com.nayeem.redistest.benchmark.LatencyHistogram;
+import com.nayeem.redistest.benchmark.Statistics;
+import com.nayeem.redistest.benchmark.WorkerGroup;
+import com.nayeem.redistest.model.TestData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+/**
+ * Spreads TestData records in the Spring Data layout over the configured topology and reports
+ * throughput per node and in aggregate. A write is HMSET of the entity hash plus SADD of its
+ * ":idx" helper set; a read is HGETALL. With hash tags the ids are "{id}", so both keys of a
+ * write hit the same slot and node; without them the helper set is placed on its own and
+ * "crossNodeWrites" counts the writes that touched two nodes.
+ *
+ * <p>In sharded mode one phase runs per requested node count over the first N shards, so the
+ * same run shows scaling from 1 to N nodes. Standalone and cluster mode run a single phase;
+ * cluster ops go through Lettuce's routing and are attributed to the master owning the slot.
+ */
+@Service
+@Slf4j
+public class ShardingBenchmarkService {
+
+    private static final String KEYSPACE = "testdata";
+    private static final String ID_PREFIX = "shard-bench-";
+
+    private final RedisShards redisShards;
+    private final RedisConverter redisConverter;
+    private final BenchmarkRunScheduler runScheduler;
+
+    private final BenchmarkSuite suite;
+
+    public ShardingBenchmarkService(RedisShards redisShards, RedisConverter redisConverter, BenchmarkRunScheduler runScheduler,
+                                    BenchmarkResultStore resultStore) {
+        this.redisShards = redisShards;
+        this.redisConverter = redisConverter;
+        this.runScheduler = runScheduler;
+        this.suite = new BenchmarkSuite("sharding-benchmark", "Sharding benchmark", runScheduler, resultStore);
+    }
+
+    // Node names, the node index of a key and a connection factory per node index
+    private record Layout(List<String> nodes, ToIntFunction<String> route, List<RedisConnectionFactory> factories) {
+    }
+
+    public boolean startBenchmark(int records, int operations, int threads, double writeRatio, List<Integer> nodeCounts,
+                                  boolean hashTags) {
+        runScheduler.requireWorkers(threads);
+        List<Integer> counts = redisShards.getTopology() == RedisShards.Topology.SHARDED
+                ? nodeCounts.stream().map(n -> Math.min(n, redisShards.getShards().size())).distinct().toList()
+                : List.of(1);
+        Map<String, Object> runConfig = new LinkedHashMap<>();
+        runConfig.put("topology", redisShards.getTopology());
+        runConfig.put("availableNodes", redisShards.getShards().stream().map(RedisShards.Shard::name).toList());
+        runConfig.put("records", records);
+        runConfig.put("operations", operations);
+        runConfig.put("threads", threads);
+        runConfig.put("writeRatio", writeRatio);
+        runConfig.put("nodeCounts", counts);
+        runConfig.put("hashTags", hashTags);
+        runConfig.put("virtualNodes", redisShards.getSettings().virtualNodes());
+
+        return suite.launch(runConfig, run -> {
+            Double baseThroughput = null;
+            for (int nodeCount : counts) {
+                if (!run.isActive()) {
+                    break;
+                }
+                Layout layout = layout(nodeCount);
+                String[] ids = new String[records];
+                for (int i = 0; i < records; i++) {
+                    ids[i] = hashTags ? HashTags.tagged(ID_PREFIX + i) : ID_PREFIX + i;
+                }
+                try {
+                    suite.phase("seeding-" + nodeCount);
+                    long[] keysPerNode = seed(layout, ids, run);
+                    suite.phase("nodes-" + nodeCount);
+                    Map<String, Object> result = runPhase(layout, ids, keysPerNode, operations, threads, writeRatio, run);
+                    double throughput = (double) result.get("throughput");
+                    if (baseThroughput == null) {
+                        baseThroughput = throughput;
+                    }
+                    result.put("scaling", Statistics.round(baseThroughput > 0 ? throughput / baseThroughput : 0.0, 2));
+                    addResult(result);
+                } finally {
+                    suite.phase("cleanup-" + nodeCount);
+                    cleanup(layout, ids);
+                }
+            }
+        });
+    }
+
+    private Layout layout(int nodeCount) {
+        List<RedisShards.Shard> shards = redisShards.getShards();
+        switch (redisShards.getTopology()) {
+            case SHARDED -> {
+                ConsistentHashRing<RedisShards.Shard> ring = redisShards.ring(nodeCount);
+                List<RedisShards.Shard> nodes = ring.getNodes();
+                return new Layout(nodes.stream().map(RedisShards.Shard::name).toList(),
+                        key -> nodes.indexOf(ring.nodeFor(key)),
+                        nodes.stream().map(RedisShards.Shard::connectionFactory).toList());
+            }
+            case CLUSTER -> {
+                String[] owners = redisShards.clusterSlotOwners();
+                List<String> nodes = new ArrayList<>();
+                int[] slotNode = new int[owners.length];
+                for (int slot = 0; slot < owners.length; slot++) {
+                    int index = nodes.indexOf(owners[slot]);
+                    if (index < 0) {
+                        index = nodes.size();
+                        nodes.add(owners[slot]);
+                    }
+                    slotNode[slot] = index;
+                }
+                RedisConnectionFactory cluster = shards.get(0).connectionFactory();
+                return new Layout(nodes, key -> slotNode[HashTags.slot(key)],
+                        nodes.stream().map(node -> cluster).toList());
+            }
+            default -> {
+                return new Layout(List.of(shards.get(0).name()), key -> 0, List.of(shards.get(0).connectionFactory()));
+            }
+        }
+    }
+
+    private long[] seed(Layout layout, String[] ids, BenchmarkRunScheduler.Run run) {
+        long[] keysPerNode = new long[layout.nodes().size()];
+        try (Connections connections = new Connections(layout)) {
+            for (int i = 0; i < ids.length && run.isActive(); i++) {
+                keysPerNode[layout.route().applyAsInt(KEYSPACE + ":" + ids[i])]++;
+                write(connections, layout, ids[i], i);
+            }
+        }
+        return keysPerNode;
+    }
+
+    private Map<String, Object> runPhase(Layout layout, String[] ids, long[] keysPerNode, int operations, int threads,
+                                         double writeRatio, BenchmarkRunScheduler.Run run) throws InterruptedException {
+        int nodeCount = layout.nodes().size();
+        LongAdder[] opsPerNode = new LongAdder[nodeCount];
+        LatencyHistogram[] latencyPerNode = new LatencyHistogram[nodeCount];
+        for (int n = 0; n < nodeCount; n++) {
+            opsPerNode[n] = new LongAdder();
+            latencyPerNode[n] = new LatencyHistogram();
+        }
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder completed = new LongAdder();
+        LongAdder writes = new LongAdder();
+        LongAdder crossNodeWrites = new LongAdder();
+        int perThread = operations / threads;
+        long start = System.nanoTime();
+        try (WorkerGroup workers = new WorkerGroup(run, "sharding")) {
+            for (int t = 0; t < threads; t++) {
+                int count = t == threads - 1 ? operations - perThread * (threads - 1) : perThread;
+                workers.start(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    try (Connections connections = new Connections(layout)) {
+                        for (int i = 0; i < count && workers.isRunning(); i++) {
+                            int index = random.nextInt(ids.length);
+                            String hashKey = KEYSPACE + ":" + ids[index];
+                            int node = layout.route().applyAsInt(hashKey);
+                            long opStart = System.nanoTime();
+                            if (random.nextDouble() < writeRatio) {
+                                if (write(connections, layout, ids[index], index)) {
+                                    crossNodeWrites.increment();
+                                }
+                                writes.increment();
+                            } else {
+                                connections.get(node).hashCommands().hGetAll(bytes(hashKey));
+                            }
+                            long elapsed = System.nanoTime() - opStart;
+                            latency.record(elapsed);
+                            latencyPerNode[node].record(elapsed);
+                            opsPerNode[node].increment();
+                            completed.increment();
+                        }
+                    }
+                });
+            }
+            workers.await();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        List<Map<String, Object>> perNode = new ArrayList<>();
+        for (int n = 0; n < nodeCount; n++) {
+            Map<String, Object> node = new LinkedHashMap<>();
+            node.put("node", layout.nodes().get(n));
+            node.put("keys", keysPerNode[n]);
+            node.put("keyShare", Statistics.round(ids.length > 0 ? (double) keysPerNode[n] / ids.length : 0.0, 4));
+            node.put("operations", opsPerNode[n].sum());
+            node.put("throughput", Statistics.round(opsPerNode[n].sum() * 1_000_000_000.0 / elapsed, 2));
+            node.put("latency", latencyPerNode[n].toSummary());
+            perNode.add(node);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("topology", redisShards.getTopology());
+        result.put("nodes", nodeCount);
+        result.put("operations", completed.sum());
+        result.put("writes", writes.sum());
+        result.put("crossNodeWrites", crossNodeWrites.sum());
+        result.put("durationMs", elapsed / 1_000_000);
+        result.put("throughput", Statistics.round(completed.sum() * 1_000_000_000.0 / elapsed, 2));
+        result.put("latency", latency.toSummary());
+        result.put("perNode", perNode);
+        return result;
+    }
+
+    // The entity hash and its helper set; true when they live on different nodes
+    private boolean write(Connections connections, Layout layout, String id, int index) {
+        RedisData data = new RedisData();
+        redisConverter.write(new TestData(id, "Shard Bench " + index, "Sharding benchmark record " + index, LocalDateTime.now(), index), data);
+        String hashKey = KEYSPACE + ":" + id;
+        String helperKey = hashKey + ":idx";
+        int hashNode = layout.route().applyAsInt(hashKey);
+        int helperNode = layout.route().applyAsInt(helperKey);
+        connections.get(hashNode).hashCommands().hMSet(bytes(hashKey), data.getBucket().rawMap());
+        connections.get(helperNode).setCommands().sAdd(bytes(helperKey), bytes(KEYSPACE + ":name:Shard Bench " + index));
+        return hashNode != helperNode;
+    }
+
+    private void cleanup(Layout layout, String[] ids) {
+        try (Connections connections = new Connections(layout)) {
+            for (String id : ids) {
+                String hashKey = KEYSPACE + ":" + id;
+                String helperKey = hashKey + ":idx";
+                connections.get(layout.route().applyAsInt(hashKey)).keyCommands().del(bytes(hashKey));
+                connections.get(layout.route().applyAsInt(helperKey)).keyCommands().del(bytes(helperKey));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Sharding benchmark cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // One connection per node, opened on first use; Lettuce shares the native connection between threads
+    private static final class Connections implements AutoCloseable {
+        private final Layout layout;
+        private final RedisConnection[] connections;
+
+        Connections(Layout layout) {
+            this.layout = layout;
+            this.connections = new RedisConnection[layout.nodes().size()];
+        }
+
+        RedisConnection get(int node) {
+            if (connections[node] == null) {
+                connections[node] = layout.factories().get(node).getConnection();
+            }
+            return connections[node];
+        }
+
+        @Override
+        public void close() {
+            for (RedisConnection connection : connections) {
+                if (connection != null) {
+                    connection.close();
+                }
+            }
+        }
+    }
+
+    private void addResult(Map<String, Object> result) {
+        suite.addResult(result);
+        log.info("Sharding benchmark on {} nodes: {} ops/s (scaling {})", result.get("nodes"), result.get("throughput"), result.get("scaling"));
+    }
+
+    public boolean isTestRunning() {
+        return suite.isRunning();
+    }
+
+    public Map<String, Object> getStatus() {
+        return suite.getStatus();
+    }
+}
@@ -1,13 +1,24 @@
 package com.nayeem.redistest.service;
 
+import com.nayeem.redistest.benchmark.BenchmarkRunScheduler;
+import com.nayeem.redistest.benchmark.RunOptions;
+import com.nayeem.redistest.benchmark.RunRecorder;
+import com.nayeem.redistest.benchmark.WarmupPolicy;
+import com.nayeem.redistest.config.BenchmarkSettings;
 import com.nayeem.redistest.model.TestData;
 import com.nayeem.redistest.repository.TestDataRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -17,35 +28,65 @@ import java.util.concurrent.atomic.AtomicLong;
 public class SpringDataPerformanceTestService {
 
     private final TestDataRepository testDataRepository;
+    private final RedisTemplate<String, TestData> redisTemplate;
+    private final SpringDataBatchWriter springDataBatchWriter;
+    private final BenchmarkSettings benchmarkSettings;
+    private final BenchmarkRunScheduler runScheduler;
+    private final ServerStatsSampler serverStatsSampler;
+    private final JfrRunProfiler jfrRunProfiler;
+    private final BenchmarkResultStore resultStore;
     
+    private static final String KEYSPACE = "testdata";
+    private static final String PERFORMANCE_TEST_PREFIX = "perf-test-";
+    // Warmup ids share the keyspace, so they get a prefix of their own for the scan that removes them
+    private static final String WARMUP_PREFIX = "perf-warmup-";
+
     private final AtomicBoolean testRunning = new AtomicBoolean(false);
     private final AtomicLong insertedCount = new AtomicLong(0);
     private final AtomicLong totalInserted = new AtomicLong(0);
+    private volatile RunRecorder currentRun;
+    private volatile BenchmarkRunScheduler.Run activeRun;
 
-    public void startPerformanceTest(int totalRecords) {
-        if (testRunning.get()) {
+    // A profiled run gets a JFR recording summarized into its results
+    public void startPerformanceTest(RunOptions options) {
+        if (!testRunning.compareAndSet(false, true)) {
             log.warn("Spring Data performance test is already running!");
             return;
         }
-
-        testRunning.set(true);
+        BenchmarkRunScheduler.Run run;
+        try {
+            run = runScheduler.open("springdata-performance", options.deadlineMs());
+        } catch (RejectedExecutionException e) {
+            testRunning.set(false);
+            throw e;
+        }
+        activeRun = run;
+        if (options.profile()) {
+            jfrRunProfiler.start(run);
+        }
         insertedCount.set(0);
         totalInserted.set(0);
+        RunRecorder recorder = benchmarkSettings.newRecorder("springdata", options.warmup());
+        currentRun = recorder;
+        recorder.start();
 
-        log.info("Starting Spring Data performance test with {} records", totalRecords);
+        log.info("Starting Spring Data performance test with {} records (warmup: {})", options.records(), options.warmup());
 
-        // Start data insertion thread
-        CompletableFuture<Void> insertionTask = CompletableFuture.runAsync(() -> {
-            insertDataInBatches(totalRecords);
-        });
-
-        // Start count monitoring thread
-        CompletableFuture<Void> monitoringTask = CompletableFuture.runAsync(() -> {
-            monitorDataCount();
-        });
+        // Insertion and monitoring run on the benchmark executor, not the common ForkJoinPool
+        CompletableFuture<Void> insertionTask;
+        CompletableFuture<Void> monitoringTask;
+        try {
+            insertionTask = run.submit(() -> insertDataInBatches(options.records(), recorder, run));
+            monitoringTask = run.submit(() -> monitorDataCount(recorder));
+        } catch (RejectedExecutionException e) {
+            run.stop();
+            run.close();
+            testRunning.set(false);
+            throw e;
+        }
 
         // Wait for insertion to complete
-        insertionTask.thenRun(() -> {
+        insertionTask.whenComplete((result, error) -> {
             log.info("Spring Data insertion completed. Total inserted: {}", totalInserted.get());
             testRunning.set(false);
         });
@@ -54,14 +95,33 @@ public class SpringDataPerformanceTestService {
         monitoringTask.thenRun(() -> {
             log.info("Spring Data monitoring completed");
         });
+        // Saved once the run's last server sample and profile summary are in
+        CompletableFuture.allOf(insertionTask, monitoringTask).whenComplete((result, error) -> {
+            run.closeAndAwait();
+            resultStore.save(run.getName(), runConfig(options.records(), options.warmup(), run), runResults(recorder, run),
+                    List.of(BenchmarkResultStore.series(recorder)));
+        });
+    }
+
+    // Asks the running test to stop after its current write; returns false when none is running
+    public boolean stopPerformanceTest() {
+        BenchmarkRunScheduler.Run run = activeRun;
+        if (!testRunning.get() || run == null) {
+            return false;
+        }
+        run.stop();
+        return true;
     }
 
-    private void insertDataInBatches(int totalRecords) {
+    private void insertDataInBatches(int totalRecords, RunRecorder recorder, BenchmarkRunScheduler.Run run) {
+        warmUp(recorder, run);
+        recorder.beginMeasurement();
         long startTime = System.currentTimeMillis();
+        String idFormat = PerformanceTestService.idFormat(totalRecords);
         
-        for (int i = 1; i <= totalRecords; i++) {
+        for (int i = 1; i <= totalRecords && run.isActive(); i++) {
             try {
-                String id = "perf-test-" + String.format("%06d", i);
+                String id = PERFORMANCE_TEST_PREFIX + String.format(idFormat, i);
                 TestData testData = new TestData(
                     id,
                     "Performance Test Data " + i,
@@ -70,7 +130,9 @@ public class SpringDataPerformanceTestService {
                     i
                 );
 
+                long opStart = System.nanoTime();
                 testDataRepository.save(testData);
+                recorder.recordOp(System.nanoTime() - opStart);
                 
                 insertedCount.incrementAndGet();
                 totalInserted.incrementAndGet();
@@ -83,28 +145,70 @@ public class SpringDataPerformanceTestService {
                 }
 
             } catch (Exception e) {
+                recorder.recordError();
                 log.error("Error inserting record {}: {}", i, e.getMessage());
             }
         }
         
+        recorder.finish();
         long endTime = System.currentTimeMillis();
-        double totalRate = (double) totalRecords / ((endTime - startTime) / 1000.0);
+        double totalRate = (double) insertedCount.get() / ((endTime - startTime) / 1000.0);
+        if (run.getStopReason() != null) {
+            log.info("Insertion ended early ({}) after {} of {} records", run.getStopReason(), insertedCount.get(), totalRecords);
+        }
         log.info("Spring Data insertion completed in {} ms. Average rate: {:.2f} records/sec", 
                 (endTime - startTime), totalRate);
+        removeWarmupData();
     }
 
-    private void monitorDataCount() {
+    // Same write path as the measured phase, but excluded from the results
+    private void warmUp(RunRecorder recorder, BenchmarkRunScheduler.Run run) {
+        int i = 0;
+        while (recorder.isWarmingUp() && run.isActive()) {
+            i++;
+            try {
+                TestData testData = new TestData(
+                    WARMUP_PREFIX + i,
+                    "Warmup Data " + i,
+                    "This is Spring Data performance test warmup entry number " + i,
+                    LocalDateTime.now(),
+                    i
+                );
+                long opStart = System.nanoTime();
+                testDataRepository.save(testData);
+                recorder.recordWarmupOp(System.nanoTime() - opStart);
+            } catch (Exception e) {
+                log.error("Error inserting warmup record {}: {}", i, e.getMessage());
+            }
+        }
+        if (i > 0) {
+            log.info("Spring Data warmup completed with {} records", i);
+        }
+    }
+
+    // Repository entities have no TTL, so warmup records (with any left by an aborted run) are removed once the run is over
+    private void removeWarmupData() {
+        try {
+            ScanSupport.removeMembers(redisTemplate, KEYSPACE, WARMUP_PREFIX + "*",
+                    ids -> springDataBatchWriter.deleteAll(KEYSPACE, ids));
+        } catch (Exception e) {
+            log.error("Error removing warmup records: {}", e.getMessage());
+        }
+    }
+
+    private void monitorDataCount(RunRecorder recorder) {
         long startTime = System.currentTimeMillis();
         int monitoringCount = 0;
         
         while (testRunning.get()) {
             try {
+                recorder.sample();
                 long currentCount = testDataRepository.count();
                 long currentTime = System.currentTimeMillis();
                 monitoringCount++;
                 
-                log.info("Spring Data Monitoring #{} - Total records in Redis: {} (elapsed: {} ms)", 
-                        monitoringCount, currentCount, (currentTime - startTime));
+                log.info("Spring Data Monitoring #{} - Total records in Redis: {} (elapsed: {} ms, phase: {})", 
+                        monitoringCount, currentCount, (currentTime - startTime), recorder.getPhase());
                 
                 Thread.sleep(500); // Wait 0.5 seconds
                 
@@ -133,7 +237,8 @@ public class SpringDataPerformanceTestService {
 
     public long getPerformanceTestDataCount() {
         try {
-            return testDataRepository.countByNameStartingWith("Performance Test Data");
+            // SSCAN of the keyspace set rather than a derived query that loads every match
+            return ScanSupport.countMembers(redisTemplate, KEYSPACE, PERFORMANCE_TEST_PREFIX + "*");
         } catch (Exception e) {
             log.error("Error getting performance test count: {}", e.getMessage());
             return 0;
@@ -142,10 +247,11 @@ public class SpringDataPerformanceTestService {
 
     public void clearPerformanceTestData() {
         try {
-            long count = testDataRepository.countByNameStartingWith("Performance Test Data");
-            if (count > 0) {
-                testDataRepository.deleteAll(testDataRepository.findByNameStartingWith("Performance Test Data"));
-                log.info("Cleared {} Spring Data performance test records", count);
+            // Deletes a scanned batch of ids at a time with the repository's cleanup, pipelined
+            long cleared = ScanSupport.removeMembers(redisTemplate, KEYSPACE, PERFORMANCE_TEST_PREFIX + "*",
+                    ids -> springDataBatchWriter.deleteAll(KEYSPACE, ids));
+            if (cleared > 0) {
+                log.info("Cleared {} Spring Data performance test records", cleared);
             }
         } catch (Exception e) {
             log.error("Error clearing Spring Data performance test data: {}", e.getMessage());
@@ -163,4 +269,38 @@ public class SpringDataPerformanceTestService {
     public long getTotalInserted() {
         return totalInserted.get();
     }
+
+    // STOPPED or DEADLINE when the last run ended early, otherwise null
+    public String getStopReason() {
+        BenchmarkRunScheduler.Run run = activeRun;
+        return run != null && run.getStopReason() != null ? run.getStopReason().name() : null;
+    }
+
+    public Map<String, Object> getRunResults() {
+        RunRecorder recorder = currentRun;
+        if (recorder == null) {
+            return Collections.emptyMap();
+        }
+        return runResults(recorder, activeRun);
+    }
+
+    private Map<String, Object> runResults(RunRecorder recorder, BenchmarkRunScheduler.Run run) {
+        Map<String, Object> results = recorder.summary();
+        if (run != null) {
+            results.put("serverStats", serverStatsSampler.report(run.getId(), List.of(recorder)));
+            Map<String, Object> jfr = jfrRunProfiler.report(run.getId());
+            if (jfr != null) {
+                results.put("profile", jfr);
+            }
+        }
+        return results;
+    }
+
+    private static Map<String, Object> runConfig(int totalRecords, WarmupPolicy warmupPolicy, BenchmarkRunScheduler.Run run) {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("records", totalRecords);
+        config.put("warmup", warmupPolicy);
+        config.put("stopReason", run.getStopReason());
+        return config;
+    }
 }
@@ -1,64 +1,155 @@
 package com.nayeem.redistest.service;
 
 import com.nayeem.redistest.model.TestData;
+import com.nayeem.redistest.repository.ScanSlice;
 import com.nayeem.redistest.repository.TestDataRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class SpringDataRedisService {
 
+    private static final String PERFORMANCE_TEST_NAME_PREFIX = "Performance Test Data";
+    private static final int DELETE_BATCH_SIZE = 1000;
+
     private final TestDataRepository testDataRepository;
+    private final TestDataL1Cache l1Cache;
+    private final TestDataBloomFilter existenceFilter;
+    private final ReplicaReads replicaReads;
 
+    // The local entry is dropped here; other instances hear of the write through keyspace notifications.
+    // The existence filter picks the id up from the repository's save event.
     public void saveTestData(TestData testData) {
         testData.setCreatedAt(LocalDateTime.now());
         testDataRepository.save(testData);
+        l1Cache.invalidate(testData.getId());
     }
 
     public Optional<TestData> getTestData(String id) {
-        return testDataRepository.findById(id);
+        return getTestData(id, ReplicaReads.Consistency.PRIMARY);
+    }
+
+    // L1 misses always load from the master: a lagging replica could otherwise be cached right after a local write
+    public Optional<TestData> getTestData(String id, ReplicaReads.Consistency consistency) {
+        if (!existenceFilter.mightContain(id)) {
+            return Optional.empty();
+        }
+        // A false positive is counted where Redis was asked, not when a cached absence answers locally
+        return l1Cache.isEnabled()
+                ? l1Cache.getOrLoad(id, key -> countFalsePositive(testDataRepository.findById(key)))
+                : countFalsePositive(findById(id, consistency));
     }
 
+    private Optional<TestData> countFalsePositive(Optional<TestData> loaded) {
+        if (loaded.isEmpty()) {
+            existenceFilter.falsePositive();
+        }
+        return loaded;
+    }
+
+    // Not short-circuited by the existence filter: a filter that missed a write must not leave the record behind
     public boolean deleteTestData(String id) {
         if (testDataRepository.existsById(id)) {
             testDataRepository.deleteById(id);
+            l1Cache.invalidate(id);
             return true;
         }
         return false;
     }
 
     public boolean existsTestData(String id) {
-        return testDataRepository.existsById(id);
+        return existsTestData(id, ReplicaReads.Consistency.PRIMARY);
+    }
+
+    public boolean existsTestData(String id, ReplicaReads.Consistency consistency) {
+        if (!existenceFilter.mightContain(id)) {
+            return false;
+        }
+        boolean exists = consistency == ReplicaReads.Consistency.EVENTUAL && replicaReads.isEnabled()
+                ? replicaReads.existsById(id)
+                : testDataRepository.existsById(id);
+        if (!exists) {
+            existenceFilter.falsePositive();
+        }
+        return exists;
+    }
+
+    // Served by a replica only when the caller opted into EVENTUAL; the delete path above keeps checking the master
+    private Optional<TestData> findById(String id, ReplicaReads.Consistency consistency) {
+        return consistency == ReplicaReads.Consistency.EVENTUAL && replicaReads.isEnabled()
+                ? replicaReads.findById(id)
+                : testDataRepository.findById(id);
     }
 
     public List<TestData> getAllTestData() {
         return (List<TestData>) testDataRepository.findAll();
     }
 
+    // Cursor paging: each page costs one SSCAN and one pipelined HGETALL round trip per batch
+    public ScanSlice<TestData> getTestDataPage(String prefix, String cursor, int size) {
+        return prefix == null || prefix.isEmpty()
+                ? testDataRepository.scanAll(cursor, size)
+                : testDataRepository.scanByNameStartingWith(prefix, cursor, size);
+    }
+
+    public Slice<TestData> getTestDataSlice(String prefix, int page, int size) {
+        PageRequest pageable = PageRequest.of(page, size);
+        return prefix == null || prefix.isEmpty()
+                ? testDataRepository.findAllSlice(pageable)
+                : testDataRepository.findSliceByNameStartingWith(prefix, pageable);
+    }
+
+    // The caller must close the stream
+    public Stream<TestData> streamTestData(String prefix) {
+        return prefix == null || prefix.isEmpty()
+                ? testDataRepository.streamAll()
+                : testDataRepository.streamByNameStartingWith(prefix);
+    }
+
     public long getTotalDataCount() {
         return testDataRepository.count();
     }
 
     public List<TestData> getPerformanceTestData() {
-        return testDataRepository.findByNameStartingWith("Performance Test Data");
+        try (Stream<TestData> matches = testDataRepository.streamByNameStartingWith(PERFORMANCE_TEST_NAME_PREFIX)) {
+            return matches.toList();
+        }
     }
 
     public long getPerformanceTestDataCount() {
-        return testDataRepository.countByNameStartingWith("Performance Test Data");
+        try (Stream<TestData> matches = testDataRepository.streamByNameStartingWith(PERFORMANCE_TEST_NAME_PREFIX)) {
+            return matches.count();
+        }
     }
 
+    // Deletes behind the scan a batch at a time instead of loading every match first
     public void clearPerformanceTestData() {
-        List<TestData> perfTestData = testDataRepository.findByNameStartingWith("Performance Test Data");
-        if (!perfTestData.isEmpty()) {
-            testDataRepository.deleteAll(perfTestData);
-            log.info("Cleared {} performance test records", perfTestData.size());
+        long cleared = 0;
+        List<TestData> batch = new ArrayList<>(DELETE_BATCH_SIZE);
+        try (Stream<TestData> matches = testDataRepository.streamByNameStartingWith(PERFORMANCE_TEST_NAME_PREFIX)) {
+            for (var iterator = matches.iterator(); iterator.hasNext(); ) {
+                batch.add(iterator.next());
+                if (batch.size() == DELETE_BATCH_SIZE || !iterator.hasNext()) {
+                    testDataRepository.deleteAll(batch);
+                    batch.forEach(data -> l1Cache.invalidate(data.getId()));
+                    cleared += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+        if (cleared > 0) {
+            log.info("Cleared {} performance test records", cleared);
         }
     }
 }
@@ -0,0 +1,460 @@
+package com.nayeem.redistest.service;
+
+import com.nayeem.redistest.benchmark.BenchmarkRunScheduler;
+import com.nayeem.redistest.benchmark.LatencyHistogram;
+import com.nayeem.redistest.benchmark.Statistics;
+import com.nayeem.redistest.benchmark.WorkerGroup;
+import com.nayeem.redistest.model.TestData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessagesSummary;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Producer/consumer workloads over Redis Streams (XADD, XREADGROUP, XACK) and Pub/Sub, with
+ * TestData JSON as the message payload. Every message carries its send time, so consumers
+ * record end-to-end produce-to-consume latency. Stream consumers share one consumer group and
+ * split the work; Pub/Sub subscribers each receive every message.
+ *
+ * <p>A sampler records the backlog over time: for streams, entries not yet delivered to the
+ * group (produced minus read) and the XPENDING count (read but not acknowledged); for Pub/Sub,
+ * messages accepted by PUBLISH that no subscriber has processed yet. The backlog growth rate is
+ * the least-squares slope of the backlog over the production phase, so a positive value means
+ * consumers are falling behind.
+ *
+ * <p>Producers and stream consumers are workers of the run on the benchmark pool, so stopping the
+ * run or reaching its deadline ends the production phase and the drain early.
+ */
+@Service
+@Slf4j
+public class StreamingBenchmarkService {
+
+    public enum Workload {
+        STREAM, PUBSUB
+    }
+
+    private static final String GROUP = "bench-group";
+    private static final byte[] PAYLOAD_FIELD = "payload".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SENT_FIELD = "sentNanos".getBytes(StandardCharsets.UTF_8);
+    private static final long SAMPLE_INTERVAL_MS = 250;
+    private static final long DRAIN_TIMEOUT_MS = 10_000;
+    private static final int MAX_TIMELINE_SAMPLES = 240;
+
+    private final RedisTemplate<String, TestData> redisTemplate;
+    private final RedisConnectionFactory connectionFactory;
+    private final BenchmarkRunScheduler runScheduler;
+
+    private final BenchmarkSuite suite;
+
+    public StreamingBenchmarkService(RedisTemplate<String, TestData> redisTemplate,
+                                     RedisConnectionFactory connectionFactory,
+                                     BenchmarkRunScheduler runScheduler,
+                                     BenchmarkResultStore resultStore) {
+        this.redisTemplate = redisTemplate;
+        this.connectionFactory = connectionFactory;
+        this.runScheduler = runScheduler;
+        this.suite = new BenchmarkSuite("streaming-benchmark", "Streaming benchmark", runScheduler, resultStore);
+    }
+
+    public boolean startBenchmark(List<Workload> workloads, int producers, int consumers, int count,
+                                  int durationSeconds, int producerRate) {
+        runScheduler.requireWorkers(producers + consumers);
+        Map<String, Object> runConfig = new LinkedHashMap<>();
+        runConfig.put("workloads", workloads);
+        runConfig.put("producers", producers);
+        runConfig.put("consumers", consumers);
+        runConfig.put("count", count);
+        runConfig.put("durationSeconds", durationSeconds);
+        runConfig.put("producerRate", producerRate);
+
+        return suite.launch(runConfig, run -> {
+            for (Workload workload : workloads) {
+                if (!run.isActive()) {
+                    break;
+                }
+                suite.phase(workload.name().toLowerCase(Locale.ROOT));
+                Map<String, Object> result = workload == Workload.STREAM
+                        ? runStream(run, producers, consumers, count, durationSeconds, producerRate)
+                        : runPubSub(run, producers, consumers, durationSeconds, producerRate);
+                addResult(result);
+            }
+        });
+    }
+
+    private Map<String, Object> runStream(BenchmarkRunScheduler.Run run, int producers, int consumers, int count,
+                                          int durationSeconds, int producerRate) throws InterruptedException {
+        byte[] key = ("bench:stream:" + System.currentTimeMillis()).getBytes(StandardCharsets.UTF_8);
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.streamCommands().xGroupCreate(key, GROUP, ReadOffset.from("0"), true);
+            return null;
+        });
+
+        Counters counters = new Counters();
+        LatencyHistogram latency = new LatencyHistogram();
+        RedisSerializer<TestData> serializer = valueSerializer();
+
+        try (WorkerGroup producerGroup = new WorkerGroup(run, "stream producer");
+             WorkerGroup consumerGroup = new WorkerGroup(run, "stream consumer")) {
+            startProducers(producerGroup, producers, producerRate, counters, "stream", data -> {
+                Map<byte[], byte[]> body = new LinkedHashMap<>();
+                body.put(PAYLOAD_FIELD, serializer.serialize(data));
+                body.put(SENT_FIELD, Long.toString(System.nanoTime()).getBytes(StandardCharsets.US_ASCII));
+                redisTemplate.execute((RedisCallback<RecordId>) connection ->
+                        connection.streamCommands().xAdd(MapRecord.create(key, body)));
+            });
+            for (int c = 0; c < consumers; c++) {
+                String name = "consumer-" + c;
+                consumerGroup.start(() -> consumeStream(key, name, count, consumerGroup, counters, latency, serializer));
+            }
+
+            Sampler sampler = new Sampler(counters, () -> redisTemplate.execute((RedisCallback<Long>) connection -> {
+                PendingMessagesSummary summary = connection.streamCommands().xPending(key, GROUP);
+                return summary != null ? summary.getTotalPendingMessages() : 0L;
+            }));
+            long start = System.nanoTime();
+            long productionNanos = sampler.runFor(run, durationSeconds, producerGroup);
+            long drainStart = System.nanoTime();
+            sampler.drain(run, () -> counters.consumed.sum() >= counters.produced.sum());
+            long drainNanos = System.nanoTime() - drainStart;
+            consumerGroup.stop();
+            consumerGroup.await();
+            long elapsed = System.nanoTime() - start;
+
+            Long streamLength = redisTemplate.execute((RedisCallback<Long>) connection -> connection.streamCommands().xLen(key));
+            Map<String, Object> result = baseResult(Workload.STREAM, producers, consumers, counters, latency, sampler,
+                    productionNanos, drainNanos, elapsed);
+            result.put("count", count);
+            result.put("maxPending", sampler.maxPending);
+            result.put("finalPending", sampler.lastPending);
+            result.put("streamLength", streamLength);
+            return result;
+        } finally {
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.keyCommands().del(key));
+        }
+    }
+
+    private void consumeStream(byte[] key, String name, int count, WorkerGroup consumers, Counters counters,
+                               LatencyHistogram latency, RedisSerializer<TestData> serializer) {
+        // Blocking reads need their own connection; the template shares one native connection
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            Consumer consumer = Consumer.from(GROUP, name);
+            StreamReadOptions options = StreamReadOptions.empty().count(count).block(Duration.ofMillis(100));
+            // Built once as an array: passing the offset as varargs would create a generic array per read
+            @SuppressWarnings("unchecked")
+            StreamOffset<byte[]>[] offsets = new StreamOffset[]{StreamOffset.create(key, ReadOffset.lastConsumed())};
+            while (consumers.isRunning()) {
+                List<ByteRecord> records;
+                try {
+                    records = connection.streamCommands().xReadGroup(consumer, options, offsets);
+                } catch (RuntimeException e) {
+                    counters.errors.increment();
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+                    continue;
+                }
+                if (records == null || records.isEmpty()) {
+                    // Servers that answer BLOCK immediately would otherwise turn this into a busy loop
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(500));
+                    continue;
+                }
+                counters.delivered.add(records.size());
+                RecordId[] ids = new RecordId[records.size()];
+                for (int i = 0; i < records.size(); i++) {
+                    ByteRecord record = records.get(i);
+                    ids[i] = record.getId();
+                    byte[] payload = null;
+                    long sent = 0;
+                    for (Map.Entry<byte[], byte[]> field : record.getValue().entrySet()) {
+                        if (Arrays.equals(field.getKey(), SENT_FIELD)) {
+                            sent = Long.parseLong(new String(field.getValue(), StandardCharsets.US_ASCII));
+                        } else if (Arrays.equals(field.getKey(), PAYLOAD_FIELD)) {
+                            payload = field.getValue();
+                        }
+                    }
+                    if (payload == null || serializer.deserialize(payload) == null) {
+                        counters.errors.increment();
+                    }
+                    latency.record(System.nanoTime() - sent);
+                }
+                try {
+                    connection.streamCommands().xAck(key, GROUP, ids);
+                } catch (RuntimeException e) {
+                    counters.errors.increment();
+                }
+                counters.consumed.add(records.size());
+            }
+        }
+    }
+
+    private Map<String, Object> runPubSub(BenchmarkRunScheduler.Run run, int producers, int consumers,
+                                          int durationSeconds, int producerRate) throws InterruptedException {
+        byte[] channel = ("bench:pubsub:" + System.currentTimeMillis()).getBytes(StandardCharsets.UTF_8);
+        Counters counters = new Counters();
+        LatencyHistogram latency = new LatencyHistogram();
+        RedisSerializer<TestData> serializer = valueSerializer();
+
+        List<RedisConnection> subscribers = new ArrayList<>();
+        try (WorkerGroup producerGroup = new WorkerGroup(run, "pubsub producer")) {
+            for (int c = 0; c < consumers; c++) {
+                RedisConnection connection = connectionFactory.getConnection();
+                subscribers.add(connection);
+                connection.subscribe((Message message, byte[] pattern) -> {
+                    // Body: 8-byte send time followed by the TestData JSON
+                    ByteBuffer body = ByteBuffer.wrap(message.getBody());
+                    latency.record(System.nanoTime() - body.getLong());
+                    byte[] payload = new byte[body.remaining()];
+                    body.get(payload);
+                    if (serializer.deserialize(payload) == null) {
+                        counters.errors.increment();
+                    }
+                    counters.consumed.increment();
+                }, channel);
+            }
+
+            // Each PUBLISH counts as delivered to every subscriber that Redis reported
+            startProducers(producerGroup, producers, producerRate, counters, "pubsub", data -> {
+                byte[] json = serializer.serialize(data);
+                byte[] body = ByteBuffer.allocate(Long.BYTES + json.length).putLong(System.nanoTime()).put(json).array();
+                Long receivers = redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, body));
+                counters.delivered.add(receivers != null ? receivers : 0);
+            });
+
+            Sampler sampler = new Sampler(counters, null);
+            long start = System.nanoTime();
+            long productionNanos = sampler.runFor(run, durationSeconds, producerGroup);
+            long drainStart = System.nanoTime();
+            sampler.drain(run, () -> counters.consumed.sum() >= counters.delivered.sum());
+            long drainNanos = System.nanoTime() - drainStart;
+            long elapsed = System.nanoTime() - start;
+
+            Map<String, Object> result = baseResult(Workload.PUBSUB, producers, consumers, counters, latency, sampler,
+                    productionNanos, drainNanos, elapsed);
+            result.put("published", counters.produced.sum());
+            result.put("expectedDeliveries", counters.delivered.sum());
+            result.put("lost", Math.max(0, counters.delivered.sum() - counters.consumed.sum()));
+            return result;
+        } finally {
+            for (RedisConnection connection : subscribers) {
+                try {
+                    connection.close();
+                } catch (RuntimeException e) {
+                    log.debug("Error closing subscriber connection: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private interface Producer {
+        void send(TestData data);
+    }
+
+    private void startProducers(WorkerGroup group, int producers, int producerRate, Counters counters, String prefix,
+                                Producer producer) {
+        long intervalNanos = producerRate > 0 ? 1_000_000_000L / producerRate : 0;
+        for (int p = 0; p < producers; p++) {
+            int producerId = p;
+            group.start(() -> {
+                long next = System.nanoTime();
+                long sequence = 0;
+                while (group.isRunning()) {
+                    if (intervalNanos > 0) {
+                        next += intervalNanos;
+                        long wait = next - System.nanoTime();
+                        if (wait > 0) {
+                            LockSupport.parkNanos(wait);
+                        }
+                    }
+                    String id = prefix + "-bench-" + producerId + "-" + sequence;
+                    TestData data = new TestData(id, "Message " + sequence, "produced by " + producerId,
+                            LocalDateTime.now(), (int) sequence);
+                    try {
+                        producer.send(data);
+                        sequence++;
+                        counters.produced.increment();
+                    } catch (RuntimeException e) {
+                        counters.errors.increment();
+                    }
+                }
+            });
+        }
+    }
+
+    private Map<String, Object> baseResult(Workload workload, int producers, int consumers, Counters counters,
+                                           LatencyHistogram latency, Sampler sampler,
+                                           long productionNanos, long drainNanos, long elapsedNanos) {
+        long produced = counters.produced.sum();
+        long consumed = counters.consumed.sum();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("workload", workload.name());
+        result.put("producers", producers);
+        result.put("consumers", consumers);
+        result.put("produced", produced);
+        result.put("consumed", consumed);
+        result.put("errors", counters.errors.sum());
+        result.put("productionMs", productionNanos / 1_000_000);
+        result.put("drainMs", drainNanos / 1_000_000);
+        result.put("durationMs", elapsedNanos / 1_000_000);
+        result.put("produceRate", Statistics.round(produced * 1_000_000_000.0 / productionNanos, 2));
+        result.put("consumeRate", Statistics.round(consumed * 1_000_000_000.0 / elapsedNanos, 2));
+        result.put("endToEndLatency", latency.toSummary());
+        result.put("maxBacklog", sampler.maxBacklog);
+        result.put("finalBacklog", sampler.lastBacklog);
+        result.put("backlogGrowthPerSec", sampler.backlogSlope());
+        result.put("timeline", sampler.timeline);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisSerializer<TestData> valueSerializer() {
+        return (RedisSerializer<TestData>) redisTemplate.getValueSerializer();
+    }
+
+    private static final class Counters {
+        final LongAdder produced = new LongAdder();
+        // Stream entries read by the group, or Pub/Sub deliveries reported by PUBLISH
+        final LongAdder delivered = new LongAdder();
+        final LongAdder consumed = new LongAdder();
+        final LongAdder errors = new LongAdder();
+    }
+
+    private interface PendingProbe {
+        Long pending();
+    }
+
+    private interface DrainCondition {
+        boolean drained();
+    }
+
+    // Samples the backlog on the benchmark thread while producers run and while consumers drain
+    private static final class Sampler {
+        final Counters counters;
+        final PendingProbe pendingProbe;
+        final List<Map<String, Object>> timeline = new ArrayList<>();
+        final List<double[]> productionPoints = new ArrayList<>();
+        long startNanos;
+        long maxBacklog;
+        long lastBacklog;
+        long maxPending;
+        long lastPending;
+
+        Sampler(Counters counters, PendingProbe pendingProbe) {
+            this.counters = counters;
+            this.pendingProbe = pendingProbe;
+        }
+
+        // Runs the production phase until its duration is up or the run stops; returns its length in nanoseconds
+        long runFor(BenchmarkRunScheduler.Run run, int durationSeconds, WorkerGroup producers) throws InterruptedException {
+            startNanos = System.nanoTime();
+            long end = startNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+            while (System.nanoTime() < end && run.isActive()) {
+                Thread.sleep(SAMPLE_INTERVAL_MS);
+                double seconds = sample() / 1000.0;
+                productionPoints.add(new double[]{seconds, lastBacklog});
+            }
+            producers.stop();
+            producers.await();
+            return System.nanoTime() - startNanos;
+        }
+
+        void drain(BenchmarkRunScheduler.Run run, DrainCondition condition) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DRAIN_TIMEOUT_MS);
+            while (!condition.drained() && System.nanoTime() < deadline && run.isActive()) {
+                Thread.sleep(SAMPLE_INTERVAL_MS / 5);
+            }
+            sample();
+        }
+
+        // Returns the sample time in milliseconds since the start
+        private long sample() {
+            long tMs = (System.nanoTime() - startNanos) / 1_000_000;
+            long produced = counters.produced.sum();
+            long delivered = counters.delivered.sum();
+            long consumed = counters.consumed.sum();
+            // Streams: entries the group has not read yet; Pub/Sub: deliveries not yet processed
+            lastBacklog = pendingProbe != null ? Math.max(0, produced - delivered) : Math.max(0, delivered - consumed);
+            maxBacklog = Math.max(maxBacklog, lastBacklog);
+
+            Map<String, Object> point = new LinkedHashMap<>();
+            point.put("tMs", tMs);
+            point.put("produced", produced);
+            point.put("consumed", consumed);
+            point.put("backlog", lastBacklog);
+            if (pendingProbe != null) {
+                try {
+                    Long pending = pendingProbe.pending();
+                    lastPending = pending != null ? pending : 0;
+                    maxPending = Math.max(maxPending, lastPending);
+                    point.put("pending", lastPending);
+                } catch (RuntimeException e) {
+                    point.put("pending", null);
+                }
+            }
+            if (timeline.size() < MAX_TIMELINE_SAMPLES) {
+                timeline.add(point);
+            }
+            return tMs;
+        }
+
+        // Least-squares slope of backlog over time during production, in messages per second
+        double backlogSlope() {
+            int n = productionPoints.size();
+            if (n < 2) {
+                return 0.0;
+            }
+            double meanX = 0;
+            double meanY = 0;
+            for (double[] p : productionPoints) {
+                meanX += p[0];
+                meanY += p[1];
+            }
+            meanX /= n;
+            meanY /= n;
+            double numerator = 0;
+            double denominator = 0;
+            for (double[] p : productionPoints) {
+                numerator += (p[0] - meanX) * (p[1] - meanY);
+                denominator += (p[0] - meanX) * (p[0] - meanX);
+            }
+            return denominator == 0 ? 0.0 : Statistics.round(numerator / denominator, 2);
+        }
+    }
+
+    private void addResult(Map<String, Object> result) {
+        suite.addResult(result);
+        log.info("Streaming benchmark {}: produced {} at {} msg/s, consumed {}", result.get("workload"),
+                result.get("produced"), result.get("produceRate"), result.get("consumed"));
+    }
+
+    public boolean isTestRunning() {
+        return suite.isRunning();
+    }
+
+    public Map<String, Object> getStatus() {
+        return suite.getStatus();
+    }
+}
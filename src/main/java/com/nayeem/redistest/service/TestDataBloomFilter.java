@@ -0,0 +1,498 @@
+package com.nayeem.redistest.service;
+
+import com.nayeem.redistest.model.TestData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.keyvalue.core.event.KeyValueEvent;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.PatternTopic;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * In-process Bloom filter over TestData ids, so lookups of ids that were never written are
+ * answered without a round trip. "Absent" is definite; "maybe present" still goes to Redis, which
+ * is how the services measure the false-positive rate.
+ *
+ * <p>The filter must see every write of an id or it would answer "absent" for a record that
+ * exists. Every in-process writer adds the id before it writes (repository saves through their
+ * keyvalue events); other instances and tools are picked up from the "set"/"hset" keyspace
+ * notifications of {@code testdata:*}. Pub/sub is at-most-once, so the filter answers "maybe" for
+ * every id until it is built from a SCAN, and stays that way while the notification flags are not
+ * confirmed or the subscription is down. Each (re)subscription triggers a fresh SCAN, since events
+ * published while it was down are lost. Only reads are answered locally; deletes always reach Redis.
+ *
+ * <p>Bloom filters cannot remove ids. Deletes and expiries leave their bits set, which only raises
+ * the false-positive rate; once they exceed a share of the insertions the filter is rebuilt from a
+ * fresh SCAN. Repository updates arrive as DEL then HSET and count as deletes too, so update-heavy
+ * traffic rebuilds earlier than strictly needed. With persistence on, the bits are mirrored to a
+ * Redis bitmap (GETBIT/SETBIT bit order) for other readers. A restart still scans: writes made
+ * while the app was down are not in it.
+ */
+@Slf4j
+public class TestDataBloomFilter implements MessageListener, SubscriptionListener, Closeable {
+
+    public record Settings(boolean enabled, long expectedInsertions, double falsePositiveRate, boolean persist,
+                           long persistIntervalMs, double rebuildAfterDeleteRatio, boolean configureNotifications) {
+    }
+
+    static final String BITMAP_KEY = "bloom:testdata";
+    static final String META_KEY = "bloom:testdata:meta";
+    private static final String KEYSPACE_PREFIX = "testdata:";
+    private static final int WORD_BYTES = Long.BYTES;
+    // Automatic rebuilds wait this long, so a burst of deletes costs one SCAN instead of one per threshold crossing
+    private static final long REBUILD_DELAY_MS = 1000;
+
+    /** Fixed-size bit array probed at k positions per id by double hashing. */
+    static final class Bits {
+        final AtomicLongArray words;
+        final long bitCount;
+        final int hashes;
+        final LongAdder insertions = new LongAdder();
+
+        Bits(long bitCount, int hashes) {
+            this.bitCount = Math.max(64, (bitCount + 63) / 64 * 64);
+            this.hashes = Math.max(1, hashes);
+            this.words = new AtomicLongArray(Math.toIntExact(this.bitCount / 64));
+        }
+
+        static Bits forCapacity(long expectedInsertions, double falsePositiveRate) {
+            long n = Math.max(1, expectedInsertions);
+            double p = Math.min(0.5, Math.max(1e-9, falsePositiveRate));
+            long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+            int k = (int) Math.max(1, Math.round((double) m / n * Math.log(2)));
+            return new Bits(m, k);
+        }
+
+        // Calls back with the index of every word it changed. Only ids that set a new bit count as
+        // insertions, so an id added again (its own keyspace notification) is not counted twice.
+        void put(String id, WordListener changed) {
+            long h1 = hash(id);
+            long h2 = mix(h1 + 0x9E3779B97F4A7C15L) | 1;
+            boolean added = false;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << (63 - (bit & 63));
+                long before = words.getAndAccumulate(word, mask, (current, m) -> current | m);
+                if ((before & mask) == 0) {
+                    added = true;
+                    if (changed != null) {
+                        changed.wordChanged(word);
+                    }
+                }
+            }
+            if (added) {
+                insertions.increment();
+            }
+        }
+
+        boolean mightContain(String id) {
+            long h1 = hash(id);
+            long h2 = mix(h1 + 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << (63 - (bit & 63)))) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        double fillRatio() {
+            long set = 0;
+            for (int i = 0; i < words.length(); i++) {
+                set += Long.bitCount(words.get(i));
+            }
+            return (double) set / bitCount;
+        }
+
+        // A word is 8 bytes, most significant bit first, matching Redis bitmap offsets
+        byte[] wordBytes(int word) {
+            return ByteBuffer.allocate(WORD_BYTES).putLong(words.get(word)).array();
+        }
+
+        byte[] toBytes() {
+            ByteBuffer buffer = ByteBuffer.allocate(words.length() * WORD_BYTES);
+            for (int i = 0; i < words.length(); i++) {
+                buffer.putLong(words.get(i));
+            }
+            return buffer.array();
+        }
+
+        long memoryBytes() {
+            return (long) words.length() * WORD_BYTES;
+        }
+
+        // FNV-1a over the UTF-8 bytes, then the SplitMix64 finalizer to spread the bits
+        private static long hash(String id) {
+            long h = 0xcbf29ce484222325L;
+            for (byte b : id.getBytes(StandardCharsets.UTF_8)) {
+                h ^= b & 0xff;
+                h *= 0x100000001b3L;
+            }
+            return mix(h);
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+            return z ^ (z >>> 31);
+        }
+    }
+
+    interface WordListener {
+        void wordChanged(int word);
+    }
+
+    private final RedisTemplate<String, TestData> redisTemplate;
+    private final Settings settings;
+    private final String channelPrefix;
+    private final Set<Integer> dirtyWords = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean(false);
+    private final ScheduledExecutorService executor;
+
+    private volatile Bits bits;
+    // Set while a rebuild scans; new ids go into both so none is lost at the swap
+    private volatile Bits rebuilding;
+    private volatile boolean ready;
+    private volatile boolean initialized;
+    private volatile String source = "none";
+    // Set by KeyspaceNotificationConfig once CONFIG GET shows the flags the filter depends on
+    private volatile boolean notificationsConfirmed;
+    private volatile BooleanSupplier subscriptionAlive = () -> false;
+    // Bumped on every (re)subscription; a scan that overlapped one is repeated
+    private final AtomicLong subscriptions = new AtomicLong();
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder definiteMisses = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder deletesSinceRebuild = new LongAdder();
+    private final LongAdder notifiedAdds = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+    private final LongAdder persistedWords = new LongAdder();
+
+    public TestDataBloomFilter(RedisTemplate<String, TestData> redisTemplate, Settings settings, int database) {
+        this.redisTemplate = redisTemplate;
+        this.settings = settings;
+        this.channelPrefix = "__keyspace@" + database + "__:" + KEYSPACE_PREFIX;
+        this.bits = Bits.forCapacity(settings.expectedInsertions(), settings.falsePositiveRate());
+        // One thread for the initial build, rebuilds and bitmap flushes, away from request threads
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "bloom-filter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isEnabled() {
+        return settings.enabled();
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    public PatternTopic topic() {
+        return new PatternTopic(channelPrefix + "*");
+    }
+
+    /** Called with the container's liveness check and whether the server's notification flags cover the filter. */
+    public void attach(BooleanSupplier subscriptionAlive, boolean notificationsConfirmed) {
+        this.subscriptionAlive = subscriptionAlive;
+        this.notificationsConfirmed = notificationsConfirmed;
+    }
+
+    /** Scans the keyspace in the background. Call after the keyspace subscription is up so no write falls between the two. */
+    public void initialize() {
+        initialized = true;
+        rebuildScheduled.set(true);
+        executor.execute(this::rebuild);
+        if (settings.persist()) {
+            long interval = Math.max(100, settings.persistIntervalMs());
+            executor.scheduleWithFixedDelay(this::flushDirtyWords, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** False only when the id was definitely never written; counts a saved round trip. */
+    public boolean mightContain(String id) {
+        if (!settings.enabled() || !usable()) {
+            return true;
+        }
+        checks.increment();
+        if (bits.mightContain(id)) {
+            return true;
+        }
+        definiteMisses.increment();
+        return false;
+    }
+
+    // A built filter is only trusted while the notifications that keep it current can arrive
+    private boolean usable() {
+        boolean tracking = notificationsConfirmed && subscriptionAlive.getAsBoolean();
+        if (ready && tracking) {
+            return true;
+        }
+        if (ready) {
+            ready = false;
+            log.warn("Keyspace subscription lost; the existence filter answers \"maybe\" until it is rebuilt");
+        } else if (tracking && initialized && rebuildScheduled.compareAndSet(false, true)) {
+            executor.schedule(this::rebuild, REBUILD_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+        return false;
+    }
+
+    // Reported by callers when Redis says a "maybe present" id is absent
+    public void falsePositive() {
+        if (settings.enabled() && ready) {
+            falsePositives.increment();
+        }
+    }
+
+    public void add(String id) {
+        if (!settings.enabled()) {
+            return;
+        }
+        Bits current = bits;
+        current.put(id, settings.persist() ? dirtyWords::add : null);
+        Bits next = rebuilding;
+        if (next != null && next != current) {
+            next.put(id, null);
+        }
+    }
+
+    // Repository saves publish these synchronously before they write, which covers every in-process repository writer
+    @EventListener
+    public void onRepositoryInsert(KeyValueEvent.BeforeInsertEvent<?> event) {
+        addRepositoryWrite(event.getKeyspace(), event.getKey());
+    }
+
+    @EventListener
+    public void onRepositoryUpdate(KeyValueEvent.BeforeUpdateEvent<?> event) {
+        addRepositoryWrite(event.getKeyspace(), event.getKey());
+    }
+
+    private void addRepositoryWrite(String keyspace, Object id) {
+        if (id != null && KEYSPACE_PREFIX.equals(keyspace + ":")) {
+            add(id.toString());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        if (!channel.startsWith(channelPrefix)) {
+            return;
+        }
+        String id = channel.substring(channelPrefix.length());
+        switch (new String(message.getBody(), StandardCharsets.UTF_8)) {
+            case "set", "hset" -> {
+                add(id);
+                notifiedAdds.increment();
+            }
+            case "del", "expired" -> {
+                deletesSinceRebuild.increment();
+                maybeScheduleRebuild();
+            }
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void onPatternSubscribed(byte[] pattern, long count) {
+        if (Arrays.equals(pattern, bytes(channelPrefix + "*"))) {
+            subscriptions.incrementAndGet();
+            // Notifications published before this subscription are lost, so resynchronise from a SCAN
+            if (initialized) {
+                requestRebuild();
+            }
+        }
+    }
+
+    @Override
+    public void onPatternUnsubscribed(byte[] pattern, long count) {
+        if (Arrays.equals(pattern, bytes(channelPrefix + "*"))) {
+            ready = false;
+        }
+    }
+
+    private void maybeScheduleRebuild() {
+        long inserted = bits.insertions.sum();
+        if (ready && inserted > 0 && deletesSinceRebuild.sum() > inserted * settings.rebuildAfterDeleteRatio()
+                && rebuildScheduled.compareAndSet(false, true)) {
+            executor.schedule(this::rebuild, REBUILD_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Schedules a rebuild from a fresh SCAN; false when one is already pending or running. */
+    public boolean requestRebuild() {
+        if (!settings.enabled() || !rebuildScheduled.compareAndSet(false, true)) {
+            return false;
+        }
+        executor.execute(this::rebuild);
+        return true;
+    }
+
+    // Builds a fresh filter from a SCAN of the entity keys and swaps it in; runs on the filter's thread
+    private void rebuild() {
+        long started = System.nanoTime();
+        long subscription = subscriptions.get();
+        boolean tracking = notificationsConfirmed && subscriptionAlive.getAsBoolean();
+        boolean repeat = false;
+        try {
+            Bits fresh = Bits.forCapacity(settings.expectedInsertions(), settings.falsePositiveRate());
+            rebuilding = fresh;
+            long deletesBefore = deletesSinceRebuild.sum();
+            // Entity hashes (Spring Data) and string values (RedisTemplate); index sets are skipped by type
+            for (DataType type : List.of(DataType.HASH, DataType.STRING)) {
+                redisTemplate.execute((RedisCallback<Long>) connection -> ScanSupport.forEachKeyBatch(connection,
+                        KEYSPACE_PREFIX + "*", type, batch -> {
+                            for (byte[] key : batch) {
+                                fresh.put(new String(key, StandardCharsets.UTF_8).substring(KEYSPACE_PREFIX.length()), null);
+                            }
+                        }));
+            }
+            bits = fresh;
+            rebuilding = null;
+            deletesSinceRebuild.add(-deletesBefore);
+            rebuilds.increment();
+            source = "scan";
+            if (settings.persist()) {
+                persistAll(fresh);
+            }
+            log.info("Bloom filter built from {} keys in {} ms (fill {})", fresh.insertions.sum(),
+                    (System.nanoTime() - started) / 1_000_000, Math.round(fresh.fillRatio() * 1000) / 1000.0);
+            // A subscription that came or went during the scan may have missed writes behind it
+            repeat = subscription != subscriptions.get();
+            ready = !repeat && tracking && notificationsConfirmed && subscriptionAlive.getAsBoolean();
+            if (!ready && !repeat) {
+                log.warn("Existence filter built but not trusted: keyspace notifications {}", notificationsConfirmed
+                        ? "are not subscribed" : "could not be confirmed on the server");
+            }
+        } catch (RuntimeException e) {
+            rebuilding = null;
+            log.warn("Bloom filter rebuild failed: {}", e.getMessage());
+        } finally {
+            if (repeat) {
+                executor.execute(this::rebuild);
+            } else {
+                rebuildScheduled.set(false);
+            }
+        }
+    }
+
+    private void persistAll(Bits snapshot) {
+        dirtyWords.clear();
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.stringCommands().set(bytes(BITMAP_KEY), snapshot.toBytes());
+            writeMeta(connection, snapshot);
+            return null;
+        });
+        persistedWords.add(snapshot.words.length());
+    }
+
+    // One pipelined SETRANGE per changed 8-byte word since the last flush
+    private void flushDirtyWords() {
+        if (dirtyWords.isEmpty() || !ready) {
+            return;
+        }
+        Bits snapshot = bits;
+        List<Integer> words = new ArrayList<>(dirtyWords);
+        words.forEach(dirtyWords::remove);
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (int word : words) {
+                    connection.stringCommands().setRange(bytes(BITMAP_KEY), snapshot.wordBytes(word), (long) word * WORD_BYTES);
+                }
+                writeMeta(connection, snapshot);
+                return null;
+            });
+            persistedWords.add(words.size());
+        } catch (RuntimeException e) {
+            dirtyWords.addAll(words);
+            log.warn("Bloom filter bitmap flush failed: {}", e.getMessage());
+        }
+    }
+
+    private static void writeMeta(RedisConnection connection, Bits snapshot) {
+        Map<byte[], byte[]> meta = new LinkedHashMap<>();
+        meta.put(bytes("bits"), bytes(String.valueOf(snapshot.bitCount)));
+        meta.put(bytes("hashes"), bytes(String.valueOf(snapshot.hashes)));
+        meta.put(bytes("insertions"), bytes(String.valueOf(snapshot.insertions.sum())));
+        connection.hashCommands().hMSet(bytes(META_KEY), meta);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public Map<String, Object> getMetrics() {
+        Bits current = bits;
+        long checkCount = checks.sum();
+        long misses = definiteMisses.sum();
+        long fp = falsePositives.sum();
+        double fill = current.fillRatio();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", settings.enabled());
+        metrics.put("ready", ready);
+        metrics.put("source", source);
+        metrics.put("notificationsConfirmed", notificationsConfirmed);
+        metrics.put("subscribed", subscriptionAlive.getAsBoolean());
+        metrics.put("bits", current.bitCount);
+        metrics.put("hashes", current.hashes);
+        metrics.put("memoryBytes", current.memoryBytes());
+        metrics.put("insertions", current.insertions.sum());
+        metrics.put("fillRatio", Math.round(fill * 10000) / 10000.0);
+        metrics.put("configuredFalsePositiveRate", settings.falsePositiveRate());
+        metrics.put("estimatedFalsePositiveRate", Math.pow(fill, current.hashes));
+        metrics.put("checks", checkCount);
+        metrics.put("definiteMisses", misses);
+        metrics.put("falsePositives", fp);
+        // Among lookups of absent ids: how many the filter let through to Redis
+        metrics.put("observedFalsePositiveRate", misses + fp > 0 ? Math.round(fp * 1_000_000.0 / (misses + fp)) / 1_000_000.0 : 0.0);
+        metrics.put("roundTripsSaved", misses);
+        metrics.put("notifiedAdds", notifiedAdds.sum());
+        metrics.put("deletesSinceRebuild", deletesSinceRebuild.sum());
+        metrics.put("rebuilds", rebuilds.sum());
+        metrics.put("persistedWords", persistedWords.sum());
+        metrics.put("pendingWords", dirtyWords.size());
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (settings.enabled() && settings.persist() && ready) {
+            flushDirtyWords();
+        }
+    }
+}
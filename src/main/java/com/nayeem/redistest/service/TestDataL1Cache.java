@@ -0,0 +1,195 @@
+package com.nayeem.redistest.service;
+
+import com.nayeem.redistest.model.TestData;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * In-process cache in front of repository reads by id. Entries live for a TTL and each lock
+ * stripe is an LRU of at most maxEntries / stripes entries. Misses are cached too, for a shorter
+ * TTL, so repeated lookups of an absent id stop costing a round trip.
+ *
+ * <p>Writes through this application invalidate their id right away; writes by other instances
+ * arrive as keyspace notifications (see {@link KeyspaceInvalidationListener}). A load that
+ * overlaps an invalidation of its stripe is returned but not cached, so a value read before a
+ * write can never be cached after that write's invalidation. Entries are copied in and out,
+ * since {@link TestData} is mutable.
+ */
+public class TestDataL1Cache {
+
+    public record Settings(boolean enabled, int maxEntries, long ttlMs, long negativeTtlMs, int stripes,
+                           boolean configureNotifications) {
+    }
+
+    private record Entry(TestData value, long expiresAtNanos) {
+    }
+
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        // Bumped by every invalidation, so loads that started earlier are not cached
+        long generation;
+    }
+
+    private final Settings settings;
+    private final Stripe[] stripes;
+    private final int stripeCapacity;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder skippedPuts = new LongAdder();
+
+    public TestDataL1Cache(Settings settings) {
+        this.settings = settings;
+        int stripeCount = Math.max(1, settings.stripes());
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stripeCapacity = Math.max(1, settings.maxEntries() / stripeCount);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, settings.ttlMs()));
+        this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, settings.negativeTtlMs()));
+    }
+
+    public boolean isEnabled() {
+        return settings.enabled();
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Returns the cached value for the id, or loads it with the given loader and caches the
+     * result (absent results only when negative caching is on).
+     */
+    public Optional<TestData> getOrLoad(String id, Function<String, Optional<TestData>> loader) {
+        Stripe stripe = stripeFor(id);
+        long generation;
+        stripe.lock.lock();
+        try {
+            Entry entry = stripe.entries.get(id);
+            if (entry != null) {
+                if (entry.expiresAtNanos() - System.nanoTime() > 0) {
+                    if (entry.value() == null) {
+                        negativeHits.increment();
+                        return Optional.empty();
+                    }
+                    hits.increment();
+                    return Optional.of(copy(entry.value()));
+                }
+                stripe.entries.remove(id);
+                expirations.increment();
+            }
+            generation = stripe.generation;
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        misses.increment();
+        Optional<TestData> loaded = loader.apply(id);
+        if (loaded.isEmpty() && negativeTtlNanos == 0) {
+            return loaded;
+        }
+        long expiresAt = System.nanoTime() + (loaded.isPresent() ? ttlNanos : negativeTtlNanos);
+        Entry fresh = new Entry(loaded.map(TestDataL1Cache::copy).orElse(null), expiresAt);
+        stripe.lock.lock();
+        try {
+            if (stripe.generation != generation) {
+                skippedPuts.increment();
+                return loaded;
+            }
+            stripe.entries.put(id, fresh);
+            if (stripe.entries.size() > stripeCapacity) {
+                var eldest = stripe.entries.entrySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        return loaded;
+    }
+
+    public void invalidate(String id) {
+        Stripe stripe = stripeFor(id);
+        stripe.lock.lock();
+        try {
+            stripe.entries.remove(id);
+            stripe.generation++;
+        } finally {
+            stripe.lock.unlock();
+        }
+        invalidations.increment();
+    }
+
+    public void invalidateAll() {
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                stripe.entries.clear();
+                stripe.generation++;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        invalidations.increment();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.entries.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    private Stripe stripeFor(String id) {
+        int hash = id.hashCode();
+        return stripes[((hash ^ (hash >>> 16)) & 0x7fffffff) % stripes.length];
+    }
+
+    private static TestData copy(TestData data) {
+        return new TestData(data.getId(), data.getName(), data.getDescription(), data.getCreatedAt(), data.getValue());
+    }
+
+    public Map<String, Object> getMetrics() {
+        long hitCount = hits.sum();
+        long negativeHitCount = negativeHits.sum();
+        long lookups = hitCount + negativeHitCount + misses.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", settings.enabled());
+        metrics.put("size", size());
+        metrics.put("maxEntries", stripeCapacity * stripes.length);
+        metrics.put("ttlMs", settings.ttlMs());
+        metrics.put("negativeTtlMs", settings.negativeTtlMs());
+        metrics.put("lookups", lookups);
+        metrics.put("hits", hitCount);
+        metrics.put("negativeHits", negativeHitCount);
+        metrics.put("misses", misses.sum());
+        metrics.put("hitRatio", lookups > 0 ? Math.round((hitCount + negativeHitCount) * 10000.0 / lookups) / 10000.0 : 0.0);
+        metrics.put("evictions", evictions.sum());
+        metrics.put("expirations", expirations.sum());
+        metrics.put("invalidations", invalidations.sum());
+        metrics.put("skippedPuts", skippedPuts.sum());
+        return metrics;
+    }
+}
@@ -0,0 +1,181 @@
+package com.nayeem.redistest.service;
+
+import com.nayeem.redistest.benchmark.BenchmarkRunScheduler;
+import com.nayeem.redistest.benchmark.LatencyHistogram;
+import com.nayeem.redistest.benchmark.Statistics;
+import com.nayeem.redistest.benchmark.WorkerGroup;
+import com.nayeem.redistest.model.TestData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares synchronous SET EX writes with the write-behind buffer under an update-heavy
+ * workload: writer threads repeatedly update ids drawn from a small key space. End-to-end
+ * throughput for write-behind includes the final flush, so it counts only data that reached
+ * Redis. Each run uses its own buffer so application traffic does not affect the metrics.
+ */
+@Service
+@Slf4j
+public class WriteBehindBenchmarkService {
+
+    private static final String KEY_PREFIX = "testdata:write-behind-bench-";
+
+    private final RedisTemplate<String, TestData> redisTemplate;
+    private final WriteBehindBuffer.Settings writeBehindSettings;
+    private final TestDataBloomFilter existenceFilter;
+    private final BenchmarkRunScheduler runScheduler;
+
+    private final BenchmarkSuite suite;
+
+    public WriteBehindBenchmarkService(RedisTemplate<String, TestData> redisTemplate,
+                                       WriteBehindBuffer.Settings writeBehindSettings,
+                                       BenchmarkRunScheduler runScheduler,
+                                       BenchmarkResultStore resultStore,
+                                       TestDataBloomFilter existenceFilter) {
+        this.redisTemplate = redisTemplate;
+        this.writeBehindSettings = writeBehindSettings;
+        this.existenceFilter = existenceFilter;
+        this.runScheduler = runScheduler;
+        this.suite = new BenchmarkSuite("write-behind-benchmark", "Write-behind benchmark", runScheduler, resultStore);
+    }
+
+    public boolean startBenchmark(int threads, int operations, int distinctKeys) {
+        runScheduler.requireWorkers(threads);
+        Map<String, Object> runConfig = new LinkedHashMap<>();
+        runConfig.put("threads", threads);
+        runConfig.put("operations", operations);
+        runConfig.put("distinctKeys", distinctKeys);
+        runConfig.put("stripes", writeBehindSettings.stripes());
+        runConfig.put("capacity", writeBehindSettings.capacity());
+        runConfig.put("flushSize", writeBehindSettings.flushSize());
+        runConfig.put("flushIntervalMs", writeBehindSettings.flushIntervalMs());
+
+        return suite.launch(runConfig, run -> {
+            suite.phase("sync");
+            addResult(runSync(run, threads, operations, distinctKeys));
+            if (run.isActive()) {
+                suite.phase("write-behind");
+                addResult(runWriteBehind(run, threads, operations, distinctKeys));
+            }
+        });
+    }
+
+    private Map<String, Object> runSync(BenchmarkRunScheduler.Run run, int threads, int operations, int distinctKeys)
+            throws InterruptedException {
+        LatencyHistogram writeLatency = new LatencyHistogram();
+        long start = System.nanoTime();
+        WriteCounts counts = runWriters(run, threads, operations, distinctKeys, writeLatency,
+                (key, value) -> redisTemplate.opsForValue().set(key, value, 1, TimeUnit.HOURS));
+        long elapsed = System.nanoTime() - start;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("mode", "SYNC");
+        result.put("operations", counts.attempted());
+        result.put("errors", counts.failed());
+        result.put("redisWrites", counts.attempted() - counts.failed());
+        result.put("coalescingRatio", 1.0);
+        result.put("durationMs", elapsed / 1_000_000);
+        result.put("throughput", Statistics.round(counts.attempted() * 1_000_000_000.0 / elapsed, 2));
+        result.put("writeLatency", writeLatency.toSummary());
+        return result;
+    }
+
+    private Map<String, Object> runWriteBehind(BenchmarkRunScheduler.Run run, int threads, int operations, int distinctKeys)
+            throws InterruptedException {
+        WriteBehindBuffer.Settings s = writeBehindSettings;
+        WriteBehindBuffer buffer = new WriteBehindBuffer(redisTemplate,
+                new WriteBehindBuffer.Settings(true, s.stripes(), s.capacity(), s.flushSize(), s.flushIntervalMs(), s.putTimeoutMs(), s.ttlSeconds()));
+        buffer.start();
+        LatencyHistogram putLatency = new LatencyHistogram();
+        long start = System.nanoTime();
+        long bufferedNanos;
+        WriteCounts counts;
+        try {
+            counts = runWriters(run, threads, operations, distinctKeys, putLatency, buffer::put);
+            bufferedNanos = System.nanoTime() - start;
+        } finally {
+            // Drains what is left, so the end-to-end time covers every write reaching Redis
+            buffer.close();
+        }
+        long elapsed = System.nanoTime() - start;
+        Map<String, Object> metrics = buffer.getMetrics();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("mode", "WRITE_BEHIND");
+        result.put("operations", counts.attempted());
+        result.put("errors", counts.failed());
+        result.put("redisWrites", metrics.get("flushedRecords"));
+        result.put("coalescingRatio", metrics.get("coalescingRatio"));
+        result.put("durationMs", elapsed / 1_000_000);
+        result.put("finalDrainMs", (elapsed - bufferedNanos) / 1_000_000);
+        result.put("throughput", Statistics.round(counts.attempted() * 1_000_000_000.0 / elapsed, 2));
+        result.put("writeLatency", putLatency.toSummary());
+        result.put("flushes", metrics.get("flushes"));
+        result.put("flushLatency", metrics.get("flushLatency"));
+        result.put("backpressureWaits", metrics.get("backpressureWaits"));
+        result.put("rejected", metrics.get("rejected"));
+        return result;
+    }
+
+    private interface Writer {
+        void write(String key, TestData value);
+    }
+
+    // Writes attempted and failed; a stopped run ends the writers before they reach the requested count
+    private record WriteCounts(long attempted, long failed) {
+    }
+
+    private WriteCounts runWriters(BenchmarkRunScheduler.Run run, int threads, int operations, int distinctKeys,
+                                   LatencyHistogram latency, Writer writer) throws InterruptedException {
+        LongAdder attempted = new LongAdder();
+        LongAdder failures = new LongAdder();
+        int perThread = operations / threads;
+        try (WorkerGroup workers = new WorkerGroup(run, "write-behind writer")) {
+            for (int t = 0; t < threads; t++) {
+                int count = t == threads - 1 ? operations - perThread * (threads - 1) : perThread;
+                workers.start(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < count && workers.isRunning(); i++) {
+                        int id = random.nextInt(distinctKeys);
+                        TestData data = new TestData("write-behind-bench-" + id, "Write Behind " + id, "update " + i, LocalDateTime.now(), i);
+                        long start = System.nanoTime();
+                        try {
+                            existenceFilter.add(data.getId());
+                            writer.write(KEY_PREFIX + id, data);
+                            latency.record(System.nanoTime() - start);
+                        } catch (RuntimeException e) {
+                            failures.increment();
+                        }
+                        attempted.increment();
+                    }
+                });
+            }
+            workers.await();
+        }
+        if (failures.sum() > 0) {
+            log.warn("{} writes failed during write-behind benchmark", failures.sum());
+        }
+        return new WriteCounts(attempted.sum(), failures.sum());
+    }
+
+    private void addResult(Map<String, Object> result) {
+        suite.addResult(result);
+        log.info("Write-behind benchmark {}: {} ops/s", result.get("mode"), result.get("throughput"));
+    }
+
+    public boolean isTestRunning() {
+        return suite.isRunning();
+    }
+
+    public Map<String, Object> getStatus() {
+        return suite.getStatus();
+    }
+}
@@ -0,0 +1,358 @@
+package com.nayeem.redistest.service;
+
+import com.nayeem.redistest.benchmark.LatencyHistogram;
+import com.nayeem.redistest.model.TestData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind buffer for "SET key value EX ttl" writes. Keys are spread over lock stripes; a
+ * repeated write to a key that is still pending replaces the pending value, so N rapid updates
+ * cost one Redis write. A flusher thread drains all stripes when the pending count reaches the
+ * flush size or the flush interval elapses, and writes the drained entries as pipelined batches.
+ *
+ * <p>Each stripe holds at most capacity / stripes entries, counting both pending entries and
+ * entries whose flush is in progress. A put to a full stripe blocks until a flush frees space,
+ * and is rejected after the put timeout. {@link #get} serves pending and in-flight values, so a
+ * caller always reads its own writes. A failed flush puts its entries back (unless they were
+ * superseded or removed meanwhile) and the flusher backs off before retrying.
+ */
+@Slf4j
+public class WriteBehindBuffer implements Closeable {
+
+    public record Settings(boolean enabled, int stripes, int capacity, int flushSize,
+                           long flushIntervalMs, long putTimeoutMs, long ttlSeconds) {
+    }
+
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final Condition notFull = lock.newCondition();
+        final Condition flushed = lock.newCondition();
+        LinkedHashMap<String, TestData> pending = new LinkedHashMap<>();
+        Map<String, TestData> inFlight = Collections.emptyMap();
+        // In-flight keys removed while their flush was running; not put back if that flush fails
+        final Set<String> removedInFlight = new HashSet<>();
+    }
+
+    // Retry delays after failed flushes double from the flush interval up to this
+    private static final long MAX_RETRY_BACKOFF_MS = 5000;
+
+    private final RedisTemplate<String, TestData> redisTemplate;
+    private final Settings settings;
+    private final Stripe[] stripes;
+    private final int stripeCapacity;
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder backpressureWaits = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder flushedRecords = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushErrors = new LongAdder();
+    private final LatencyHistogram flushLatency = new LatencyHistogram();
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public WriteBehindBuffer(RedisTemplate<String, TestData> redisTemplate, Settings settings) {
+        this.redisTemplate = redisTemplate;
+        this.settings = settings;
+        int stripeCount = Math.max(1, settings.stripes());
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stripeCapacity = Math.max(1, settings.capacity() / stripeCount);
+    }
+
+    public boolean isEnabled() {
+        return settings.enabled();
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::flushLoop, "write-behind-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    public void put(String key, TestData value) {
+        Stripe stripe = stripeFor(key);
+        puts.increment();
+        stripe.lock.lock();
+        try {
+            long remainingNanos = TimeUnit.MILLISECONDS.toNanos(settings.putTimeoutMs());
+            while (true) {
+                // Checked again after every wait: another writer may have queued the key meanwhile
+                if (stripe.pending.containsKey(key)) {
+                    stripe.pending.put(key, value);
+                    coalesced.increment();
+                    return;
+                }
+                if (stripe.pending.size() + stripe.inFlight.size() < stripeCapacity) {
+                    break;
+                }
+                if (remainingNanos <= 0) {
+                    rejected.increment();
+                    throw new RejectedExecutionException("Write-behind buffer full for " + settings.putTimeoutMs() + " ms");
+                }
+                backpressureWaits.increment();
+                LockSupport.unpark(flusher);
+                remainingNanos = stripe.notFull.awaitNanos(remainingNanos);
+            }
+            stripe.pending.put(key, value);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for write-behind buffer space", e);
+        } finally {
+            stripe.lock.unlock();
+        }
+        if (pendingCount.incrementAndGet() >= settings.flushSize()) {
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    // Buffered value (pending or being flushed), or null when Redis holds the latest value
+    public TestData get(String key) {
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            TestData value = stripe.pending.get(key);
+            return value != null ? value : stripe.inFlight.get(key);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Drops a pending write and waits out an in-flight one, so a DEL issued after this call
+     * cannot be overtaken by the buffered SET. Returns true if a buffered value was discarded.
+     */
+    public boolean remove(String key) {
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            boolean removed = stripe.pending.remove(key) != null;
+            if (removed) {
+                pendingCount.decrementAndGet();
+                stripe.notFull.signalAll();
+            }
+            if (stripe.inFlight.containsKey(key)) {
+                // If this flush fails the value must not come back after the caller's DEL
+                stripe.removedInFlight.add(key);
+                removed = true;
+                while (stripe.inFlight.containsKey(key)) {
+                    stripe.flushed.awaitUninterruptibly();
+                }
+            }
+            return removed;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    /**
+     * Writes everything buffered so far. Returns true once it is in Redis, false when a batch
+     * failed; its entries stay buffered for the next flush.
+     */
+    public boolean flush() {
+        return drain();
+    }
+
+    // False when a batch failed and its entries were put back for the next flush
+    private boolean drain() {
+        flushLock.lock();
+        try {
+            List<Stripe> drained = new ArrayList<>();
+            List<Map.Entry<String, TestData>> entries = new ArrayList<>();
+            for (Stripe stripe : stripes) {
+                stripe.lock.lock();
+                try {
+                    if (stripe.pending.isEmpty()) {
+                        continue;
+                    }
+                    stripe.inFlight = stripe.pending;
+                    stripe.pending = new LinkedHashMap<>();
+                    entries.addAll(stripe.inFlight.entrySet());
+                    drained.add(stripe);
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+            if (entries.isEmpty()) {
+                return true;
+            }
+
+            // Starts out failed so an error escaping the writes still puts the entries back
+            boolean failed = true;
+            try {
+                failed = !writeAll(entries);
+            } finally {
+                release(drained, failed);
+            }
+            return !failed;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // False when a batch failed; later batches are still written
+    private boolean writeAll(List<Map.Entry<String, TestData>> entries) {
+        boolean failed = false;
+        int batchSize = Math.max(1, settings.flushSize());
+        for (int from = 0; from < entries.size(); from += batchSize) {
+            List<Map.Entry<String, TestData>> batch = entries.subList(from, Math.min(entries.size(), from + batchSize));
+            long start = System.nanoTime();
+            try {
+                writeBatch(batch);
+                flushLatency.record(System.nanoTime() - start);
+                flushedRecords.add(batch.size());
+                flushes.increment();
+            } catch (RuntimeException e) {
+                // Not only DataAccessException: a value that fails to serialize fails its batch as well
+                flushErrors.increment();
+                failed = true;
+                log.warn("Write-behind flush of {} records failed: {}", batch.size(), e.getMessage());
+            }
+        }
+        return !failed;
+    }
+
+    // Ends the flush of the drained stripes, wakes writers and removers waiting on them
+    private void release(List<Stripe> drained, boolean failed) {
+        for (Stripe stripe : drained) {
+            stripe.lock.lock();
+            try {
+                int released = stripe.inFlight.size();
+                if (failed) {
+                    // Keep the values for the next flush unless a newer write superseded them or they were removed
+                    for (Map.Entry<String, TestData> entry : stripe.inFlight.entrySet()) {
+                        if (!stripe.removedInFlight.contains(entry.getKey())
+                                && stripe.pending.putIfAbsent(entry.getKey(), entry.getValue()) == null) {
+                            released--;
+                        }
+                    }
+                }
+                stripe.removedInFlight.clear();
+                stripe.inFlight = Collections.emptyMap();
+                pendingCount.addAndGet(-released);
+                stripe.flushed.signalAll();
+                stripe.notFull.signalAll();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    private void writeBatch(List<Map.Entry<String, TestData>> batch) {
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, TestData> ops = (RedisOperations<String, TestData>) operations;
+                for (Map.Entry<String, TestData> entry : batch) {
+                    ops.opsForValue().set(entry.getKey(), entry.getValue(), settings.ttlSeconds(), TimeUnit.SECONDS);
+                }
+                return null;
+            }
+        });
+    }
+
+    private void flushLoop() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, settings.flushIntervalMs()));
+        long maxBackoffNanos = Math.max(intervalNanos, TimeUnit.MILLISECONDS.toNanos(MAX_RETRY_BACKOFF_MS));
+        long backoffNanos = 0;
+        while (running) {
+            if (backoffNanos > 0) {
+                // Waits out the whole delay: blocked writers unpark the flusher, which must not turn into a retry loop
+                long deadline = System.nanoTime() + backoffNanos;
+                for (long left = backoffNanos; running && left > 0; left = deadline - System.nanoTime()) {
+                    LockSupport.parkNanos(this, left);
+                }
+            } else if (pendingCount.get() < settings.flushSize()) {
+                LockSupport.parkNanos(this, intervalNanos);
+            }
+            boolean succeeded;
+            try {
+                succeeded = drain();
+            } catch (RuntimeException e) {
+                log.warn("Write-behind flusher error: {}", e.getMessage());
+                succeeded = false;
+            }
+            backoffNanos = succeeded ? 0 : Math.min(maxBackoffNanos, Math.max(intervalNanos, backoffNanos * 2));
+        }
+    }
+
+    private Stripe stripeFor(String key) {
+        int hash = key.hashCode();
+        return stripes[((hash ^ (hash >>> 16)) & 0x7fffffff) % stripes.length];
+    }
+
+    public Map<String, Object> getMetrics() {
+        long putCount = puts.sum();
+        long written = flushedRecords.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", settings.enabled());
+        metrics.put("pending", pendingCount.get());
+        metrics.put("capacity", stripeCapacity * stripes.length);
+        metrics.put("stripes", stripes.length);
+        metrics.put("puts", putCount);
+        metrics.put("coalesced", coalesced.sum());
+        metrics.put("flushedRecords", written);
+        metrics.put("coalescingRatio", written > 0 ? Math.round(putCount * 100.0 / written) / 100.0 : 0.0);
+        metrics.put("flushes", flushes.sum());
+        metrics.put("flushErrors", flushErrors.sum());
+        metrics.put("backpressureWaits", backpressureWaits.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("flushLatency", flushLatency.toSummary());
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            running = false;
+        }
+        if (flusher != null) {
+            LockSupport.unpark(flusher);
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+}
@@ -0,0 +1,567 @@
+package com.nayeem.redistest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nayeem.redistest.model.TestData;
+import com.nayeem.redistest.repository.ScanSlice;
+import com.nayeem.redistest.repository.TestDataRepository;
+import com.nayeem.redistest.resp.EmbeddedRespServer;
+import com.nayeem.redistest.service.BucketedTestDataStore;
+import com.nayeem.redistest.service.KeyspaceInvalidationListener;
+import com.nayeem.redistest.service.ReactiveRedisService;
+import com.nayeem.redistest.service.ReactiveSpringDataRedisService;
+import com.nayeem.redistest.service.RawJsonEnvelope;
+import com.nayeem.redistest.service.RedisService;
+import com.nayeem.redistest.service.SpringDataBatchWriter;
+import com.nayeem.redistest.service.TestDataBloomFilter;
+import com.nayeem.redistest.service.TestDataL1Cache;
+import com.nayeem.redistest.service.WriteBehindBuffer;
+import com.nayeem.redistest.service.SpringDataRedisService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "redis.embedded.enabled=true")
+class EmbeddedRedisRoundTripTests {
+
+	@Autowired
+	private RedisService redisService;
+
+	@Autowired
+	private SpringDataRedisService springDataRedisService;
+
+	@Autowired
+	private SpringDataBatchWriter springDataBatchWriter;
+
+	@Autowired
+	private TestDataRepository testDataRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private RedisTemplate<String, TestData> redisTemplate;
+
+	@Autowired
+	private RedisConnectionFactory connectionFactory;
+
+	@Autowired
+	private ReactiveRedisService reactiveRedisService;
+
+	@Autowired
+	private ReactiveSpringDataRedisService reactiveSpringDataRedisService;
+
+	@Autowired
+	private BucketedTestDataStore bucketedTestDataStore;
+
+	@Test
+	void redisTemplateRoundTrip() {
+		redisService.saveTestData(new TestData("rt-1", "Round Trip", "RedisTemplate path", null, 7));
+
+		TestData loaded = redisService.getTestData("rt-1");
+		assertNotNull(loaded);
+		assertEquals("Round Trip", loaded.getName());
+		assertNotNull(loaded.getCreatedAt());
+		assertTrue(redisService.existsTestData("rt-1"));
+
+		assertTrue(redisService.deleteTestData("rt-1"));
+		assertNull(redisService.getTestData("rt-1"));
+	}
+
+	@Test
+	void rawPassthroughMatchesTypedRead() throws Exception {
+		redisService.saveTestData(new TestData("raw-1", "Raw \"quoted\"", "passthrough", null, 11));
+
+		JsonNode single = objectMapper.readTree(RawJsonEnvelope.single(redisService.getRawTestData("raw-1")));
+		assertTrue(single.get("success").asBoolean());
+		assertEquals("Raw \"quoted\"", single.get("data").get("name").asText());
+
+		List<String> ids = List.of("raw-1", "raw-missing");
+		JsonNode multi = objectMapper.readTree(RawJsonEnvelope.multi(ids, redisService.getRawTestDataBatch(ids)));
+		assertEquals(1, multi.get("count").asInt());
+		assertEquals(11, multi.get("data").get(0).get("value").asInt());
+		assertEquals("raw-missing", multi.get("missing").get(0).asText());
+		assertNull(redisService.getTestDataBatch(ids).get(1));
+
+		assertTrue(redisService.deleteTestData("raw-1"));
+	}
+
+	@Test
+	void springDataRoundTrip() {
+		springDataRedisService.saveTestData(new TestData("sd-1", "Performance Test Data 1", "Spring Data path", null, 3));
+
+		TestData loaded = springDataRedisService.getTestData("sd-1").orElseThrow();
+		assertEquals(3, loaded.getValue());
+		assertTrue(springDataRedisService.existsTestData("sd-1"));
+		assertTrue(springDataRedisService.getAllTestData().stream().anyMatch(d -> d.getId().equals("sd-1")));
+
+		assertTrue(springDataRedisService.deleteTestData("sd-1"));
+		assertFalse(springDataRedisService.existsTestData("sd-1"));
+	}
+
+	@Test
+	void batchWriterKeepsRepositoryIndexes() {
+		springDataBatchWriter.saveAll(List.of(
+				new TestData("bw-1", "Batch A", "first", null, 1),
+				new TestData("bw-2", "Batch A", "second", null, 2)));
+		assertEquals(2, testDataRepository.findByName("Batch A").size());
+
+		// Rewriting an entity must move it out of its old index set
+		springDataBatchWriter.saveAll(List.of(new TestData("bw-2", "Batch B", "second", null, 2)));
+		assertEquals(List.of("bw-1"), testDataRepository.findByName("Batch A").stream().map(TestData::getId).toList());
+		assertEquals(2, testDataRepository.findByName("Batch B").get(0).getValue());
+
+		testDataRepository.deleteAllById(List.of("bw-1", "bw-2"));
+		assertTrue(testDataRepository.findByName("Batch A").isEmpty());
+	}
+
+	@Test
+	void reactiveServicesShareTheBlockingLayout() {
+		reactiveRedisService.saveTestData(new TestData("rx-1", "Reactive", "ReactiveRedisTemplate path", null, 5)).block();
+		assertEquals("Reactive", redisService.getTestData("rx-1").getName());
+		assertTrue(reactiveRedisService.deleteTestData("rx-1").block());
+
+		reactiveSpringDataRedisService.saveTestData(new TestData("rx-2", "Reactive A", "reactive repository layout", null, 6)).block();
+		assertEquals(6, testDataRepository.findById("rx-2").orElseThrow().getValue());
+		assertEquals(1, testDataRepository.findByName("Reactive A").size());
+
+		reactiveSpringDataRedisService.saveTestData(new TestData("rx-2", "Reactive B", "renamed", null, 6)).block();
+		assertTrue(testDataRepository.findByName("Reactive A").isEmpty());
+		assertEquals("Reactive B", reactiveSpringDataRedisService.getTestData("rx-2").block().getName());
+
+		assertTrue(reactiveSpringDataRedisService.deleteTestData("rx-2").block());
+		assertFalse(testDataRepository.existsById("rx-2"));
+		assertTrue(testDataRepository.findByName("Reactive B").isEmpty());
+	}
+
+	@Test
+	void writeBehindCoalescesAndReadsItsOwnWrites() {
+		// Long interval and large flush size: nothing is written until flush() is called
+		WriteBehindBuffer buffer = new WriteBehindBuffer(redisTemplate,
+				new WriteBehindBuffer.Settings(true, 4, 100, 1000, 60_000, 100, 60));
+		buffer.start();
+		try {
+			for (int i = 0; i < 10; i++) {
+				buffer.put("testdata:wb-1", new TestData("wb-1", "Write Behind", "update " + i, null, i));
+			}
+			buffer.put("testdata:wb-2", new TestData("wb-2", "Write Behind", "single", null, 1));
+			assertEquals(9, buffer.get("testdata:wb-1").getValue());
+			assertNull(redisService.getTestData("wb-1"));
+
+			assertTrue(buffer.remove("testdata:wb-2"));
+			buffer.flush();
+			assertEquals(9, redisService.getTestData("wb-1").getValue());
+			assertNull(redisService.getTestData("wb-2"));
+			assertEquals(11L, buffer.getMetrics().get("puts"));
+			assertEquals(1L, buffer.getMetrics().get("flushedRecords"));
+			assertEquals(0, buffer.getPendingCount());
+		} finally {
+			buffer.close();
+			redisService.deleteTestData("wb-1");
+		}
+	}
+
+	@Test
+	void streamConsumerGroupAndPubSub() throws Exception {
+		byte[] key = "test:stream".getBytes(StandardCharsets.UTF_8);
+		redisTemplate.execute((RedisCallback<Object>) connection -> {
+			connection.streamCommands().xGroupCreate(key, "group", ReadOffset.from("0"), true);
+			for (int i = 0; i < 3; i++) {
+				connection.streamCommands().xAdd(MapRecord.create(key, Map.of("n".getBytes(StandardCharsets.UTF_8), new byte[]{(byte) i})));
+			}
+			List<ByteRecord> first = connection.streamCommands().xReadGroup(Consumer.from("group", "c1"),
+					StreamReadOptions.empty().count(2), StreamOffset.create(key, ReadOffset.lastConsumed()));
+			assertEquals(2, first.size());
+			assertEquals(2L, connection.streamCommands().xPending(key, "group").getTotalPendingMessages());
+			assertEquals(1L, connection.streamCommands().xAck(key, "group", first.get(0).getId()));
+			assertEquals(1, connection.streamCommands().xReadGroup(Consumer.from("group", "c2"),
+					StreamReadOptions.empty().count(10), StreamOffset.create(key, ReadOffset.lastConsumed())).size());
+			assertEquals(2L, connection.streamCommands().xPending(key, "group").getTotalPendingMessages());
+			connection.keyCommands().del(key);
+			return null;
+		});
+
+		BlockingQueue<String> received = new LinkedBlockingQueue<>();
+		byte[] channel = "test:channel".getBytes(StandardCharsets.UTF_8);
+		try (RedisConnection subscriber = connectionFactory.getConnection()) {
+			subscriber.subscribe((message, pattern) -> received.add(new String(message.getBody(), StandardCharsets.UTF_8)), channel);
+			Long receivers = redisTemplate.execute((RedisCallback<Long>) connection ->
+					connection.publish(channel, "hello".getBytes(StandardCharsets.UTF_8)));
+			assertEquals(1L, receivers);
+			assertEquals("hello", received.poll(5, TimeUnit.SECONDS));
+		}
+	}
+
+	@Test
+	void l1CacheIsInvalidatedByKeyspaceNotifications() throws Exception {
+		TestDataL1Cache cache = new TestDataL1Cache(new TestDataL1Cache.Settings(true, 100, 60_000, 60_000, 4, false));
+		KeyspaceInvalidationListener listener = new KeyspaceInvalidationListener(cache, 0, "testdata");
+		RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+		container.setConnectionFactory(connectionFactory);
+		container.addMessageListener(listener, listener.topic());
+		redisTemplate.execute((RedisCallback<Object>) connection -> {
+			connection.serverCommands().setConfig("notify-keyspace-events", "Kghx");
+			return null;
+		});
+		container.afterPropertiesSet();
+		container.start();
+		try {
+			testDataRepository.save(new TestData("l1-1", "L1", "first", null, 1));
+			assertEquals(1, cache.getOrLoad("l1-1", testDataRepository::findById).orElseThrow().getValue());
+			assertTrue(cache.getOrLoad("l1-2", testDataRepository::findById).isEmpty());
+
+			// Written behind the cache's back, as another instance would
+			testDataRepository.save(new TestData("l1-1", "L1", "second", null, 2));
+			testDataRepository.save(new TestData("l1-2", "L1", "created", null, 3));
+			assertEquals(2, awaitLoaded(cache, "l1-1", 2).orElseThrow().getValue());
+			assertEquals(3, awaitLoaded(cache, "l1-2", 3).orElseThrow().getValue());
+
+			testDataRepository.deleteById("l1-1");
+			assertTrue(awaitLoaded(cache, "l1-1", -1).isEmpty());
+			// The delete's index-key notifications can still bump the stripe and skip caching the miss
+			awaitNotificationsDrained(cache);
+			assertTrue(cache.getOrLoad("l1-1", testDataRepository::findById).isEmpty());
+			long negativeHits = (Long) cache.getMetrics().get("negativeHits");
+			assertTrue(cache.getOrLoad("l1-1", id -> fail("a cached miss must not be loaded again")).isEmpty());
+			assertEquals(negativeHits + 1, cache.getMetrics().get("negativeHits"));
+		} finally {
+			container.destroy();
+			redisTemplate.execute((RedisCallback<Object>) connection -> {
+				connection.serverCommands().setConfig("notify-keyspace-events", "");
+				return null;
+			});
+			testDataRepository.deleteAllById(List.of("l1-1", "l1-2", "l1-marker"));
+		}
+	}
+
+	// Notifications are delivered in order, so once a marker write has evicted its entry every earlier one has been applied
+	private void awaitNotificationsDrained(TestDataL1Cache cache) throws InterruptedException {
+		AtomicBoolean loading = new AtomicBoolean(true);
+		while (loading.getAndSet(false)) {
+			cache.getOrLoad("l1-marker", id -> {
+				loading.set(true);
+				return Optional.empty();
+			});
+		}
+		redisTemplate.execute((RedisCallback<Object>) connection -> connection.hashCommands().hSet(
+				"testdata:l1-marker".getBytes(StandardCharsets.UTF_8), "f".getBytes(StandardCharsets.UTF_8), "v".getBytes(StandardCharsets.UTF_8)));
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		AtomicBoolean reloaded = new AtomicBoolean();
+		while (!reloaded.get() && System.nanoTime() < deadline) {
+			cache.getOrLoad("l1-marker", id -> {
+				reloaded.set(true);
+				return Optional.empty();
+			});
+			Thread.sleep(20);
+		}
+		assertTrue(reloaded.get(), "marker notification never arrived");
+	}
+
+	// Notifications arrive asynchronously; -1 waits for the id to read as absent
+	private Optional<TestData> awaitLoaded(TestDataL1Cache cache, String id, int value) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		Optional<TestData> loaded;
+		do {
+			loaded = cache.getOrLoad(id, testDataRepository::findById);
+			if (value < 0 ? loaded.isEmpty() : loaded.map(TestData::getValue).orElse(-1) == value) {
+				return loaded;
+			}
+			Thread.sleep(20);
+		} while (System.nanoTime() < deadline);
+		return loaded;
+	}
+
+	@Test
+	void existenceFilterIsBuiltFromScanAndOnlyTrustedWhileTracking() throws Exception {
+		TestDataBloomFilter.Settings settings = new TestDataBloomFilter.Settings(true, 1000, 0.01, true, 100, 0.2, false);
+		testDataRepository.save(new TestData("bloom-1", "Bloom", "scanned", null, 1));
+		AtomicBoolean subscribed = new AtomicBoolean(true);
+		try (TestDataBloomFilter scanned = new TestDataBloomFilter(redisTemplate, settings, 0)) {
+			scanned.attach(subscribed::get, true);
+			assertTrue(scanned.mightContain("bloom-missing"), "must answer maybe until built");
+			scanned.initialize();
+			awaitReady(scanned);
+			assertEquals("scan", scanned.getMetrics().get("source"));
+			assertTrue(scanned.mightContain("bloom-1"));
+			assertFalse(scanned.mightContain("bloom-missing"));
+
+			scanned.add("bloom-2");
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while ((Integer) scanned.getMetrics().get("pendingWords") > 0 && System.nanoTime() < deadline) {
+				Thread.sleep(20);
+			}
+			assertNotNull(redisTemplate.execute((RedisCallback<byte[]>) connection ->
+					connection.stringCommands().get("bloom:testdata".getBytes(StandardCharsets.UTF_8))));
+
+			subscribed.set(false);
+			assertTrue(scanned.mightContain("bloom-missing"), "must answer maybe once the subscription is lost");
+			subscribed.set(true);
+			assertTrue(scanned.mightContain("bloom-missing"), "must answer maybe until rescanned");
+			awaitReady(scanned);
+			assertFalse(scanned.mightContain("bloom-missing"));
+		}
+		try (TestDataBloomFilter unconfirmed = new TestDataBloomFilter(redisTemplate, settings, 0)) {
+			unconfirmed.attach(() -> true, false);
+			unconfirmed.initialize();
+			Thread.sleep(300);
+			assertEquals(false, unconfirmed.getMetrics().get("ready"));
+			assertTrue(unconfirmed.mightContain("bloom-missing"), "unconfirmed notifications must keep it at maybe");
+		} finally {
+			testDataRepository.deleteById("bloom-1");
+			redisTemplate.delete(List.of("bloom:testdata", "bloom:testdata:meta"));
+		}
+	}
+
+	private static void awaitReady(TestDataBloomFilter filter) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!Boolean.TRUE.equals(filter.getMetrics().get("ready")) && System.nanoTime() < deadline) {
+			Thread.sleep(20);
+		}
+		assertEquals(true, filter.getMetrics().get("ready"));
+	}
+
+	@Test
+	void bucketedStoreKeepsRecordsAsFieldsOfExpiringBuckets() {
+		List<TestData> records = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			records.add(new TestData("bucket-" + i, "Bucket " + i, "bucketed", LocalDateTime.now(), i));
+		}
+		bucketedTestDataStore.saveAll(records.subList(0, 19));
+		bucketedTestDataStore.saveTestData(records.get(19));
+
+		String bucket = bucketedTestDataStore.bucketKey("bucket-3");
+		assertTrue(bucket.startsWith("testdata:bucket:"));
+		assertEquals(bucket, bucketedTestDataStore.bucketKey("bucket-3"));
+		assertEquals("Bucket 3", bucketedTestDataStore.getTestData("bucket-3").getName());
+		assertEquals("Bucket 19", bucketedTestDataStore.getTestData("bucket-19").getName());
+		assertTrue(bucketedTestDataStore.existsTestData("bucket-7"));
+		Long ttl = redisTemplate.getExpire(bucket);
+		assertTrue(ttl != null && ttl > 0, "buckets should expire");
+
+		List<TestData> batch = bucketedTestDataStore.getTestDataBatch(List.of("bucket-1", "bucket-missing", "bucket-2"));
+		assertEquals(3, batch.size());
+		assertEquals("Bucket 1", batch.get(0).getName());
+		assertNull(batch.get(1));
+		assertEquals("Bucket 2", batch.get(2).getName());
+
+		assertTrue(bucketedTestDataStore.deleteTestData("bucket-3"));
+		assertFalse(bucketedTestDataStore.deleteTestData("bucket-3"));
+		assertNull(bucketedTestDataStore.getTestData("bucket-3"));
+		for (TestData record : records) {
+			bucketedTestDataStore.deleteTestData(record.getId());
+		}
+		assertFalse(Boolean.TRUE.equals(redisTemplate.hasKey(bucket)), "an empty bucket should be removed");
+	}
+
+	@Test
+	void replicaAppliesWritesAfterItsLagAndRefusesClientWrites() throws Exception {
+		try (EmbeddedRespServer master = new EmbeddedRespServer(0, 1); EmbeddedRespServer replica = new EmbeddedRespServer(0, 1)) {
+			master.start();
+			replica.start();
+			master.addReplica(replica, 200);
+			LettuceConnectionFactory masterFactory = connect(master);
+			LettuceConnectionFactory replicaFactory = connect(replica);
+			try (RedisConnection toMaster = masterFactory.getConnection(); RedisConnection toReplica = replicaFactory.getConnection()) {
+				byte[] key = "test:replicated".getBytes(StandardCharsets.UTF_8);
+				toMaster.stringCommands().set(key, "v1".getBytes(StandardCharsets.UTF_8));
+				assertNull(toReplica.stringCommands().get(key), "the replica should still be behind");
+				assertEquals("master", toMaster.serverCommands().info("replication").getProperty("role"));
+				assertEquals("slave", toReplica.serverCommands().info("replication").getProperty("role"));
+
+				long deadline = System.currentTimeMillis() + 5000;
+				while (toReplica.stringCommands().get(key) == null && System.currentTimeMillis() < deadline) {
+					Thread.sleep(10);
+				}
+				assertArrayEquals("v1".getBytes(StandardCharsets.UTF_8), toReplica.stringCommands().get(key));
+				assertThrows(Exception.class, () -> toReplica.stringCommands().set(key, "v2".getBytes(StandardCharsets.UTF_8)));
+				assertArrayEquals("v1".getBytes(StandardCharsets.UTF_8), toMaster.stringCommands().get(key));
+			} finally {
+				masterFactory.destroy();
+				replicaFactory.destroy();
+			}
+		}
+	}
+
+	private static LettuceConnectionFactory connect(EmbeddedRespServer server) {
+		LettuceConnectionFactory factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", server.getPort()));
+		factory.afterPropertiesSet();
+		factory.start();
+		return factory;
+	}
+
+	@Test
+	void sortedSetListAndCounterCommands() {
+		redisTemplate.execute((RedisCallback<Object>) connection -> {
+			byte[] board = "test:board".getBytes(StandardCharsets.UTF_8);
+			for (int i = 0; i < 5; i++) {
+				connection.zSetCommands().zAdd(board, i * 10, ("p" + i).getBytes(StandardCharsets.UTF_8));
+			}
+			assertEquals(3, connection.zSetCommands().zRangeByScore(board, 10, 30).size());
+			assertEquals("p4", new String(connection.zSetCommands().zRevRange(board, 0, 0).iterator().next(), StandardCharsets.UTF_8));
+			assertEquals(40.0, connection.zSetCommands().zScore(board, "p4".getBytes(StandardCharsets.UTF_8)));
+
+			byte[] queue = "test:queue".getBytes(StandardCharsets.UTF_8);
+			connection.listCommands().lPush(queue, "a".getBytes(StandardCharsets.UTF_8), "b".getBytes(StandardCharsets.UTF_8));
+			assertEquals("a", new String(connection.listCommands().rPop(queue), StandardCharsets.UTF_8));
+			assertEquals(1L, connection.listCommands().lLen(queue));
+
+			byte[] counters = "test:counters".getBytes(StandardCharsets.UTF_8);
+			connection.hashCommands().hIncrBy(counters, "7".getBytes(StandardCharsets.UTF_8), 2);
+			assertEquals(5L, connection.hashCommands().hIncrBy(counters, "7".getBytes(StandardCharsets.UTF_8), 3));
+			connection.keyCommands().del(board, queue, counters);
+			return null;
+		});
+	}
+
+	@Test
+	void concurrentAddsAndRemovesOnOneSetNeverLoseAMember() throws Exception {
+		try (EmbeddedRespServer server = new EmbeddedRespServer(0, 4)) {
+			server.start();
+			List<LettuceConnectionFactory> factories = new ArrayList<>();
+			List<Thread> threads = new ArrayList<>();
+			List<String> failures = Collections.synchronizedList(new ArrayList<>());
+			byte[] key = "test:churn".getBytes(StandardCharsets.UTF_8);
+			try {
+				// Each thread empties the set again and again while the others add to it
+				for (int t = 0; t < 4; t++) {
+					LettuceConnectionFactory factory = connect(server);
+					factories.add(factory);
+					byte[] member = ("m" + t).getBytes(StandardCharsets.UTF_8);
+					threads.add(new Thread(() -> {
+						try (RedisConnection connection = factory.getConnection()) {
+							for (int i = 0; i < 2000; i++) {
+								connection.setCommands().sAdd(key, member);
+								if (connection.setCommands().sRem(key, member) != 1L) {
+									failures.add("member " + new String(member, StandardCharsets.UTF_8) + " lost at " + i);
+									return;
+								}
+							}
+						}
+					}));
+				}
+				threads.forEach(Thread::start);
+				for (Thread thread : threads) {
+					thread.join(30000);
+				}
+				assertEquals(List.of(), failures);
+				try (RedisConnection connection = factories.get(0).getConnection()) {
+					assertFalse(connection.keyCommands().exists(key), "the emptied set should be gone");
+				}
+			} finally {
+				factories.forEach(LettuceConnectionFactory::destroy);
+			}
+		}
+	}
+
+	@Test
+	void malformedRequestFramesCloseTheConnection() throws Exception {
+		try (EmbeddedRespServer server = new EmbeddedRespServer(0, 1)) {
+			server.start();
+			// An oversized argument count is refused before anything is allocated for it
+			assertClosedBy(server, "*99999999\r\n");
+			assertClosedBy(server, "*1\r$4\r\nPING\r\n");
+			// Lengths and line sizes are refused up front instead of buffering for them
+			assertClosedBy(server, "*1\r\n$2000000000\r\n");
+			assertClosedBy(server, "*1\r\n$99999999999999999999\r\n");
+			assertClosedBy(server, "*9223372036854775808\r\n");
+			assertClosedBy(server, "a".repeat(64 * 1024 + 1));
+			try (Socket socket = new Socket("127.0.0.1", server.getPort())) {
+				socket.getOutputStream().write("*1\r\n$4\r\nPING\r\n".getBytes(StandardCharsets.US_ASCII));
+				byte[] reply = new byte[7];
+				assertEquals(7, socket.getInputStream().readNBytes(reply, 0, 7));
+				assertEquals("+PONG\r\n", new String(reply, StandardCharsets.US_ASCII));
+			}
+		}
+	}
+
+	private static void assertClosedBy(EmbeddedRespServer server, String frame) throws Exception {
+		try (Socket socket = new Socket("127.0.0.1", server.getPort())) {
+			socket.setSoTimeout(5000);
+			socket.getOutputStream().write(frame.getBytes(StandardCharsets.US_ASCII));
+			assertEquals(-1, socket.getInputStream().read(), "the server should close the connection on " + frame.trim());
+		}
+	}
+
+	@Test
+	void scanKeepsItsPlaceWhenKeysAreDeleted() {
+		redisTemplate.execute((RedisCallback<Object>) connection -> {
+			for (int i = 0; i < 2500; i++) {
+				connection.stringCommands().set(("scan-del:" + i).getBytes(StandardCharsets.UTF_8), new byte[] {1});
+			}
+			long seen = 0;
+			try (Cursor<byte[]> cursor = connection.keyCommands().scan(ScanOptions.scanOptions().match("scan-del:*").count(100).build())) {
+				while (cursor.hasNext()) {
+					connection.keyCommands().unlink(cursor.next());
+					seen++;
+				}
+			}
+			assertEquals(2500, seen);
+			assertTrue(connection.keyCommands().keys("scan-del:*".getBytes(StandardCharsets.UTF_8)).isEmpty());
+			return null;
+		});
+	}
+
+	@Test
+	void cursorPagesCoverEveryRecordOnce() {
+		List<TestData> records = new ArrayList<>();
+		for (int i = 0; i < 250; i++) {
+			records.add(new TestData("page-" + i, "Paging Test " + i, "cursor paging", LocalDateTime.now(), i));
+		}
+		springDataBatchWriter.saveAll(records);
+
+		Set<String> seen = new HashSet<>();
+		String cursor = null;
+		do {
+			ScanSlice<TestData> page = testDataRepository.scanByNameStartingWith("Paging Test ", cursor, 7);
+			assertTrue(page.content().size() <= 7);
+			page.content().forEach(data -> assertTrue(seen.add(data.getId()), "Returned twice: " + data.getId()));
+			cursor = page.nextCursor();
+		} while (cursor != null);
+		assertEquals(250, seen.size());
+
+		Slice<TestData> last = testDataRepository.findSliceByNameStartingWith("Paging Test ", PageRequest.of(2, 100));
+		assertEquals(50, last.getNumberOfElements());
+		assertFalse(last.hasNext());
+		try (Stream<TestData> stream = testDataRepository.streamByNameStartingWith("Paging Test ")) {
+			assertEquals(250, stream.count());
+		}
+
+		testDataRepository.deleteAll(records);
+		assertTrue(testDataRepository.scanByNameStartingWith("Paging Test ", null, 10).content().isEmpty());
+	}
+}
@@ -1,13 +1,26 @@
 package com.nayeem.redistest;
 
+import com.nayeem.redistest.reactive.ReactiveApiServer;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
 
-@SpringBootTest
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "redis.embedded.enabled=true")
 class RedistestApplicationTests {
 
+	@Autowired
+	private ApplicationContext context;
+
 	@Test
 	void contextLoads() {
 	}
 
+	@Test
+	void reactiveServerIsOptIn() {
+		assertTrue(context.getBeansOfType(ReactiveApiServer.class).isEmpty());
+	}
+
 }
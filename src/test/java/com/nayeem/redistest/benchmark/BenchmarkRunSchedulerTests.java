@@ -0,0 +1,106 @@
+package com.nayeem.redistest.benchmark;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BenchmarkRunSchedulerTests {
+
+	@Test
+	void capsConcurrentRunsAndReleasesSlotsOnClose() {
+		try (BenchmarkRunScheduler scheduler = new BenchmarkRunScheduler(new BenchmarkRunScheduler.Settings(1, 2, 4, false, 0))) {
+			BenchmarkRunScheduler.Run first = scheduler.open("first", 0);
+			assertThrows(RejectedExecutionException.class, () -> scheduler.open("second", 0));
+
+			first.close();
+			first.close();
+			BenchmarkRunScheduler.Run second = scheduler.open("second", 0);
+			assertEquals(1, scheduler.getActiveRuns().size());
+			second.close();
+		}
+	}
+
+	@Test
+	void stopAndDeadlineEndTheRun() throws Exception {
+		try (BenchmarkRunScheduler scheduler = new BenchmarkRunScheduler(new BenchmarkRunScheduler.Settings(2, 2, 4, false, 0))) {
+			CountDownLatch started = new CountDownLatch(1);
+			BenchmarkRunScheduler.Run stopped = scheduler.launch("stopped", 0, run -> {
+				started.countDown();
+				while (run.isActive()) {
+					Thread.onSpinWait();
+				}
+			});
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			assertTrue(scheduler.stop(stopped.getId()));
+			assertEquals(BenchmarkRunScheduler.StopReason.STOPPED, stopped.getStopReason());
+
+			BenchmarkRunScheduler.Run timed = scheduler.open("timed", 20);
+			assertTrue(timed.isActive());
+			Thread.sleep(50);
+			assertFalse(timed.isActive());
+			assertEquals(BenchmarkRunScheduler.StopReason.DEADLINE, timed.getStopReason());
+			timed.close();
+		}
+	}
+
+	@Test
+	void closeCompletesAfterListenersFinishTheirCloseWork() {
+		try (BenchmarkRunScheduler scheduler = new BenchmarkRunScheduler(new BenchmarkRunScheduler.Settings(1, 2, 4, false, 0))) {
+			CompletableFuture<Void> summary = new CompletableFuture<>();
+			scheduler.addListener(new BenchmarkRunScheduler.RunListener() {
+				@Override
+				public void runOpened(BenchmarkRunScheduler.Run run) {
+				}
+
+				@Override
+				public CompletableFuture<Void> runClosed(BenchmarkRunScheduler.Run run) {
+					return summary;
+				}
+			});
+			BenchmarkRunScheduler.Run run = scheduler.open("listened", 0);
+			CompletableFuture<Void> closed = run.closeAsync();
+			assertEquals(1, scheduler.getMetrics().get("availableSlots"), "the slot is released right away");
+			assertFalse(closed.isDone());
+
+			summary.completeExceptionally(new IllegalStateException("summary failed"));
+			assertTrue(closed.isDone());
+			assertFalse(closed.isCompletedExceptionally());
+			assertSame(closed, run.closeAsync());
+		}
+	}
+
+	@Test
+	void workerGroupStopsWithTheRunAndReportsFailures() throws Exception {
+		try (BenchmarkRunScheduler scheduler = new BenchmarkRunScheduler(new BenchmarkRunScheduler.Settings(1, 4, 4, false, 0))) {
+			assertThrows(RejectedExecutionException.class, () -> scheduler.requireWorkers(4));
+			scheduler.requireWorkers(3);
+
+			BenchmarkRunScheduler.Run run = scheduler.open("workers", 0);
+			WorkerGroup workers = new WorkerGroup(run, "test");
+			CountDownLatch started = new CountDownLatch(2);
+			for (int i = 0; i < 2; i++) {
+				workers.start(() -> {
+					started.countDown();
+					while (workers.isRunning()) {
+						Thread.onSpinWait();
+					}
+				});
+			}
+			workers.start(() -> {
+				throw new IllegalArgumentException("boom");
+			});
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			run.stop();
+
+			IllegalStateException failure = assertThrows(IllegalStateException.class, workers::await);
+			assertEquals("1 of 3 test workers failed: boom", failure.getMessage());
+			assertInstanceOf(IllegalArgumentException.class, failure.getCause());
+			run.close();
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package com.nayeem.redistest.benchmark;
+
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JfrSummaryTests {
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void summarizesGcPausesAndParkSites(@TempDir Path dir) throws Exception {
+		Path file = dir.resolve("test.jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("jdk.GarbageCollection");
+			recording.enable("jdk.ThreadPark").withThreshold(Duration.ofMillis(1)).withStackTrace();
+			recording.start();
+			for (int i = 0; i < 3; i++) {
+				LockSupport.parkNanos(20_000_000);
+			}
+			System.gc();
+			recording.stop();
+			recording.dump(file);
+		}
+
+		Map<String, Object> summary = JfrSummary.summarize(file, 5);
+
+		Map<String, Object> gc = (Map<String, Object>) summary.get("gc");
+		assertTrue((Long) gc.get("collections") >= 1);
+
+		Map<String, Object> park = (Map<String, Object>) summary.get("threadPark");
+		assertTrue((Double) park.get("totalMs") >= 50);
+		List<Map<String, Object>> sites = (List<Map<String, Object>>) park.get("topSites");
+		assertTrue(sites.stream().anyMatch(site -> ((String) site.get("site")).startsWith(JfrSummaryTests.class.getName())),
+				"park sites should skip JDK frames: " + sites);
+		assertTrue(sites.size() <= 5);
+	}
+}
@@ -0,0 +1,155 @@
+package com.nayeem.redistest.benchmark;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RunComparisonTests {
+
+	private static final RunComparison.Settings SETTINGS = new RunComparison.Settings(5, 0.05);
+
+	private static Map<String, Object> run(String id, List<Double> rates, List<Double> p99s) {
+		return run(id, rates, p99s, "windows");
+	}
+
+	private static Map<String, Object> run(String id, List<Double> rates, List<Double> p99s, String sampleKind) {
+		Map<String, Object> series = new LinkedHashMap<>();
+		series.put("name", "redistemplate");
+		series.put("rate", Statistics.mean(rates));
+		series.put("p99Us", Statistics.mean(p99s));
+		series.put("rateSamples", rates);
+		series.put("p99Samples", p99s);
+		series.put("sampleKind", sampleKind);
+		Map<String, Object> run = new LinkedHashMap<>();
+		run.put("id", id);
+		run.put("name", "headless-mixed");
+		run.put("config", Map.of("concurrency", 4));
+		run.put("environment", Map.of("java", "17"));
+		run.put("series", List.of(series));
+		return run;
+	}
+
+	private static Map<String, Object> metric(Map<String, Object> comparison, String name) {
+		for (Object row : (List<?>) comparison.get("metrics")) {
+			Map<?, ?> metric = (Map<?, ?>) row;
+			if (name.equals(metric.get("metric"))) {
+				@SuppressWarnings("unchecked")
+				Map<String, Object> result = (Map<String, Object>) metric;
+				return result;
+			}
+		}
+		throw new AssertionError("No metric " + name);
+	}
+
+	@Test
+	void significantThroughputDropAndP99RiseAreRegressions() {
+		Map<String, Object> baseline = run("a", List.of(1000.0, 1010.0, 990.0, 1005.0, 995.0), List.of(200.0, 205.0, 195.0, 202.0, 198.0));
+		Map<String, Object> candidate = run("b", List.of(800.0, 810.0, 790.0, 805.0, 795.0), List.of(300.0, 305.0, 295.0, 302.0, 298.0));
+
+		Map<String, Object> comparison = RunComparison.compare(baseline, candidate, SETTINGS);
+
+		assertEquals("REGRESSION", comparison.get("verdict"));
+		assertEquals("REGRESSION", metric(comparison, "throughput").get("verdict"));
+		assertEquals(-20.0, (double) metric(comparison, "throughput").get("changePct"), 0.5);
+		assertEquals("REGRESSION", metric(comparison, "p99Us").get("verdict"));
+		assertTrue((double) metric(comparison, "p99Us").get("pValue") < 0.05);
+
+		String markdown = RunComparison.markdown(candidate, baseline, comparison);
+		assertTrue(markdown.startsWith("# Benchmark Report: headless-mixed"));
+		assertTrue(markdown.contains("| redistemplate | throughput | 1,000.00 | 800.00 | -20.00% |"));
+		assertTrue(markdown.contains("**REGRESSION**"));
+	}
+
+	@Test
+	void noisyOrSmallChangesAreNotRegressions() {
+		Map<String, Object> baseline = run("a", List.of(1000.0, 1400.0, 600.0, 1200.0, 800.0), List.of(200.0, 201.0, 199.0));
+		// 10% lower, but well inside the noise of either run
+		Map<String, Object> noisy = run("b", List.of(900.0, 1300.0, 500.0, 1100.0, 700.0), List.of(202.0, 203.0, 201.0));
+
+		Map<String, Object> comparison = RunComparison.compare(baseline, noisy, SETTINGS);
+
+		assertEquals("PASS", comparison.get("verdict"));
+		assertEquals("NO_CHANGE", metric(comparison, "throughput").get("verdict"));
+		// 1% higher: below the threshold however significant
+		assertEquals("NO_CHANGE", metric(comparison, "p99Us").get("verdict"));
+	}
+
+	private static List<Double> ramp(double from, double step, int count) {
+		List<Double> values = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			values.add(from + i * step);
+		}
+		return values;
+	}
+
+	@Test
+	void driftingWindowsOfOneRunAreNotIndependentSamples() {
+		// Each run drifts upwards; its windows are strongly autocorrelated. As independent samples
+		// the 10% gap would be highly significant, but there are too few uncorrelated batches to tell.
+		Map<String, Object> baseline = run("a", ramp(900, 10, 20), ramp(200, 1, 20));
+		Map<String, Object> candidate = run("b", ramp(800, 10, 20), ramp(200, 1, 20));
+
+		assertTrue(Statistics.welchPValue(ramp(800, 10, 20), ramp(900, 10, 20)) < 0.001);
+		Map<String, Object> comparison = RunComparison.compare(baseline, candidate, SETTINGS);
+
+		assertEquals("PASS", comparison.get("verdict"));
+		assertEquals("INCONCLUSIVE", metric(comparison, "throughput").get("verdict"));
+		assertEquals(0, metric(comparison, "throughput").get("candidateSamples"));
+
+		// The same figures from independent trials are a regression
+		Map<String, Object> trials = RunComparison.compare(run("a", ramp(900, 10, 20), ramp(200, 1, 20), "trials"),
+				run("b", ramp(800, 10, 20), ramp(200, 1, 20), "trials"), SETTINGS);
+		assertEquals("REGRESSION", metric(trials, "throughput").get("verdict"));
+		assertEquals(20, metric(trials, "throughput").get("candidateSamples"));
+	}
+
+	@Test
+	void batchMeansGrowUntilTheMeansAreUncorrelated() {
+		List<Double> alternating = List.of(10.0, 12.0, 9.0, 11.0, 10.0, 12.0, 9.0, 11.0);
+		assertEquals(alternating, Statistics.batchMeans(alternating, 3, 0.2));
+
+		// Pairs of equal windows: correlated one apart, independent as pair means
+		List<Double> pairs = List.of(10.0, 10.0, 12.0, 12.0, 9.0, 9.0, 13.0, 13.0, 11.0, 11.0, 8.0, 8.0);
+		assertEquals(List.of(10.0, 12.0, 9.0, 13.0, 11.0, 8.0), Statistics.batchMeans(pairs, 3, 0.2));
+
+		assertEquals(List.of(), Statistics.batchMeans(ramp(0, 1, 10), 3, 0.2));
+	}
+
+	@Test
+	void resultEntriesAreNamedByTheirAllowListedFields() {
+		Map<String, Object> baseline = new LinkedHashMap<>();
+		baseline.put("id", "a");
+		baseline.put("results", List.of(Map.of("layout", "HASH", "mode", "SYNC", "lastError", "timeout", "throughput", 1000.0)));
+		Map<String, Object> candidate = new LinkedHashMap<>();
+		candidate.put("id", "b");
+		candidate.put("results", List.of(Map.of("layout", "HASH", "mode", "SYNC", "lastError", "none", "throughput", 990.0)));
+
+		Map<String, Object> comparison = RunComparison.compare(baseline, candidate, SETTINGS);
+
+		assertEquals("SYNC/HASH", metric(comparison, "throughput").get("series"));
+		assertEquals(List.of(), comparison.get("onlyInBaseline"));
+		assertEquals(List.of(), comparison.get("onlyInCandidate"));
+	}
+
+	@Test
+	void runsWithoutSamplesAreComparedOnTheirResultEntries() {
+		Map<String, Object> baseline = new LinkedHashMap<>();
+		baseline.put("id", "a");
+		baseline.put("results", List.of(Map.of("mode", "SYNC", "throughput", 1000.0, "writeLatency", Map.of("p99Us", 100.0))));
+		Map<String, Object> candidate = new LinkedHashMap<>();
+		candidate.put("id", "b");
+		candidate.put("results", List.of(Map.of("mode", "SYNC", "throughput", 700.0, "writeLatency", Map.of("p99Us", 101.0))));
+
+		Map<String, Object> comparison = RunComparison.compare(baseline, candidate, SETTINGS);
+
+		assertEquals("PASS", comparison.get("verdict"));
+		assertEquals("INCONCLUSIVE", metric(comparison, "throughput").get("verdict"));
+		assertNull(metric(comparison, "throughput").get("pValue"));
+		assertEquals("NO_CHANGE", metric(comparison, "writeLatency.p99Us").get("verdict"));
+	}
+}
@@ -0,0 +1,47 @@
+package com.nayeem.redistest.benchmark;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatisticsTests {
+
+	@Test
+	void tQuantileMatchesTables() {
+		assertEquals(12.706, Statistics.tQuantile(0.975, 1), 0.001);
+		assertEquals(4.303, Statistics.tQuantile(0.975, 2), 0.001);
+		assertEquals(3.182, Statistics.tQuantile(0.975, 3), 0.01);
+		assertEquals(2.571, Statistics.tQuantile(0.975, 5), 0.005);
+		assertEquals(2.228, Statistics.tQuantile(0.975, 10), 0.002);
+		assertEquals(1.960, Statistics.tQuantile(0.975, 100000), 0.001);
+	}
+
+	@Test
+	void confidenceIntervalAndWelchTest() {
+		List<Double> a = List.of(100.0, 102.0, 98.0, 101.0, 99.0);
+		List<Double> b = List.of(50.0, 52.0, 48.0, 51.0, 49.0);
+
+		double[] ci = Statistics.confidenceInterval(a, 0.95);
+		assertEquals(100.0 - 2.776 * Statistics.stddev(a) / Math.sqrt(5), ci[0], 0.05);
+		assertEquals(100.0 + 2.776 * Statistics.stddev(a) / Math.sqrt(5), ci[1], 0.05);
+
+		double[] ratio = Statistics.ratioConfidenceInterval(a, b, 0.95);
+		assertTrue(ratio[0] < 2.0 && ratio[1] > 2.0);
+
+		assertTrue(Statistics.welchPValue(a, b) < 0.001);
+		assertTrue(Statistics.welchPValue(a, a) > 0.99);
+	}
+
+	@Test
+	void histogramPercentilesStayWithinBucketPrecision() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long i = 1; i <= 10_000; i++) {
+			histogram.record(i * 1_000);
+		}
+		assertEquals(5_000_000, histogram.getPercentileNanos(50), 5_000_000 * 0.04);
+		assertEquals(9_900_000, histogram.getPercentileNanos(99), 9_900_000 * 0.04);
+		assertEquals(10_000_000, histogram.getMaxNanos());
+	}
+}
@@ -0,0 +1,60 @@
+package com.nayeem.redistest.cli;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"redis.embedded.enabled=true", "bench.exit-on-finish=false",
+		"benchmark.results.directory=target/headless-bench-results"},
+		args = {"--workload=mixed", "--engines=redistemplate,bucketed", "--concurrency=2", "--duration=1",
+				"--warmup-ms=200", "--records=200", "--output=target/headless-bench-test.json"})
+@ActiveProfiles("bench")
+class HeadlessBenchmarkRunnerTests {
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void runnerWritesOneMeasuredResultPerEngine() throws Exception {
+		File output = Path.of("target/headless-bench-test.json").toFile();
+		assertTrue(output.isFile(), "the runner should have written its result file during startup");
+		JsonNode result = objectMapper.readTree(output);
+		assertEquals("MIXED", result.path("config").path("workload").asText());
+		JsonNode engines = result.path("results");
+		assertEquals(2, engines.size());
+		assertEquals("redistemplate", engines.get(0).path("engine").asText());
+		assertEquals("bucketed", engines.get(1).path("engine").asText());
+		for (JsonNode engine : engines) {
+			assertTrue(engine.path("measured").path("ops").asLong() > 0);
+			assertEquals(0, engine.path("measured").path("errors").asLong());
+		}
+		String storedRun = result.path("storedRun").asText();
+		assertTrue(Path.of("target/headless-bench-results", storedRun + ".json").toFile().isFile());
+		Files.deleteIfExists(output.toPath());
+	}
+
+	@Test
+	void optionsAcceptKebabCaseNamesAndRejectUnknownOnes() {
+		BenchmarkCliOptions options = BenchmarkCliOptions.parse(new DefaultApplicationArguments(
+				"--workload=read", "--engines=spring-data,REACTIVE", "--format=csv"));
+		assertEquals(BenchmarkCliOptions.Workload.READ, options.workload());
+		assertEquals(1.0, options.effectiveReadRatio());
+		assertEquals(2, options.engines().size());
+		assertEquals(BenchmarkCliOptions.Engine.SPRING_DATA, options.engines().get(0));
+		assertEquals(Path.of("bench-result.csv"), options.output());
+		assertThrows(IllegalArgumentException.class, () -> BenchmarkCliOptions.parse(
+				new DefaultApplicationArguments("--engines=memcached")));
+		assertThrows(IllegalArgumentException.class, () -> BenchmarkCliOptions.parse(
+				new DefaultApplicationArguments("--concurrency=0")));
+	}
+}
@@ -0,0 +1,46 @@
+package com.nayeem.redistest.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nayeem.redistest.benchmark.BenchmarkRunScheduler;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BenchmarkSuiteTests {
+
+	private final BenchmarkResultStore resultStore = new BenchmarkResultStore(null, new ObjectMapper(), false,
+			"bench-results", 1, 1, 5, 0.05);
+
+	@Test
+	void runsOneAtATimeAndReportsFailures() throws Exception {
+		try (BenchmarkRunScheduler scheduler = new BenchmarkRunScheduler(new BenchmarkRunScheduler.Settings(2, 4, 4, false, 0))) {
+			BenchmarkSuite suite = new BenchmarkSuite("suite-test", "Suite test", scheduler, resultStore);
+			CountDownLatch release = new CountDownLatch(1);
+			assertTrue(suite.launch(Map.of("records", 1), run -> {
+				suite.phase("measuring");
+				suite.addResult(Map.of("throughput", 1.0));
+				release.await();
+				throw new IllegalStateException("phase failed");
+			}));
+			assertFalse(suite.launch(Map.of(), run -> fail("a second run must not start")));
+			assertTrue(suite.isRunning());
+
+			release.countDown();
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (suite.isRunning() && System.nanoTime() < deadline) {
+				Thread.sleep(10);
+			}
+			Map<String, Object> status = suite.getStatus();
+			assertEquals(false, status.get("testRunning"));
+			assertEquals("idle", status.get("phase"));
+			assertEquals(Map.of("records", 1), status.get("config"));
+			assertEquals("phase failed", status.get("failure"));
+			assertEquals(List.of(Map.of("throughput", 1.0)), status.get("results"));
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package com.nayeem.redistest.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTests {
+
+	@Test
+	void hashTagsFollowTheClusterRule() {
+		assertEquals("abc", HashTags.routingKey("testdata:{abc}:idx"));
+		assertEquals("testdata:{}:idx", HashTags.routingKey("testdata:{}:idx"));
+		assertEquals("{abc}", HashTags.tagged("abc"));
+		assertEquals("{abc}", HashTags.tagged("{abc}"));
+		assertEquals(HashTags.slot("testdata:{42}"), HashTags.slot("testdata:{42}:idx"));
+	}
+
+	@Test
+	void taggedKeysShareANodeAndAddingANodeMovesAboutItsShare() {
+		ConsistentHashRing<String> three = new ConsistentHashRing<>(List.of("a", "b", "c"), Function.identity(), 160);
+		ConsistentHashRing<String> four = new ConsistentHashRing<>(List.of("a", "b", "c", "d"), Function.identity(), 160);
+		int keys = 20_000;
+		int moved = 0;
+		int[] perNode = new int[4];
+		for (int i = 0; i < keys; i++) {
+			String key = "testdata:{" + i + "}";
+			assertEquals(three.nodeFor(key), three.nodeFor(key + ":idx"));
+			String before = three.nodeFor(key);
+			String after = four.nodeFor(key);
+			if (!before.equals(after)) {
+				assertEquals("d", after, "keys may only move to the new node");
+				moved++;
+			}
+			perNode[after.charAt(0) - 'a']++;
+		}
+		assertEquals(0.25, (double) moved / keys, 0.05);
+		for (int count : perNode) {
+			assertEquals(0.25, (double) count / keys, 0.05);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package com.nayeem.redistest.service;
+
+import com.nayeem.redistest.model.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WriteBehindBufferTests {
+
+	@SuppressWarnings("unchecked")
+	private final RedisTemplate<String, TestData> redisTemplate = mock(RedisTemplate.class);
+
+	// No flusher thread is started, so the tests decide when a flush runs
+	private WriteBehindBuffer buffer(int capacity, long putTimeoutMs) {
+		return new WriteBehindBuffer(redisTemplate,
+				new WriteBehindBuffer.Settings(true, 1, capacity, 100, 1000, putTimeoutMs, 60));
+	}
+
+	private static TestData data(String id) {
+		return new TestData(id, "name-" + id, null, null, 1);
+	}
+
+	@Test
+	void failedFlushKeepsEntriesForTheNextFlush() {
+		when(redisTemplate.executePipelined(any(SessionCallback.class)))
+				.thenThrow(new SerializationException("cannot serialize"))
+				.thenReturn(List.of());
+		WriteBehindBuffer buffer = buffer(10, 100);
+		buffer.put("a", data("a"));
+
+		assertFalse(buffer.flush());
+		assertEquals(1, buffer.getPendingCount());
+		assertEquals("a", buffer.get("a").getId());
+		assertEquals(1L, buffer.getMetrics().get("flushErrors"));
+
+		assertTrue(buffer.flush());
+		assertEquals(0, buffer.getPendingCount());
+		assertNull(buffer.get("a"));
+		// Nothing in flight any more, so removing the flushed key neither blocks nor discards anything
+		assertFalse(buffer.remove("a"));
+	}
+
+	@Test
+	void fullBufferRejectsNewKeysButCoalescesPendingOnes() {
+		WriteBehindBuffer buffer = buffer(2, 20);
+		buffer.put("a", data("a"));
+		buffer.put("b", data("b"));
+
+		assertThrows(RejectedExecutionException.class, () -> buffer.put("c", data("c")));
+		buffer.put("a", data("a"));
+		assertEquals(2, buffer.getPendingCount());
+		assertEquals(1L, buffer.getMetrics().get("rejected"));
+		assertEquals(1L, buffer.getMetrics().get("coalesced"));
+
+		assertTrue(buffer.remove("b"));
+		buffer.put("c", data("c"));
+		assertEquals(2, buffer.getPendingCount());
+	}
+
+	@Test
+	void removeWaitsForTheInFlightWriteAndKeepsAFailedOneFromComingBack() throws Exception {
+		CountDownLatch writing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+			writing.countDown();
+			release.await();
+			throw new RedisConnectionFailureException("connection lost");
+		});
+		WriteBehindBuffer buffer = buffer(10, 100);
+		buffer.put("a", data("a"));
+		buffer.put("b", data("b"));
+
+		CompletableFuture<Boolean> flush = CompletableFuture.supplyAsync(buffer::flush);
+		assertTrue(writing.await(5, TimeUnit.SECONDS));
+		assertEquals("a", buffer.get("a").getId());
+		CompletableFuture<Boolean> remove = CompletableFuture.supplyAsync(() -> buffer.remove("a"));
+		Thread.sleep(50);
+		assertFalse(remove.isDone());
+
+		release.countDown();
+		assertFalse(flush.get(5, TimeUnit.SECONDS));
+		assertTrue(remove.get(5, TimeUnit.SECONDS));
+		assertNull(buffer.get("a"));
+		assertEquals("b", buffer.get("b").getId());
+		assertEquals(1, buffer.getPendingCount());
+	}
+}